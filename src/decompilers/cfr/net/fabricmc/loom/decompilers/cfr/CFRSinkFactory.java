@@ -132,7 +132,7 @@ public class CFRSinkFactory implements OutputSinkFactory {
 		entry.setSize(data.length);
 
 		try {
-			logger.accept("Writing: " + filename);
+			logger.accept("Decompiling " + filename);
 			outputStream.putNextEntry(entry);
 			outputStream.write(data);
 			outputStream.closeEntry();
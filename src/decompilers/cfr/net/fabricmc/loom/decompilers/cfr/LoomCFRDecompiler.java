@@ -26,12 +26,9 @@ package net.fabricmc.loom.decompilers.cfr;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
-import java.io.Writer;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashMap;
-import java.util.Locale;
 import java.util.Map;
 import java.util.jar.Attributes;
 import java.util.jar.JarOutputStream;
@@ -45,6 +42,7 @@ import org.benf.cfr.reader.util.getopt.Options;
 import org.benf.cfr.reader.util.getopt.OptionsImpl;
 import org.benf.cfr.reader.util.output.SinkDumperFactory;
 
+import net.fabricmc.loom.decompilers.LineMapWriter;
 import net.fabricmc.loom.decompilers.LoomInternalDecompiler;
 
 public final class LoomCFRDecompiler implements LoomInternalDecompiler {
@@ -98,29 +96,20 @@ public final class LoomCFRDecompiler implements LoomInternalDecompiler {
 	}
 
 	private void writeLineMap(Path output, Map<String, Map<Integer, Integer>> lineMap) {
-		try (Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+		try (LineMapWriter writer = new LineMapWriter(output)) {
 			for (Map.Entry<String, Map<Integer, Integer>> classEntry : lineMap.entrySet()) {
 				final String name = classEntry.getKey().replace(".", "/");
 
 				final Map<Integer, Integer> mapping = classEntry.getValue();
-
-				int maxLine = 0;
-				int maxLineDest = 0;
-				StringBuilder builder = new StringBuilder();
+				final int[] lines = new int[mapping.size() * 2];
+				int i = 0;
 
 				for (Map.Entry<Integer, Integer> mappingEntry : mapping.entrySet()) {
-					final int src = mappingEntry.getKey();
-					final int dst = mappingEntry.getValue();
-
-					maxLine = Math.max(maxLine, src);
-					maxLineDest = Math.max(maxLineDest, dst);
-
-					builder.append("\t").append(src).append("\t").append(dst).append("\n");
+					lines[i++] = mappingEntry.getKey();
+					lines[i++] = mappingEntry.getValue();
 				}
 
-				writer.write(String.format(Locale.ENGLISH, "%s\t%d\t%d\n", name, maxLine, maxLineDest));
-				writer.write(builder.toString());
-				writer.write("\n");
+				writer.write(name, lines);
 			}
 		} catch (IOException e) {
 			throw new UncheckedIOException("Failed to write line map", e);
@@ -0,0 +1,107 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.decompilers;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Writes the line numbers mapped by the decompiler in a compact binary format.
+ *
+ * <p>The file starts with {@link #MAGIC} and {@link #VERSION}, followed by an entry per class containing the class name,
+ * the highest source and destination lines, and the mapped lines sorted by the source line.
+ */
+public final class LineMapWriter implements Closeable {
+	public static final int MAGIC = 0x4C4D4150; // LMAP
+	public static final int VERSION = 1;
+
+	private final DataOutputStream output;
+
+	public LineMapWriter(Path path) throws IOException {
+		output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+		output.writeInt(MAGIC);
+		output.writeInt(VERSION);
+	}
+
+	/**
+	 * @param className the internal name of the class
+	 * @param mapping pairs of source and destination line numbers, when a source line is present more than once the last one is used
+	 */
+	public synchronized void write(String className, int[] mapping) throws IOException {
+		final int pairs = mapping.length / 2;
+		// Sort by the source line, and then by the position in the input
+		final long[] order = new long[pairs];
+
+		for (int i = 0; i < pairs; i++) {
+			order[i] = ((long) mapping[i * 2] << 32) | i;
+		}
+
+		Arrays.sort(order);
+
+		final int[] srcLines = new int[pairs];
+		final int[] dstLines = new int[pairs];
+		int count = 0;
+		int maxLine = 0;
+		int maxLineDest = 0;
+
+		for (long value : order) {
+			final int index = (int) value;
+			final int src = mapping[index * 2];
+			final int dst = mapping[index * 2 + 1];
+
+			if (count > 0 && srcLines[count - 1] == src) {
+				// Replace the previous occurrence of the same source line
+				count--;
+			}
+
+			srcLines[count] = src;
+			dstLines[count] = dst;
+			count++;
+
+			maxLine = Math.max(maxLine, src);
+			maxLineDest = Math.max(maxLineDest, dst);
+		}
+
+		output.writeUTF(className);
+		output.writeInt(maxLine);
+		output.writeInt(maxLineDest);
+		output.writeInt(count);
+
+		for (int i = 0; i < count; i++) {
+			output.writeInt(srcLines[i]);
+			output.writeInt(dstLines[i]);
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		output.close();
+	}
+}
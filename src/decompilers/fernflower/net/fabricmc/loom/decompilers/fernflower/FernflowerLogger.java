@@ -59,7 +59,7 @@ public class FernflowerLogger extends IFernflowerLogger {
 
 	@Override
 	public void startReadingClass(String className) {
-		write("Decompiling " + className);
+		write("Reading " + className);
 	}
 
 	@Override
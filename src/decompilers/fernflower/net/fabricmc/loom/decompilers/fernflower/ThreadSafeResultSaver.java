@@ -26,9 +26,7 @@ package net.fabricmc.loom.decompilers.fernflower;
 
 import java.io.File;
 import java.io.FileOutputStream;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
@@ -46,6 +44,7 @@ import org.jetbrains.java.decompiler.main.DecompilerContext;
 import org.jetbrains.java.decompiler.main.extern.IResultSaver;
 
 import net.fabricmc.fernflower.api.IFabricResultSaver;
+import net.fabricmc.loom.decompilers.LineMapWriter;
 
 /**
  * Created by covers1624 on 18/02/19.
@@ -56,7 +55,7 @@ public class ThreadSafeResultSaver implements IResultSaver, IFabricResultSaver {
 
 	public Map<String, ZipOutputStream> outputStreams = new HashMap<>();
 	public Map<String, ExecutorService> saveExecutors = new HashMap<>();
-	public PrintWriter lineMapWriter;
+	public LineMapWriter lineMapWriter;
 
 	public ThreadSafeResultSaver(Supplier<File> output, Supplier<File> lineMapFile) {
 		this.output = output;
@@ -79,7 +78,7 @@ public class ThreadSafeResultSaver implements IResultSaver, IFabricResultSaver {
 
 		if (lineMapFile.get() != null) {
 			try {
-				lineMapWriter = new PrintWriter(new FileWriter(lineMapFile.get()));
+				lineMapWriter = new LineMapWriter(lineMapFile.get().toPath());
 			} catch (IOException e) {
 				throw new RuntimeException("Unable to create line mapping file: " + lineMapFile.get(), e);
 			}
@@ -109,18 +108,11 @@ public class ThreadSafeResultSaver implements IResultSaver, IFabricResultSaver {
 			}
 
 			if (mapping != null && lineMapWriter != null) {
-				int maxLine = 0;
-				int maxLineDest = 0;
-				StringBuilder builder = new StringBuilder();
-
-				for (int i = 0; i < mapping.length; i += 2) {
-					maxLine = Math.max(maxLine, mapping[i]);
-					maxLineDest = Math.max(maxLineDest, mapping[i + 1]);
-					builder.append("\t").append(mapping[i]).append("\t").append(mapping[i + 1]).append("\n");
+				try {
+					lineMapWriter.write(qualifiedName, mapping);
+				} catch (IOException e) {
+					DecompilerContext.getLogger().writeMessage("Cannot write line mapping for " + qualifiedName, e);
 				}
-
-				lineMapWriter.println(qualifiedName + "\t" + maxLine + "\t" + maxLineDest);
-				lineMapWriter.println(builder.toString());
 			}
 		});
 	}
@@ -150,8 +142,11 @@ public class ThreadSafeResultSaver implements IResultSaver, IFabricResultSaver {
 		saveExecutors.remove(key);
 
 		if (lineMapWriter != null) {
-			lineMapWriter.flush();
-			lineMapWriter.close();
+			try {
+				lineMapWriter.close();
+			} catch (IOException e) {
+				throw new RuntimeException("Unable to close line mapping file: " + lineMapFile.get(), e);
+			}
 		}
 	}
 
@@ -26,9 +26,7 @@ package net.fabricmc.loom.decompilers.vineflower;
 
 import java.io.File;
 import java.io.FileOutputStream;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
@@ -45,13 +43,15 @@ import java.util.zip.ZipOutputStream;
 import org.jetbrains.java.decompiler.main.DecompilerContext;
 import org.jetbrains.java.decompiler.main.extern.IResultSaver;
 
+import net.fabricmc.loom.decompilers.LineMapWriter;
+
 public class ThreadSafeResultSaver implements IResultSaver {
 	private final Supplier<File> output;
 	private final Supplier<File> lineMapFile;
 
 	public Map<String, ZipOutputStream> outputStreams = new HashMap<>();
 	public Map<String, ExecutorService> saveExecutors = new HashMap<>();
-	public PrintWriter lineMapWriter;
+	public LineMapWriter lineMapWriter;
 
 	public ThreadSafeResultSaver(Supplier<File> output, Supplier<File> lineMapFile) {
 		this.output = output;
@@ -74,7 +74,7 @@ public class ThreadSafeResultSaver implements IResultSaver {
 
 		if (lineMapFile.get() != null) {
 			try {
-				lineMapWriter = new PrintWriter(new FileWriter(lineMapFile.get()));
+				lineMapWriter = new LineMapWriter(lineMapFile.get().toPath());
 			} catch (IOException e) {
 				throw new RuntimeException("Unable to create line mapping file: " + lineMapFile.get(), e);
 			}
@@ -104,18 +104,11 @@ public class ThreadSafeResultSaver implements IResultSaver {
 			}
 
 			if (mapping != null && lineMapWriter != null) {
-				int maxLine = 0;
-				int maxLineDest = 0;
-				StringBuilder builder = new StringBuilder();
-
-				for (int i = 0; i < mapping.length; i += 2) {
-					maxLine = Math.max(maxLine, mapping[i]);
-					maxLineDest = Math.max(maxLineDest, mapping[i + 1]);
-					builder.append("\t").append(mapping[i]).append("\t").append(mapping[i + 1]).append("\n");
+				try {
+					lineMapWriter.write(qualifiedName, mapping);
+				} catch (IOException e) {
+					DecompilerContext.getLogger().writeMessage("Cannot write line mapping for " + qualifiedName, e);
 				}
-
-				lineMapWriter.println(qualifiedName + "\t" + maxLine + "\t" + maxLineDest);
-				lineMapWriter.println(builder.toString());
 			}
 		});
 	}
@@ -145,8 +138,11 @@ public class ThreadSafeResultSaver implements IResultSaver {
 		saveExecutors.remove(key);
 
 		if (lineMapWriter != null) {
-			lineMapWriter.flush();
-			lineMapWriter.close();
+			try {
+				lineMapWriter.close();
+			} catch (IOException e) {
+				throw new RuntimeException("Unable to close line mapping file: " + lineMapFile.get(), e);
+			}
 		}
 	}
 
@@ -62,7 +62,7 @@ public class VineflowerLogger extends IFernflowerLogger {
 
 	@Override
 	public void startReadingClass(String className) {
-		write("Decompiling " + className);
+		write("Reading " + className);
 	}
 
 	@Override
@@ -26,9 +26,11 @@ package net.fabricmc.loom.api.processor;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Map;
 
 import org.gradle.api.Named;
 import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassVisitor;
 
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
@@ -43,11 +45,41 @@ public interface MinecraftJarProcessor<S extends MinecraftJarProcessor.Spec> ext
 		return null;
 	}
 
+	/**
+	 * Processors that only transform classes should return a {@link ClassProcessor}, allowing the visitors of all
+	 * processors to be applied in a single pass over the jar. When present {@link #processJar} is not called.
+	 */
+	@Nullable
+	default ClassProcessor<S> processClasses() {
+		return null;
+	}
+
 	interface Spec {
 		// Must make sure hashCode is correctly implemented.
+
+		/**
+		 * Returns a stable description of the contents of this spec, identical across builds and machines for the same inputs.
+		 * Used to share processed jars between projects, the default of null prevents the processed jar from being shared.
+		 */
+		@Nullable
+		default String getCacheKey() {
+			return null;
+		}
 	}
 
 	interface MappingsProcessor<S> {
 		boolean transform(MemoryMappingTree mappings, S spec, MappingProcessorContext context);
 	}
+
+	interface ClassProcessor<S> {
+		/**
+		 * @return the visitor factories to apply, keyed by the internal name of the class they transform
+		 */
+		Map<String, ClassVisitorFactory> createClassVisitors(S spec, ProcessorContext context) throws IOException;
+	}
+
+	@FunctionalInterface
+	interface ClassVisitorFactory {
+		ClassVisitor create(ClassVisitor classVisitor);
+	}
 }
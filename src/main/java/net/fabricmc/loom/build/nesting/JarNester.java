@@ -28,6 +28,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.util.Collection;
+import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -39,6 +40,7 @@ import org.gradle.api.UncheckedIOException;
 import org.slf4j.Logger;
 
 import net.fabricmc.loom.util.Pair;
+import net.fabricmc.loom.util.ZipOutputBuffer;
 import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.loom.util.fmj.FabricModJsonFactory;
 
@@ -60,40 +62,61 @@ public class JarNester {
 				}
 			}).collect(Collectors.toList()));
 
-			int count = ZipUtils.transformJson(JsonObject.class, modJar.toPath(), Stream.of(new Pair<>("fabric.mod.json", json -> {
-				JsonArray nestedJars = json.getAsJsonArray("jars");
+			int count = ZipUtils.transformJson(JsonObject.class, modJar.toPath(), Stream.of(new Pair<>("fabric.mod.json", json -> addNestedJars(json, jars, modJar.getName(), logger))));
 
-				if (nestedJars == null || !json.has("jars")) {
-					nestedJars = new JsonArray();
-				}
+			Preconditions.checkState(count > 0, "Failed to transform fabric.mod.json");
+		} catch (IOException e) {
+			throw new java.io.UncheckedIOException("Failed to nest jars into " + modJar.getName(), e);
+		}
+	}
+
+	/**
+	 * Nests the jars into a mod jar that is being written through a {@link ZipOutputBuffer}.
+	 */
+	public static void nestJars(Collection<File> jars, ZipOutputBuffer output, String modJarName, Logger logger) throws IOException {
+		if (jars.isEmpty()) {
+			logger.debug("Nothing to nest into " + modJarName);
+			return;
+		}
+
+		Preconditions.checkArgument(output.contains("fabric.mod.json"), "Cannot nest jars into none mod jar " + modJarName);
 
-				for (File file : jars) {
-					String nestedJarPath = "META-INF/jars/" + file.getName();
-					Preconditions.checkArgument(FabricModJsonFactory.isModJar(file), "Cannot nest none mod jar: " + file.getName());
+		for (File file : jars) {
+			output.put("META-INF/jars/" + file.getName(), Files.readAllBytes(file.toPath()));
+		}
 
-					for (JsonElement nestedJar : nestedJars) {
-						JsonObject jsonObject = nestedJar.getAsJsonObject();
+		int count = output.transformJson(JsonObject.class, Map.of("fabric.mod.json", json -> addNestedJars(json, jars, modJarName, logger)));
+		Preconditions.checkState(count > 0, "Failed to transform fabric.mod.json");
+	}
 
-						if (jsonObject.has("file") && jsonObject.get("file").getAsString().equals(nestedJarPath)) {
-							throw new IllegalStateException("Cannot nest 2 jars at the same path: " + nestedJarPath);
-						}
-					}
+	private static JsonObject addNestedJars(JsonObject json, Collection<File> jars, String modJarName, Logger logger) {
+		JsonArray nestedJars = json.getAsJsonArray("jars");
 
-					JsonObject jsonObject = new JsonObject();
-					jsonObject.addProperty("file", nestedJarPath);
-					nestedJars.add(jsonObject);
+		if (nestedJars == null || !json.has("jars")) {
+			nestedJars = new JsonArray();
+		}
 
-					logger.debug("Nested " + nestedJarPath + " into " + modJar.getName());
-				}
+		for (File file : jars) {
+			String nestedJarPath = "META-INF/jars/" + file.getName();
+			Preconditions.checkArgument(FabricModJsonFactory.isModJar(file), "Cannot nest none mod jar: " + file.getName());
 
-				json.add("jars", nestedJars);
+			for (JsonElement nestedJar : nestedJars) {
+				JsonObject jsonObject = nestedJar.getAsJsonObject();
 
-				return json;
-			})));
+				if (jsonObject.has("file") && jsonObject.get("file").getAsString().equals(nestedJarPath)) {
+					throw new IllegalStateException("Cannot nest 2 jars at the same path: " + nestedJarPath);
+				}
+			}
 
-			Preconditions.checkState(count > 0, "Failed to transform fabric.mod.json");
-		} catch (IOException e) {
-			throw new java.io.UncheckedIOException("Failed to nest jars into " + modJar.getName(), e);
+			JsonObject jsonObject = new JsonObject();
+			jsonObject.addProperty("file", nestedJarPath);
+			nestedJars.add(jsonObject);
+
+			logger.debug("Nested " + nestedJarPath + " into " + modJarName);
 		}
+
+		json.add("jars", nestedJars);
+
+		return json;
 	}
 }
@@ -31,6 +31,14 @@ import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Consumer;
 
 import javax.inject.Inject;
@@ -42,6 +50,7 @@ import org.gradle.api.tasks.SourceSet;
 import org.gradle.api.tasks.TaskContainer;
 import org.gradle.api.tasks.compile.JavaCompile;
 import org.gradle.api.tasks.javadoc.Javadoc;
+import org.jetbrains.annotations.VisibleForTesting;
 
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.api.InterfaceInjectionExtensionAPI;
@@ -54,14 +63,17 @@ import net.fabricmc.loom.configuration.ifaceinject.InterfaceInjectionProcessor;
 import net.fabricmc.loom.configuration.processors.MinecraftJarProcessorManager;
 import net.fabricmc.loom.configuration.processors.ModJavadocProcessor;
 import net.fabricmc.loom.configuration.providers.mappings.MappingConfiguration;
+import net.fabricmc.loom.configuration.providers.minecraft.MinecraftJar;
 import net.fabricmc.loom.configuration.providers.minecraft.MinecraftJarConfiguration;
 import net.fabricmc.loom.configuration.providers.minecraft.MinecraftProvider;
+import net.fabricmc.loom.configuration.providers.minecraft.MinecraftProviderRegistry;
 import net.fabricmc.loom.configuration.providers.minecraft.MinecraftSourceSets;
 import net.fabricmc.loom.configuration.providers.minecraft.mapped.AbstractMappedMinecraftProvider;
 import net.fabricmc.loom.configuration.providers.minecraft.mapped.IntermediaryMinecraftProvider;
 import net.fabricmc.loom.configuration.providers.minecraft.mapped.NamedMinecraftProvider;
 import net.fabricmc.loom.extension.MixinExtension;
 import net.fabricmc.loom.util.Checksum;
+import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.ExceptionUtil;
 import net.fabricmc.loom.util.gradle.GradleUtils;
 import net.fabricmc.loom.util.gradle.SourceSetHelper;
@@ -69,6 +81,8 @@ import net.fabricmc.loom.util.service.ScopedSharedServiceManager;
 import net.fabricmc.loom.util.service.SharedServiceManager;
 
 public abstract class CompileConfiguration implements Runnable {
+	private static final long CONCURRENT_REMAP_MIN_MEMORY = 2L * 1024 * 1024 * 1024;
+
 	@Inject
 	protected abstract Project getProject();
 
@@ -137,27 +151,37 @@ public abstract class CompileConfiguration implements Runnable {
 		}
 	}
 
-	// This is not thread safe across getProject()s synchronize it here just to be sure, might be possible to move this further down, but for now this will do.
-	private synchronized void setupMinecraft(ConfigContext configContext) throws Exception {
+	// The work that does not depend on the project is shared across projects using the build scoped MinecraftProviderRegistry.
+	private void setupMinecraft(ConfigContext configContext) throws Exception {
 		final Project project = configContext.project();
 		final LoomGradleExtension extension = configContext.extension();
 		final MinecraftJarConfiguration jarConfiguration = extension.getMinecraftJarConfiguration().get();
+		final MinecraftProviderRegistry registry = MinecraftProviderRegistry.get(project);
 
-		// Provide the vanilla mc jars -- TODO share across getProject()s.
+		// Provide the vanilla mc jars
 		final MinecraftProvider minecraftProvider = jarConfiguration.getMinecraftProviderFunction().apply(configContext);
 		extension.setMinecraftProvider(minecraftProvider);
 		minecraftProvider.init();
 
 		final DependencyInfo mappingsDep = DependencyInfo.create(getProject(), Configurations.MAPPINGS);
-		final MappingConfiguration mappingConfiguration = MappingConfiguration.create(getProject(), configContext.serviceManager(), mappingsDep, minecraftProvider);
+		final MinecraftProviderRegistry.Key key = minecraftProvider.getRegistryKey()
+				.withMappings(extension.getIntermediateMappingsProvider().getName(), mappingsDep.getResolvedDepString());
+
+		final MappingConfiguration mappingConfiguration = registry.getOrCompute(key, "mappings", project, () ->
+				MappingConfiguration.create(getProject(), configContext.serviceManager(), mappingsDep, minecraftProvider)
+		);
 		extension.setMappingConfiguration(mappingConfiguration);
 		mappingConfiguration.applyToProject(getProject(), mappingsDep);
 
-		minecraftProvider.provide();
+		registry.measure("minecraft", project, () -> {
+			minecraftProvider.provide();
+			return null;
+		});
 
 		// Provide the remapped mc jars
 		final IntermediaryMinecraftProvider<?> intermediaryMinecraftProvider = jarConfiguration.getIntermediaryMinecraftProviderBiFunction().apply(project, minecraftProvider);
-		NamedMinecraftProvider<?> namedMinecraftProvider = jarConfiguration.getNamedMinecraftProviderBiFunction().apply(project, minecraftProvider);
+		final NamedMinecraftProvider<?> unprocessedMinecraftProvider = jarConfiguration.getNamedMinecraftProviderBiFunction().apply(project, minecraftProvider);
+		NamedMinecraftProvider<?> namedMinecraftProvider = unprocessedMinecraftProvider;
 
 		registerGameProcessors(configContext);
 		MinecraftJarProcessorManager minecraftJarProcessorManager = MinecraftJarProcessorManager.create(getProject());
@@ -167,13 +191,85 @@ public abstract class CompileConfiguration implements Runnable {
 			namedMinecraftProvider = jarConfiguration.getProcessedNamedMinecraftProviderBiFunction().apply(namedMinecraftProvider, minecraftJarProcessorManager);
 		}
 
-		final var provideContext = new AbstractMappedMinecraftProvider.ProvideContext(true, extension.refreshDeps(), configContext);
+		final boolean refresh = extension.refreshDeps();
+		final Map<String, AbstractMappedMinecraftProvider<?>> remapStages = new LinkedHashMap<>();
+		remapStages.put("intermediary minecraft", intermediaryMinecraftProvider);
 
-		extension.setIntermediaryMinecraftProvider(intermediaryMinecraftProvider);
-		intermediaryMinecraftProvider.provide(provideContext);
+		if (minecraftJarProcessorManager == null || !refresh) {
+			// When refreshing, the processed provider remaps the named jars itself.
+			remapStages.put("named minecraft", unprocessedMinecraftProvider);
+		}
 
+		extension.setIntermediaryMinecraftProvider(intermediaryMinecraftProvider);
 		extension.setNamedMinecraftProvider(namedMinecraftProvider);
-		namedMinecraftProvider.provide(provideContext);
+
+		// Remap the jars once for all the projects, and then add the dependencies to this project.
+		remapShared(registry, key, remapStages, new AbstractMappedMinecraftProvider.ProvideContext(false, refresh, configContext));
+		intermediaryMinecraftProvider.provide(new AbstractMappedMinecraftProvider.ProvideContext(true, false, configContext));
+
+		if (minecraftJarProcessorManager == null) {
+			namedMinecraftProvider.provide(new AbstractMappedMinecraftProvider.ProvideContext(true, false, configContext));
+		} else {
+			// The processed jars are specific to this project.
+			final NamedMinecraftProvider<?> processedMinecraftProvider = namedMinecraftProvider;
+			registry.measure("processed minecraft", project, () -> processedMinecraftProvider.provide(new AbstractMappedMinecraftProvider.ProvideContext(true, refresh, configContext)));
+		}
+	}
+
+	/**
+	 * The intermediary and named jars are both remapped from the same input jars, and do not depend on each other.
+	 * When there is enough memory to hold both remappers, they are remapped at the same time.
+	 */
+	private void remapShared(MinecraftProviderRegistry registry, MinecraftProviderRegistry.Key key, Map<String, AbstractMappedMinecraftProvider<?>> stages, AbstractMappedMinecraftProvider.ProvideContext context) throws Exception {
+		// Resolve everything from the project here, the remaps themselves never see the project.
+		final String projectPath = getProject().getPath();
+		final Map<String, MinecraftProviderRegistry.Stage<List<MinecraftJar>>> remaps = new LinkedHashMap<>();
+
+		for (Map.Entry<String, AbstractMappedMinecraftProvider<?>> entry : stages.entrySet()) {
+			remaps.put(entry.getKey(), entry.getValue().prepareRemap(context)::run);
+		}
+
+		final boolean concurrent = canRemapConcurrently(Runtime.getRuntime().maxMemory(), GradleUtils.getBooleanProperty(getProject(), Constants.Properties.DISABLE_PARALLEL_MINECRAFT_REMAP));
+		remapShared(registry, key, projectPath, remaps, concurrent);
+	}
+
+	@VisibleForTesting
+	public static void remapShared(MinecraftProviderRegistry registry, MinecraftProviderRegistry.Key key, String projectPath, Map<String, MinecraftProviderRegistry.Stage<List<MinecraftJar>>> remaps, boolean concurrent) throws Exception {
+		if (remaps.size() < 2 || !concurrent) {
+			for (Map.Entry<String, MinecraftProviderRegistry.Stage<List<MinecraftJar>>> entry : remaps.entrySet()) {
+				registry.getOrCompute(key, entry.getKey(), projectPath, entry.getValue());
+			}
+
+			return;
+		}
+
+		final ExecutorService executor = Executors.newFixedThreadPool(remaps.size());
+
+		try {
+			final List<CompletableFuture<List<MinecraftJar>>> futures = new ArrayList<>();
+
+			for (Map.Entry<String, MinecraftProviderRegistry.Stage<List<MinecraftJar>>> entry : remaps.entrySet()) {
+				futures.add(CompletableFuture.supplyAsync(() -> {
+					try {
+						return registry.getOrCompute(key, entry.getKey(), projectPath, entry.getValue());
+					} catch (Exception e) {
+						throw new CompletionException(e);
+					}
+				}, executor));
+			}
+
+			CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+		} catch (CompletionException e) {
+			throw ExceptionUtil.createDescriptiveWrapper(RuntimeException::new, "Failed to remap minecraft", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@VisibleForTesting
+	public static boolean canRemapConcurrently(long maxMemory, boolean disabled) {
+		// Each remapper holds all of the classes of the input jars in memory.
+		return maxMemory >= CONCURRENT_REMAP_MIN_MEMORY && !disabled;
 	}
 
 	private void registerGameProcessors(ConfigContext configContext) {
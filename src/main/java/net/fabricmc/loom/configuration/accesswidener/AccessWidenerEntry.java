@@ -44,5 +44,10 @@ public interface AccessWidenerEntry {
 
 	String getSortKey();
 
+	/**
+	 * @return A stable description of the entry contents, used as part of the processed jar cache key.
+	 */
+	String getCacheKey() throws IOException;
+
 	void read(AccessWidenerVisitor visitor, LazyCloseable<TinyRemapper> remapper) throws IOException;
 }
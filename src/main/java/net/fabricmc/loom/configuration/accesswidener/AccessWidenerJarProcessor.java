@@ -32,6 +32,7 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.StringJoiner;
 
 import javax.inject.Inject;
 
@@ -102,6 +103,21 @@ public class AccessWidenerJarProcessor implements MinecraftJarProcessor<AccessWi
 	}
 
 	public record Spec(List<AccessWidenerEntry> accessWideners) implements MinecraftJarProcessor.Spec {
+		@Override
+		public String getCacheKey() {
+			final var sj = new StringJoiner("\n");
+
+			for (AccessWidenerEntry entry : accessWideners) {
+				try {
+					sj.add(entry.getCacheKey());
+				} catch (IOException e) {
+					throw new UncheckedIOException("Failed to read access widener " + entry.getSortKey(), e);
+				}
+			}
+
+			return sj.toString();
+		}
+
 		List<AccessWidenerEntry> accessWidenersForContext(ProcessorContext context) {
 			return accessWideners.stream()
 					.filter(entry -> isSupported(entry.environment(), context))
@@ -129,6 +145,16 @@ public class AccessWidenerJarProcessor implements MinecraftJarProcessor<AccessWi
 
 	@Override
 	public void processJar(Path jar, AccessWidenerJarProcessor.Spec spec, ProcessorContext context) throws IOException {
+		AccessWidenerTransformer transformer = new AccessWidenerTransformer(readAccessWideners(spec, context));
+		transformer.apply(jar);
+	}
+
+	@Override
+	public ClassProcessor<Spec> processClasses() {
+		return (spec, context) -> new AccessWidenerTransformer(readAccessWideners(spec, context)).getClassVisitors();
+	}
+
+	private static AccessWidener readAccessWideners(AccessWidenerJarProcessor.Spec spec, ProcessorContext context) throws IOException {
 		final List<AccessWidenerEntry> accessWideners = spec.accessWidenersForContext(context);
 
 		final var accessWidener = new AccessWidener();
@@ -139,8 +165,7 @@ public class AccessWidenerJarProcessor implements MinecraftJarProcessor<AccessWi
 			}
 		}
 
-		AccessWidenerTransformer transformer = new AccessWidenerTransformer(accessWidener);
-		transformer.apply(jar);
+		return accessWidener;
 	}
 
 	@Override
@@ -27,20 +27,16 @@ package net.fabricmc.loom.configuration.accesswidener;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.Path;
-import java.util.List;
-import java.util.Set;
+import java.util.Map;
 import java.util.stream.Collectors;
 
-import org.objectweb.asm.ClassReader;
-import org.objectweb.asm.ClassVisitor;
-import org.objectweb.asm.ClassWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import net.fabricmc.accesswidener.AccessWidener;
 import net.fabricmc.accesswidener.AccessWidenerClassVisitor;
+import net.fabricmc.loom.api.processor.MinecraftJarProcessor;
 import net.fabricmc.loom.util.Constants;
-import net.fabricmc.loom.util.Pair;
 import net.fabricmc.loom.util.ZipUtils;
 
 final class AccessWidenerTransformer {
@@ -57,28 +53,26 @@ final class AccessWidenerTransformer {
 	 */
 	void apply(Path jarFile) {
 		try {
-			ZipUtils.transform(jarFile, getTransformers(accessWidener.getTargets()));
+			ZipUtils.transform(jarFile, getTransformers());
 		} catch (IOException e) {
 			throw new UncheckedIOException("Failed to apply access wideners to %s".formatted(jarFile), e);
 		}
 	}
 
-	private List<Pair<String, ZipUtils.UnsafeUnaryOperator<byte[]>>> getTransformers(Set<String> classes) {
-		return classes.stream()
-				.map(string -> new Pair<>(string.replaceAll("\\.", "/") + ".class", getTransformer(string)))
-				.collect(Collectors.toList());
+	Map<String, MinecraftJarProcessor.ClassVisitorFactory> getClassVisitors() {
+		return accessWidener.getTargets().stream()
+				.collect(Collectors.toMap(string -> string.replaceAll("\\.", "/"), this::getClassVisitor));
 	}
 
-	private ZipUtils.UnsafeUnaryOperator<byte[]> getTransformer(String className) {
-		return input -> {
-			ClassReader reader = new ClassReader(input);
-			ClassWriter writer = new ClassWriter(0);
-			ClassVisitor classVisitor = AccessWidenerClassVisitor.createClassVisitor(Constants.ASM_VERSION, writer, accessWidener);
+	private Map<String, ZipUtils.UnsafeUnaryOperator<byte[]>> getTransformers() {
+		return getClassVisitors().entrySet().stream()
+				.collect(Collectors.toMap(entry -> entry.getKey() + ".class", entry -> (ZipUtils.AsmClassOperator) entry.getValue()::create));
+	}
 
+	private MinecraftJarProcessor.ClassVisitorFactory getClassVisitor(String className) {
+		return classVisitor -> {
 			LOGGER.debug("Applying access widener to " + className);
-
-			reader.accept(classVisitor, 0);
-			return writer.toByteArray();
+			return AccessWidenerClassVisitor.createClassVisitor(Constants.ASM_VERSION, classVisitor, accessWidener);
 		};
 	}
 }
@@ -68,6 +68,11 @@ public record LocalAccessWidenerEntry(Path path, String hash) implements AccessW
 		return "local";
 	}
 
+	@Override
+	public String getCacheKey() {
+		return getSortKey() + ":" + hash;
+	}
+
 	@Override
 	public int hashCode() {
 		return hash.hashCode();
@@ -37,6 +37,7 @@ import net.fabricmc.accesswidener.AccessWidenerRemapper;
 import net.fabricmc.accesswidener.AccessWidenerVisitor;
 import net.fabricmc.accesswidener.TransitiveOnlyFilter;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
+import net.fabricmc.loom.util.Checksum;
 import net.fabricmc.loom.util.LazyCloseable;
 import net.fabricmc.loom.util.fmj.FabricModJson;
 import net.fabricmc.loom.util.fmj.ModEnvironment;
@@ -66,6 +67,11 @@ public record ModAccessWidenerEntry(FabricModJson mod, String path, ModEnvironme
 		return mod.getId() + ":" + path;
 	}
 
+	@Override
+	public String getCacheKey() throws IOException {
+		return getSortKey() + ":" + environment + ":" + transitiveOnly + ":" + Checksum.sha1Hex(readRaw());
+	}
+
 	@Override
 	public void read(AccessWidenerVisitor visitor, LazyCloseable<TinyRemapper> remapper) throws IOException {
 		if (transitiveOnly) {
@@ -25,6 +25,7 @@
 package net.fabricmc.loom.configuration.decompile;
 
 import java.io.File;
+import java.util.List;
 
 import org.gradle.api.Action;
 import org.gradle.api.Project;
@@ -37,6 +38,7 @@ import net.fabricmc.loom.configuration.providers.minecraft.mapped.MappedMinecraf
 import net.fabricmc.loom.task.GenerateSourcesTask;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.Strings;
+import net.fabricmc.loom.util.gradle.GradleUtils;
 
 public final class SplitDecompileConfiguration extends DecompileConfiguration<MappedMinecraftProvider.Split> {
 	public SplitDecompileConfiguration(Project project, MappedMinecraftProvider.Split minecraftProvider) {
@@ -53,6 +55,11 @@ public final class SplitDecompileConfiguration extends DecompileConfiguration<Ma
 		final MinecraftJar commonJar = minecraftProvider.getCommonJar();
 		final MinecraftJar clientOnlyJar = minecraftProvider.getClientOnlyJar();
 
+		if (GradleUtils.getBooleanProperty(project, Constants.Properties.COMBINED_SPLIT_DECOMPILE)) {
+			createCombinedDecompileTasks(commonJar, clientOnlyJar);
+			return;
+		}
+
 		final TaskProvider<Task> commonDecompileTask = createDecompileTasks("Common", task -> {
 			task.getInputJarName().set(commonJar.getName());
 			task.getOutputJar().fileValue(GenerateSourcesTask.getMappedJarFileWithSuffix("-sources.jar", commonJar.getPath()));
@@ -97,6 +104,55 @@ public final class SplitDecompileConfiguration extends DecompileConfiguration<Ma
 		});
 	}
 
+	// Decompile both jars in a single worker, the tasks for each jar depend on the combined task.
+	private void createCombinedDecompileTasks(MinecraftJar commonJar, MinecraftJar clientOnlyJar) {
+		for (DecompilerOptions options : extension.getDecompilerOptions()) {
+			final String decompilerName = options.getFormattedName();
+
+			final TaskProvider<GenerateSourcesTask> decompileTask = project.getTasks().register("genSourcesWith" + decompilerName, GenerateSourcesTask.class, options);
+			decompileTask.configure(task -> {
+				task.getInputJarName().set(commonJar.getName());
+				task.getOutputJar().fileValue(GenerateSourcesTask.getMappedJarFileWithSuffix("-sources.jar", commonJar.getPath()));
+				task.getAdditionalInputJarNames().add(clientOnlyJar.getName());
+				task.getAdditionalOutputJars().from(GenerateSourcesTask.getMappedJarFileWithSuffix("-sources.jar", clientOnlyJar.getPath()));
+
+				if (mappingConfiguration.hasUnpickDefinitions()) {
+					// The client only jar is unpicked next to it, as minecraft-clientonly-unpicked.jar
+					File unpickJar = new File(extension.getMappingConfiguration().mappingsWorkingDir().toFile(), "minecraft-common-unpicked.jar");
+					configureUnpick(task, unpickJar);
+				}
+
+				task.dependsOn(project.getTasks().named("validateAccessWidener"));
+				task.setDescription("Decompile minecraft using %s.".formatted(decompilerName));
+				task.setGroup(Constants.TaskGroup.FABRIC);
+			});
+
+			for (String name : List.of("Common", "ClientOnly")) {
+				project.getTasks().register("gen%sSourcesWith%s".formatted(name, decompilerName), task -> {
+					task.setDescription("Decompile minecraft (%s) using %s.".formatted(name, decompilerName));
+					task.setGroup(Constants.TaskGroup.FABRIC);
+					task.dependsOn(decompileTask);
+				});
+			}
+		}
+
+		for (String name : List.of("Common", "ClientOnly")) {
+			project.getTasks().register("gen%sSources".formatted(name), task -> {
+				task.setDescription("Decompile minecraft (%s) using the default decompiler.".formatted(name));
+				task.setGroup(Constants.TaskGroup.FABRIC);
+
+				task.dependsOn(project.getTasks().named("gen%sSourcesWithCfr".formatted(name)));
+			});
+		}
+
+		project.getTasks().register("genSources", task -> {
+			task.setDescription("Decompile minecraft using the default decompiler.");
+			task.setGroup(Constants.TaskGroup.FABRIC);
+
+			task.dependsOn(project.getTasks().named("genSourcesWithCfr"));
+		});
+	}
+
 	private TaskProvider<Task> createDecompileTasks(String name, Action<GenerateSourcesTask> configureAction) {
 		extension.getDecompilerOptions().forEach(options -> {
 			final String decompilerName = options.getFormattedName();
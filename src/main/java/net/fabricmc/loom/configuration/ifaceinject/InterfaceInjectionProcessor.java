@@ -42,9 +42,7 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import org.jetbrains.annotations.Nullable;
-import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
-import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.Opcodes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -54,7 +52,6 @@ import net.fabricmc.loom.api.processor.MinecraftJarProcessor;
 import net.fabricmc.loom.api.processor.ProcessorContext;
 import net.fabricmc.loom.api.processor.SpecContext;
 import net.fabricmc.loom.util.Constants;
-import net.fabricmc.loom.util.Pair;
 import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.loom.util.fmj.FabricModJson;
 import net.fabricmc.mappingio.tree.MappingTree;
@@ -97,10 +94,29 @@ public abstract class InterfaceInjectionProcessor implements MinecraftJarProcess
 	}
 
 	public record Spec(List<InjectedInterface> injectedInterfaces) implements MinecraftJarProcessor.Spec {
+		@Override
+		public String getCacheKey() {
+			return injectedInterfaces.stream()
+					.map(injectedInterface -> injectedInterface.modId() + ":" + injectedInterface.className() + ":" + injectedInterface.ifaceName())
+					.collect(Collectors.joining("\n"));
+		}
 	}
 
 	@Override
 	public void processJar(Path jar, Spec spec, ProcessorContext context) throws IOException {
+		try {
+			ZipUtils.transform(jar, getTransformers(getClassVisitors(spec, context)));
+		} catch (IOException e) {
+			throw new RuntimeException("Failed to apply interface injections to " + jar, e);
+		}
+	}
+
+	@Override
+	public ClassProcessor<Spec> processClasses() {
+		return this::getClassVisitors;
+	}
+
+	private Map<String, ClassVisitorFactory> getClassVisitors(Spec spec, ProcessorContext context) {
 		// Remap from intermediary->named
 		final MemoryMappingTree mappings = context.getMappings();
 		final int intermediaryIndex = mappings.getNamespaceId(MappingsNamespace.INTERMEDIARY.toString());
@@ -109,11 +125,11 @@ public abstract class InterfaceInjectionProcessor implements MinecraftJarProcess
 				.map(injectedInterface -> remap(injectedInterface, s -> mappings.mapClassName(s, intermediaryIndex, namedIndex)))
 				.toList();
 
-		try {
-			ZipUtils.transform(jar, getTransformers(remappedInjectedInterfaces));
-		} catch (IOException e) {
-			throw new RuntimeException("Failed to apply interface injections to " + jar, e);
-		}
+		return remappedInjectedInterfaces.stream()
+				.collect(Collectors.groupingBy(InjectedInterface::className))
+				.entrySet()
+				.stream()
+				.collect(Collectors.toMap(entry -> entry.getKey().replaceAll("\\.", "/"), entry -> getClassVisitor(entry.getValue())));
 	}
 
 	private InjectedInterface remap(InjectedInterface in, Function<String, String> remapper) {
@@ -124,25 +140,13 @@ public abstract class InterfaceInjectionProcessor implements MinecraftJarProcess
 		);
 	}
 
-	private List<Pair<String, ZipUtils.UnsafeUnaryOperator<byte[]>>> getTransformers(List<InjectedInterface> injectedInterfaces) {
-		return injectedInterfaces.stream()
-				.collect(Collectors.groupingBy(InjectedInterface::className))
-				.entrySet()
-				.stream()
-				.map(entry -> {
-					final String zipEntry = entry.getKey().replaceAll("\\.", "/") + ".class";
-					return new Pair<>(zipEntry, getTransformer(entry.getValue()));
-				}).toList();
+	private Map<String, ZipUtils.UnsafeUnaryOperator<byte[]>> getTransformers(Map<String, ClassVisitorFactory> classVisitors) {
+		return classVisitors.entrySet().stream()
+				.collect(Collectors.toMap(entry -> entry.getKey() + ".class", entry -> (ZipUtils.AsmClassOperator) entry.getValue()::create));
 	}
 
-	private ZipUtils.UnsafeUnaryOperator<byte[]> getTransformer(List<InjectedInterface> injectedInterfaces) {
-		return input -> {
-			final ClassReader reader = new ClassReader(input);
-			final ClassWriter writer = new ClassWriter(0);
-			final ClassVisitor classVisitor = new InjectingClassVisitor(Constants.ASM_VERSION, writer, injectedInterfaces);
-			reader.accept(classVisitor, 0);
-			return writer.toByteArray();
-		};
+	private ClassVisitorFactory getClassVisitor(List<InjectedInterface> injectedInterfaces) {
+		return classVisitor -> new InjectingClassVisitor(Constants.ASM_VERSION, classVisitor, injectedInterfaces);
 	}
 
 	@Override
@@ -234,8 +238,8 @@ public abstract class InterfaceInjectionProcessor implements MinecraftJarProcess
 		private final List<InjectedInterface> injectedInterfaces;
 		private final Set<String> knownInnerClasses = new HashSet<>();
 
-		InjectingClassVisitor(int asmVersion, ClassWriter writer, List<InjectedInterface> injectedInterfaces) {
-			super(asmVersion, writer);
+		InjectingClassVisitor(int asmVersion, ClassVisitor classVisitor, List<InjectedInterface> injectedInterfaces) {
+			super(asmVersion, classVisitor);
 			this.injectedInterfaces = injectedInterfaces;
 		}
 
@@ -27,8 +27,6 @@ package net.fabricmc.loom.configuration.mods;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.Locale;
 import java.util.function.Predicate;
 import java.util.jar.Attributes;
@@ -40,53 +38,51 @@ import org.jetbrains.annotations.Nullable;
 import net.fabricmc.loom.LoomGradlePlugin;
 import net.fabricmc.loom.configuration.InstallerData;
 import net.fabricmc.loom.util.Constants;
-import net.fabricmc.loom.util.FileSystemUtil;
-import net.fabricmc.loom.util.fmj.FabricModJsonFactory;
+import net.fabricmc.loom.util.fmj.ModMetadataIndex;
 
 public record ArtifactMetadata(boolean isFabricMod, RemapRequirements remapRequirements, @Nullable InstallerData installerData, MixinRemapType mixinRemapType) {
-	private static final String INSTALLER_PATH = "fabric-installer.json";
-
 	public static ArtifactMetadata create(ArtifactRef artifact, String currentLoomVersion) throws IOException {
-		boolean isFabricMod;
+		return create(artifact, currentLoomVersion, ModMetadataIndex.Entry.read(artifact.path()));
+	}
+
+	public static ArtifactMetadata create(ArtifactRef artifact, String currentLoomVersion, ModMetadataIndex.Entry metadata) throws IOException {
+		final boolean isFabricMod = metadata.fabricModJson() != null;
 		RemapRequirements remapRequirements = RemapRequirements.DEFAULT;
 		InstallerData installerData = null;
 		MixinRemapType refmapRemapType = MixinRemapType.MIXIN;
 
-		try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(artifact.path())) {
-			isFabricMod = FabricModJsonFactory.containsMod(fs);
-			final Path manifestPath = fs.getPath(Constants.Manifest.PATH);
+		final byte[] manifestBytes = metadata.manifest();
 
-			if (Files.exists(manifestPath)) {
-				final var manifest = new Manifest(new ByteArrayInputStream(Files.readAllBytes(manifestPath)));
-				final Attributes mainAttributes = manifest.getMainAttributes();
-				final String remapValue = mainAttributes.getValue(Constants.Manifest.REMAP_KEY);
-				final String loomVersion = mainAttributes.getValue(Constants.Manifest.LOOM_VERSION);
-				final String mixinRemapType = mainAttributes.getValue(Constants.Manifest.MIXIN_REMAP_TYPE);
+		if (manifestBytes != null) {
+			final var manifest = new Manifest(new ByteArrayInputStream(manifestBytes));
+			final Attributes mainAttributes = manifest.getMainAttributes();
+			final String remapValue = mainAttributes.getValue(Constants.Manifest.REMAP_KEY);
+			final String loomVersion = mainAttributes.getValue(Constants.Manifest.LOOM_VERSION);
+			final String mixinRemapType = mainAttributes.getValue(Constants.Manifest.MIXIN_REMAP_TYPE);
 
-				if (remapValue != null) {
-					// Support opting into and out of remapping with "Fabric-Loom-Remap" manifest entry
-					remapRequirements = Boolean.parseBoolean(remapValue) ? RemapRequirements.OPT_IN : RemapRequirements.OPT_OUT;
-				}
+			if (remapValue != null) {
+				// Support opting into and out of remapping with "Fabric-Loom-Remap" manifest entry
+				remapRequirements = Boolean.parseBoolean(remapValue) ? RemapRequirements.OPT_IN : RemapRequirements.OPT_OUT;
+			}
 
-				if (mixinRemapType != null) {
-					try {
-						refmapRemapType = MixinRemapType.valueOf(mixinRemapType.toUpperCase(Locale.ROOT));
-					} catch (IllegalArgumentException e) {
-						throw new IllegalStateException("Unknown mixin remap type: " + mixinRemapType);
-					}
+			if (mixinRemapType != null) {
+				try {
+					refmapRemapType = MixinRemapType.valueOf(mixinRemapType.toUpperCase(Locale.ROOT));
+				} catch (IllegalArgumentException e) {
+					throw new IllegalStateException("Unknown mixin remap type: " + mixinRemapType);
 				}
+			}
 
-				if (loomVersion != null && refmapRemapType != MixinRemapType.STATIC) {
-					validateLoomVersion(loomVersion, currentLoomVersion);
-				}
+			if (loomVersion != null && refmapRemapType != MixinRemapType.STATIC) {
+				validateLoomVersion(loomVersion, currentLoomVersion);
 			}
+		}
 
-			final Path installerPath = fs.getPath(INSTALLER_PATH);
+		final byte[] installerBytes = isFabricMod ? metadata.installerJson() : null;
 
-			if (isFabricMod && Files.exists(installerPath)) {
-				final JsonObject jsonObject = LoomGradlePlugin.GSON.fromJson(Files.readString(installerPath, StandardCharsets.UTF_8), JsonObject.class);
-				installerData = new InstallerData(artifact.version(), jsonObject);
-			}
+		if (installerBytes != null) {
+			final JsonObject jsonObject = LoomGradlePlugin.GSON.fromJson(new String(installerBytes, StandardCharsets.UTF_8), JsonObject.class);
+			installerData = new InstallerData(artifact.version(), jsonObject);
 		}
 
 		return new ArtifactMetadata(isFabricMod, remapRequirements, installerData, refmapRemapType);
@@ -33,8 +33,10 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Supplier;
 
 import com.google.common.collect.ImmutableMap;
@@ -67,6 +69,7 @@ import net.fabricmc.loom.util.Checksum;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.ExceptionUtil;
 import net.fabricmc.loom.util.SourceRemapper;
+import net.fabricmc.loom.util.fmj.ModMetadataIndex;
 import net.fabricmc.loom.util.gradle.SourceSetHelper;
 import net.fabricmc.loom.util.service.SharedServiceManager;
 
@@ -138,6 +141,7 @@ public class ModConfigurationRemapper {
 		// any mods are remapped since remapping needs the dependencies provided by that data.
 		final Map<Configuration, List<ModDependency>> dependenciesBySourceConfig = new HashMap<>();
 		final Map<ArtifactRef, ArtifactMetadata> metaCache = new HashMap<>();
+		final ModMetadataIndex metadataIndex = ModMetadataIndex.create(project);
 		configsToRemap.forEach((sourceConfig, remappedConfig) -> {
 			/*
 			sourceConfig - The source configuration where the intermediary named artifacts come from. i.e "modApi"
@@ -151,7 +155,7 @@ public class ModConfigurationRemapper {
 
 				artifactMetadata = metaCache.computeIfAbsent(artifact, a -> {
 					try {
-						return ArtifactMetadata.create(a, LoomGradlePlugin.LOOM_VERSION);
+						return ArtifactMetadata.create(a, LoomGradlePlugin.LOOM_VERSION, metadataIndex.get(a.path()));
 					} catch (IOException e) {
 						throw ExceptionUtil.createDescriptiveWrapper(UncheckedIOException::new, "Failed to read metadata from " + a.path(), e);
 					}
@@ -182,33 +186,34 @@ public class ModConfigurationRemapper {
 		});
 
 		// Round 2: Remapping
-		// Remap all discovered artifacts.
+		// Remap all discovered artifacts from every configuration together, ModProcessor
+		// remaps an artifact once even when it is present in multiple configurations or usages.
+		final boolean refreshDeps = extension.refreshDeps();
+		final List<ModDependency> toRemap = new ArrayList<>();
+		final Set<Configuration> toRemapSourceConfigs = new LinkedHashSet<>();
+
 		configsToRemap.forEach((sourceConfig, remappedConfig) -> {
-			final List<ModDependency> modDependencies = dependenciesBySourceConfig.get(sourceConfig);
+			for (ModDependency dependency : dependenciesBySourceConfig.get(sourceConfig)) {
+				if (refreshDeps || dependency.isCacheInvalid(project, null)) {
+					toRemap.add(dependency);
+					toRemapSourceConfigs.add(sourceConfig);
+				}
+			}
+		});
 
-			if (modDependencies.isEmpty()) {
-				// Nothing else to do
-				return;
+		if (!toRemap.isEmpty()) {
+			try {
+				new ModProcessor(project, toRemapSourceConfigs, serviceManager).processMods(toRemap);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to remap mods", e);
 			}
+		}
 
+		// Round 3: Add all of the remapped mods onto their configs
+		configsToRemap.forEach((sourceConfig, remappedConfig) -> {
 			final Configuration clientRemappedConfig = clientConfigsToRemap.get(sourceConfig);
-			final boolean refreshDeps = LoomGradleExtension.get(project).refreshDeps();
-			// TODO: With the same artifacts being considered multiple times for their different
-			//   usage attributes, this should probably not process them multiple times even with refreshDeps.
-			final List<ModDependency> toRemap = modDependencies.stream()
-					.filter(dependency -> refreshDeps || dependency.isCacheInvalid(project, null))
-					.toList();
-
-			if (!toRemap.isEmpty()) {
-				try {
-					new ModProcessor(project, sourceConfig, serviceManager).processMods(toRemap);
-				} catch (IOException e) {
-					throw new UncheckedIOException("Failed to remap mods", e);
-				}
-			}
 
-			// Add all of the remapped mods onto the config
-			for (ModDependency info : modDependencies) {
+			for (ModDependency info : dependenciesBySourceConfig.get(sourceConfig)) {
 				info.applyToProject(project);
 				createConstraints(info.getInputArtifact(), remappedConfig, sourceConfig, dependencies);
 
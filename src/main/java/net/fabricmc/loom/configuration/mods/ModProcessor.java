@@ -28,18 +28,26 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.jar.Manifest;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import com.google.gson.JsonObject;
 import org.gradle.api.Project;
@@ -47,15 +55,17 @@ import org.gradle.api.artifacts.Configuration;
 import org.gradle.api.attributes.Usage;
 
 import net.fabricmc.loom.LoomGradleExtension;
+import net.fabricmc.loom.LoomGradlePlugin;
 import net.fabricmc.loom.api.RemapConfigurationSettings;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.configuration.mods.dependency.ModDependency;
 import net.fabricmc.loom.configuration.providers.mappings.MappingConfiguration;
 import net.fabricmc.loom.extension.RemapperExtensionHolder;
 import net.fabricmc.loom.util.Constants;
-import net.fabricmc.loom.util.Pair;
+import net.fabricmc.loom.util.ExceptionUtil;
 import net.fabricmc.loom.util.TinyRemapperHelper;
 import net.fabricmc.loom.util.ZipUtils;
+import net.fabricmc.loom.util.gradle.GradleUtils;
 import net.fabricmc.loom.util.kotlin.KotlinClasspathService;
 import net.fabricmc.loom.util.kotlin.KotlinRemapperClassloader;
 import net.fabricmc.loom.util.service.SharedServiceManager;
@@ -69,24 +79,37 @@ public class ModProcessor {
 	private static final String fromM = MappingsNamespace.INTERMEDIARY.toString();
 	private static final String toM = MappingsNamespace.NAMED.toString();
 
+	private static final String FABRIC_MOD_JSON = "fabric.mod.json";
 	private static final Pattern COPY_CONFIGURATION_PATTERN = Pattern.compile("^(.+)Copy[0-9]*$");
 
 	private final Project project;
-	private final Configuration sourceConfiguration;
+	private final Collection<Configuration> sourceConfigurations;
 	private final SharedServiceManager serviceManager;
 
-	public ModProcessor(Project project, Configuration sourceConfiguration, SharedServiceManager serviceManager) {
+	public ModProcessor(Project project, Collection<Configuration> sourceConfigurations, SharedServiceManager serviceManager) {
 		this.project = project;
-		this.sourceConfiguration = sourceConfiguration;
+		this.sourceConfigurations = sourceConfigurations;
 		this.serviceManager = serviceManager;
 	}
 
+	/**
+	 * Remaps the given mods in a single remapper session. Dependencies that share an input jar
+	 * (e.g. the same mod in multiple configurations or usages) are only remapped once.
+	 */
 	public void processMods(List<ModDependency> remapList) throws IOException {
+		// key: input jar, value: all the dependencies to write the remapped jar to
+		final Map<Path, List<ModDependency>> dependenciesByInput = remapList.stream()
+				.collect(Collectors.groupingBy(ModDependency::getInputFile, LinkedHashMap::new, Collectors.toList()));
+
 		try {
-			project.getLogger().lifecycle(":remapping {} mods from {}", remapList.size(), describeConfiguration(sourceConfiguration));
-			remapJars(remapList);
+			final String configurations = sourceConfigurations.stream()
+					.map(this::describeConfiguration)
+					.distinct()
+					.collect(Collectors.joining(", "));
+			project.getLogger().lifecycle(":remapping {} mods from {}", dependenciesByInput.size(), configurations);
+			remapJars(dependenciesByInput);
 		} catch (Exception e) {
-			throw new RuntimeException(String.format(Locale.ENGLISH, "Failed to remap %d mods", remapList.size()), e);
+			throw new RuntimeException(String.format(Locale.ENGLISH, "Failed to remap %d mods", dependenciesByInput.size()), e);
 		}
 	}
 
@@ -117,20 +140,12 @@ public class ModProcessor {
 		return description;
 	}
 
-	private void stripNestedJars(Path path) {
-		// Strip out all contained jar info as we dont want loader to try and load the jars contained in dev.
-		try {
-			ZipUtils.transformJson(JsonObject.class, path, Map.of("fabric.mod.json", json -> {
-				json.remove("jars");
-				return json;
-			}));
-		} catch (IOException e) {
-			throw new UncheckedIOException("Failed to strip nested jars from %s".formatted(path), e);
-		}
-	}
-
-	private void remapJars(List<ModDependency> remapList) throws IOException {
+	private void remapJars(Map<Path, List<ModDependency>> dependenciesByInput) throws IOException {
 		final LoomGradleExtension extension = LoomGradleExtension.get(project);
+		// Only the first dependency for each input jar is remapped, the others share its output.
+		final List<ModDependency> remapList = dependenciesByInput.values().stream()
+				.map(dependencies -> dependencies.get(0))
+				.toList();
 		final MappingConfiguration mappingConfiguration = extension.getMappingConfiguration();
 
 		TinyRemapper.Builder builder = TinyRemapper.newRemapper()
@@ -165,14 +180,16 @@ public class ModProcessor {
 		remapper.readClassPath(extension.getMinecraftJars(MappingsNamespace.INTERMEDIARY).toArray(Path[]::new));
 
 		final Map<ModDependency, InputTag> tagMap = new HashMap<>();
-		final Map<ModDependency, OutputConsumerPath> outputConsumerMap = new HashMap<>();
-		final Map<ModDependency, Pair<byte[], String>> accessWidenerMap = new HashMap<>();
+		final Set<Path> classpath = new HashSet<>();
 
 		for (RemapConfigurationSettings entry : extension.getRemapConfigurations()) {
 			for (File inputFile : entry.getSourceConfiguration().get().getFiles()) {
-				if (remapList.stream().noneMatch(info -> info.getInputFile().toFile().equals(inputFile))) {
+				final Path inputPath = inputFile.toPath();
+
+				// The same jar is often present in multiple configurations, only read it once.
+				if (!dependenciesByInput.containsKey(inputPath) && classpath.add(inputPath)) {
 					project.getLogger().debug("Adding " + inputFile + " onto the remap classpath");
-					remapper.readClassPathAsync(inputFile.toPath());
+					remapper.readClassPathAsync(inputPath);
 				}
 			}
 		}
@@ -200,65 +217,100 @@ public class ModProcessor {
 			Files.deleteIfExists(getRemappedOutput(info));
 		}
 
+		final int threads = GradleUtils.getIntegerProperty(project, Constants.Properties.MOD_REMAP_THREADS, Runtime.getRuntime().availableProcessors());
+		final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+
 		try {
-			// Apply this in a second loop as we need to ensure all the inputs are on the classpath before remapping.
+			// All the inputs are read before applying, so that every mod is on the classpath when any of them are remapped.
+			// Each mod is then written out and post-processed independently, the project is only used once they are all done.
+			final List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+
 			for (ModDependency dependency : remapList) {
-				try {
-					OutputConsumerPath outputConsumer = new OutputConsumerPath.Builder(getRemappedOutput(dependency)).build();
+				futures.add(CompletableFuture.supplyAsync(() -> {
+					try {
+						return writeRemappedMod(remapper, tagMap.get(dependency), dependency);
+					} catch (Exception e) {
+						throw new RuntimeException("Failed to remap: " + dependency, e);
+					}
+				}, executor));
+			}
 
-					outputConsumer.addNonClassFiles(dependency.getInputFile(), NonClassCopyMode.FIX_META_INF, remapper);
-					outputConsumerMap.put(dependency, outputConsumer);
+			CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
 
-					final AccessWidenerUtils.AccessWidenerData accessWidenerData = AccessWidenerUtils.readAccessWidenerData(dependency.getInputFile());
+			for (int i = 0; i < remapList.size(); i++) {
+				final ModDependency dependency = remapList.get(i);
 
-					if (accessWidenerData != null) {
-						project.getLogger().debug("Remapping access widener in {}", dependency.getInputFile());
-						byte[] remappedAw = AccessWidenerUtils.remapAccessWidener(accessWidenerData.content(), remapper.getEnvironment().getRemapper());
-						accessWidenerMap.put(dependency, new Pair<>(remappedAw, accessWidenerData.path()));
-					}
+				if (futures.get(i).join()) {
+					project.getLogger().debug("Remapped access widener in {}", dependency.getInputFile());
+				}
 
-					remapper.apply(outputConsumer, tagMap.get(dependency));
-				} catch (Exception e) {
-					throw new RuntimeException("Failed to remap: " + dependency, e);
+				for (ModDependency target : dependenciesByInput.get(dependency.getInputFile())) {
+					target.copyToCache(project, getRemappedOutput(dependency), null);
 				}
 			}
+		} catch (CompletionException e) {
+			throw ExceptionUtil.createDescriptiveWrapper(RuntimeException::new, "Failed to remap mods", e.getCause());
 		} finally {
-			remapper.finish();
+			try {
+				remapper.finish();
+			} finally {
+				executor.shutdownNow();
 
-			if (kotlinRemapperClassloader != null) {
-				kotlinRemapperClassloader.close();
+				if (kotlinRemapperClassloader != null) {
+					kotlinRemapperClassloader.close();
+				}
 			}
 		}
+	}
 
-		for (ModDependency dependency : remapList) {
-			outputConsumerMap.get(dependency).close();
+	/**
+	 * Writes and post-processes the remapped jar, may be called from any thread so must not use the project.
+	 *
+	 * @return whether an access widener was remapped
+	 */
+	private static boolean writeRemappedMod(TinyRemapper remapper, InputTag tag, ModDependency dependency) throws IOException {
+		final Path output = getRemappedOutput(dependency);
+
+		try (OutputConsumerPath outputConsumer = new OutputConsumerPath.Builder(output).build()) {
+			outputConsumer.addNonClassFiles(dependency.getInputFile(), NonClassCopyMode.FIX_META_INF, remapper);
+			remapper.apply(outputConsumer, tag);
+		}
 
-			final Path output = getRemappedOutput(dependency);
-			final Pair<byte[], String> accessWidener = accessWidenerMap.get(dependency);
+		// Apply all the edits to the remapped jar in a single pass.
+		final Map<String, ZipUtils.UnsafeUnaryOperator<byte[]>> transforms = new HashMap<>();
+		transforms.put(FABRIC_MOD_JSON, ModProcessor::stripNestedJars);
+		transforms.put(Constants.Manifest.PATH, ModProcessor::remapJarManifestEntries);
 
-			if (accessWidener != null) {
-				ZipUtils.replace(output, accessWidener.right(), accessWidener.left());
-			}
+		final AccessWidenerUtils.AccessWidenerData accessWidenerData = AccessWidenerUtils.readAccessWidenerData(dependency.getInputFile());
 
-			stripNestedJars(output);
-			remapJarManifestEntries(output);
-			dependency.copyToCache(project, output, null);
+		if (accessWidenerData != null) {
+			final byte[] remappedAw = AccessWidenerUtils.remapAccessWidener(accessWidenerData.content(), remapper.getEnvironment().getRemapper());
+
+			transforms.put(accessWidenerData.path(), bytes -> remappedAw);
 		}
+
+		ZipUtils.transform(output, transforms);
+		return accessWidenerData != null;
 	}
 
 	private static Path getRemappedOutput(ModDependency dependency) {
 		return dependency.getWorkingFile(null);
 	}
 
-	private void remapJarManifestEntries(Path jar) throws IOException {
-		ZipUtils.transform(jar, Map.of(Constants.Manifest.PATH, bytes -> {
-			var manifest = new Manifest(new ByteArrayInputStream(bytes));
+	private static byte[] stripNestedJars(byte[] bytes) {
+		// Strip out all contained jar info as we dont want loader to try and load the jars contained in dev.
+		final JsonObject json = LoomGradlePlugin.GSON.fromJson(new String(bytes, StandardCharsets.UTF_8), JsonObject.class);
+		json.remove("jars");
+		return LoomGradlePlugin.GSON.toJson(json).getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static byte[] remapJarManifestEntries(byte[] bytes) throws IOException {
+		var manifest = new Manifest(new ByteArrayInputStream(bytes));
 
-			manifest.getMainAttributes().putValue(Constants.Manifest.MAPPING_NAMESPACE, toM);
+		manifest.getMainAttributes().putValue(Constants.Manifest.MAPPING_NAMESPACE, toM);
 
-			ByteArrayOutputStream out = new ByteArrayOutputStream();
-			manifest.write(out);
-			return out.toByteArray();
-		}));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		manifest.write(out);
+		return out.toByteArray();
 	}
 }
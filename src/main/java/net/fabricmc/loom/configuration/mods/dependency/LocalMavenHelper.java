@@ -49,6 +49,23 @@ public record LocalMavenHelper(String group, String name, String version, @Nulla
 		return Files.exists(getOutputFile(classifier)) && Files.exists(getPomPath());
 	}
 
+	/**
+	 * Returns true when the artifact was written with the given fingerprint, see {@link #writeFingerprint(String, String)}.
+	 */
+	public boolean hasFingerprint(@Nullable String classifier, String fingerprint) {
+		final Path path = getFingerprintPath(classifier);
+
+		try {
+			return Files.exists(path) && Files.readString(path, StandardCharsets.UTF_8).equals(fingerprint);
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	public void writeFingerprint(@Nullable String classifier, String fingerprint) throws IOException {
+		Files.writeString(getFingerprintPath(classifier), fingerprint, StandardCharsets.UTF_8);
+	}
+
 	public String getNotation() {
 		if (baseClassifier != null) {
 			return String.format("%s:%s:%s:%s", group, name, version, baseClassifier);
@@ -94,6 +111,11 @@ public record LocalMavenHelper(String group, String name, String version, @Nulla
 		return getDirectory().resolve(fileName);
 	}
 
+	private Path getFingerprintPath(@Nullable String classifier) {
+		final Path outputFile = getOutputFile(classifier);
+		return outputFile.resolveSibling(outputFile.getFileName() + ".fingerprint");
+	}
+
 	public LocalMavenHelper withClassifier(String classifier) {
 		return new LocalMavenHelper(group, name, version, classifier, root);
 	}
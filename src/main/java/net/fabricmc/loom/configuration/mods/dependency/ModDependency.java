@@ -25,14 +25,24 @@
 package net.fabricmc.loom.configuration.mods.dependency;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import org.gradle.api.Project;
 import org.jetbrains.annotations.Nullable;
 
 import net.fabricmc.loom.LoomGradleExtension;
+import net.fabricmc.loom.LoomGradlePlugin;
 import net.fabricmc.loom.configuration.mods.ArtifactMetadata;
 import net.fabricmc.loom.configuration.mods.ArtifactRef;
+import net.fabricmc.loom.extension.RemapperExtensionHolder;
 
 public abstract sealed class ModDependency permits SplitModDependency, SimpleModDependency {
 	private final ArtifactRef artifact;
@@ -44,6 +54,8 @@ public abstract sealed class ModDependency permits SplitModDependency, SimpleMod
 	protected final String classifier;
 	protected final String mappingsSuffix;
 	protected final Project project;
+	// key: variant, or an empty string for the main jar
+	private final Map<String, String> fingerprints = new ConcurrentHashMap<>();
 
 	public ModDependency(ArtifactRef artifact, ArtifactMetadata metadata, String mappingsSuffix, Project project) {
 		this.artifact = artifact;
@@ -71,6 +83,41 @@ public abstract sealed class ModDependency permits SplitModDependency, SimpleMod
 	 */
 	public abstract void applyToProject(Project project);
 
+	/**
+	 * Returns a fingerprint of everything that affects the remapped output of a variant: the input jar's path, size and
+	 * modification time, the mappings, the loom version and the remapper extensions. A cached output is only reused when it
+	 * was written with the same fingerprint.
+	 *
+	 * <p>The input jar is not hashed, as that would read every mod jar in full each time the project is configured.
+	 */
+	protected String getFingerprint(@Nullable String variant) {
+		return fingerprints.computeIfAbsent(Objects.requireNonNullElse(variant, ""), key -> {
+			final LoomGradleExtension extension = LoomGradleExtension.get(project);
+			final Path input = variant == null ? getInputFile() : Objects.requireNonNull(artifact.sources(), "No input for variant " + variant);
+			final BasicFileAttributes attributes;
+
+			try {
+				attributes = Files.readAttributes(input, BasicFileAttributes.class);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to read attributes of " + input, e);
+			}
+
+			final var joiner = new StringJoiner("\n");
+			joiner.add("input=" + input.toAbsolutePath().normalize());
+			joiner.add("size=" + attributes.size());
+			joiner.add("modified=" + attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS));
+			joiner.add("mappings=" + mappingsSuffix);
+			joiner.add("loom=" + LoomGradlePlugin.LOOM_VERSION);
+			extension.getKnownIndyBsms().get().stream().sorted().forEach(bsm -> joiner.add("indyBsm=" + bsm));
+
+			for (RemapperExtensionHolder holder : extension.getRemapperExtensions().get()) {
+				joiner.add("extension=" + holder.getCacheKey());
+			}
+
+			return joiner.toString();
+		});
+	}
+
 	protected LocalMavenHelper createMaven(String name) {
 		final LoomGradleExtension extension = LoomGradleExtension.get(project);
 		final Path root = extension.getFiles().getRemappedModCache().toPath();
@@ -48,12 +48,13 @@ public final class SimpleModDependency extends ModDependency {
 
 	@Override
 	public boolean isCacheInvalid(Project project, @Nullable String variant) {
-		return !maven.exists(variant);
+		return !maven.exists(variant) || !maven.hasFingerprint(variant, getFingerprint(variant));
 	}
 
 	@Override
 	public void copyToCache(Project project, Path path, @Nullable String variant) throws IOException {
 		maven.copyToMaven(path, variant);
+		maven.writeFingerprint(variant, getFingerprint(variant));
 	}
 
 	@Override
@@ -59,17 +59,36 @@ public final class SplitModDependency extends ModDependency {
 
 	@Override
 	public boolean isCacheInvalid(Project project, @Nullable String variant) {
+		final String fingerprint = getFingerprint(variant);
 		boolean exists = switch (target) {
-		case COMMON_ONLY -> getCommonMaven().exists(variant);
-		case CLIENT_ONLY -> getClientMaven().exists(variant);
-		case SPLIT -> getCommonMaven().exists(variant) && getClientMaven().exists(variant);
+		case COMMON_ONLY -> isCached(getCommonMaven(), variant, fingerprint);
+		case CLIENT_ONLY -> isCached(getClientMaven(), variant, fingerprint);
+		case SPLIT -> isCached(getCommonMaven(), variant, fingerprint) && isCached(getClientMaven(), variant, fingerprint);
 		};
 
 		return !exists;
 	}
 
+	private static boolean isCached(LocalMavenHelper maven, @Nullable String variant, String fingerprint) {
+		return maven.exists(variant) && maven.hasFingerprint(variant, fingerprint);
+	}
+
 	@Override
 	public void copyToCache(Project project, Path path, @Nullable String variant) throws IOException {
+		copyToMaven(path, variant);
+
+		final String fingerprint = getFingerprint(variant);
+
+		if (target.common()) {
+			getCommonMaven().writeFingerprint(variant, fingerprint);
+		}
+
+		if (target.client()) {
+			getClientMaven().writeFingerprint(variant, fingerprint);
+		}
+	}
+
+	private void copyToMaven(Path path, @Nullable String variant) throws IOException {
 		// Split dependencies build with loom 0.12 do not contain the required data to split the sources
 		if (target == JarSplitter.Target.SPLIT && variant != null) {
 			final JarSplitter.Target artifactTarget = new JarSplitter(path).analyseTarget();
@@ -31,7 +31,9 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.StringJoiner;
 import java.util.stream.Collectors;
@@ -47,6 +49,8 @@ import net.fabricmc.loom.api.processor.MinecraftJarProcessor;
 import net.fabricmc.loom.api.processor.ProcessorContext;
 import net.fabricmc.loom.api.processor.SpecContext;
 import net.fabricmc.loom.util.Checksum;
+import net.fabricmc.loom.util.ContentAddressedCache;
+import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
 public final class MinecraftJarProcessorManager {
@@ -99,6 +103,27 @@ public final class MinecraftJarProcessorManager {
 				.collect(Collectors.joining("::"));
 	}
 
+	/**
+	 * @return a SHA-256 hash of the contents of every spec in the order they are applied, or null when a spec does not provide a stable cache key
+	 */
+	@Nullable
+	public String getCacheKey() {
+		final List<String> keys = new ArrayList<>();
+
+		for (ProcessorEntry<?> entry : jarProcessors) {
+			final String specKey = entry.spec().getCacheKey();
+
+			if (specKey == null) {
+				LOGGER.debug("Processor {} does not provide a cache key", entry.name());
+				return null;
+			}
+
+			keys.add(entry.name() + ":" + entry.spec().getClass().getName() + ":" + specKey);
+		}
+
+		return ContentAddressedCache.key(keys.toArray(String[]::new));
+	}
+
 	private String getDebugString() {
 		final var sj = new StringJoiner("\n");
 
@@ -128,13 +153,62 @@ public final class MinecraftJarProcessorManager {
 	}
 
 	public void processJar(Path jar, ProcessorContext context) throws IOException {
+		// Consecutive class processors are fused into a single pass over the jar, other processors run on their own.
+		final List<ProcessorEntry<?>> classProcessors = new ArrayList<>();
+
 		for (ProcessorEntry<?> entry : jarProcessors) {
+			if (entry.classProcessor() != null) {
+				classProcessors.add(entry);
+				continue;
+			}
+
+			applyClassProcessors(jar, classProcessors, context);
+			classProcessors.clear();
+
 			try {
 				entry.processJar(jar, context);
 			} catch (IOException e) {
 				throw new IOException("Failed to process jar when running jar processor: %s".formatted(entry.name()), e);
 			}
 		}
+
+		applyClassProcessors(jar, classProcessors, context);
+	}
+
+	private static void applyClassProcessors(Path jar, List<ProcessorEntry<?>> entries, ProcessorContext context) throws IOException {
+		if (entries.isEmpty()) {
+			return;
+		}
+
+		final Map<String, List<MinecraftJarProcessor.ClassVisitorFactory>> classVisitors = new HashMap<>();
+
+		for (ProcessorEntry<?> entry : entries) {
+			try {
+				for (Map.Entry<String, MinecraftJarProcessor.ClassVisitorFactory> visitor : entry.createClassVisitors(context).entrySet()) {
+					classVisitors.computeIfAbsent(visitor.getKey(), s -> new ArrayList<>()).add(visitor.getValue());
+				}
+			} catch (IOException e) {
+				throw new IOException("Failed to process jar when running jar processor: %s".formatted(entry.name()), e);
+			}
+		}
+
+		final Map<String, ZipUtils.UnsafeUnaryOperator<byte[]>> transforms = new HashMap<>();
+
+		for (Map.Entry<String, List<MinecraftJarProcessor.ClassVisitorFactory>> entry : classVisitors.entrySet()) {
+			final List<MinecraftJarProcessor.ClassVisitorFactory> factories = entry.getValue();
+
+			transforms.put(entry.getKey() + ".class", (ZipUtils.AsmClassOperator) classVisitor -> {
+				// The first processor must see the class first, so it wraps the visitors of the processors after it.
+				for (int i = factories.size() - 1; i >= 0; i--) {
+					classVisitor = factories.get(i).create(classVisitor);
+				}
+
+				return classVisitor;
+			});
+		}
+
+		LOGGER.debug("Applying {} class processors to {} classes", entries.size(), transforms.size());
+		ZipUtils.transform(jar, transforms);
 	}
 
 	public boolean processMappings(MemoryMappingTree mappings, MappingProcessorContext context) {
@@ -149,16 +223,25 @@ public final class MinecraftJarProcessorManager {
 		return transformed;
 	}
 
-	record ProcessorEntry<S extends MinecraftJarProcessor.Spec>(S spec, MinecraftJarProcessor<S> processor, @Nullable MinecraftJarProcessor.MappingsProcessor<S> mappingsProcessor) {
+	record ProcessorEntry<S extends MinecraftJarProcessor.Spec>(S spec, MinecraftJarProcessor<S> processor, @Nullable MinecraftJarProcessor.MappingsProcessor<S> mappingsProcessor, @Nullable MinecraftJarProcessor.ClassProcessor<S> classProcessor) {
 		@SuppressWarnings("unchecked")
 		ProcessorEntry(MinecraftJarProcessor<?> processor, MinecraftJarProcessor.Spec spec) {
-			this((S) Objects.requireNonNull(spec), (MinecraftJarProcessor<S>) processor, (MinecraftJarProcessor.MappingsProcessor<S>) processor.processMappings());
+			this(
+					(S) Objects.requireNonNull(spec),
+					(MinecraftJarProcessor<S>) processor,
+					(MinecraftJarProcessor.MappingsProcessor<S>) processor.processMappings(),
+					(MinecraftJarProcessor.ClassProcessor<S>) processor.processClasses()
+			);
 		}
 
 		private void processJar(Path jar, ProcessorContext context) throws IOException {
 			processor().processJar(jar, spec, context);
 		}
 
+		private Map<String, MinecraftJarProcessor.ClassVisitorFactory> createClassVisitors(ProcessorContext context) throws IOException {
+			return Objects.requireNonNull(classProcessor()).createClassVisitors(spec, context);
+		}
+
 		private boolean processMappings(MemoryMappingTree mappings, MappingProcessorContext context) {
 			if (mappingsProcessor() == null) {
 				return false;
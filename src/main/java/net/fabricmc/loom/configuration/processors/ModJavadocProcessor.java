@@ -35,6 +35,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 
@@ -90,6 +91,12 @@ public abstract class ModJavadocProcessor implements MinecraftJarProcessor<ModJa
 	}
 
 	public record Spec(List<ModJavadoc> javadocs) implements MinecraftJarProcessor.Spec {
+		@Override
+		public String getCacheKey() {
+			return javadocs.stream()
+					.map(javadoc -> javadoc.modId() + ":" + javadoc.mappingsHash())
+					.collect(Collectors.joining("\n"));
+		}
 	}
 
 	@Override
@@ -0,0 +1,508 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package net.fabricmc.loom.configuration.providers.mappings;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import com.google.common.hash.Hashing;
+import org.gradle.api.Project;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.fabricmc.loom.LoomGradleExtension;
+import net.fabricmc.loom.util.ContentAddressedCache;
+import net.fabricmc.mappingio.MappedElementKind;
+import net.fabricmc.mappingio.MappingFlag;
+import net.fabricmc.mappingio.MappingReader;
+import net.fabricmc.mappingio.MappingVisitor;
+import net.fabricmc.mappingio.tree.MappingTreeView;
+import net.fabricmc.mappingio.tree.MemoryMappingTree;
+
+/**
+ * A compact binary copy of a mappings file, stored in a Loom cache directory keyed by the sha256 of the mappings. A
+ * checksum of the cache itself guards against truncated or corrupt files, any cache that cannot be read is discarded
+ * and rebuilt from the mappings file.
+ *
+ * <p>All strings live in a single table at the start of the file and are only decoded when first referenced, the
+ * rest of the file is a flat list of fixed width string indices. Reading it feeds the visitor directly rather than
+ * going through the text parser.
+ */
+public final class BinaryMappingsCache {
+	private static final Logger LOGGER = LoggerFactory.getLogger(BinaryMappingsCache.class);
+	private static final int MAGIC = 0x4C4D4243; // LMBC
+	private static final int VERSION = 3;
+	// Magic, version and checksum
+	private static final int HEADER_LENGTH = 4 + 4 + 4;
+	private static final int NULL = -1;
+	private static final String CACHE_FILE_NAME = "mappings.bin";
+	private static final long MAX_CACHE_SIZE = 256L * 1024 * 1024;
+
+	private BinaryMappingsCache() {
+	}
+
+	public static Path getCacheDir(Project project) {
+		return LoomGradleExtension.get(project).getFiles().getUserCache().toPath().resolve("binary-mappings");
+	}
+
+	@VisibleForTesting
+	@Nullable
+	public static Path getCachePath(Path mappings, Path cacheDir) throws IOException {
+		return new ContentAddressedCache(cacheDir, MAX_CACHE_SIZE).get(hash(Files.readAllBytes(mappings)), CACHE_FILE_NAME);
+	}
+
+	public static MemoryMappingTree read(Path mappings, @Nullable Path cacheDir) throws IOException {
+		final MemoryMappingTree mappingTree = new MemoryMappingTree();
+		read(mappings, cacheDir, mappingTree);
+		return mappingTree;
+	}
+
+	/**
+	 * Reads the mappings into the visitor, using the binary cache when one exists for the contents of the mappings and
+	 * creating it otherwise.
+	 *
+	 * @param cacheDir the directory to store the binary copies in, or null to read the mappings without the cache
+	 */
+	public static void read(Path mappings, @Nullable Path cacheDir, MappingVisitor visitor) throws IOException {
+		if (cacheDir == null) {
+			MappingReader.read(mappings, visitor);
+			return;
+		}
+
+		// Parse the same bytes that were hashed, so that a change made while parsing cannot end up under the old key
+		final byte[] bytes = Files.readAllBytes(mappings);
+		final String key = hash(bytes);
+		final ContentAddressedCache cache = new ContentAddressedCache(cacheDir, MAX_CACHE_SIZE);
+		final ByteBuffer buffer = readCache(cache, key);
+
+		if (buffer != null) {
+			accept(buffer, visitor);
+			return;
+		}
+
+		final MemoryMappingTree mappingTree = new MemoryMappingTree();
+
+		try (InputStreamReader reader = new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8)) {
+			MappingReader.read(reader, mappingTree);
+		}
+
+		try {
+			write(mappingTree, cache, key);
+		} catch (IOException e) {
+			// The cache is purely an optimisation, carry on without it.
+			LOGGER.warn("Failed to write binary mappings cache for {}", mappings, e);
+		}
+
+		mappingTree.accept(visitor);
+	}
+
+	private static String hash(byte[] bytes) {
+		return Hashing.sha256().hashBytes(bytes).toString();
+	}
+
+	/**
+	 * @return the contents of the cache after the header, or null when it is missing or corrupt
+	 */
+	@Nullable
+	private static ByteBuffer readCache(ContentAddressedCache cache, String key) {
+		final Path cachePath = cache.get(key, CACHE_FILE_NAME);
+
+		if (cachePath == null) {
+			return null;
+		}
+
+		try {
+			final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(cachePath));
+
+			if (buffer.remaining() >= HEADER_LENGTH && buffer.getInt(0) == MAGIC && buffer.getInt(4) == VERSION) {
+				final CRC32 crc = new CRC32();
+				crc.update(buffer.array(), HEADER_LENGTH, buffer.remaining() - HEADER_LENGTH);
+
+				if ((int) crc.getValue() == buffer.getInt(8)) {
+					return buffer.position(HEADER_LENGTH);
+				}
+			}
+
+			LOGGER.warn("Binary mappings cache {} is corrupt, recreating it", cachePath);
+		} catch (IOException e) {
+			LOGGER.warn("Failed to read binary mappings cache {}, recreating it", cachePath, e);
+		}
+
+		cache.remove(key);
+		return null;
+	}
+
+	private static void write(MappingTreeView mappingTree, ContentAddressedCache cache, String key) throws IOException {
+		final Path tempFile = Files.createTempFile("loom-mappings", ".bin");
+
+		try {
+			try (OutputStream os = Files.newOutputStream(tempFile)) {
+				write(mappingTree, os);
+			}
+
+			cache.put(key, Map.of(CACHE_FILE_NAME, tempFile));
+		} finally {
+			Files.deleteIfExists(tempFile);
+		}
+	}
+
+	private static void write(MappingTreeView mappingTree, OutputStream output) throws IOException {
+		final StringTable strings = new StringTable();
+		final ByteArrayOutputStream body = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(body);
+		final int dstCount = mappingTree.getDstNamespaces().size();
+
+		out.writeInt(strings.index(mappingTree.getSrcNamespace()));
+		out.writeInt(dstCount);
+
+		for (String namespace : mappingTree.getDstNamespaces()) {
+			out.writeInt(strings.index(namespace));
+		}
+
+		final Collection<? extends MappingTreeView.MetadataEntryView> metadata = mappingTree.getMetadata();
+		out.writeInt(metadata.size());
+
+		for (MappingTreeView.MetadataEntryView entry : metadata) {
+			out.writeInt(strings.index(entry.getKey()));
+			out.writeInt(strings.index(entry.getValue()));
+		}
+
+		final Collection<? extends MappingTreeView.ClassMappingView> classes = mappingTree.getClasses();
+		out.writeInt(classes.size());
+
+		for (MappingTreeView.ClassMappingView classView : classes) {
+			writeElement(out, strings, classView, dstCount);
+
+			final Collection<? extends MappingTreeView.FieldMappingView> fields = classView.getFields();
+			out.writeInt(fields.size());
+
+			for (MappingTreeView.FieldMappingView field : fields) {
+				writeElement(out, strings, field, dstCount);
+				out.writeInt(strings.index(field.getSrcDesc()));
+			}
+
+			final Collection<? extends MappingTreeView.MethodMappingView> methods = classView.getMethods();
+			out.writeInt(methods.size());
+
+			for (MappingTreeView.MethodMappingView method : methods) {
+				writeElement(out, strings, method, dstCount);
+				out.writeInt(strings.index(method.getSrcDesc()));
+
+				final Collection<? extends MappingTreeView.MethodArgMappingView> args = method.getArgs();
+				out.writeInt(args.size());
+
+				for (MappingTreeView.MethodArgMappingView arg : args) {
+					out.writeInt(arg.getArgPosition());
+					out.writeInt(arg.getLvIndex());
+					writeElement(out, strings, arg, dstCount);
+				}
+
+				final Collection<? extends MappingTreeView.MethodVarMappingView> vars = method.getVars();
+				out.writeInt(vars.size());
+
+				for (MappingTreeView.MethodVarMappingView var : vars) {
+					out.writeInt(var.getLvtRowIndex());
+					out.writeInt(var.getLvIndex());
+					out.writeInt(var.getStartOpIdx());
+					out.writeInt(var.getEndOpIdx());
+					writeElement(out, strings, var, dstCount);
+				}
+			}
+		}
+
+		out.flush();
+
+		final ByteArrayOutputStream stringTable = new ByteArrayOutputStream();
+		final DataOutputStream stringTableOut = new DataOutputStream(stringTable);
+		strings.write(stringTableOut);
+		stringTableOut.flush();
+
+		final CRC32 crc = new CRC32();
+		crc.update(stringTable.toByteArray());
+		crc.update(body.toByteArray());
+
+		final DataOutputStream header = new DataOutputStream(output);
+		header.writeInt(MAGIC);
+		header.writeInt(VERSION);
+		header.writeInt((int) crc.getValue());
+		stringTable.writeTo(header);
+		body.writeTo(header);
+		header.flush();
+	}
+
+	private static void writeElement(DataOutputStream out, StringTable strings, MappingTreeView.ElementMappingView element, int dstCount) throws IOException {
+		out.writeInt(strings.index(element.getSrcName()));
+
+		for (int i = 0; i < dstCount; i++) {
+			out.writeInt(strings.index(element.getDstName(i)));
+		}
+
+		out.writeInt(strings.index(element.getComment()));
+	}
+
+	private static void accept(ByteBuffer buffer, MappingVisitor visitor) throws IOException {
+		final Set<MappingFlag> flags = visitor.getFlags();
+
+		if (flags.contains(MappingFlag.NEEDS_DST_FIELD_DESC) || flags.contains(MappingFlag.NEEDS_DST_METHOD_DESC)) {
+			// Destination descriptors are not stored, let the tree compute them.
+			final MemoryMappingTree mappingTree = new MemoryMappingTree();
+			accept(buffer, mappingTree);
+			mappingTree.accept(visitor);
+			return;
+		}
+
+		buffer.position(HEADER_LENGTH);
+		final Reader reader;
+
+		try {
+			reader = new Reader(buffer);
+		} catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+			throw new IOException("Corrupt binary mappings cache", e);
+		}
+
+		final int bodyStart = buffer.position();
+
+		while (true) {
+			buffer.position(bodyStart);
+
+			try {
+				reader.accept(visitor);
+			} catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+				throw new IOException("Corrupt binary mappings cache", e);
+			}
+
+			if (visitor.visitEnd()) {
+				break;
+			}
+		}
+	}
+
+	private static final class StringTable {
+		private final Map<String, Integer> indices = new HashMap<>();
+		private final List<byte[]> strings = new ArrayList<>();
+
+		int index(@Nullable String string) {
+			if (string == null) {
+				return NULL;
+			}
+
+			return indices.computeIfAbsent(string, s -> {
+				strings.add(s.getBytes(StandardCharsets.UTF_8));
+				return strings.size() - 1;
+			});
+		}
+
+		void write(DataOutputStream out) throws IOException {
+			out.writeInt(strings.size());
+			int offset = 0;
+
+			for (byte[] string : strings) {
+				out.writeInt(offset);
+				offset += string.length;
+			}
+
+			out.writeInt(offset);
+
+			for (byte[] string : strings) {
+				out.write(string);
+			}
+		}
+	}
+
+	private static final class Reader {
+		private final ByteBuffer buffer;
+		private final int[] offsets;
+		private final int stringsStart;
+		private final String[] strings;
+
+		Reader(ByteBuffer buffer) {
+			this.buffer = buffer;
+
+			final int count = buffer.getInt();
+			this.offsets = new int[count + 1];
+
+			for (int i = 0; i <= count; i++) {
+				offsets[i] = buffer.getInt();
+			}
+
+			this.stringsStart = buffer.position();
+			this.strings = new String[count];
+			buffer.position(stringsStart + offsets[count]);
+		}
+
+		@Nullable
+		private String string() {
+			final int index = buffer.getInt();
+
+			if (index == NULL) {
+				return null;
+			}
+
+			String string = strings[index];
+
+			if (string == null) {
+				final int start = stringsStart + offsets[index];
+				string = new String(buffer.array(), buffer.arrayOffset() + start, offsets[index + 1] - offsets[index], StandardCharsets.UTF_8);
+				strings[index] = string;
+			}
+
+			return string;
+		}
+
+		void accept(MappingVisitor visitor) throws IOException {
+			final String srcNamespace = string();
+			final int dstCount = buffer.getInt();
+			final List<String> dstNamespaces = new ArrayList<>(dstCount);
+
+			for (int i = 0; i < dstCount; i++) {
+				dstNamespaces.add(string());
+			}
+
+			final int metadataCount = buffer.getInt();
+
+			if (visitor.visitHeader()) {
+				visitor.visitNamespaces(srcNamespace, dstNamespaces);
+
+				for (int i = 0; i < metadataCount; i++) {
+					visitor.visitMetadata(string(), string());
+				}
+			} else {
+				skip(metadataCount * 2);
+			}
+
+			if (!visitor.visitContent()) {
+				return;
+			}
+
+			final int classCount = buffer.getInt();
+			final String[] dstNames = new String[dstCount];
+
+			for (int i = 0; i < classCount; i++) {
+				final String srcName = string();
+				final String comment = readDstNamesAndComment(dstNames);
+				final boolean visitClass = visitor.visitClass(srcName) && visitElement(visitor, MappedElementKind.CLASS, dstNames, comment);
+
+				final int fieldCount = buffer.getInt();
+
+				for (int j = 0; j < fieldCount; j++) {
+					final String fieldName = string();
+					final String fieldComment = readDstNamesAndComment(dstNames);
+					final String fieldDesc = string();
+
+					if (visitClass && visitor.visitField(fieldName, fieldDesc)) {
+						visitElement(visitor, MappedElementKind.FIELD, dstNames, fieldComment);
+					}
+				}
+
+				final int methodCount = buffer.getInt();
+
+				for (int j = 0; j < methodCount; j++) {
+					final String methodName = string();
+					final String methodComment = readDstNamesAndComment(dstNames);
+					final String methodDesc = string();
+					final boolean visitMethod = visitClass && visitor.visitMethod(methodName, methodDesc) && visitElement(visitor, MappedElementKind.METHOD, dstNames, methodComment);
+
+					final int argCount = buffer.getInt();
+
+					for (int k = 0; k < argCount; k++) {
+						final int argPosition = buffer.getInt();
+						final int lvIndex = buffer.getInt();
+						final String argName = string();
+						final String argComment = readDstNamesAndComment(dstNames);
+
+						if (visitMethod && visitor.visitMethodArg(argPosition, lvIndex, argName)) {
+							visitElement(visitor, MappedElementKind.METHOD_ARG, dstNames, argComment);
+						}
+					}
+
+					final int varCount = buffer.getInt();
+
+					for (int k = 0; k < varCount; k++) {
+						final int lvtRowIndex = buffer.getInt();
+						final int lvIndex = buffer.getInt();
+						final int startOpIdx = buffer.getInt();
+						final int endOpIdx = buffer.getInt();
+						final String varName = string();
+						final String varComment = readDstNamesAndComment(dstNames);
+
+						if (visitMethod && visitor.visitMethodVar(lvtRowIndex, lvIndex, startOpIdx, endOpIdx, varName)) {
+							visitElement(visitor, MappedElementKind.METHOD_VAR, dstNames, varComment);
+						}
+					}
+				}
+			}
+		}
+
+		@Nullable
+		private String readDstNamesAndComment(String[] dstNames) {
+			for (int i = 0; i < dstNames.length; i++) {
+				dstNames[i] = string();
+			}
+
+			return string();
+		}
+
+		private void skip(int ints) {
+			buffer.position(buffer.position() + ints * Integer.BYTES);
+		}
+
+		private static boolean visitElement(MappingVisitor visitor, MappedElementKind kind, String[] dstNames, @Nullable String comment) throws IOException {
+			for (int i = 0; i < dstNames.length; i++) {
+				if (dstNames[i] != null) {
+					visitor.visitDstName(kind, i, dstNames[i]);
+				}
+			}
+
+			if (!visitor.visitElementContent(kind)) {
+				return false;
+			}
+
+			if (comment != null) {
+				visitor.visitComment(kind, comment);
+			}
+
+			return true;
+		}
+	}
+}
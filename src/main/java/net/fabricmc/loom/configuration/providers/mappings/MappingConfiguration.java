@@ -69,6 +69,7 @@ public class MappingConfiguration {
 	public final String mappingsIdentifier;
 
 	private final Path mappingsWorkingDir;
+	private final Path binaryMappingsCacheDir;
 	// The mappings that gradle gives us
 	private final Path baseTinyMappings;
 	// The mappings we use in practice
@@ -80,10 +81,11 @@ public class MappingConfiguration {
 	private UnpickMetadata unpickMetadata;
 	private Map<String, String> signatureFixes;
 
-	private MappingConfiguration(String mappingsIdentifier, Path mappingsWorkingDir) {
+	private MappingConfiguration(String mappingsIdentifier, Path mappingsWorkingDir, Path binaryMappingsCacheDir) {
 		this.mappingsIdentifier = mappingsIdentifier;
 
 		this.mappingsWorkingDir = mappingsWorkingDir;
+		this.binaryMappingsCacheDir = binaryMappingsCacheDir;
 		this.baseTinyMappings = mappingsWorkingDir.resolve("mappings-base.tiny");
 		this.tinyMappings = mappingsWorkingDir.resolve("mappings.tiny");
 		this.tinyMappingsJar = mappingsWorkingDir.resolve("mappings.jar");
@@ -105,7 +107,7 @@ public class MappingConfiguration {
 		final String mappingsIdentifier = createMappingsIdentifier(mappingsName, version, getMappingsClassifier(dependency, jarInfo.v2()), minecraftProvider.minecraftVersion());
 		final Path workingDir = minecraftProvider.dir(mappingsIdentifier).toPath();
 
-		var mappingProvider = new MappingConfiguration(mappingsIdentifier, workingDir);
+		var mappingProvider = new MappingConfiguration(mappingsIdentifier, workingDir, BinaryMappingsCache.getCacheDir(project));
 
 		try {
 			mappingProvider.setup(project, serviceManager, minecraftProvider, inputJar);
@@ -118,7 +120,7 @@ public class MappingConfiguration {
 	}
 
 	public TinyMappingsService getMappingsService(SharedServiceManager serviceManager) {
-		return TinyMappingsService.create(serviceManager, Objects.requireNonNull(tinyMappings));
+		return TinyMappingsService.create(serviceManager, Objects.requireNonNull(tinyMappings), binaryMappingsCacheDir);
 	}
 
 	private void setup(Project project, SharedServiceManager serviceManager, MinecraftProvider minecraftProvider, Path inputJar) throws IOException {
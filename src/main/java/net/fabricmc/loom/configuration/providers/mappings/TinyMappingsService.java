@@ -28,25 +28,25 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.Path;
 
+import org.jetbrains.annotations.Nullable;
+
 import net.fabricmc.loom.util.service.SharedService;
 import net.fabricmc.loom.util.service.SharedServiceManager;
-import net.fabricmc.mappingio.MappingReader;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
 public final class TinyMappingsService implements SharedService {
 	private final MemoryMappingTree mappingTree;
 
-	public TinyMappingsService(Path tinyMappings) {
+	public TinyMappingsService(Path tinyMappings, @Nullable Path cacheDir) {
 		try {
-			this.mappingTree = new MemoryMappingTree();
-			MappingReader.read(tinyMappings, mappingTree);
+			this.mappingTree = BinaryMappingsCache.read(tinyMappings, cacheDir);
 		} catch (IOException e) {
 			throw new UncheckedIOException("Failed to read mappings", e);
 		}
 	}
 
-	public static synchronized TinyMappingsService create(SharedServiceManager serviceManager, Path tinyMappings) {
-		return serviceManager.getOrCreateService("TinyMappingsService:" + tinyMappings.toAbsolutePath(), () -> new TinyMappingsService(tinyMappings));
+	public static synchronized TinyMappingsService create(SharedServiceManager serviceManager, Path tinyMappings, @Nullable Path cacheDir) {
+		return serviceManager.getOrCreateService("TinyMappingsService:" + tinyMappings.toAbsolutePath(), () -> new TinyMappingsService(tinyMappings, cacheDir));
 	}
 
 	public MemoryMappingTree getMappingTree() {
@@ -26,10 +26,21 @@ package net.fabricmc.loom.configuration.providers.minecraft;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.gradle.api.logging.Logger;
 
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.configuration.ConfigContext;
+import net.fabricmc.loom.util.ExceptionUtil;
 import net.fabricmc.stitch.commands.CommandFixNesting;
 import net.fabricmc.tinyremapper.IMappingProvider;
 import net.fabricmc.tinyremapper.NonClassCopyMode;
@@ -54,26 +65,75 @@ public final class GluedMinecraftProvider extends MergedMinecraftProvider {
 
 	@Override
 	protected void mergeJars(File clientJar, File serverJar) throws IOException {
-		Path mappings = getExtension().getMappingConfiguration().tinyMappings;
+		final Path mappings = getExtension().getMappingConfiguration().tinyMappings;
+		// Resolved up front, so that the glue tasks do not access the project from another thread.
+		final MinecraftProviderRegistry registry = MinecraftProviderRegistry.get(getProject());
+		final String projectPath = getProject().getPath();
+		final Logger logger = getLogger();
+		final List<IORunnable> glueTasks = new ArrayList<>();
 
+		// The client and server jars do not depend on each other, so glue them at the same time.
 		if (!minecraftClientGlueJar.exists()) {
-			getLogger().lifecycle(":Gluing client");
-			remapJar(clientJar.toPath(), minecraftClientGlueJar.toPath(), mappings, MappingsNamespace.CLIENT, MappingsNamespace.GLUE);
+			logger.lifecycle(":Gluing client");
+			final Path input = clientJar.toPath();
+			final Path output = minecraftClientGlueJar.toPath();
+			glueTasks.add(() -> measure(registry, projectPath, "glue client", () -> remapJar(logger, input, output, mappings, MappingsNamespace.CLIENT, MappingsNamespace.GLUE)));
 		}
 
 		if (!minecraftServerGlueJar.exists()) {
-			getLogger().lifecycle(":Gluing server");
-			remapJar(serverJar.toPath(), minecraftServerGlueJar.toPath(), mappings, MappingsNamespace.SERVER, MappingsNamespace.GLUE);
+			logger.lifecycle(":Gluing server");
+			final Path input = serverJar.toPath();
+			final Path output = minecraftServerGlueJar.toPath();
+			glueTasks.add(() -> measure(registry, projectPath, "glue server", () -> remapJar(logger, input, output, mappings, MappingsNamespace.SERVER, MappingsNamespace.GLUE)));
+		}
+
+		if (!glueTasks.isEmpty()) {
+			glueJars(glueTasks);
 		}
 
-		super.mergeJars(minecraftClientGlueJar, minecraftServerGlueJar);
+		measure(registry, projectPath, "merge glued jars", () -> super.mergeJars(minecraftClientGlueJar, minecraftServerGlueJar));
+		measure(registry, projectPath, "fix nesting", () -> CommandFixNesting.run(getMergedJar().toFile()));
+	}
+
+	private static void glueJars(List<IORunnable> glueTasks) {
+		final ExecutorService executor = Executors.newFixedThreadPool(glueTasks.size());
+
+		try {
+			final List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+			for (IORunnable glueTask : glueTasks) {
+				futures.add(CompletableFuture.runAsync(() -> {
+					try {
+						glueTask.run();
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}, executor));
+			}
 
-		CommandFixNesting.run(getMergedJar().toFile());
+			CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+		} catch (CompletionException e) {
+			throw ExceptionUtil.createDescriptiveWrapper(RuntimeException::new, "Failed to glue minecraft jars", e.getCause());
+		} finally {
+			executor.shutdown();
+		}
 	}
 
-	private void remapJar(Path input, Path output, Path mappingsPath, MappingsNamespace fromM, MappingsNamespace toM) {
-		getLogger().lifecycle(":Remapping minecraft (TinyRemapper, " + fromM + " -> " + toM + ')');
+	private static void measure(MinecraftProviderRegistry registry, String projectPath, String stage, IORunnable runnable) throws IOException {
+		try {
+			registry.measure(stage, projectPath, () -> {
+				runnable.run();
+				return null;
+			});
+		} catch (IOException | RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
 
+	private static void remapJar(Logger logger, Path input, Path output, Path mappingsPath, MappingsNamespace fromM, MappingsNamespace toM) throws IOException {
+		logger.lifecycle(":Remapping minecraft (TinyRemapper, " + fromM + " -> " + toM + ')');
 		IMappingProvider mappings = TinyUtils.createTinyMappingProvider(mappingsPath, fromM.toString(), toM.toString());
 
 		TinyRemapper remapper = TinyRemapper.newRemapper()
@@ -88,9 +148,16 @@ public final class GluedMinecraftProvider extends MergedMinecraftProvider {
 			remapper.apply(outputConsumer);
 			outputConsumer.addNonClassFiles(input, NonClassCopyMode.FIX_META_INF, remapper);
 		} catch (Exception e) {
+			// Don't leave a partial jar behind, it would be picked up as already glued on the next run
+			Files.deleteIfExists(output);
 			throw new RuntimeException("Failed to remap JARs " + input + " with mappings from " + mappings, e);
 		} finally {
 			remapper.finish();
 		}
 	}
+
+	@FunctionalInterface
+	private interface IORunnable {
+		void run() throws IOException;
+	}
 }
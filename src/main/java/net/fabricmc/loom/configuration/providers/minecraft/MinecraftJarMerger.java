@@ -26,69 +26,71 @@ package net.fabricmc.loom.configuration.providers.minecraft;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.FileVisitResult;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.SimpleFileVisitor;
-import java.nio.file.StandardOpenOption;
-import java.nio.file.attribute.BasicFileAttributeView;
-import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.Deque;
+import java.util.Enumeration;
 import java.util.HashMap;
-import java.util.List;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
+import org.jetbrains.annotations.Nullable;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
 
 import net.fabricmc.loom.util.Constants;
-import net.fabricmc.loom.util.FileSystemUtil;
+import net.fabricmc.loom.util.ParallelZipWriter;
 import net.fabricmc.loom.util.SnowmanClassVisitor;
 import net.fabricmc.loom.util.SyntheticParameterClassVisitor;
 
+/**
+ * Merges the client and server jars into a single jar, annotating the classes and members that are only present on one side.
+ *
+ * <p>Entries are merged on a work-stealing pool and written to the output in sorted order as soon as they are ready,
+ * they are then compressed in parallel by {@link ParallelZipWriter}.
+ * Only a bounded window of entries is held in memory at any time, rather than the contents of both input jars.
+ */
 public class MinecraftJarMerger implements AutoCloseable {
-	public static class Entry {
-		public final Path path;
-		public final BasicFileAttributes metadata;
-		public final byte[] data;
-
-		public Entry(Path path, BasicFileAttributes metadata, byte[] data) {
-			this.path = path;
-			this.metadata = metadata;
-			this.data = data;
-		}
+	private static final MinecraftClassMerger CLASS_MERGER = new MinecraftClassMerger();
+	private static final byte[] MANIFEST = "Manifest-Version: 1.0\nMain-Class: net.minecraft.client.Main\n".getBytes(StandardCharsets.UTF_8);
+
+	private record Entry(String name, long time, byte[] data) {
 	}
 
-	private static final MinecraftClassMerger CLASS_MERGER = new MinecraftClassMerger();
-	private final FileSystemUtil.Delegate inputClientFs, inputServerFs, outputFs;
-	private final Path inputClient, inputServer;
-	private final Map<String, Entry> entriesClient, entriesServer;
-	private final Set<String> entriesAll;
+	private final ZipFile inputClient, inputServer;
+	private final Path output;
+	private final int parallelism;
 	private boolean removeSnowmen = false;
 	private boolean offsetSyntheticsParams = false;
 
 	public MinecraftJarMerger(File inputClient, File inputServer, File output) throws IOException {
+		this(inputClient, inputServer, output, Runtime.getRuntime().availableProcessors());
+	}
+
+	public MinecraftJarMerger(File inputClient, File inputServer, File output, int parallelism) throws IOException {
 		if (output.exists()) {
 			if (!output.delete()) {
 				throw new IOException("Could not delete " + output.getName());
 			}
 		}
 
-		this.inputClient = (inputClientFs = FileSystemUtil.getJarFileSystem(inputClient, false)).get().getPath("/");
-		this.inputServer = (inputServerFs = FileSystemUtil.getJarFileSystem(inputServer, false)).get().getPath("/");
-		this.outputFs = FileSystemUtil.getJarFileSystem(output, true);
-
-		this.entriesClient = new HashMap<>();
-		this.entriesServer = new HashMap<>();
-		this.entriesAll = new TreeSet<>();
+		this.inputClient = new ZipFile(inputClient);
+		this.inputServer = new ZipFile(inputServer);
+		this.output = output.toPath();
+		this.parallelism = Math.max(1, parallelism);
 	}
 
 	public void enableSnowmanRemoval() {
@@ -101,148 +103,163 @@ public class MinecraftJarMerger implements AutoCloseable {
 
 	@Override
 	public void close() throws IOException {
-		inputClientFs.close();
-		inputServerFs.close();
-		outputFs.close();
+		inputClient.close();
+		inputServer.close();
 	}
 
-	private void readToMap(Map<String, Entry> map, Path input) {
-		try {
-			Files.walkFileTree(input, new SimpleFileVisitor<>() {
-				@Override
-				public FileVisitResult visitFile(Path path, BasicFileAttributes attr) throws IOException {
-					if (attr.isDirectory()) {
-						return FileVisitResult.CONTINUE;
-					}
-
-					if (!path.getFileName().toString().endsWith(".class")) {
-						if (path.toString().equals("/META-INF/MANIFEST.MF")) {
-							map.put("META-INF/MANIFEST.MF", new Entry(path, attr,
-									"Manifest-Version: 1.0\nMain-Class: net.minecraft.client.Main\n".getBytes(StandardCharsets.UTF_8)));
-						} else {
-							if (path.toString().startsWith("/META-INF/")) {
-								if (path.toString().endsWith(".SF") || path.toString().endsWith(".RSA")) {
-									return FileVisitResult.CONTINUE;
-								}
-							}
-
-							map.put(path.toString().substring(1), new Entry(path, attr, null));
-						}
-
-						return FileVisitResult.CONTINUE;
-					}
-
-					byte[] output = Files.readAllBytes(path);
-					map.put(path.toString().substring(1), new Entry(path, attr, output));
-					return FileVisitResult.CONTINUE;
-				}
-			});
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-	}
+	private static Map<String, ZipEntry> readEntries(ZipFile zipFile) {
+		final Map<String, ZipEntry> entries = new HashMap<>();
+		final Enumeration<? extends ZipEntry> enumeration = zipFile.entries();
 
-	private void add(Entry entry) throws IOException {
-		Path outPath = outputFs.get().getPath(entry.path.toString());
+		while (enumeration.hasMoreElements()) {
+			final ZipEntry entry = enumeration.nextElement();
+			final String name = entry.getName();
 
-		if (outPath.getParent() != null) {
-			Files.createDirectories(outPath.getParent());
-		}
+			if (entry.isDirectory()) {
+				continue;
+			}
 
-		if (entry.data != null) {
-			Files.write(outPath, entry.data, StandardOpenOption.CREATE_NEW);
-		} else {
-			Files.copy(entry.path, outPath);
+			if (name.startsWith("META-INF/") && (name.endsWith(".SF") || name.endsWith(".RSA"))) {
+				continue;
+			}
+
+			entries.put(name, entry);
 		}
 
-		Files.getFileAttributeView(outPath, BasicFileAttributeView.class)
-				.setTimes(
-						entry.metadata.creationTime(),
-						entry.metadata.lastAccessTime(),
-						entry.metadata.lastModifiedTime()
-				);
+		return entries;
 	}
 
-	public void merge() throws IOException {
-		ExecutorService service = Executors.newFixedThreadPool(2);
-		service.submit(() -> readToMap(entriesClient, inputClient));
-		service.submit(() -> readToMap(entriesServer, inputServer));
-		service.shutdown();
+	private static byte[] readEntry(ZipFile zipFile, ZipEntry entry) {
+		if (entry.getName().equals(Constants.Manifest.PATH)) {
+			return MANIFEST;
+		}
 
-		try {
-			service.awaitTermination(1, TimeUnit.HOURS);
-		} catch (InterruptedException e) {
-			e.printStackTrace();
+		try (InputStream inputStream = zipFile.getInputStream(entry)) {
+			return inputStream.readAllBytes();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to read %s from %s".formatted(entry.getName(), zipFile.getName()), e);
 		}
+	}
 
+	public void merge() throws IOException {
+		final Map<String, ZipEntry> entriesClient = readEntries(inputClient);
+		final Map<String, ZipEntry> entriesServer = readEntries(inputServer);
+
+		final Set<String> entriesAll = new TreeSet<>();
 		entriesAll.addAll(entriesClient.keySet());
 		entriesAll.addAll(entriesServer.keySet());
 
-		List<Entry> entries = entriesAll.parallelStream().map((entry) -> {
-			boolean isClass = entry.endsWith(".class");
-			boolean isMinecraft = entriesClient.containsKey(entry) || entry.startsWith("net/minecraft") || !entry.contains("/");
-			Entry result;
-			String side = null;
-
-			Entry entry1 = entriesClient.get(entry);
-			Entry entry2 = entriesServer.get(entry);
-
-			if (entry1 != null && entry2 != null) {
-				if (Arrays.equals(entry1.data, entry2.data)) {
-					result = entry1;
-				} else {
-					if (isClass) {
-						result = new Entry(entry1.path, entry1.metadata, CLASS_MERGER.merge(entry1.data, entry2.data));
-					} else {
-						// FIXME: More heuristics?
-						result = entry1;
-					}
+		// Allow a few entries per thread to be queued up so the workers never wait on the writer.
+		final int window = parallelism * 4;
+		final Deque<Future<Entry>> inFlight = new ArrayDeque<>(window);
+		final Set<String> directories = new HashSet<>();
+		final ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+		try (var zipWriter = new ParallelZipWriter(output, parallelism)) {
+			final Iterator<String> iterator = entriesAll.iterator();
+
+			while (iterator.hasNext() || !inFlight.isEmpty()) {
+				while (iterator.hasNext() && inFlight.size() < window) {
+					final String name = iterator.next();
+					final ZipEntry entryClient = entriesClient.get(name);
+					final ZipEntry entryServer = entriesServer.get(name);
+
+					inFlight.add(pool.submit(() -> mergeEntry(name, entryClient, entryServer, entriesClient.containsKey(name))));
+				}
+
+				final Entry entry = await(inFlight.poll());
+
+				if (entry != null) {
+					write(zipWriter, entry, directories);
 				}
-			} else if ((result = entry1) != null) {
-				side = "CLIENT";
-			} else if ((result = entry2) != null) {
-				side = "SERVER";
 			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Nullable
+	private Entry mergeEntry(String name, @Nullable ZipEntry entryClient, @Nullable ZipEntry entryServer, boolean onClient) {
+		boolean isClass = name.endsWith(".class");
+		boolean isMinecraft = onClient || name.startsWith("net/minecraft") || !name.contains("/");
+		Entry result = null;
+		String side = null;
+
+		if (entryClient != null && entryServer != null) {
+			final byte[] dataClient = readEntry(inputClient, entryClient);
+			final byte[] dataServer = readEntry(inputServer, entryServer);
 
-			if (isClass && !isMinecraft && "SERVER".equals(side)) {
+			if (Arrays.equals(dataClient, dataServer) || !isClass) {
+				// FIXME: More heuristics for non-class files?
+				result = new Entry(name, entryClient.getTime(), dataClient);
+			} else {
+				result = new Entry(name, entryClient.getTime(), CLASS_MERGER.merge(dataClient, dataServer));
+			}
+		} else if (entryClient != null) {
+			side = "CLIENT";
+			result = new Entry(name, entryClient.getTime(), readEntry(inputClient, entryClient));
+		} else if (entryServer != null) {
+			if (isClass && !isMinecraft) {
 				// Server bundles libraries, client doesn't - skip them
 				return null;
 			}
 
-			if (result != null) {
-				if (isMinecraft && isClass) {
-					byte[] data = result.data;
-					ClassReader reader = new ClassReader(data);
-					ClassWriter writer = new ClassWriter(0);
-					ClassVisitor visitor = writer;
-
-					if (side != null) {
-						visitor = new MinecraftClassMerger.SidedClassVisitor(Constants.ASM_VERSION, visitor, side);
-					}
-
-					if (removeSnowmen) {
-						visitor = new SnowmanClassVisitor(Constants.ASM_VERSION, visitor);
-					}
-
-					if (offsetSyntheticsParams) {
-						visitor = new SyntheticParameterClassVisitor(Constants.ASM_VERSION, visitor);
-					}
-
-					if (visitor != writer) {
-						reader.accept(visitor, 0);
-						data = writer.toByteArray();
-						result = new Entry(result.path, result.metadata, data);
-					}
-				}
+			side = "SERVER";
+			result = new Entry(name, entryServer.getTime(), readEntry(inputServer, entryServer));
+		}
 
-				return result;
-			} else {
-				return null;
+		if (result != null && isMinecraft && isClass) {
+			ClassReader reader = new ClassReader(result.data());
+			ClassWriter writer = new ClassWriter(0);
+			ClassVisitor visitor = writer;
+
+			if (side != null) {
+				visitor = new MinecraftClassMerger.SidedClassVisitor(Constants.ASM_VERSION, visitor, side);
+			}
+
+			if (removeSnowmen) {
+				visitor = new SnowmanClassVisitor(Constants.ASM_VERSION, visitor);
+			}
+
+			if (offsetSyntheticsParams) {
+				visitor = new SyntheticParameterClassVisitor(Constants.ASM_VERSION, visitor);
 			}
-		}).filter(Objects::nonNull).toList();
 
-		for (Entry e : entries) {
-			add(e);
+			if (visitor != writer) {
+				reader.accept(visitor, 0);
+				result = new Entry(name, result.time(), writer.toByteArray());
+			}
 		}
+
+		return result;
+	}
+
+	private static Entry await(Future<Entry> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while merging jars", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof UncheckedIOException uncheckedIOException) {
+				throw uncheckedIOException.getCause();
+			}
+
+			throw new IOException("Failed to merge jars", e.getCause());
+		}
+	}
+
+	private static void write(ParallelZipWriter zipWriter, Entry entry, Set<String> directories) throws IOException {
+		int index = -1;
+
+		while ((index = entry.name().indexOf('/', index + 1)) != -1) {
+			final String directory = entry.name().substring(0, index + 1);
+
+			if (directories.add(directory)) {
+				zipWriter.putEntry(directory, entry.time(), ZipEntry.DEFLATED, new byte[0]);
+			}
+		}
+
+		zipWriter.putEntry(entry.name(), entry.time(), ZipEntry.DEFLATED, entry.data());
 	}
 }
@@ -46,7 +46,7 @@ import net.fabricmc.loom.util.gradle.ProgressGroup;
 
 public abstract class MinecraftProvider {
 	private String minecraftVersion;
-	private MinecraftMetadataProvider metadataProvider;
+	private MinecraftVersionMeta versionMeta;
 
 	private File workingDir;
 	private File minecraftClientJar;
@@ -81,25 +81,36 @@ public abstract class MinecraftProvider {
 	public void provide() throws Exception {
 		initFiles();
 
-		metadataProvider = new MinecraftMetadataProvider(
-				MinecraftMetadataProvider.Options.create(
-						minecraftVersion,
-						getProject(),
-						file("minecraft-info.json").toPath()
-				),
-				getExtension()::download
-		);
+		// The version metadata and the downloaded jars are the same for every project using this version.
+		final MinecraftProviderRegistry registry = MinecraftProviderRegistry.get(project);
+		final MinecraftProviderRegistry.Key key = getRegistryKey();
 
-		downloadJars();
+		versionMeta = registry.getOrCompute(key, "version metadata", project, () -> {
+			final var metadataProvider = new MinecraftMetadataProvider(
+					MinecraftMetadataProvider.Options.create(
+							minecraftVersion,
+							getProject(),
+							file("minecraft-info.json").toPath()
+					),
+					getExtension()::download
+			);
 
-		if (provideServer()) {
-			serverBundleMetadata = BundleMetadata.fromJar(minecraftServerJar.toPath());
-		}
+			return metadataProvider.getVersionMeta();
+		});
+
+		serverBundleMetadata = registry.getOrCompute(key, "minecraft jars", project, () -> {
+			downloadJars();
+			return provideServer() ? BundleMetadata.fromJar(minecraftServerJar.toPath()) : null;
+		});
 
 		final MinecraftLibraryProvider libraryProvider = new MinecraftLibraryProvider(this, project);
 		libraryProvider.provide();
 	}
 
+	public MinecraftProviderRegistry.Key getRegistryKey() {
+		return MinecraftProviderRegistry.Key.minecraft(minecraftVersion, getExtension().getMinecraftJarConfiguration().get(), refreshDeps());
+	}
+
 	protected void initFiles() {
 		workingDir = new File(getExtension().getFiles().getUserCache(), minecraftVersion);
 		workingDir.mkdirs();
@@ -121,6 +132,7 @@ public abstract class MinecraftProvider {
 				final MinecraftVersionMeta.Download client = getVersionInfo().download("client");
 				getExtension().download(client.url())
 						.sha1(client.sha1())
+						.parallelChunks(4)
 						.progress(new GradleDownloadProgressListener("Minecraft client", progressGroup::createProgressLogger))
 						.downloadPathAsync(minecraftClientJar.toPath(), executor);
 			}
@@ -129,6 +141,7 @@ public abstract class MinecraftProvider {
 				final MinecraftVersionMeta.Download server = getVersionInfo().download("server");
 				getExtension().download(server.url())
 						.sha1(server.sha1())
+						.parallelChunks(4)
 						.progress(new GradleDownloadProgressListener("Minecraft server", progressGroup::createProgressLogger))
 						.downloadPathAsync(minecraftServerJar.toPath(), executor);
 			}
@@ -189,7 +202,7 @@ public abstract class MinecraftProvider {
 	}
 
 	public MinecraftVersionMeta getVersionInfo() {
-		return Objects.requireNonNull(metadataProvider, "Metadata provider not setup").getVersionMeta();
+		return Objects.requireNonNull(versionMeta, "Metadata provider not setup");
 	}
 
 	@Nullable
@@ -0,0 +1,174 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.providers.minecraft;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.gradle.api.Project;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.fabricmc.loom.util.ExceptionUtil;
+
+/**
+ * A build scoped registry of the Minecraft setup stages, allowing the work to be shared across projects.
+ *
+ * <p>Each stage is computed once per {@link Key} by the first project that requires it,
+ * any other project requiring the same stage waits for and reuses the result.
+ */
+public abstract class MinecraftProviderRegistry implements BuildService<BuildServiceParameters.None>, AutoCloseable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(MinecraftProviderRegistry.class);
+	private static final String NAME = "loom:minecraftProviderRegistry";
+
+	private final Map<StageKey, CompletableFuture<Object>> stages = new ConcurrentHashMap<>();
+	private final Queue<StageTiming> timings = new ConcurrentLinkedQueue<>();
+
+	public static MinecraftProviderRegistry get(Project project) {
+		return project.getGradle().getSharedServices().registerIfAbsent(NAME, MinecraftProviderRegistry.class, spec -> {
+		}).get();
+	}
+
+	/**
+	 * Returns the result of the stage for the given key, computing it if no other project has done so already.
+	 */
+	public <T> T getOrCompute(Key key, String stage, Project project, Stage<T> function) throws Exception {
+		return getOrCompute(key, stage, project.getPath(), function);
+	}
+
+	/**
+	 * Same as {@link #getOrCompute(Key, String, Project, Stage)}, but can be called off the configuration thread.
+	 */
+	public <T> T getOrCompute(Key key, String stage, String projectPath, Stage<T> function) throws Exception {
+		final StageKey stageKey = new StageKey(key, stage);
+		final CompletableFuture<Object> future = new CompletableFuture<>();
+		final CompletableFuture<Object> existing = stages.putIfAbsent(stageKey, future);
+		final long start = System.nanoTime();
+
+		if (existing != null) {
+			try {
+				//noinspection unchecked
+				return (T) existing.join();
+			} catch (CompletionException e) {
+				throw ExceptionUtil.createDescriptiveWrapper(RuntimeException::new, "Failed to provide %s for %s".formatted(stage, key), e.getCause());
+			} finally {
+				record(projectPath, stage, start, true);
+			}
+		}
+
+		try {
+			final T result = function.get();
+			future.complete(result);
+			return result;
+		} catch (Throwable t) {
+			// Allow the next project to try again
+			stages.remove(stageKey, future);
+			future.completeExceptionally(t);
+			throw t;
+		} finally {
+			record(projectPath, stage, start, false);
+		}
+	}
+
+	/**
+	 * Runs a stage that cannot be shared, recording how long it took for the given project.
+	 */
+	public <T> T measure(String stage, Project project, Stage<T> function) throws Exception {
+		return measure(stage, project.getPath(), function);
+	}
+
+	/**
+	 * Same as {@link #measure(String, Project, Stage)}, but can be called off the configuration thread.
+	 */
+	public <T> T measure(String stage, String projectPath, Stage<T> function) throws Exception {
+		final long start = System.nanoTime();
+
+		try {
+			return function.get();
+		} finally {
+			record(projectPath, stage, start, false);
+		}
+	}
+
+	public List<StageTiming> getTimings() {
+		return new ArrayList<>(timings);
+	}
+
+	private void record(String projectPath, String stage, long start, boolean shared) {
+		final StageTiming timing = new StageTiming(projectPath, stage, System.nanoTime() - start, shared);
+		timings.add(timing);
+		LOGGER.info("{} {} for {} in {} ms", shared ? "Reused" : "Provided", stage, timing.projectPath(), timing.millis());
+	}
+
+	@Override
+	public void close() {
+		if (timings.isEmpty() || !LOGGER.isInfoEnabled()) {
+			return;
+		}
+
+		final Map<String, Long> projectTimes = timings.stream()
+				.collect(Collectors.groupingBy(StageTiming::projectPath, Collectors.summingLong(StageTiming::nanos)));
+
+		projectTimes.forEach((projectPath, nanos) -> LOGGER.info("Minecraft setup for {} took {} ms", projectPath, TimeUnit.NANOSECONDS.toMillis(nanos)));
+	}
+
+	/**
+	 * Identifies the inputs of the shared stages, the mapping related components are null for the stages that only depend on Minecraft.
+	 */
+	public record Key(String minecraftVersion, MinecraftJarConfiguration jarConfiguration, @Nullable String intermediateProvider, @Nullable String mappings, boolean refresh) {
+		public static Key minecraft(String minecraftVersion, MinecraftJarConfiguration jarConfiguration, boolean refresh) {
+			return new Key(minecraftVersion, jarConfiguration, null, null, refresh);
+		}
+
+		public Key withMappings(String intermediateProvider, String mappings) {
+			return new Key(minecraftVersion, jarConfiguration, intermediateProvider, mappings, refresh);
+		}
+	}
+
+	public record StageTiming(String projectPath, String stage, long nanos, boolean shared) {
+		public long millis() {
+			return TimeUnit.NANOSECONDS.toMillis(nanos);
+		}
+	}
+
+	private record StageKey(Key key, String stage) {
+	}
+
+	@FunctionalInterface
+	public interface Stage<T> {
+		T get() throws Exception;
+	}
+}
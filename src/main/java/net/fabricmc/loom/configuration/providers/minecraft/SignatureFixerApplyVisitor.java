@@ -28,8 +28,8 @@ import java.io.IOException;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
-import org.gradle.api.Project;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.commons.Remapper;
 
@@ -56,7 +56,7 @@ public record SignatureFixerApplyVisitor(Map<String, String> signatureFixes) imp
 		};
 	}
 
-	public static Map<String, String> getRemappedSignatures(boolean toIntermediary, MappingConfiguration mappingConfiguration, Project project, SharedServiceManager serviceManager, String targetNamespace) throws IOException {
+	public static Map<String, String> getRemappedSignatures(boolean toIntermediary, MappingConfiguration mappingConfiguration, SharedServiceManager serviceManager, Set<String> knownIndyBsms, String targetNamespace) throws IOException {
 		if (mappingConfiguration.getSignatureFixes() == null) {
 			// No fixes
 			return Collections.emptyMap();
@@ -69,7 +69,7 @@ public record SignatureFixerApplyVisitor(Map<String, String> signatureFixes) imp
 
 		// Remap the sig fixes from intermediary to the target namespace
 		final Map<String, String> remapped = new HashMap<>();
-		final TinyRemapper sigTinyRemapper = TinyRemapperHelper.getTinyRemapper(project, serviceManager, MappingsNamespace.INTERMEDIARY.toString(), targetNamespace);
+		final TinyRemapper sigTinyRemapper = TinyRemapperHelper.getTinyRemapper(mappingConfiguration, serviceManager, knownIndyBsms, MappingsNamespace.INTERMEDIARY.toString(), targetNamespace, false, (builder) -> { });
 		final Remapper sigAsmRemapper = sigTinyRemapper.getEnvironment().getRemapper();
 
 		// Remap the class names and the signatures using a new tiny remapper instance.
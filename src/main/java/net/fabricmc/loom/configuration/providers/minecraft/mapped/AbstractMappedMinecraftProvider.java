@@ -26,16 +26,32 @@ package net.fabricmc.loom.configuration.providers.minecraft.mapped;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import org.gradle.api.Project;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
 
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
@@ -48,8 +64,12 @@ import net.fabricmc.loom.configuration.providers.minecraft.MinecraftProvider;
 import net.fabricmc.loom.configuration.providers.minecraft.MinecraftSourceSets;
 import net.fabricmc.loom.configuration.providers.minecraft.SignatureFixerApplyVisitor;
 import net.fabricmc.loom.extension.LoomFiles;
+import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.SidedClassVisitor;
 import net.fabricmc.loom.util.TinyRemapperHelper;
+import net.fabricmc.loom.util.gradle.GradleUtils;
+import net.fabricmc.loom.util.service.SharedServiceManager;
+import net.fabricmc.tinyremapper.InputTag;
 import net.fabricmc.tinyremapper.OutputConsumerPath;
 import net.fabricmc.tinyremapper.TinyRemapper;
 
@@ -74,18 +94,7 @@ public abstract class AbstractMappedMinecraftProvider<M extends MinecraftProvide
 	}
 
 	public List<MinecraftJar> provide(ProvideContext context) throws Exception {
-		final List<RemappedJars> remappedJars = getRemappedJars();
-		assert !remappedJars.isEmpty();
-
-		if (!areOutputsValid(remappedJars) || context.refreshOutputs()) {
-			try {
-				remapInputs(remappedJars, context.configContext());
-			} catch (Throwable t) {
-				cleanOutputs(remappedJars);
-
-				throw new RuntimeException("Failed to remap minecraft", t);
-			}
-		}
+		final List<MinecraftJar> outputJars = prepareRemap(context).run();
 
 		if (context.applyDependencies()) {
 			final List<MinecraftJar.Type> dependencyTargets = getDependencyTypes();
@@ -98,9 +107,41 @@ public abstract class AbstractMappedMinecraftProvider<M extends MinecraftProvide
 			}
 		}
 
-		return remappedJars.stream()
-				.map(RemappedJars::outputJar)
-				.toList();
+		return outputJars;
+	}
+
+	/**
+	 * Resolves everything that the remap needs from the project and the extension.
+	 * The returned {@link Remap} does not access the project, so it can be run on another thread.
+	 */
+	public Remap prepareRemap(ProvideContext context) {
+		final List<RemappedJars> remappedJars = getRemappedJars();
+		assert !remappedJars.isEmpty();
+
+		final Map<RemappedJars, LocalMavenHelper> mavenHelpers = new HashMap<>();
+		final Map<RemappedJars, TinyRemapper.ApplyVisitorProvider> applyVisitors = new HashMap<>();
+
+		for (RemappedJars remappedJar : remappedJars) {
+			mavenHelpers.put(remappedJar, getMavenHelper(remappedJar.type()));
+
+			final TinyRemapper.ApplyVisitorProvider applyVisitor = getApplyVisitor(remappedJar);
+
+			if (applyVisitor != null) {
+				applyVisitors.put(remappedJar, applyVisitor);
+			}
+		}
+
+		return new Remap(
+				remappedJars,
+				mavenHelpers,
+				applyVisitors,
+				getTargetNamespace(),
+				extension.getMappingConfiguration(),
+				context.configContext().serviceManager(),
+				extension.getKnownIndyBsms().get(),
+				context.refreshOutputs(),
+				!GradleUtils.getBooleanProperty(getProject(), Constants.Properties.DISABLE_PARALLEL_MINECRAFT_REMAP)
+		);
 	}
 
 	public record ProvideContext(boolean applyDependencies, boolean refreshOutputs, ConfigContext configContext) {
@@ -164,81 +205,245 @@ public abstract class AbstractMappedMinecraftProvider<M extends MinecraftProvide
 		return "net.minecraft:%s:%s".formatted(getName(type), getVersion());
 	}
 
-	private boolean areOutputsValid(List<RemappedJars> remappedJars) {
-		for (RemappedJars remappedJar : remappedJars) {
-			if (!getMavenHelper(remappedJar.type()).exists(null)) {
-				return false;
-			}
+	/**
+	 * Returns a visitor to apply to the classes of the given jar, or null if there is none.
+	 */
+	@Nullable
+	protected TinyRemapper.ApplyVisitorProvider getApplyVisitor(RemappedJars remappedJars) {
+		return null;
+	}
+
+	// Add the client @Environment annotation to all classes in the client jar.
+	@Nullable
+	public static TinyRemapper.ApplyVisitorProvider getSplitApplyVisitor(RemappedJars remappedJars) {
+		final MinecraftJar outputJar = remappedJars.outputJar();
+		assert !outputJar.isMerged();
+
+		if (outputJar.includesClient()) {
+			assert !outputJar.includesServer();
+			return SidedClassVisitor.CLIENT;
 		}
 
-		return true;
+		return null;
 	}
 
-	private void remapInputs(List<RemappedJars> remappedJars, ConfigContext configContext) throws IOException {
-		cleanOutputs(remappedJars);
+	public Project getProject() {
+		return project;
+	}
 
-		for (RemappedJars remappedJar : remappedJars) {
-			remapJar(remappedJar, configContext);
-		}
+	public M getMinecraftProvider() {
+		return minecraftProvider;
 	}
 
-	private void remapJar(RemappedJars remappedJars, ConfigContext configContext) throws IOException {
-		final MappingConfiguration mappingConfiguration = extension.getMappingConfiguration();
-		final String fromM = remappedJars.sourceNamespace().toString();
-		final String toM = getTargetNamespace().toString();
+	/**
+	 * Remaps the jars of a provider using only the values resolved by {@link #prepareRemap(ProvideContext)}.
+	 */
+	public static final class Remap {
+		private final List<RemappedJars> remappedJars;
+		private final Map<RemappedJars, LocalMavenHelper> mavenHelpers;
+		private final Map<RemappedJars, TinyRemapper.ApplyVisitorProvider> applyVisitors;
+		private final MappingsNamespace targetNamespace;
+		private final MappingConfiguration mappingConfiguration;
+		private final SharedServiceManager serviceManager;
+		private final Set<String> knownIndyBsms;
+		private final boolean refreshOutputs;
+		private final boolean allowRemapTogether;
+
+		private Remap(List<RemappedJars> remappedJars, Map<RemappedJars, LocalMavenHelper> mavenHelpers, Map<RemappedJars, TinyRemapper.ApplyVisitorProvider> applyVisitors, MappingsNamespace targetNamespace, MappingConfiguration mappingConfiguration, SharedServiceManager serviceManager, Set<String> knownIndyBsms, boolean refreshOutputs, boolean allowRemapTogether) {
+			this.remappedJars = remappedJars;
+			this.mavenHelpers = mavenHelpers;
+			this.applyVisitors = applyVisitors;
+			this.targetNamespace = targetNamespace;
+			this.mappingConfiguration = mappingConfiguration;
+			this.serviceManager = serviceManager;
+			this.knownIndyBsms = knownIndyBsms;
+			this.refreshOutputs = refreshOutputs;
+			this.allowRemapTogether = allowRemapTogether;
+		}
 
-		Files.deleteIfExists(remappedJars.outputJarPath());
+		public List<MinecraftJar> run() throws IOException {
+			if (!areOutputsValid() || refreshOutputs) {
+				try {
+					remapInputs();
+				} catch (Throwable t) {
+					cleanOutputs();
 
-		final Map<String, String> remappedSignatures = SignatureFixerApplyVisitor.getRemappedSignatures(getTargetNamespace() == MappingsNamespace.INTERMEDIARY, mappingConfiguration, getProject(), configContext.serviceManager(), toM);
-		TinyRemapper remapper = TinyRemapperHelper.getTinyRemapper(getProject(), configContext.serviceManager(), fromM, toM, remappedJars.sourceNamespace() == MappingsNamespace.INTERMEDIARY, (builder) -> {
-			builder.extraPostApplyVisitor(new SignatureFixerApplyVisitor(remappedSignatures));
-			configureRemapper(remappedJars, builder);
-		});
+					throw new RuntimeException("Failed to remap minecraft", t);
+				}
+			}
 
-		try (OutputConsumerPath outputConsumer = new OutputConsumerPath.Builder(remappedJars.outputJarPath()).build()) {
-			outputConsumer.addNonClassFiles(remappedJars.inputJar());
+			return remappedJars.stream()
+					.map(RemappedJars::outputJar)
+					.toList();
+		}
 
-			for (Path path : remappedJars.remapClasspath()) {
-				remapper.readClassPath(path);
+		private boolean areOutputsValid() {
+			for (RemappedJars remappedJar : remappedJars) {
+				if (!mavenHelpers.get(remappedJar).exists(null)) {
+					return false;
+				}
 			}
 
-			remapper.readInputs(remappedJars.inputJar());
-			remapper.apply(outputConsumer);
-		} catch (Exception e) {
-			throw new RuntimeException("Failed to remap JAR " + remappedJars.inputJar() + " with mappings from " + mappingConfiguration.tinyMappings, e);
-		} finally {
-			remapper.finish();
+			return true;
 		}
 
-		getMavenHelper(remappedJars.type()).savePom();
-	}
+		private void remapInputs() throws IOException {
+			cleanOutputs();
 
-	protected void configureRemapper(RemappedJars remappedJars, TinyRemapper.Builder tinyRemapperBuilder) {
-	}
+			// The signature fixes only depend on the target namespace, so can be shared by all of the jars.
+			final Map<String, String> remappedSignatures = SignatureFixerApplyVisitor.getRemappedSignatures(targetNamespace == MappingsNamespace.INTERMEDIARY, mappingConfiguration, serviceManager, knownIndyBsms, targetNamespace.toString());
+			final RemapperFactory remapperFactory = (sourceNamespace, builderConsumer) -> TinyRemapperHelper.getTinyRemapper(mappingConfiguration, serviceManager, knownIndyBsms, sourceNamespace.toString(), targetNamespace.toString(), sourceNamespace == MappingsNamespace.INTERMEDIARY, (builder) -> {
+				builder.extraPostApplyVisitor(new SignatureFixerApplyVisitor(remappedSignatures));
+				builderConsumer.accept(builder);
+			});
+			final Map<String, RemappedJars> classOwners = canRemapTogether() ? getClassOwners(remappedJars) : null;
 
-	// Configure the remapper to add the client @Environment annotation to all classes in the client jar.
-	public static void configureSplitRemapper(RemappedJars remappedJars, TinyRemapper.Builder tinyRemapperBuilder) {
-		final MinecraftJar outputJar = remappedJars.outputJar();
-		assert !outputJar.isMerged();
+			try {
+				if (classOwners != null) {
+					remapJars(remappedJars, classOwners, applyVisitors, remapperFactory);
+				} else {
+					for (RemappedJars remappedJar : remappedJars) {
+						remapJar(remappedJar, applyVisitors.get(remappedJar), remapperFactory);
+					}
+				}
+			} catch (RuntimeException e) {
+				throw new RuntimeException("Failed to remap with mappings from " + mappingConfiguration.tinyMappings, e);
+			}
 
-		if (outputJar.includesClient()) {
-			assert !outputJar.includesServer();
-			tinyRemapperBuilder.extraPostApplyVisitor(SidedClassVisitor.CLIENT);
+			for (RemappedJars remappedJar : remappedJars) {
+				mavenHelpers.get(remappedJar).savePom();
+			}
 		}
-	}
 
-	private void cleanOutputs(List<RemappedJars> remappedJars) throws IOException {
-		for (RemappedJars remappedJar : remappedJars) {
-			Files.deleteIfExists(remappedJar.outputJarPath());
+		private boolean canRemapTogether() {
+			return remappedJars.size() > 1
+					&& remappedJars.stream().map(RemappedJars::sourceNamespace).distinct().count() == 1
+					&& allowRemapTogether;
 		}
-	}
 
-	public Project getProject() {
-		return project;
-	}
+		// Returns the jar that each class is read from, or null when a class is present in more than one jar.
+		@VisibleForTesting
+		@Nullable
+		public static Map<String, RemappedJars> getClassOwners(List<RemappedJars> remappedJars) throws IOException {
+			final Map<String, RemappedJars> classOwners = new HashMap<>();
 
-	public M getMinecraftProvider() {
-		return minecraftProvider;
+			for (RemappedJars remappedJar : remappedJars) {
+				try (ZipFile zipFile = new ZipFile(remappedJar.inputJar().toFile())) {
+					final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+
+					while (entries.hasMoreElements()) {
+						final String name = entries.nextElement().getName();
+
+						if (name.endsWith(".class") && classOwners.put(name.substring(0, name.length() - 6), remappedJar) != null) {
+							return null;
+						}
+					}
+				}
+			}
+
+			return classOwners;
+		}
+
+		/**
+		 * Remaps all of the jars with a single remapper, each input is read once and is on the classpath of the other jars.
+		 * The jars are then written out concurrently.
+		 */
+		@VisibleForTesting
+		public static void remapJars(List<RemappedJars> remappedJars, Map<String, RemappedJars> classOwners, Map<RemappedJars, TinyRemapper.ApplyVisitorProvider> applyVisitors, RemapperFactory remapperFactory) throws IOException {
+			final MappingsNamespace sourceNamespace = remappedJars.get(0).sourceNamespace();
+
+			final TinyRemapper remapper = remapperFactory.create(sourceNamespace, (builder) -> {
+				// Only apply the jar specific visitors to the classes from that jar
+				builder.extraPostApplyVisitor((cls, next) -> {
+					final TinyRemapper.ApplyVisitorProvider applyVisitor = applyVisitors.get(classOwners.get(cls.getName()));
+					return applyVisitor != null ? applyVisitor.insertApplyVisitor(cls, next) : next;
+				});
+			});
+
+			final Set<Path> inputs = remappedJars.stream().map(RemappedJars::inputJar).collect(Collectors.toSet());
+			final Map<RemappedJars, InputTag> tags = new HashMap<>();
+			final ExecutorService executor = Executors.newFixedThreadPool(remappedJars.size());
+
+			try {
+				final List<CompletableFuture<?>> reads = new ArrayList<>();
+
+				for (Path path : remappedJars.stream().flatMap(remappedJar -> Arrays.stream(remappedJar.remapClasspath())).collect(Collectors.toSet())) {
+					if (!inputs.contains(path)) {
+						reads.add(remapper.readClassPathAsync(path));
+					}
+				}
+
+				for (RemappedJars remappedJar : remappedJars) {
+					final InputTag tag = remapper.createInputTag();
+					reads.add(remapper.readInputsAsync(tag, remappedJar.inputJar()));
+					tags.put(remappedJar, tag);
+				}
+
+				CompletableFuture.allOf(reads.toArray(CompletableFuture[]::new)).join();
+
+				// The first apply remaps the classes of every jar, the rest only write out their share of the output.
+				final List<CompletableFuture<Void>> writes = new ArrayList<>();
+
+				for (RemappedJars remappedJar : remappedJars) {
+					writes.add(CompletableFuture.runAsync(() -> {
+						try (OutputConsumerPath outputConsumer = new OutputConsumerPath.Builder(remappedJar.outputJarPath()).build()) {
+							outputConsumer.addNonClassFiles(remappedJar.inputJar());
+							remapper.apply(outputConsumer, tags.get(remappedJar));
+						} catch (IOException e) {
+							throw new UncheckedIOException(e);
+						}
+					}, executor));
+				}
+
+				CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new)).join();
+			} catch (CompletionException e) {
+				throw new RuntimeException("Failed to remap JARs " + inputs, e.getCause());
+			} finally {
+				executor.shutdownNow();
+				remapper.finish();
+			}
+		}
+
+		@VisibleForTesting
+		public static void remapJar(RemappedJars remappedJars, TinyRemapper.@Nullable ApplyVisitorProvider applyVisitor, RemapperFactory remapperFactory) throws IOException {
+			Files.deleteIfExists(remappedJars.outputJarPath());
+
+			TinyRemapper remapper = remapperFactory.create(remappedJars.sourceNamespace(), (builder) -> {
+				if (applyVisitor != null) {
+					builder.extraPostApplyVisitor(applyVisitor);
+				}
+			});
+
+			try (OutputConsumerPath outputConsumer = new OutputConsumerPath.Builder(remappedJars.outputJarPath()).build()) {
+				outputConsumer.addNonClassFiles(remappedJars.inputJar());
+
+				for (Path path : remappedJars.remapClasspath()) {
+					remapper.readClassPath(path);
+				}
+
+				remapper.readInputs(remappedJars.inputJar());
+				remapper.apply(outputConsumer);
+			} catch (Exception e) {
+				throw new RuntimeException("Failed to remap JAR " + remappedJars.inputJar(), e);
+			} finally {
+				remapper.finish();
+			}
+		}
+
+		private void cleanOutputs() throws IOException {
+			for (RemappedJars remappedJar : remappedJars) {
+				Files.deleteIfExists(remappedJar.outputJarPath());
+			}
+		}
+
+		/**
+		 * Creates a remapper from the given namespace to the target namespace, with any shared visitors already added.
+		 */
+		@VisibleForTesting
+		@FunctionalInterface
+		public interface RemapperFactory {
+			TinyRemapper create(MappingsNamespace sourceNamespace, Consumer<TinyRemapper.Builder> builderConsumer) throws IOException;
+		}
 	}
 
 	public record RemappedJars(Path inputJar, MinecraftJar outputJar, MappingsNamespace sourceNamespace, Path... remapClasspath) {
@@ -79,8 +79,8 @@ public abstract sealed class IntermediaryMinecraftProvider<M extends MinecraftPr
 		}
 
 		@Override
-		protected void configureRemapper(RemappedJars remappedJars, TinyRemapper.Builder tinyRemapperBuilder) {
-			configureSplitRemapper(remappedJars, tinyRemapperBuilder);
+		protected TinyRemapper.ApplyVisitorProvider getApplyVisitor(RemappedJars remappedJars) {
+			return getSplitApplyVisitor(remappedJars);
 		}
 	}
 
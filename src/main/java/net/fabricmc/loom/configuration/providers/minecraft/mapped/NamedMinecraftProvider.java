@@ -85,8 +85,8 @@ public abstract class NamedMinecraftProvider<M extends MinecraftProvider> extend
 		}
 
 		@Override
-		protected void configureRemapper(RemappedJars remappedJars, TinyRemapper.Builder tinyRemapperBuilder) {
-			configureSplitRemapper(remappedJars, tinyRemapperBuilder);
+		protected TinyRemapper.ApplyVisitorProvider getApplyVisitor(RemappedJars remappedJars) {
+			return getSplitApplyVisitor(remappedJars);
 		}
 
 		@Override
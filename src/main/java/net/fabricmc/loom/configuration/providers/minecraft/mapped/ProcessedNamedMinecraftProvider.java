@@ -33,6 +33,7 @@ import java.util.Objects;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import net.fabricmc.loom.LoomGradlePlugin;
 import net.fabricmc.loom.configuration.ConfigContext;
 import net.fabricmc.loom.configuration.mods.dependency.LocalMavenHelper;
 import net.fabricmc.loom.configuration.processors.MinecraftJarProcessorManager;
@@ -45,8 +46,15 @@ import net.fabricmc.loom.configuration.providers.minecraft.SingleJarEnvType;
 import net.fabricmc.loom.configuration.providers.minecraft.SingleJarMinecraftProvider;
 import net.fabricmc.loom.configuration.providers.minecraft.SplitMinecraftProvider;
 import net.fabricmc.loom.configuration.providers.minecraft.GluedMinecraftProvider;
+import net.fabricmc.loom.util.Checksum;
+import net.fabricmc.loom.util.Constants;
+import net.fabricmc.loom.util.ContentAddressedCache;
+import net.fabricmc.loom.util.gradle.GradleUtils;
 
 public abstract class ProcessedNamedMinecraftProvider<M extends MinecraftProvider, P extends NamedMinecraftProvider<M>> extends NamedMinecraftProvider<M> {
+	private static final String PROCESSED_JAR = "processed.jar";
+	private static final int DEFAULT_CACHE_SIZE_MIB = 1024;
+
 	private final P parentMinecraftProvider;
 	private final MinecraftJarProcessorManager jarProcessorManager;
 
@@ -84,20 +92,47 @@ public abstract class ProcessedNamedMinecraftProvider<M extends MinecraftProvide
 	}
 
 	private void processJars(Map<MinecraftJar, MinecraftJar> minecraftJarMap, ConfigContext configContext) throws IOException {
+		final ContentAddressedCache cache = getProcessedJarCache();
+		final String processorsKey = cache.isEnabled() ? jarProcessorManager.getCacheKey() : null;
+
 		for (Map.Entry<MinecraftJar, MinecraftJar> entry : minecraftJarMap.entrySet()) {
 			final MinecraftJar minecraftJar = entry.getKey();
 			final MinecraftJar outputJar = entry.getValue();
 			deleteSimilarJars(outputJar.getPath());
 
 			final LocalMavenHelper mavenHelper = getMavenHelper(minecraftJar.getType());
+
+			// The same processors applied to the same input jar always produce the same output, so reuse it from other projects.
+			final String cacheKey = processorsKey != null ? ContentAddressedCache.key(
+					LoomGradlePlugin.LOOM_VERSION,
+					processorsKey,
+					Checksum.toHex(Checksum.sha256(minecraftJar.getPath().toFile()))
+			) : null;
+
+			if (cacheKey != null && cache.copyTo(cacheKey, PROCESSED_JAR, outputJar.getPath())) {
+				getProject().getLogger().info("Using cached processed jar for {}", minecraftJar.getName());
+				mavenHelper.savePom();
+				continue;
+			}
+
 			final Path outputPath = mavenHelper.copyToMaven(minecraftJar.getPath(), null);
 
 			assert outputJar.getPath().equals(outputPath);
 
 			jarProcessorManager.processJar(outputPath, new ProcessorContextImpl(configContext, minecraftJar));
+
+			if (cacheKey != null) {
+				cache.put(cacheKey, Map.of(PROCESSED_JAR, outputPath));
+			}
 		}
 	}
 
+	private ContentAddressedCache getProcessedJarCache() {
+		final Path root = extension.getFiles().getUserCache().toPath().resolve("processed-minecraft-jars");
+		final long maxSize = GradleUtils.getIntegerProperty(getProject(), Constants.Properties.PROCESSED_JAR_CACHE_SIZE, DEFAULT_CACHE_SIZE_MIB) * 1024L * 1024L;
+		return new ContentAddressedCache(root, maxSize);
+	}
+
 	@Override
 	public List<MinecraftJar.Type> getDependencyTypes() {
 		return parentMinecraftProvider.getDependencyTypes();
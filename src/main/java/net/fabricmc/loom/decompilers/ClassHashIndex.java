@@ -0,0 +1,351 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.decompilers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.RecordComponentVisitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.fabricmc.loom.util.Constants;
+
+/**
+ * A hash of the bytecode of every top level class in a jar, used to only decompile the classes that have changed since the last decompile.
+ *
+ * <p>Inner classes are hashed together with their outer class as they are decompiled into the same source file.
+ * Any change to a non class entry is treated as a change to the whole jar.
+ *
+ * <p>The decompiled source of a class also depends on the classes it uses, for example for generic types, overrides and
+ * inlined constants. Only the changed classes are decompiled again, so a second hash covers everything that other classes
+ * can see: the class header and the non private fields and methods. When that changes for any class, or a class is added
+ * or removed, the whole jar must be decompiled again.
+ */
+public final class ClassHashIndex {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ClassHashIndex.class);
+	private static final int MAGIC = 0x4C434849; // LCHI
+	private static final int VERSION = 2;
+	private static final String RESOURCES = "";
+
+	private final String key;
+	// Top level class name to hash, the hash of all the non class entries is stored under RESOURCES
+	private final Map<String, byte[]> hashes;
+	// Top level class name to the hash of the parts of the class visible to other classes
+	private final Map<String, byte[]> apiHashes;
+
+	private ClassHashIndex(String key, Map<String, byte[]> hashes, Map<String, byte[]> apiHashes) {
+		this.key = key;
+		this.hashes = hashes;
+		this.apiHashes = apiHashes;
+	}
+
+	/**
+	 * @param key a value identifying everything else that affects the decompiled output, such as the decompiler and its options
+	 */
+	public static ClassHashIndex create(Path jar, String key) throws IOException {
+		final Map<String, MessageDigest> digests = new TreeMap<>();
+		final Map<String, MessageDigest> apiDigests = new TreeMap<>();
+
+		try (ZipFile zipFile = new ZipFile(jar.toFile())) {
+			// Sort the entries so that the hash does not depend on the order of the jar
+			final Map<String, ZipEntry> entries = new TreeMap<>();
+			zipFile.stream().filter(entry -> !entry.isDirectory()).forEach(entry -> entries.put(entry.getName(), entry));
+
+			for (ZipEntry entry : entries.values()) {
+				final String topLevelClass = getTopLevelClass(entry.getName());
+				final MessageDigest digest = digests.computeIfAbsent(topLevelClass, s -> createDigest());
+				digest.update(entry.getName().getBytes(StandardCharsets.UTF_8));
+
+				final byte[] bytes;
+
+				try (InputStream is = zipFile.getInputStream(entry)) {
+					bytes = is.readAllBytes();
+				}
+
+				digest.update(bytes);
+
+				if (!topLevelClass.equals(RESOURCES)) {
+					final MessageDigest apiDigest = apiDigests.computeIfAbsent(topLevelClass, s -> createDigest());
+					apiDigest.update(entry.getName().getBytes(StandardCharsets.UTF_8));
+					updateApiDigest(apiDigest, bytes);
+				}
+			}
+		}
+
+		final Map<String, byte[]> hashes = new TreeMap<>();
+		final Map<String, byte[]> apiHashes = new TreeMap<>();
+		digests.forEach((name, digest) -> hashes.put(name, digest.digest()));
+		apiDigests.forEach((name, digest) -> apiHashes.put(name, digest.digest()));
+		return new ClassHashIndex(key, hashes, apiHashes);
+	}
+
+	private static void updateApiDigest(MessageDigest digest, byte[] bytes) {
+		try {
+			new ClassReader(bytes).accept(new ApiHashVisitor(digest), ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+		} catch (RuntimeException e) {
+			// Not a valid class, treat any change to it as an API change
+			digest.update(bytes);
+		}
+	}
+
+	/**
+	 * @return the index, or null when it does not exist or cannot be read
+	 */
+	@Nullable
+	public static ClassHashIndex read(Path path) {
+		if (Files.notExists(path)) {
+			return null;
+		}
+
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+			if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+				return null;
+			}
+
+			final String key = input.readUTF();
+			final Map<String, byte[]> hashes = readHashes(input);
+			final Map<String, byte[]> apiHashes = readHashes(input);
+			return new ClassHashIndex(key, hashes, apiHashes);
+		} catch (IOException e) {
+			LOGGER.warn("Failed to read class hash index {}", path, e);
+			return null;
+		}
+	}
+
+	public void write(Path path) throws IOException {
+		try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			output.writeUTF(key);
+			writeHashes(output, hashes);
+			writeHashes(output, apiHashes);
+		}
+	}
+
+	private static Map<String, byte[]> readHashes(DataInputStream input) throws IOException {
+		final int count = input.readInt();
+		final Map<String, byte[]> hashes = new TreeMap<>();
+
+		for (int i = 0; i < count; i++) {
+			final String name = input.readUTF();
+			final byte[] hash = new byte[input.readUnsignedByte()];
+			input.readFully(hash);
+			hashes.put(name, hash);
+		}
+
+		return hashes;
+	}
+
+	private static void writeHashes(DataOutputStream output, Map<String, byte[]> hashes) throws IOException {
+		output.writeInt(hashes.size());
+
+		for (Map.Entry<String, byte[]> entry : hashes.entrySet()) {
+			output.writeUTF(entry.getKey());
+			output.writeByte(entry.getValue().length);
+			output.write(entry.getValue());
+		}
+	}
+
+	/**
+	 * @return the number of top level classes in the jar
+	 */
+	public int getClassCount() {
+		return hashes.containsKey(RESOURCES) ? hashes.size() - 1 : hashes.size();
+	}
+
+	public boolean containsClass(String className) {
+		return !className.equals(RESOURCES) && hashes.containsKey(className);
+	}
+
+	/**
+	 * @return the top level classes that have changed since the previous index, or null when the whole jar must be
+	 * decompiled again as a change may affect the sources of other classes
+	 */
+	@Nullable
+	public Set<String> getChangedClasses(ClassHashIndex previous) {
+		if (!key.equals(previous.key) || !Arrays.equals(hashes.get(RESOURCES), previous.hashes.get(RESOURCES))) {
+			return null;
+		}
+
+		if (!hashes.keySet().equals(previous.hashes.keySet())) {
+			// Classes were added or removed
+			return null;
+		}
+
+		final Set<String> changed = new HashSet<>();
+
+		for (Map.Entry<String, byte[]> entry : hashes.entrySet()) {
+			if (Arrays.equals(entry.getValue(), previous.hashes.get(entry.getKey()))) {
+				continue;
+			}
+
+			if (!Arrays.equals(apiHashes.get(entry.getKey()), previous.apiHashes.get(entry.getKey()))) {
+				return null;
+			}
+
+			changed.add(entry.getKey());
+		}
+
+		return Collections.unmodifiableSet(changed);
+	}
+
+	/**
+	 * Splits the classes of a jar into a jar containing the given top level classes and their inner classes, and a jar containing all the other classes.
+	 *
+	 * @return the number of classes written to the selected jar
+	 */
+	public static int splitJar(Path jar, Set<String> classes, Path selectedJar, Path remainingJar) throws IOException {
+		try (ZipFile zipFile = new ZipFile(jar.toFile());
+				ZipOutputStream selected = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(selectedJar)));
+				ZipOutputStream remaining = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(remainingJar)))) {
+			int selectedCount = 0;
+
+			for (ZipEntry entry : Collections.list(zipFile.entries())) {
+				if (entry.isDirectory() || !entry.getName().endsWith(".class")) {
+					continue;
+				}
+
+				final ZipOutputStream output = classes.contains(getTopLevelClass(entry.getName())) ? selected : remaining;
+
+				if (output == selected) {
+					selectedCount++;
+				}
+
+				output.putNextEntry(new ZipEntry(entry.getName()));
+
+				try (InputStream is = zipFile.getInputStream(entry)) {
+					is.transferTo(output);
+				}
+
+				output.closeEntry();
+			}
+
+			return selectedCount;
+		}
+	}
+
+	/**
+	 * @return the internal name of the top level class that the entry is decompiled into, or an empty string for non class entries
+	 */
+	public static String getTopLevelClass(String entryName) {
+		if (!entryName.endsWith(".class")) {
+			return RESOURCES;
+		}
+
+		final String name = entryName.substring(0, entryName.length() - 6);
+		final int dollarPos = name.indexOf('$');
+		return dollarPos >= 0 ? name.substring(0, dollarPos) : name;
+	}
+
+	// Hashes the parts of a class that other classes can depend on, leaving out code and private members
+	private static final class ApiHashVisitor extends ClassVisitor {
+		private final MessageDigest digest;
+
+		ApiHashVisitor(MessageDigest digest) {
+			super(Constants.ASM_VERSION);
+			this.digest = digest;
+		}
+
+		private void update(Object... values) {
+			for (Object value : values) {
+				final String string = value instanceof String[] array ? String.join(",", array) : String.valueOf(value);
+				digest.update(string.getBytes(StandardCharsets.UTF_8));
+				digest.update((byte) 0);
+			}
+		}
+
+		@Override
+		public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+			update("class", access, name, signature, superName, interfaces);
+		}
+
+		@Override
+		public void visitInnerClass(String name, String outerName, String innerName, int access) {
+			update("inner", name, outerName, innerName, access);
+		}
+
+		@Override
+		public void visitPermittedSubclass(String permittedSubclass) {
+			update("permitted", permittedSubclass);
+		}
+
+		@Override
+		public RecordComponentVisitor visitRecordComponent(String name, String descriptor, String signature) {
+			update("record", name, descriptor, signature);
+			return null;
+		}
+
+		@Override
+		public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+			if ((access & Opcodes.ACC_PRIVATE) == 0) {
+				update("field", access, name, descriptor, signature, value);
+			}
+
+			return null;
+		}
+
+		@Override
+		public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+			if ((access & Opcodes.ACC_PRIVATE) == 0) {
+				update("method", access, name, descriptor, signature, exceptions);
+			}
+
+			return null;
+		}
+	}
+
+	private static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -26,20 +26,33 @@ package net.fabricmc.loom.decompilers;
 
 import static java.text.MessageFormat.format;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.FileVisitResult;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.SimpleFileVisitor;
-import java.nio.file.StandardCopyOption;
-import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
+import org.jetbrains.annotations.Nullable;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
@@ -48,6 +61,7 @@ import org.objectweb.asm.MethodVisitor;
 
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.IOStringConsumer;
+import net.fabricmc.loom.util.ParallelZipWriter;
 
 /**
  * Created by covers1624 on 18/02/19.
@@ -56,8 +70,63 @@ public class LineNumberRemapper {
 	private final Map<String, RClass> lineMap = new HashMap<>();
 
 	public void readMappings(File lineMappings) {
-		try (BufferedReader reader = new BufferedReader(new FileReader(lineMappings))) {
-			RClass clazz = null;
+		readMappings(lineMappings.toPath());
+	}
+
+	/**
+	 * Reads the line mappings written by the decompiler, either in the binary format written by {@link LineMapWriter} or the legacy text format.
+	 */
+	public void readMappings(Path lineMappings) {
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(lineMappings)))) {
+			final byte[] magic = input.readNBytes(4);
+
+			if (magic.length == 4 && ByteBuffer.wrap(magic).getInt() == LineMapWriter.MAGIC) {
+				readBinaryMappings(input);
+				return;
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Exception reading LineMappings file.", e);
+		}
+
+		readTextMappings(lineMappings);
+	}
+
+	private void readBinaryMappings(DataInputStream input) throws IOException {
+		final int version = input.readInt();
+
+		if (version != LineMapWriter.VERSION) {
+			throw new IOException("Unsupported line map version: " + version);
+		}
+
+		while (true) {
+			final String name;
+
+			try {
+				name = input.readUTF();
+			} catch (EOFException e) {
+				break;
+			}
+
+			final int maxLine = input.readInt();
+			final int maxLineDest = input.readInt();
+			final int count = input.readInt();
+			final int[] lines = new int[count * 2];
+
+			for (int i = 0; i < count * 2; i++) {
+				lines[i] = input.readInt();
+			}
+
+			putClass(name, maxLine, maxLineDest, lines, count);
+		}
+	}
+
+	private void readTextMappings(Path lineMappings) {
+		try (BufferedReader reader = Files.newBufferedReader(lineMappings, StandardCharsets.UTF_8)) {
+			String name = null;
+			int maxLine = 0;
+			int maxLineDest = 0;
+			int[] lines = new int[64];
+			int count = 0;
 			String line = null;
 			int i = 0;
 
@@ -67,18 +136,37 @@ public class LineNumberRemapper {
 						continue;
 					}
 
-					String[] segs = line.trim().split("\t");
+					final String trimmed = line.trim();
 
 					if (line.charAt(0) != '\t') {
-						clazz = lineMap.computeIfAbsent(segs[0], RClass::new);
-						clazz.maxLine = Integer.parseInt(segs[1]);
-						clazz.maxLineDest = Integer.parseInt(segs[2]);
+						if (name != null) {
+							putClass(name, maxLine, maxLineDest, lines, count);
+						}
+
+						final int first = trimmed.indexOf('\t');
+						final int second = trimmed.indexOf('\t', first + 1);
+						name = trimmed.substring(0, first);
+						maxLine = Integer.parseInt(trimmed, first + 1, second, 10);
+						maxLineDest = Integer.parseInt(trimmed, second + 1, trimmed.length(), 10);
+						count = 0;
 					} else {
-						clazz.lineMap.put(Integer.parseInt(segs[0]), Integer.parseInt(segs[1]));
+						final int tab = trimmed.indexOf('\t');
+
+						if (count * 2 + 2 > lines.length) {
+							lines = Arrays.copyOf(lines, lines.length * 2);
+						}
+
+						lines[count * 2] = Integer.parseInt(trimmed, 0, tab, 10);
+						lines[count * 2 + 1] = Integer.parseInt(trimmed, tab + 1, trimmed.length(), 10);
+						count++;
 					}
 
 					i++;
 				}
+
+				if (name != null) {
+					putClass(name, maxLine, maxLineDest, lines, count);
+				}
 			} catch (Exception e) {
 				throw new RuntimeException(format("Exception reading mapping line @{0}: {1}", i, line), e);
 			}
@@ -87,53 +175,123 @@ public class LineNumberRemapper {
 		}
 	}
 
-	public void process(IOStringConsumer logger, Path input, Path output) throws IOException {
-		Files.walkFileTree(input, new SimpleFileVisitor<>() {
-			@Override
-			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-				String rel = input.relativize(file).toString();
-				Path dst = output.resolve(rel);
-				Path parent = dst.getParent();
+	// A class may appear more than once, the lines are merged with the later lines taking priority
+	private void putClass(String name, int maxLine, int maxLineDest, int[] lines, int count) {
+		final RClass existing = lineMap.get(name);
 
-				if (parent != null) {
-					Files.createDirectories(parent);
-				}
+		if (existing == null) {
+			lineMap.put(name, RClass.create(name, maxLine, maxLineDest, lines, count));
+			return;
+		}
 
-				String fName = file.getFileName().toString();
+		final int existingCount = existing.srcLines().length;
+		final int[] merged = new int[(existingCount + count) * 2];
 
-				if (fName.endsWith(".class")) {
-					if (Files.exists(dst)) {
-						Files.delete(dst);
-					}
+		for (int i = 0; i < existingCount; i++) {
+			merged[i * 2] = existing.srcLines()[i];
+			merged[i * 2 + 1] = existing.dstLines()[i];
+		}
+
+		System.arraycopy(lines, 0, merged, existingCount * 2, count * 2);
+		lineMap.put(name, RClass.create(name, maxLine, maxLineDest, merged, existingCount + count));
+	}
 
-					String idx = rel.substring(0, rel.length() - 6);
+	/**
+	 * Removes the mappings of the given classes, so that they can be replaced by the mappings of a partial decompile.
+	 */
+	public void removeMappings(Collection<String> classes) {
+		lineMap.keySet().removeAll(classes);
+	}
 
-					if (logger != null) {
-						logger.accept("Remapping " + idx);
-					}
+	public void writeMappings(Path lineMappings) throws IOException {
+		try (LineMapWriter writer = new LineMapWriter(lineMappings)) {
+			for (RClass rClass : lineMap.values()) {
+				final int[] mapping = new int[rClass.srcLines().length * 2];
 
-					int dollarPos = idx.indexOf('$'); //This makes the assumption that only Java classes are to be remapped.
+				for (int i = 0; i < rClass.srcLines().length; i++) {
+					mapping[i * 2] = rClass.srcLines()[i];
+					mapping[i * 2 + 1] = rClass.dstLines()[i];
+				}
 
-					if (dollarPos >= 0) {
-						idx = idx.substring(0, dollarPos);
-					}
+				writer.write(rClass.name(), mapping);
+			}
+		}
+	}
 
-					if (lineMap.containsKey(idx)) {
-						try (InputStream is = Files.newInputStream(file)) {
-							ClassReader reader = new ClassReader(is);
-							ClassWriter writer = new ClassWriter(0);
+	/**
+	 * Writes a copy of the input jar with the line numbers of the classes remapped, the classes are remapped and compressed in parallel.
+	 */
+	public void process(@Nullable IOStringConsumer logger, Path input, Path output, int threads) throws IOException {
+		final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
 
-							reader.accept(new LineNumberVisitor(Constants.ASM_VERSION, writer, lineMap.get(idx)), 0);
-							Files.write(dst, writer.toByteArray());
-							return FileVisitResult.CONTINUE;
-						}
+		try (ZipFile zipFile = new ZipFile(input.toFile());
+				ParallelZipWriter zipWriter = new ParallelZipWriter(output, threads)) {
+			final List<? extends ZipEntry> entries = Collections.list(zipFile.entries());
+			final List<CompletableFuture<byte[]>> contents = new ArrayList<>(entries.size());
+
+			for (ZipEntry entry : entries) {
+				contents.add(CompletableFuture.supplyAsync(() -> {
+					try {
+						return entry.isDirectory() ? null : processEntry(logger, zipFile, entry);
+					} catch (IOException e) {
+						throw new UncheckedIOException("Failed to remap line numbers in " + entry.getName(), e);
 					}
-				}
+				}, executor));
+			}
 
-				Files.copy(file, dst, StandardCopyOption.REPLACE_EXISTING);
-				return FileVisitResult.CONTINUE;
+			// Write the entries in the same order as the input jar
+			for (int i = 0; i < entries.size(); i++) {
+				final ZipEntry entry = entries.get(i);
+				final byte[] content = contents.get(i).join();
+				zipWriter.putEntry(entry.getName(), entry.getTime(), ZipEntry.DEFLATED, content != null ? content : new byte[0]);
+			}
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof UncheckedIOException uncheckedIOException) {
+				throw uncheckedIOException.getCause();
 			}
-		});
+
+			throw e;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private byte[] processEntry(@Nullable IOStringConsumer logger, ZipFile zipFile, ZipEntry entry) throws IOException {
+		final byte[] bytes;
+
+		try (InputStream is = zipFile.getInputStream(entry)) {
+			bytes = is.readAllBytes();
+		}
+
+		final String name = entry.getName();
+
+		if (!name.endsWith(".class")) {
+			return bytes;
+		}
+
+		String idx = name.substring(0, name.length() - 6);
+
+		if (logger != null) {
+			logger.accept("Remapping " + idx);
+		}
+
+		int dollarPos = idx.indexOf('$'); //This makes the assumption that only Java classes are to be remapped.
+
+		if (dollarPos >= 0) {
+			idx = idx.substring(0, dollarPos);
+		}
+
+		final RClass rClass = lineMap.get(idx);
+
+		if (rClass == null) {
+			return bytes;
+		}
+
+		ClassReader reader = new ClassReader(bytes);
+		ClassWriter writer = new ClassWriter(0);
+
+		reader.accept(new LineNumberVisitor(Constants.ASM_VERSION, writer, rClass), 0);
+		return writer.toByteArray();
 	}
 
 	private static class LineNumberVisitor extends ClassVisitor {
@@ -149,34 +307,63 @@ public class LineNumberRemapper {
 			return new MethodVisitor(api, super.visitMethod(access, name, descriptor, signature, exceptions)) {
 				@Override
 				public void visitLineNumber(int line, Label start) {
-					int tLine = line;
+					super.visitLineNumber(rClass.remap(line), start);
+				}
+			};
+		}
+	}
 
-					if (tLine <= 0) {
-						super.visitLineNumber(line, start);
-					} else if (tLine >= rClass.maxLine) {
-						super.visitLineNumber(rClass.maxLineDest, start);
-					} else {
-						Integer matchedLine = null;
+	/**
+	 * The mapped lines of a class, sorted by the source line.
+	 */
+	private record RClass(String name, int maxLine, int maxLineDest, int[] srcLines, int[] dstLines) {
+		// Creates from unsorted pairs of source and destination lines
+		private static RClass create(String name, int maxLine, int maxLineDest, int[] lines, int count) {
+			final long[] order = new long[count];
 
-						while (tLine <= rClass.maxLine && ((matchedLine = rClass.lineMap.get(tLine)) == null)) {
-							tLine++;
-						}
+			for (int i = 0; i < count; i++) {
+				order[i] = ((long) lines[i * 2] << 32) | i;
+			}
 
-						super.visitLineNumber(matchedLine != null ? matchedLine : rClass.maxLineDest, start);
-					}
+			Arrays.sort(order);
+
+			final int[] srcLines = new int[count];
+			final int[] dstLines = new int[count];
+			int size = 0;
+
+			for (long value : order) {
+				final int index = (int) value;
+
+				if (size > 0 && srcLines[size - 1] == lines[index * 2]) {
+					// The last occurrence of a source line takes priority
+					size--;
 				}
-			};
+
+				srcLines[size] = lines[index * 2];
+				dstLines[size] = lines[index * 2 + 1];
+				size++;
+			}
+
+			return new RClass(name, maxLine, maxLineDest, Arrays.copyOf(srcLines, size), Arrays.copyOf(dstLines, size));
 		}
-	}
 
-	private static class RClass {
-		private final String name;
-		private int maxLine;
-		private int maxLineDest;
-		private final Map<Integer, Integer> lineMap = new HashMap<>();
+		private int remap(int line) {
+			if (line <= 0) {
+				return line;
+			}
+
+			if (line >= maxLine) {
+				return maxLineDest;
+			}
+
+			// Use the next mapped line
+			int index = Arrays.binarySearch(srcLines, line);
+
+			if (index < 0) {
+				index = -index - 1;
+			}
 
-		private RClass(String name) {
-			this.name = name;
+			return index < srcLines.length && srcLines[index] <= maxLine ? dstLines[index] : maxLineDest;
 		}
 	}
 }
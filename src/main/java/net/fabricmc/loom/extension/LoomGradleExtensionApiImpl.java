@@ -66,9 +66,11 @@ import net.fabricmc.loom.configuration.providers.mappings.LayeredMappingsDepende
 import net.fabricmc.loom.configuration.providers.minecraft.MinecraftJarConfiguration;
 import net.fabricmc.loom.configuration.providers.minecraft.MinecraftSourceSets;
 import net.fabricmc.loom.task.GenerateSourcesTask;
+import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.DeprecationHelper;
 import net.fabricmc.loom.util.fmj.FabricModJson;
 import net.fabricmc.loom.util.fmj.FabricModJsonFactory;
+import net.fabricmc.loom.util.gradle.GradleUtils;
 import net.fabricmc.loom.util.gradle.SourceSetHelper;
 
 /**
@@ -312,7 +314,7 @@ public abstract class LoomGradleExtensionApiImpl implements LoomGradleExtensionA
 		final String decompilerName = options.getFormattedName();
 		final String taskName;
 
-		if (areEnvironmentSourceSetsSplit()) {
+		if (areEnvironmentSourceSetsSplit() && !GradleUtils.getBooleanProperty(getProject(), Constants.Properties.COMBINED_SPLIT_DECOMPILE)) {
 			taskName = "gen%sSourcesWith%s".formatted(client ? "ClientOnly" : "Common", decompilerName);
 		} else {
 			taskName = "genSourcesWith" + decompilerName;
@@ -414,6 +416,7 @@ public abstract class LoomGradleExtensionApiImpl implements LoomGradleExtensionA
 		}
 
 		holder.getRemapperExtensionClass().set(remapperExtensionClass);
+		holder.getRemapperParametersClass().set(parametersClass);
 		remapperExtensions.add(holder);
 	}
 
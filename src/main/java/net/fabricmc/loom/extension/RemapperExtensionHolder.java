@@ -24,11 +24,33 @@
 
 package net.fabricmc.loom.extension;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.stream.Collectors;
+
 import javax.inject.Inject;
 
+import com.google.common.hash.Hashing;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.FileSystemLocation;
 import org.gradle.api.model.ObjectFactory;
 import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
 import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.Nested;
 import org.gradle.api.tasks.Optional;
 import org.jetbrains.annotations.Nullable;
@@ -39,6 +61,7 @@ import net.fabricmc.loom.api.remapping.RemapperContext;
 import net.fabricmc.loom.api.remapping.RemapperExtension;
 import net.fabricmc.loom.api.remapping.RemapperParameters;
 import net.fabricmc.loom.api.remapping.TinyRemapperExtension;
+import net.fabricmc.loom.util.Checksum;
 import net.fabricmc.tinyremapper.TinyRemapper;
 import net.fabricmc.tinyremapper.api.TrClass;
 
@@ -60,6 +83,103 @@ public abstract class RemapperExtensionHolder {
 		return remapperParameters;
 	}
 
+	/**
+	 * The parameters type declared by the extension, the parameters object is a subclass generated by Gradle.
+	 */
+	@Internal
+	public abstract Property<Class<? extends RemapperParameters>> getRemapperParametersClass();
+
+	/**
+	 * Returns a string identifying the extension class and the resolved values of its declared parameters.
+	 * When this changes, mods previously remapped with the extension need to be remapped again.
+	 */
+	public String getCacheKey() {
+		final var joiner = new StringJoiner(",", getRemapperExtensionClass().get().getName() + "[", "]");
+
+		if (remapperParameters == RemapperParameters.None.INSTANCE) {
+			return joiner.toString();
+		}
+
+		final Method[] methods = getRemapperParametersClass().get().getMethods();
+		Arrays.sort(methods, Comparator.comparing(Method::getName));
+
+		for (Method method : methods) {
+			// The declared parameters are the abstract getters that Gradle implements
+			if (method.getParameterCount() != 0 || !Modifier.isAbstract(method.getModifiers()) || !method.getName().startsWith("get")) {
+				continue;
+			}
+
+			try {
+				joiner.add(method.getName() + "=" + serializeValue(method.invoke(remapperParameters)));
+			} catch (ReflectiveOperationException e) {
+				throw new RuntimeException("Failed to read remapper parameter " + method.getName(), e);
+			}
+		}
+
+		return joiner.toString();
+	}
+
+	// Produces a string that only changes when the value does, file contents are included as a hash.
+	private static String serializeValue(@Nullable Object value) {
+		if (value instanceof Provider<?> provider) {
+			return serializeValue(provider.getOrNull());
+		}
+
+		if (value == null || value instanceof String || value instanceof Number || value instanceof Boolean || value instanceof Character || value instanceof Enum<?>) {
+			return String.valueOf(value);
+		}
+
+		if (value instanceof Class<?> clazz) {
+			return clazz.getName();
+		}
+
+		if (value instanceof FileSystemLocation location) {
+			return serializeValue(location.getAsFile());
+		}
+
+		if (value instanceof Path path) {
+			return serializeValue(path.toFile());
+		}
+
+		if (value instanceof File file) {
+			return file.isFile() ? file.getAbsolutePath() + "@" + Checksum.toHex(Checksum.sha256(file)) : file.getAbsolutePath();
+		}
+
+		if (value instanceof FileCollection files) {
+			return serializeValue(files.getFiles());
+		}
+
+		if (value instanceof List<?> list) {
+			return list.stream().map(RemapperExtensionHolder::serializeValue).collect(Collectors.joining(",", "[", "]"));
+		}
+
+		if (value instanceof Collection<?> collection) {
+			// The iteration order of sets is not stable
+			return collection.stream().map(RemapperExtensionHolder::serializeValue).sorted().collect(Collectors.joining(",", "[", "]"));
+		}
+
+		if (value instanceof Map<?, ?> map) {
+			return map.entrySet().stream()
+					.map(entry -> serializeValue(entry.getKey()) + "=" + serializeValue(entry.getValue()))
+					.sorted()
+					.collect(Collectors.joining(",", "{", "}"));
+		}
+
+		if (value instanceof Serializable serializable) {
+			final var bytes = new ByteArrayOutputStream();
+
+			try (var out = new ObjectOutputStream(bytes)) {
+				out.writeObject(serializable);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to serialize remapper parameter value " + value, e);
+			}
+
+			return value.getClass().getName() + "@" + Hashing.sha256().hashBytes(bytes.toByteArray());
+		}
+
+		throw new IllegalArgumentException("Unsupported remapper parameter value type: " + value.getClass().getName());
+	}
+
 	public void apply(TinyRemapper.Builder tinyRemapperBuilder, String sourceNamespace, String targetNamespace, ObjectFactory objectFactory) {
 		final RemapperExtension<?> remapperExtension = newInstance(objectFactory);
 
@@ -66,8 +66,10 @@ import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.task.service.JarManifestService;
 import net.fabricmc.loom.util.Constants;
+import net.fabricmc.loom.util.ZipOutputBuffer;
 import net.fabricmc.loom.util.ZipReprocessorUtil;
 import net.fabricmc.loom.util.ZipUtils;
+import net.fabricmc.loom.util.gradle.GradleUtils;
 import net.fabricmc.loom.util.gradle.SourceSetHelper;
 
 public abstract class AbstractRemapJarTask extends Jar {
@@ -110,6 +112,12 @@ public abstract class AbstractRemapJarTask extends Jar {
 	@ApiStatus.Internal
 	public abstract Property<String> getJarType();
 
+	/**
+	 * When enabled the compressed data of the entries is copied as is when the jar is reprocessed, rather than being recompressed.
+	 */
+	@Input
+	public abstract Property<Boolean> getCopyRawZipEntries();
+
 	private final Provider<JarManifestService> jarManifestServiceProvider;
 
 	@Inject
@@ -119,6 +127,7 @@ public abstract class AbstractRemapJarTask extends Jar {
 		getRemapperIsolation().convention(false).finalizeValueOnRead();
 		getIncludesClientOnlyClasses().convention(false).finalizeValueOnRead();
 		getJarType().finalizeValueOnRead();
+		getCopyRawZipEntries().convention(GradleUtils.getBooleanPropertyProvider(getProject(), Constants.Properties.COPY_RAW_ZIP_ENTRIES)).finalizeValueOnRead();
 
 		jarManifestServiceProvider = JarManifestService.get(getProject());
 		usesService(jarManifestServiceProvider);
@@ -139,6 +148,7 @@ public abstract class AbstractRemapJarTask extends Jar {
 
 			params.getJarManifestService().set(jarManifestServiceProvider);
 			params.getEntryCompression().set(getEntryCompression());
+			params.getCopyRawZipEntries().set(getCopyRawZipEntries());
 
 			if (getIncludesClientOnlyClasses().get()) {
 				final List<String> clientOnlyEntries = new ArrayList<>(getClientOnlyEntries(getClientSourceSet()));
@@ -180,6 +190,7 @@ public abstract class AbstractRemapJarTask extends Jar {
 		Property<Boolean> getArchivePreserveFileTimestamps();
 		Property<Boolean> getArchiveReproducibleFileOrder();
 		Property<ZipEntryCompression> getEntryCompression();
+		Property<Boolean> getCopyRawZipEntries();
 
 		Property<JarManifestService> getJarManifestService();
 		MapProperty<String, String> getManifestAttributes();
@@ -205,18 +216,24 @@ public abstract class AbstractRemapJarTask extends Jar {
 		}
 
 		protected void modifyJarManifest() throws IOException {
-			int count = ZipUtils.transform(outputFile, Map.of(Constants.Manifest.PATH, bytes -> {
-				var manifest = new Manifest(new ByteArrayInputStream(bytes));
+			int count = ZipUtils.transform(outputFile, Map.of(Constants.Manifest.PATH, this::modifyJarManifest));
+			Preconditions.checkState(count > 0, "Did not transform any jar manifest");
+		}
+
+		protected void modifyJarManifest(ZipOutputBuffer output) throws IOException {
+			int count = output.transform(Map.of(Constants.Manifest.PATH, this::modifyJarManifest));
+			Preconditions.checkState(count > 0, "Did not transform any jar manifest");
+		}
 
-				getParameters().getJarManifestService().get().apply(manifest, getParameters().getManifestAttributes().get());
-				manifest.getMainAttributes().putValue(Constants.Manifest.MAPPING_NAMESPACE, getParameters().getTargetNamespace().get());
+		private byte[] modifyJarManifest(byte[] bytes) throws IOException {
+			var manifest = new Manifest(new ByteArrayInputStream(bytes));
 
-				ByteArrayOutputStream out = new ByteArrayOutputStream();
-				manifest.write(out);
-				return out.toByteArray();
-			}));
+			getParameters().getJarManifestService().get().apply(manifest, getParameters().getManifestAttributes().get());
+			manifest.getMainAttributes().putValue(Constants.Manifest.MAPPING_NAMESPACE, getParameters().getTargetNamespace().get());
 
-			Preconditions.checkState(count > 0, "Did not transform any jar manifest");
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			manifest.write(out);
+			return out.toByteArray();
 		}
 
 		protected void rewriteJar() throws IOException {
@@ -225,9 +242,16 @@ public abstract class AbstractRemapJarTask extends Jar {
 			final ZipEntryCompression compression = getParameters().getEntryCompression().get();
 
 			if (isReproducibleFileOrder || !isPreserveFileTimestamps || compression != ZipEntryCompression.DEFLATED) {
-				ZipReprocessorUtil.reprocessZip(outputFile, isReproducibleFileOrder, isPreserveFileTimestamps, compression);
+				ZipReprocessorUtil.reprocessZip(outputFile, isReproducibleFileOrder, isPreserveFileTimestamps, compression, getParameters().getCopyRawZipEntries().get());
 			}
 		}
+
+		/**
+		 * Writes the buffered output jar in a single pass, using the same archive settings as {@link #rewriteJar()}.
+		 */
+		protected void writeJar(ZipOutputBuffer output) throws IOException {
+			output.write(outputFile, getParameters().getArchiveReproducibleFileOrder().get(), getParameters().getArchivePreserveFileTimestamps().get(), getParameters().getEntryCompression().get());
+		}
 	}
 
 	@Deprecated
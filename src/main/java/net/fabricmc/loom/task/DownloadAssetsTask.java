@@ -31,6 +31,7 @@ import java.util.Objects;
 
 import javax.inject.Inject;
 
+import org.gradle.StartParameter;
 import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.provider.Property;
 import org.gradle.api.tasks.Input;
@@ -44,6 +45,7 @@ import net.fabricmc.loom.configuration.providers.minecraft.MinecraftProvider;
 import net.fabricmc.loom.configuration.providers.minecraft.MinecraftVersionMeta;
 import net.fabricmc.loom.configuration.providers.minecraft.assets.AssetIndex;
 import net.fabricmc.loom.util.MirrorUtil;
+import net.fabricmc.loom.util.download.BatchDownload;
 import net.fabricmc.loom.util.download.DownloadExecutor;
 import net.fabricmc.loom.util.download.GradleDownloadProgressListener;
 import net.fabricmc.loom.util.gradle.ProgressGroup;
@@ -55,6 +57,13 @@ public abstract class DownloadAssetsTask extends AbstractLoomTask {
 	@Input
 	public abstract Property<Integer> getDownloadThreads();
 
+	/**
+	 * When enabled, the assets are downloaded as a single batch over a few multiplexed HTTP/2 connections.
+	 * Otherwise each asset is downloaded individually, using {@link #getDownloadThreads()} threads.
+	 */
+	@Input
+	public abstract Property<Boolean> getBatchDownload();
+
 	@Input
 	public abstract Property<String> getMinecraftVersion();
 
@@ -72,6 +81,7 @@ public abstract class DownloadAssetsTask extends AbstractLoomTask {
 		getAssetsDirectory().set(assetsDir);
 		getAssetsHash().set(versionInfo.assetIndex().sha1());
 		getDownloadThreads().convention(Math.min(Runtime.getRuntime().availableProcessors(), 10));
+		getBatchDownload().convention(true);
 		getMinecraftVersion().set(versionInfo.id());
 		getMinecraftVersion().finalizeValue();
 
@@ -92,6 +102,11 @@ public abstract class DownloadAssetsTask extends AbstractLoomTask {
 	public void downloadAssets() throws IOException {
 		final AssetIndex assetIndex = getAssetIndex();
 
+		if (getBatchDownload().get()) {
+			downloadAssetsBatched(assetIndex);
+			return;
+		}
+
 		try (ProgressGroup progressGroup = new ProgressGroup(getProject(), "Download Assets");
 				DownloadExecutor executor = new DownloadExecutor(getDownloadThreads().get())) {
 			for (AssetIndex.Object object : assetIndex.getObjects()) {
@@ -107,6 +122,32 @@ public abstract class DownloadAssetsTask extends AbstractLoomTask {
 		}
 	}
 
+	private void downloadAssetsBatched(AssetIndex assetIndex) throws IOException {
+		final StartParameter startParameter = getProject().getGradle().getStartParameter();
+		final BatchDownload batchDownload = new BatchDownload(getAssetsRoot(assetIndex));
+
+		if (startParameter.isOffline()) {
+			batchDownload.offline();
+		}
+
+		if (startParameter.isRefreshDependencies() || Boolean.getBoolean("loom.refresh")) {
+			batchDownload.forceDownload();
+		}
+
+		for (AssetIndex.Object object : assetIndex.getObjects()) {
+			final String sha1 = object.hash();
+			final String url = MirrorUtil.getResourcesBase(getProject()) + sha1.substring(0, 2) + "/" + sha1;
+			batchDownload.add(url, sha1, object.size(), getRelativeAssetPath(object, assetIndex));
+		}
+
+		try (ProgressGroup progressGroup = new ProgressGroup(getProject(), "Download Assets")) {
+			final int downloaded = batchDownload
+					.progress(new GradleDownloadProgressListener("assets", progressGroup::createProgressLogger))
+					.download();
+			getLogger().info("Downloaded {} assets", downloaded);
+		}
+	}
+
 	private MinecraftVersionMeta.AssetIndex getAssetIndexMeta() {
 		MinecraftVersionMeta versionInfo = getExtension().getMinecraftProvider().getVersionInfo();
 		return versionInfo.assetIndex();
@@ -126,11 +167,22 @@ public abstract class DownloadAssetsTask extends AbstractLoomTask {
 	}
 
 	private Path getAssetsPath(AssetIndex.Object object, AssetIndex index) {
+		return getAssetsRoot(index).resolve(getRelativeAssetPath(object, index));
+	}
+
+	private Path getAssetsRoot(AssetIndex index) {
+		if (index.mapToResources() || index.virtual()) {
+			return getLegacyResourcesDirectory().get().getAsFile().toPath();
+		}
+
+		return getAssetsDirectory().get().getAsFile().toPath();
+	}
+
+	private static String getRelativeAssetPath(AssetIndex.Object object, AssetIndex index) {
 		if (index.mapToResources() || index.virtual()) {
-			return new File(getLegacyResourcesDirectory().get().getAsFile(), object.path()).toPath();
+			return object.path();
 		}
 
-		final String filename = "objects" + File.separator + object.hash().substring(0, 2) + File.separator + object.hash();
-		return new File(getAssetsDirectory().get().getAsFile(), filename).toPath();
+		return "objects/" + object.hash().substring(0, 2) + "/" + object.hash();
 	}
 }
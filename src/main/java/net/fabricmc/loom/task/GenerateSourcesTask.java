@@ -24,10 +24,11 @@
 
 package net.fabricmc.loom.task;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.Reader;
+import java.io.Serializable;
 import java.io.UncheckedIOException;
 import java.io.Writer;
 import java.lang.reflect.Constructor;
@@ -36,18 +37,34 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
 import javax.inject.Inject;
 
 import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.FileCollection;
 import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.ListProperty;
 import org.gradle.api.provider.Property;
 import org.gradle.api.services.ServiceReference;
 import org.gradle.api.tasks.Input;
@@ -55,6 +72,7 @@ import org.gradle.api.tasks.InputFile;
 import org.gradle.api.tasks.InputFiles;
 import org.gradle.api.tasks.Optional;
 import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.OutputFiles;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.process.ExecOperations;
 import org.gradle.process.ExecResult;
@@ -66,6 +84,7 @@ import org.gradle.workers.WorkerExecutor;
 import org.gradle.workers.internal.WorkerDaemonClientsManager;
 import org.jetbrains.annotations.Nullable;
 
+import net.fabricmc.loom.LoomGradlePlugin;
 import net.fabricmc.loom.api.decompilers.DecompilationMetadata;
 import net.fabricmc.loom.api.decompilers.DecompilerOptions;
 import net.fabricmc.loom.api.decompilers.LoomDecompiler;
@@ -73,28 +92,38 @@ import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.configuration.ConfigContextImpl;
 import net.fabricmc.loom.configuration.processors.MappingProcessorContextImpl;
 import net.fabricmc.loom.configuration.processors.MinecraftJarProcessorManager;
+import net.fabricmc.loom.configuration.providers.mappings.BinaryMappingsCache;
 import net.fabricmc.loom.configuration.providers.minecraft.MinecraftJar;
 import net.fabricmc.loom.configuration.providers.minecraft.mapped.AbstractMappedMinecraftProvider;
+import net.fabricmc.loom.decompilers.ClassHashIndex;
 import net.fabricmc.loom.decompilers.LineNumberRemapper;
+import net.fabricmc.loom.util.Checksum;
 import net.fabricmc.loom.util.Constants;
+import net.fabricmc.loom.util.ContentAddressedCache;
 import net.fabricmc.loom.util.ExceptionUtil;
-import net.fabricmc.loom.util.FileSystemUtil;
 import net.fabricmc.loom.util.IOStringConsumer;
 import net.fabricmc.loom.util.Platform;
+import net.fabricmc.loom.util.gradle.GradleUtils;
 import net.fabricmc.loom.util.gradle.SyncTaskBuildService;
 import net.fabricmc.loom.util.gradle.ThreadedProgressLoggerConsumer;
 import net.fabricmc.loom.util.gradle.ThreadedSimpleProgressLogger;
 import net.fabricmc.loom.util.gradle.WorkerDaemonClientsManagerHelper;
+import net.fabricmc.loom.util.gradle.WorkerDaemonExpirationService;
 import net.fabricmc.loom.util.ipc.IPCClient;
 import net.fabricmc.loom.util.ipc.IPCServer;
 import net.fabricmc.loom.util.service.ScopedSharedServiceManager;
-import net.fabricmc.mappingio.MappingReader;
 import net.fabricmc.mappingio.adapter.MappingSourceNsSwitch;
 import net.fabricmc.mappingio.format.tiny.Tiny2FileWriter;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
 @DisableCachingByDefault
 public abstract class GenerateSourcesTask extends AbstractLoomTask {
+	private static final String CACHED_SOURCES_JAR = "sources.jar";
+	private static final String CACHED_LINEMAP = "sources.lmap";
+	private static final String CACHED_CLASS_HASH_INDEX = "sources.index";
+	private static final int DEFAULT_CACHE_SIZE_MIB = 1024;
+	private static final int DEFAULT_DAEMON_IDLE_TIMEOUT_MINUTES = 10;
+
 	private final DecompilerOptions decompilerOptions;
 
 	/**
@@ -109,6 +138,18 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 	@OutputFile
 	public abstract RegularFileProperty getOutputJar();
 
+	/**
+	 * Additional jars to decompile in the same worker, {@link MinecraftJar#getName()}.
+	 */
+	@Input
+	public abstract ListProperty<String> getAdditionalInputJarNames();
+
+	/**
+	 * The sources jars of {@link #getAdditionalInputJarNames()}.
+	 */
+	@OutputFiles
+	public abstract ConfigurableFileCollection getAdditionalOutputJars();
+
 	// Unpick
 	@InputFile
 	@Optional
@@ -126,6 +167,12 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 	@Optional
 	public abstract RegularFileProperty getUnpickOutputJar();
 
+	/**
+	 * When enabled only the classes that have changed since the last run are decompiled, and spliced into the existing sources jar.
+	 */
+	@Input
+	public abstract Property<Boolean> getIncremental();
+
 	// Injects
 	@Inject
 	public abstract WorkerExecutor getWorkerExecutor();
@@ -140,11 +187,17 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 	@ServiceReference(SyncTaskBuildService.NAME)
 	abstract Property<SyncTaskBuildService> getSyncTask();
 
+	@ServiceReference(WorkerDaemonExpirationService.NAME)
+	abstract Property<WorkerDaemonExpirationService> getWorkerDaemonExpiration();
+
 	@Inject
 	public GenerateSourcesTask(DecompilerOptions decompilerOptions) {
 		this.decompilerOptions = decompilerOptions;
 
+		WorkerDaemonExpirationService.register(getProject());
+
 		getOutputs().upToDateWhen((o) -> false);
+		getIncremental().convention(!GradleUtils.getBooleanProperty(getProject(), Constants.Properties.DISABLE_INCREMENTAL_DECOMPILE)).finalizeValueOnRead();
 		getClasspath().from(decompilerOptions.getClasspath()).finalizeValueOnRead();
 		dependsOn(decompilerOptions.getClasspath().getBuiltBy());
 	}
@@ -157,20 +210,92 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 			throw new UnsupportedOperationException("GenSources task requires a 64bit JVM to run due to the memory requirements.");
 		}
 
-		final MinecraftJar minecraftJar = rebuildInputJar();
-		// Input jar is the jar to decompile, this may be unpicked.
-		Path inputJar = minecraftJar.getPath();
-		// Runtime jar is the jar used to run the game
-		final Path runtimeJar = inputJar;
+		final Path mappings = getMappings();
+		final FileCollection libraries = getProject().getConfigurations().getByName(Constants.Configurations.MINECRAFT_COMPILE_LIBRARIES);
+		final List<DecompileJob> jobs = createJobs(getDecompileKey(mappings, libraries));
+
+		// The same input jar decompiled with the same options always produces the same sources, so reuse them from other projects.
+		final ContentAddressedCache sourcesCache = getSourcesCache();
+		final Map<DecompileJob, String> cacheKeys = new HashMap<>();
+		final List<DecompileJob> pendingJobs = new ArrayList<>();
+
+		for (DecompileJob job : jobs) {
+			final String cacheKey = sourcesCache.isEnabled() ? ContentAddressedCache.key(job.decompileKey(), Checksum.toHex(Checksum.sha256(job.inputJar().toFile()))) : null;
+
+			if (cacheKey != null && !getExtension().refreshDeps() && copyFromCache(sourcesCache, cacheKey, job)) {
+				continue;
+			}
+
+			if (cacheKey != null) {
+				cacheKeys.put(job, cacheKey);
+			}
+
+			pendingJobs.add(job);
+		}
 
-		if (getUnpickDefinitions().isPresent()) {
-			inputJar = unpickJar(inputJar);
+		if (pendingJobs.isEmpty()) {
+			return;
 		}
 
+		decompile(platform, pendingJobs, mappings, libraries);
+
+		for (DecompileJob job : pendingJobs) {
+			if (cacheKeys.containsKey(job)) {
+				storeInCache(sourcesCache, cacheKeys.get(job), job);
+			}
+		}
+	}
+
+	private List<DecompileJob> createJobs(String decompileKey) throws IOException {
+		final List<String> names = new ArrayList<>();
+		names.add(getInputJarName().get());
+		names.addAll(getAdditionalInputJarNames().get());
+
+		final List<MinecraftJar> minecraftJars = rebuildInputJars(names);
+		final List<Path> inputJars = new ArrayList<>();
+		final List<Path> runtimeJars = new ArrayList<>();
+
+		for (int i = 0; i < minecraftJars.size(); i++) {
+			// Runtime jar is the jar used to run the game
+			final Path runtimeJar = minecraftJars.get(i).getPath();
+			// Input jar is the jar to decompile, this may be unpicked.
+			Path inputJar = runtimeJar;
+
+			if (getUnpickDefinitions().isPresent()) {
+				final Path unpickOutputJar = getUnpickOutputJar().get().getAsFile().toPath();
+				inputJar = unpickJar(inputJar, i == 0 ? unpickOutputJar : unpickOutputJar.resolveSibling("minecraft-%s-unpicked.jar".formatted(names.get(i).toLowerCase(Locale.ROOT))));
+			}
+
+			inputJars.add(inputJar);
+			runtimeJars.add(runtimeJar);
+		}
+
+		final List<DecompileJob> jobs = new ArrayList<>();
+
+		for (int i = 0; i < inputJars.size(); i++) {
+			final Path inputJar = inputJars.get(i);
+			final Path outputJar = i == 0 ? getOutputJar().get().getAsFile().toPath() : getMappedJarFileWithSuffix("-sources.jar", runtimeJars.get(i)).toPath();
+
+			// The other jars are needed on the classpath, for example the common jar when decompiling the client only jar.
+			final List<Path> additionalLibraries = inputJars.stream().filter(other -> other != inputJar).toList();
+			final List<String> keys = new ArrayList<>();
+			keys.add(decompileKey);
+
+			for (Path library : additionalLibraries) {
+				keys.add(Checksum.toHex(Checksum.sha256(library.toFile())));
+			}
+
+			jobs.add(new DecompileJob(names.get(i), inputJar, runtimeJars.get(i), outputJar, additionalLibraries, ContentAddressedCache.key(keys.toArray(String[]::new))));
+		}
+
+		return jobs;
+	}
+
+	private void decompile(Platform platform, List<DecompileJob> jobs, Path mappings, FileCollection libraries) throws IOException {
 		if (!platform.supportsUnixDomainSockets()) {
 			getProject().getLogger().warn("Decompile worker logging disabled as Unix Domain Sockets is not supported on your operating system.");
 
-			doWork(null, inputJar, runtimeJar);
+			doWork(null, jobs, mappings, libraries);
 			return;
 		}
 
@@ -180,7 +305,7 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 
 		try (ThreadedProgressLoggerConsumer loggerConsumer = new ThreadedProgressLoggerConsumer(getProject(), decompilerOptions.getName(), "Decompiling minecraft sources");
 				IPCServer logReceiver = new IPCServer(ipcPath, loggerConsumer)) {
-			doWork(logReceiver, inputJar, runtimeJar);
+			doWork(logReceiver, jobs, mappings, libraries);
 		} catch (InterruptedException e) {
 			throw new RuntimeException("Failed to shutdown log receiver", e);
 		} finally {
@@ -188,9 +313,81 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		}
 	}
 
+	// Anything other than the input jar that affects the decompiled sources
+	private String getDecompileKey(Path mappings, FileCollection libraries) {
+		final DecompilerOptions.Dto decompilerOptionsDto = decompilerOptions.toDto();
+
+		return ContentAddressedCache.key(
+				LoomGradlePlugin.LOOM_VERSION,
+				decompilerOptionsDto.className(),
+				new TreeMap<>(decompilerOptionsDto.options()).toString(),
+				Checksum.toHex(Checksum.sha256(mappings.toFile())),
+				libraries.getFiles().stream()
+						.map(file -> file.isFile() ? file.getName() + "=" + Checksum.toHex(Checksum.sha256(file)) : file.getAbsolutePath())
+						.sorted()
+						.collect(Collectors.joining(","))
+		);
+	}
+
+	private ContentAddressedCache getSourcesCache() {
+		final Path root = getExtension().getFiles().getUserCache().toPath().resolve("decompiled-sources");
+		final long maxSize = GradleUtils.getIntegerProperty(getProject(), Constants.Properties.DECOMPILED_SOURCES_CACHE_SIZE, DEFAULT_CACHE_SIZE_MIB) * 1024L * 1024L;
+		return new ContentAddressedCache(root, maxSize);
+	}
+
+	// Place the cached sources and line map, and line map the runtime jar as the decompile worker would have done.
+	private boolean copyFromCache(ContentAddressedCache cache, String key, DecompileJob job) throws IOException {
+		final Path runtimeJar = job.runtimeJar();
+		final Path sourcesJar = job.outputJar();
+		final Path linemap = getMappedJarFileWithSuffix("-sources.lmap", runtimeJar).toPath();
+		final Path classHashIndex = getMappedJarFileWithSuffix("-sources.index", runtimeJar).toPath();
+
+		if (!cache.copyTo(key, CACHED_SOURCES_JAR, sourcesJar)) {
+			return false;
+		}
+
+		getProject().getLogger().lifecycle("Using cached sources for {}", job.name());
+
+		Files.deleteIfExists(linemap);
+		Files.deleteIfExists(classHashIndex);
+		cache.copyTo(key, CACHED_CLASS_HASH_INDEX, classHashIndex);
+
+		// Not all decompilers write a line map
+		if (cache.copyTo(key, CACHED_LINEMAP, linemap)) {
+			final Path linemapJar = getMappedJarFileWithSuffix("-linemapped.jar", runtimeJar).toPath();
+
+			LineNumberRemapper remapper = new LineNumberRemapper();
+			remapper.readMappings(linemap);
+			remapper.process(null, runtimeJar, linemapJar, decompilerOptions.getMaxThreads().get());
+
+			Files.move(linemapJar, runtimeJar, StandardCopyOption.REPLACE_EXISTING);
+		}
+
+		return true;
+	}
+
+	private void storeInCache(ContentAddressedCache cache, String key, DecompileJob job) {
+		final Path runtimeJar = job.runtimeJar();
+		final Map<String, Path> files = new HashMap<>();
+		files.put(CACHED_SOURCES_JAR, job.outputJar());
+
+		final Path linemap = getMappedJarFileWithSuffix("-sources.lmap", runtimeJar).toPath();
+		final Path classHashIndex = getMappedJarFileWithSuffix("-sources.index", runtimeJar).toPath();
+
+		if (Files.exists(linemap)) {
+			files.put(CACHED_LINEMAP, linemap);
+		}
+
+		if (Files.exists(classHashIndex)) {
+			files.put(CACHED_CLASS_HASH_INDEX, classHashIndex);
+		}
+
+		cache.put(key, files);
+	}
+
 	// Re-run the named minecraft provider to give us a fresh jar to decompile.
 	// This prevents re-applying line maps on an existing jar.
-	private MinecraftJar rebuildInputJar() {
+	private List<MinecraftJar> rebuildInputJars(List<String> names) {
 		final List<MinecraftJar> minecraftJars;
 
 		try (var serviceManager = new ScopedSharedServiceManager()) {
@@ -201,20 +398,23 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 			throw new RuntimeException("Failed to rebuild input jars", e);
 		}
 
-		for (MinecraftJar minecraftJar : minecraftJars) {
-			if (minecraftJar.getName().equals(getInputJarName().get())) {
-				return minecraftJar;
-			}
+		final List<MinecraftJar> inputJars = new ArrayList<>();
+
+		for (String name : names) {
+			final MinecraftJar inputJar = minecraftJars.stream()
+					.filter(minecraftJar -> minecraftJar.getName().equals(name))
+					.findFirst()
+					.orElseThrow(() -> new IllegalStateException("Could not find minecraft jar (%s) but got (%s)".formatted(
+							name,
+							minecraftJars.stream().map(MinecraftJar::getName).collect(Collectors.joining(", ")))
+					));
+			inputJars.add(inputJar);
 		}
 
-		throw new IllegalStateException("Could not find minecraft jar (%s) but got (%s)".formatted(
-				getInputJarName().get(),
-				minecraftJars.stream().map(MinecraftJar::getName).collect(Collectors.joining(", ")))
-		);
+		return inputJars;
 	}
 
-	private Path unpickJar(Path inputJar) {
-		final Path outputJar = getUnpickOutputJar().get().getAsFile().toPath();
+	private Path unpickJar(Path inputJar, Path outputJar) {
 		final List<String> args = getUnpickArgs(inputJar, outputJar);
 
 		ExecResult result = getExecOperations().javaexec(spec -> {
@@ -264,31 +464,46 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		return unpickLoggingConfigFile;
 	}
 
-	private void doWork(@Nullable IPCServer ipcServer, Path inputJar, Path runtimeJar) {
-		final String jvmMarkerValue = UUID.randomUUID().toString();
+	private void doWork(@Nullable IPCServer ipcServer, List<DecompileJob> jobs, Path mappings, FileCollection libraries) throws IOException {
+		final boolean keepWorkerAlive = useDecompilerDaemon();
+		final String jvmMarkerValue = keepWorkerAlive ? getDecompilerDaemonMarker() : UUID.randomUUID().toString();
 		final WorkQueue workQueue = createWorkQueue(jvmMarkerValue);
 
+		final long[] sizes = new long[jobs.size()];
+
+		for (int i = 0; i < jobs.size(); i++) {
+			sizes[i] = Files.size(jobs.get(i).inputJar());
+		}
+
+		final int[] threads = splitThreads(decompilerOptions.getMaxThreads().get(), sizes);
+		final List<DecompileTarget> targets = new ArrayList<>();
+
+		for (int i = 0; i < jobs.size(); i++) {
+			final DecompileJob job = jobs.get(i);
+			final List<File> additionalLibraries = job.additionalLibraries().stream().map(Path::toFile).toList();
+			targets.add(new DecompileTarget(job.inputJar().toFile(), job.runtimeJar().toFile(), job.outputJar().toFile(), additionalLibraries, job.decompileKey(), threads[i]));
+		}
+
 		workQueue.submit(DecompileAction.class, params -> {
 			params.getDecompilerOptions().set(decompilerOptions.toDto());
-
-			params.getInputJar().set(inputJar.toFile());
-			params.getRuntimeJar().set(runtimeJar.toFile());
-			params.getSourcesDestinationJar().set(getOutputJar());
-			params.getLinemap().set(getMappedJarFileWithSuffix("-sources.lmap", runtimeJar));
-			params.getLinemapJar().set(getMappedJarFileWithSuffix("-linemapped.jar", runtimeJar));
-			params.getMappings().set(getMappings().toFile());
+			params.getTargets().set(targets);
+			params.getMappings().set(mappings.toFile());
+			params.getIncremental().set(getIncremental().get() && !getExtension().refreshDeps());
 
 			if (ipcServer != null) {
 				params.getIPCPath().set(ipcServer.getPath().toFile());
 			}
 
-			params.getClassPath().setFrom(getProject().getConfigurations().getByName(Constants.Configurations.MINECRAFT_COMPILE_LIBRARIES));
+			params.getClassPath().setFrom(libraries);
 		});
 
 		try {
 			workQueue.await();
 		} finally {
-			if (ipcServer != null) {
+			if (keepWorkerAlive) {
+				final int idleTimeout = GradleUtils.getIntegerProperty(getProject(), Constants.Properties.DECOMPILER_DAEMON_IDLE_TIMEOUT, DEFAULT_DAEMON_IDLE_TIMEOUT_MINUTES);
+				getWorkerDaemonExpiration().get().stopIdleJVMLater(getWorkerDaemonClientsManager(), jvmMarkerValue, Duration.ofMinutes(idleTimeout));
+			} else if (ipcServer != null) {
 				boolean stopped = WorkerDaemonClientsManagerHelper.stopIdleJVM(getWorkerDaemonClientsManager(), jvmMarkerValue);
 
 				if (!stopped && ipcServer.hasReceivedMessage()) {
@@ -298,6 +513,46 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		}
 	}
 
+	// Share the threads between the jars by size, so that they all finish at roughly the same time.
+	// Every jar gets at least one thread, the remainder is handed out by size without going over the max threads.
+	private static int[] splitThreads(int maxThreads, long[] sizes) {
+		final int[] threads = new int[sizes.length];
+		Arrays.fill(threads, 1);
+
+		final int spare = maxThreads - sizes.length;
+		final long totalSize = Arrays.stream(sizes).sum();
+
+		if (spare <= 0) {
+			return threads;
+		}
+
+		final double[] remainders = new double[sizes.length];
+		int assigned = 0;
+
+		for (int i = 0; i < sizes.length; i++) {
+			final double share = totalSize > 0 ? spare * (double) sizes[i] / totalSize : (double) spare / sizes.length;
+			threads[i] += (int) share;
+			remainders[i] = share - (int) share;
+			assigned += (int) share;
+		}
+
+		// Give the threads left over from rounding down to the jars with the largest remainders
+		for (int i = assigned; i < spare; i++) {
+			int largest = 0;
+
+			for (int j = 1; j < remainders.length; j++) {
+				if (remainders[j] > remainders[largest]) {
+					largest = j;
+				}
+			}
+
+			threads[largest]++;
+			remainders[largest] = -1;
+		}
+
+		return threads;
+	}
+
 	private WorkQueue createWorkQueue(String jvmMarkerValue) {
 		if (!useProcessIsolation()) {
 			return getWorkerExecutor().classLoaderIsolation(spec -> {
@@ -315,6 +570,21 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		});
 	}
 
+	// Keep the decompiler JVM warm between genSources runs, only when opted in as it holds on to a lot of memory.
+	private boolean useDecompilerDaemon() {
+		return useProcessIsolation() && GradleUtils.getBooleanProperty(getProject(), Constants.Properties.DECOMPILER_DAEMON);
+	}
+
+	// The same value for every task with the same decompiler classpath and memory, so that Gradle reuses the worker JVM.
+	private String getDecompilerDaemonMarker() {
+		final String classpath = getClasspath().getFiles().stream()
+				.map(File::getAbsolutePath)
+				.sorted()
+				.collect(Collectors.joining(File.pathSeparator));
+
+		return "daemon-" + Checksum.sha1Hex((classpath + "\n" + decompilerOptions.getMemory().get()).getBytes(StandardCharsets.UTF_8));
+	}
+
 	private boolean useProcessIsolation() {
 		// Useful if you want to debug the decompiler, make sure you run gradle with enough memory.
 		return !Boolean.getBoolean("fabric.loom.genSources.debug");
@@ -323,16 +593,24 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 	public interface DecompileParams extends WorkParameters {
 		Property<DecompilerOptions.Dto> getDecompilerOptions();
 
-		RegularFileProperty getInputJar();
-		RegularFileProperty getRuntimeJar();
-		RegularFileProperty getSourcesDestinationJar();
-		RegularFileProperty getLinemap();
-		RegularFileProperty getLinemapJar();
+		ListProperty<DecompileTarget> getTargets();
 		RegularFileProperty getMappings();
 
 		RegularFileProperty getIPCPath();
 
 		ConfigurableFileCollection getClassPath();
+
+		Property<Boolean> getIncremental();
+	}
+
+	/**
+	 * @param decompileKey everything other than the input jar that affects the decompiled sources, including the contents of the additional libraries
+	 */
+	private record DecompileJob(String name, Path inputJar, Path runtimeJar, Path outputJar, List<Path> additionalLibraries, String decompileKey) {
+	}
+
+	// Done to work around weird issues with the workers, see DecompilerOptions.Dto
+	public record DecompileTarget(File inputJar, File runtimeJar, File sourcesDestinationJar, List<File> additionalLibraries, String decompileKey, int threads) implements Serializable {
 	}
 
 	public abstract static class DecompileAction implements WorkAction<DecompileParams> {
@@ -354,11 +632,65 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		}
 
 		private void doDecompile(IOStringConsumer logger) {
-			final Path inputJar = getParameters().getInputJar().get().getAsFile().toPath();
-			final Path sourcesDestinationJar = getParameters().getSourcesDestinationJar().get().getAsFile().toPath();
-			final Path linemap = getParameters().getLinemap().get().getAsFile().toPath();
-			final Path linemapJar = getParameters().getLinemapJar().get().getAsFile().toPath();
-			final Path runtimeJar = getParameters().getRuntimeJar().get().getAsFile().toPath();
+			final List<DecompileTarget> targets = getParameters().getTargets().get();
+			final List<DecompileResult> results;
+
+			if (targets.size() == 1) {
+				results = List.of(decompileTarget(targets.get(0), logger));
+			} else {
+				// Decompile all the jars at once so that no threads are left idle while waiting for the last classes of one jar.
+				// With fewer threads than jars, each jar gets a single thread and they are decompiled a few at a time.
+				final int maxThreads = getParameters().getDecompilerOptions().get().maxThreads();
+				final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(targets.size(), maxThreads)));
+
+				try {
+					final List<CompletableFuture<DecompileResult>> futures = new ArrayList<>();
+
+					for (DecompileTarget target : targets) {
+						futures.add(CompletableFuture.supplyAsync(() -> decompileTarget(target, logger), executor));
+					}
+
+					results = futures.stream().map(CompletableFuture::join).toList();
+				} finally {
+					executor.shutdownNow();
+				}
+			}
+
+			// Close the decompile loggers
+			try {
+				logger.accept(ThreadedProgressLoggerConsumer.CLOSE_LOGGERS);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to close loggers", e);
+			}
+
+			for (DecompileResult result : results) {
+				final Path runtimeJar = result.target().runtimeJar().toPath();
+
+				if (result.lineNumberRemapper() != null) {
+					try {
+						// Line map the actually jar used to run the game, not the one used to decompile
+						final Path linemapJar = getMappedJarFileWithSuffix("-linemapped.jar", runtimeJar).toPath();
+						result.lineNumberRemapper().process(logger, runtimeJar, linemapJar, getParameters().getDecompilerOptions().get().maxThreads());
+
+						Files.move(linemapJar, runtimeJar, StandardCopyOption.REPLACE_EXISTING);
+					} catch (IOException e) {
+						throw new UncheckedIOException("Failed to remap line numbers", e);
+					}
+				}
+
+				try {
+					result.classHashIndex().write(getMappedJarFileWithSuffix("-sources.index", runtimeJar).toPath());
+				} catch (IOException e) {
+					throw new UncheckedIOException("Failed to write class hash index", e);
+				}
+			}
+		}
+
+		private DecompileResult decompileTarget(DecompileTarget target, IOStringConsumer logger) {
+			final Path inputJar = target.inputJar().toPath();
+			final Path sourcesDestinationJar = target.sourcesDestinationJar().toPath();
+			final Path linemap = getMappedJarFileWithSuffix("-sources.lmap", target.runtimeJar().toPath()).toPath();
+			final Path classHashIndexPath = getMappedJarFileWithSuffix("-sources.index", target.runtimeJar().toPath()).toPath();
 
 			final DecompilerOptions.Dto decompilerOptions = getParameters().getDecompilerOptions().get();
 
@@ -374,49 +706,169 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 				throw new RuntimeException("Failed to create decompiler", e);
 			}
 
+			final ClassHashIndex classHashIndex;
+			Set<String> changedClasses = null;
+
+			try {
+				classHashIndex = ClassHashIndex.create(inputJar, target.decompileKey());
+				final ClassHashIndex previousIndex = ClassHashIndex.read(classHashIndexPath);
+
+				// Remove the index until the sources have been fully written
+				Files.deleteIfExists(classHashIndexPath);
+
+				if (getParameters().getIncremental().get() && previousIndex != null && Files.exists(sourcesDestinationJar) && Files.exists(linemap)) {
+					changedClasses = classHashIndex.getChangedClasses(previousIndex);
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to create class hash index", e);
+			}
+
+			if (logger instanceof ThreadedSimpleProgressLogger progressLogger) {
+				progressLogger.addTotalClasses(changedClasses == null ? classHashIndex.getClassCount() : (int) changedClasses.stream().filter(classHashIndex::containsClass).count());
+			}
+
+			final List<Path> libraries = new ArrayList<>(getLibraries());
+			target.additionalLibraries().stream().map(File::toPath).forEach(libraries::add);
+
+			final LineNumberRemapper lineNumberRemapper;
+
+			try {
+				if (changedClasses == null) {
+					// The outputs may be hard linked from the sources cache, so they must be replaced rather than written to.
+					Files.deleteIfExists(sourcesDestinationJar);
+					Files.deleteIfExists(linemap);
+
+					decompile(decompiler, inputJar, sourcesDestinationJar, linemap, libraries, target.threads(), logger);
+					lineNumberRemapper = Files.exists(linemap) ? readLineMap(linemap) : null;
+				} else {
+					lineNumberRemapper = decompileChangedClasses(decompiler, inputJar, sourcesDestinationJar, linemap, changedClasses, libraries, target.threads(), logger);
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to update sources jar", e);
+			}
+
+			return new DecompileResult(target, classHashIndex, lineNumberRemapper);
+		}
+
+		private void decompile(LoomDecompiler decompiler, Path compiledJar, Path sourcesDestination, Path linemapDestination, Collection<Path> libraries, int threads, IOStringConsumer logger) {
+			final DecompilerOptions.Dto decompilerOptions = getParameters().getDecompilerOptions().get();
+
 			DecompilationMetadata metadata = new DecompilationMetadata(
-					decompilerOptions.maxThreads(),
+					threads,
 					getParameters().getMappings().get().getAsFile().toPath(),
-					getLibraries(),
+					libraries,
 					logger,
 					decompilerOptions.options()
 			);
 
 			decompiler.decompile(
-					inputJar,
-					sourcesDestinationJar,
-					linemap,
+					compiledJar,
+					sourcesDestination,
+					linemapDestination,
 					metadata
 			);
+		}
+
+		// Decompile only the changed classes, with the rest of the jar on the classpath, and splice them into the existing sources jar and line map.
+		// The class hash index only allows this when the changes cannot affect the sources of any other class.
+		private LineNumberRemapper decompileChangedClasses(LoomDecompiler decompiler, Path inputJar, Path sourcesDestinationJar, Path linemap, Set<String> changedClasses, List<Path> libraries, int threads, IOStringConsumer logger) throws IOException {
+			final LineNumberRemapper remapper = readLineMap(linemap);
+
+			if (changedClasses.isEmpty()) {
+				logger.accept("No classes have changed since the last decompile");
+				return remapper;
+			}
+
+			logger.accept("Decompiling %d changed classes".formatted(changedClasses.size()));
+			remapper.removeMappings(changedClasses);
+
+			final Path workingDir = Files.createTempDirectory("loom-decompile");
+			final Path changedJar = workingDir.resolve("changed.jar");
+			final Path remainingJar = workingDir.resolve("remaining.jar");
+			final Path changedSourcesJar = workingDir.resolve("changed-sources.jar");
+			final Path changedLinemap = workingDir.resolve("changed-sources.lmap");
 
-			// Close the decompile loggers
 			try {
-				metadata.logger().accept(ThreadedProgressLoggerConsumer.CLOSE_LOGGERS);
-			} catch (IOException e) {
-				throw new UncheckedIOException("Failed to close loggers", e);
+				if (ClassHashIndex.splitJar(inputJar, changedClasses, changedJar, remainingJar) > 0) {
+					final List<Path> changedLibraries = new ArrayList<>(libraries);
+					changedLibraries.add(remainingJar);
+
+					decompile(decompiler, changedJar, changedSourcesJar, changedLinemap, changedLibraries, threads, logger);
+
+					if (Files.exists(changedLinemap)) {
+						remapper.readMappings(changedLinemap);
+					}
+				}
+
+				spliceSources(sourcesDestinationJar, changedSourcesJar, changedClasses);
+
+				Files.delete(linemap);
+				remapper.writeMappings(linemap);
+			} finally {
+				for (Path path : List.of(changedJar, remainingJar, changedSourcesJar, changedLinemap, workingDir)) {
+					Files.deleteIfExists(path);
+				}
 			}
 
-			if (Files.exists(linemap)) {
-				try {
-					// Line map the actually jar used to run the game, not the one used to decompile
-					remapLineNumbers(metadata.logger(), runtimeJar, linemap, linemapJar);
+			return remapper;
+		}
 
-					Files.copy(linemapJar, runtimeJar, StandardCopyOption.REPLACE_EXISTING);
-					Files.delete(linemapJar);
-				} catch (IOException e) {
-					throw new UncheckedIOException("Failed to remap line numbers", e);
+		// Replace the sources of the changed classes with the newly decompiled ones
+		private static void spliceSources(Path sourcesJar, Path changedSourcesJar, Set<String> changedClasses) throws IOException {
+			final Path outputJar = sourcesJar.resolveSibling(sourcesJar.getFileName() + ".tmp");
+			final Set<String> written = new HashSet<>();
+
+			try (ZipOutputStream output = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(outputJar)))) {
+				try (ZipFile zipFile = new ZipFile(sourcesJar.toFile())) {
+					for (ZipEntry entry : Collections.list(zipFile.entries())) {
+						final String name = entry.getName();
+
+						if (name.endsWith(".java") && changedClasses.contains(name.substring(0, name.length() - 5))) {
+							continue;
+						}
+
+						copyEntry(zipFile, entry, output);
+						written.add(name);
+					}
+				}
+
+				if (Files.exists(changedSourcesJar)) {
+					try (ZipFile zipFile = new ZipFile(changedSourcesJar.toFile())) {
+						for (ZipEntry entry : Collections.list(zipFile.entries())) {
+							if (written.add(entry.getName())) {
+								copyEntry(zipFile, entry, output);
+							}
+						}
+					}
 				}
 			}
+
+			Files.move(outputJar, sourcesJar, StandardCopyOption.REPLACE_EXISTING);
 		}
 
-		private void remapLineNumbers(IOStringConsumer logger, Path oldCompiledJar, Path linemap, Path linemappedJarDestination) throws IOException {
-			LineNumberRemapper remapper = new LineNumberRemapper();
-			remapper.readMappings(linemap.toFile());
+		private static void copyEntry(ZipFile zipFile, ZipEntry entry, ZipOutputStream output) throws IOException {
+			final ZipEntry outputEntry = new ZipEntry(entry.getName());
+
+			if (entry.getTime() != -1) {
+				outputEntry.setTime(entry.getTime());
+			}
 
-			try (FileSystemUtil.Delegate inFs = FileSystemUtil.getJarFileSystem(oldCompiledJar.toFile(), true);
-					FileSystemUtil.Delegate outFs = FileSystemUtil.getJarFileSystem(linemappedJarDestination.toFile(), true)) {
-				remapper.process(logger, inFs.get().getPath("/"), outFs.get().getPath("/"));
+			output.putNextEntry(outputEntry);
+
+			try (InputStream is = zipFile.getInputStream(entry)) {
+				is.transferTo(output);
 			}
+
+			output.closeEntry();
+		}
+
+		private static LineNumberRemapper readLineMap(Path linemap) {
+			LineNumberRemapper remapper = new LineNumberRemapper();
+			remapper.readMappings(linemap);
+			return remapper;
+		}
+
+		private record DecompileResult(DecompileTarget target, ClassHashIndex classHashIndex, @Nullable LineNumberRemapper lineNumberRemapper) {
 		}
 
 		private Collection<Path> getLibraries() {
@@ -439,8 +891,8 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 
 		MemoryMappingTree mappingTree = new MemoryMappingTree();
 
-		try (Reader reader = Files.newBufferedReader(inputMappings, StandardCharsets.UTF_8)) {
-			MappingReader.read(reader, new MappingSourceNsSwitch(mappingTree, MappingsNamespace.INTERMEDIARY.toString()));
+		try {
+			BinaryMappingsCache.read(inputMappings, BinaryMappingsCache.getCacheDir(getProject()), new MappingSourceNsSwitch(mappingTree, MappingsNamespace.INTERMEDIARY.toString()));
 		} catch (IOException e) {
 			throw new RuntimeException("Failed to read mappings", e);
 		}
@@ -28,14 +28,13 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import javax.inject.Inject;
 
@@ -70,14 +69,13 @@ import net.fabricmc.loom.extension.MixinExtension;
 import net.fabricmc.loom.task.service.TinyRemapperService;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.ExceptionUtil;
-import net.fabricmc.loom.util.Pair;
 import net.fabricmc.loom.util.SidedClassVisitor;
+import net.fabricmc.loom.util.ZipOutputBuffer;
 import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.loom.util.fmj.FabricModJson;
 import net.fabricmc.loom.util.fmj.FabricModJsonFactory;
 import net.fabricmc.loom.util.service.BuildSharedServiceManager;
 import net.fabricmc.loom.util.service.UnsafeWorkQueueHelper;
-import net.fabricmc.tinyremapper.OutputConsumerPath;
 import net.fabricmc.tinyremapper.TinyRemapper;
 
 public abstract class RemapJarTask extends AbstractRemapJarTask {
@@ -225,23 +223,26 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 					prepare();
 				}
 
+				// All the entries of the output jar are collected in memory and written out once at the end.
+				final ZipOutputBuffer output = new ZipOutputBuffer();
+
 				if (tinyRemapperService != null) {
 					tinyRemapper = tinyRemapperService.getTinyRemapperForRemapping();
 
-					remap();
+					remap(output);
 				} else {
-					Files.copy(inputFile, outputFile, StandardCopyOption.REPLACE_EXISTING);
+					output.copyFrom(inputFile, name -> true);
 				}
 
 				if (getParameters().getClientOnlyEntries().isPresent()) {
-					markClientOnlyClasses();
+					markClientOnlyClasses(output);
 				}
 
-				remapAccessWidener();
-				addRefmaps();
-				addNestedJars();
-				modifyJarManifest();
-				rewriteJar();
+				remapAccessWidener(output);
+				addRefmaps(output);
+				addNestedJars(output);
+				modifyJarManifest(output);
+				writeJar(output);
 
 				if (tinyRemapperService != null && !getParameters().getMultiProjectOptimisation().get()) {
 					tinyRemapperService.close();
@@ -267,26 +268,22 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 			}
 		}
 
-		private void remap() throws IOException {
+		private void remap(ZipOutputBuffer output) throws IOException {
 			Objects.requireNonNull(tinyRemapperService, "tinyRemapperService");
 			Objects.requireNonNull(tinyRemapper, "tinyRemapper");
 
-			try (OutputConsumerPath outputConsumer = new OutputConsumerPath.Builder(outputFile).build()) {
-				outputConsumer.addNonClassFiles(inputFile);
-				tinyRemapper.apply(outputConsumer, tinyRemapperService.getOrCreateTag(inputFile));
-			}
+			output.copyNonClassFilesFrom(inputFile);
+			tinyRemapper.apply(output, tinyRemapperService.getOrCreateTag(inputFile));
 		}
 
-		private void markClientOnlyClasses() throws IOException {
-			final Stream<Pair<String, ZipUtils.UnsafeUnaryOperator<byte[]>>> tranformers = getParameters().getClientOnlyEntries().get().stream()
-					.map(s -> new Pair<>(s,
-							(ZipUtils.AsmClassOperator) classVisitor -> SidedClassVisitor.CLIENT.insertApplyVisitor(null, classVisitor)
-					));
+		private void markClientOnlyClasses(ZipOutputBuffer output) throws IOException {
+			final Map<String, ZipUtils.UnsafeUnaryOperator<byte[]>> tranformers = getParameters().getClientOnlyEntries().get().stream()
+					.collect(Collectors.toMap(s -> s, s -> (ZipUtils.AsmClassOperator) classVisitor -> SidedClassVisitor.CLIENT.insertApplyVisitor(null, classVisitor)));
 
-			ZipUtils.transform(outputFile, tranformers);
+			output.transform(tranformers);
 		}
 
-		private void remapAccessWidener() throws IOException {
+		private void remapAccessWidener(ZipOutputBuffer output) throws IOException {
 			if (getParameters().namespacesMatch()) {
 				return;
 			}
@@ -300,7 +297,7 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 			byte[] remapped = remapAccessWidener(accessWidenerFile.content());
 
 			// Finally, replace the output with the remaped aw
-			ZipUtils.replace(outputFile, accessWidenerFile.path(), remapped);
+			output.replace(accessWidenerFile.path(), remapped);
 		}
 
 		private byte[] remapAccessWidener(byte[] input) {
@@ -321,7 +318,7 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 			return writer.write();
 		}
 
-		private void addNestedJars() {
+		private void addNestedJars(ZipOutputBuffer output) throws IOException {
 			FileCollection nestedJars = getParameters().getNestedJars();
 
 			if (nestedJars.isEmpty()) {
@@ -329,17 +326,17 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 				return;
 			}
 
-			JarNester.nestJars(nestedJars.getFiles(), outputFile.toFile(), LOGGER);
+			JarNester.nestJars(nestedJars.getFiles(), output, outputFile.getFileName().toString(), LOGGER);
 		}
 
-		private void addRefmaps() throws IOException {
+		private void addRefmaps(ZipOutputBuffer output) throws IOException {
 			if (getParameters().getUseMixinExtension().getOrElse(false)) {
 				return;
 			}
 
 			for (RemapParams.RefmapData refmapData : getParameters().getMixinData().get()) {
-				if (ZipUtils.contains(outputFile, refmapData.refmapName())) {
-					int transformed = ZipUtils.transformJson(JsonObject.class, outputFile, refmapData.mixinConfigs().stream().collect(Collectors.toMap(s -> s, s -> json -> {
+				if (output.contains(refmapData.refmapName())) {
+					output.transformJson(JsonObject.class, refmapData.mixinConfigs().stream().collect(Collectors.toMap(s -> s, s -> json -> {
 						if (!json.has("refmap")) {
 							json.addProperty("refmap", refmapData.refmapName());
 						}
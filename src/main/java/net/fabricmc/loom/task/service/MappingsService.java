@@ -29,21 +29,25 @@ import java.io.UncheckedIOException;
 import java.nio.file.Path;
 
 import org.gradle.api.Project;
+import org.jetbrains.annotations.Nullable;
 
 import net.fabricmc.loom.LoomGradleExtension;
+import net.fabricmc.loom.configuration.providers.mappings.BinaryMappingsCache;
 import net.fabricmc.loom.configuration.providers.mappings.MappingConfiguration;
 import net.fabricmc.loom.util.TinyRemapperHelper;
 import net.fabricmc.loom.util.service.SharedService;
 import net.fabricmc.loom.util.service.SharedServiceManager;
-import net.fabricmc.mappingio.MappingReader;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 import net.fabricmc.tinyremapper.IMappingProvider;
 
 public final class MappingsService implements SharedService {
-	private record Options(Path mappingsFile, String from, String to, boolean remapLocals) { }
+	private record Options(Path mappingsFile, @Nullable Path cacheDir, String from, String to, boolean remapLocals) { }
 
-	public static synchronized MappingsService create(SharedServiceManager sharedServiceManager, String name, Path mappingsFile, String from, String to, boolean remapLocals) {
-		final Options options = new Options(mappingsFile, from, to, remapLocals);
+	/**
+	 * @param cacheDir the directory to keep a binary copy of the mappings in, or null when the mappings are not worth caching
+	 */
+	public static synchronized MappingsService create(SharedServiceManager sharedServiceManager, String name, Path mappingsFile, @Nullable Path cacheDir, String from, String to, boolean remapLocals) {
+		final Options options = new Options(mappingsFile, cacheDir, from, to, remapLocals);
 		final String id = name + options.hashCode();
 		return sharedServiceManager.getOrCreateService(id, () -> new MappingsService(options));
 	}
@@ -52,7 +56,7 @@ public final class MappingsService implements SharedService {
 		final MappingConfiguration mappingConfiguration = LoomGradleExtension.get(project).getMappingConfiguration();
 
 		final String name = mappingConfiguration.getBuildServiceName("mappingsProvider", from, to);
-		return MappingsService.create(serviceManager, name, mappingConfiguration.tinyMappings, from, to, false);
+		return MappingsService.create(serviceManager, name, mappingConfiguration.tinyMappings, BinaryMappingsCache.getCacheDir(project), from, to, false);
 	}
 
 	private final Options options;
@@ -68,7 +72,7 @@ public final class MappingsService implements SharedService {
 		if (mappingProvider == null) {
 			try {
 				mappingProvider = TinyRemapperHelper.create(
-						options.mappingsFile(),
+						BinaryMappingsCache.read(options.mappingsFile(), options.cacheDir()),
 						options.from(),
 						options.to(),
 						options.remapLocals()
@@ -83,10 +87,8 @@ public final class MappingsService implements SharedService {
 
 	public synchronized MemoryMappingTree getMemoryMappingTree() {
 		if (memoryMappingTree == null) {
-			memoryMappingTree = new MemoryMappingTree();
-
 			try {
-				MappingReader.read(options.mappingsFile(), memoryMappingTree);
+				memoryMappingTree = BinaryMappingsCache.read(options.mappingsFile(), options.cacheDir());
 			} catch (IOException e) {
 				throw new UncheckedIOException("Failed to read mappings from: " + options.mappingsFile(), e);
 			}
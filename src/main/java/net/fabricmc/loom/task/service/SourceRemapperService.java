@@ -26,10 +26,18 @@ package net.fabricmc.loom.task.service;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.function.Supplier;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import com.google.common.base.Suppliers;
 import org.cadixdev.lorenz.MappingSet;
@@ -42,10 +50,11 @@ import org.slf4j.LoggerFactory;
 
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.task.RemapSourcesJarTask;
+import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.DeletingFileVisitor;
 import net.fabricmc.loom.util.FileSystemUtil;
 import net.fabricmc.loom.util.SourceRemapper;
-import net.fabricmc.loom.util.ZipUtils;
+import net.fabricmc.loom.util.gradle.GradleUtils;
 import net.fabricmc.loom.util.service.SharedService;
 import net.fabricmc.loom.util.service.SharedServiceManager;
 import net.fabricmc.lorenztiny.TinyMappingsReader;
@@ -58,9 +67,10 @@ public final class SourceRemapperService implements SharedService {
 		final LoomGradleExtension extension = LoomGradleExtension.get(project);
 		final String id = extension.getMappingConfiguration().getBuildServiceName("sourceremapper", from, to);
 		final int javaCompileRelease = SourceRemapper.getJavaCompileRelease(project);
+		final int threads = Math.max(1, GradleUtils.getIntegerProperty(project, Constants.Properties.SOURCE_REMAP_THREADS, 1));
 
 		return serviceManager.getOrCreateService(id, () ->
-				new SourceRemapperService(MappingsService.createDefault(project, serviceManager, from, to), task.getClasspath(), javaCompileRelease));
+				new SourceRemapperService(MappingsService.createDefault(project, serviceManager, from, to), task.getClasspath(), javaCompileRelease, threads));
 	}
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(SourceRemapperService.class);
@@ -68,13 +78,21 @@ public final class SourceRemapperService implements SharedService {
 	private final MappingsService mappingsService;
 	private final ConfigurableFileCollection classpath;
 	private final int javaCompileRelease;
+	private final int maxMercuryInstances;
 
-	private final Supplier<Mercury> mercury = Suppliers.memoize(this::createMercury);
+	// Shared by all the Mercury instances, the mappings are only ever read.
+	private final Supplier<MappingSet> mappings = Suppliers.memoize(this::readMappings);
+	private final Supplier<List<Path>> classpathFiles = Suppliers.memoize(this::resolveClasspath);
 
-	private SourceRemapperService(MappingsService mappingsService, ConfigurableFileCollection classpath, int javaCompileRelease) {
+	// Mercury is not thread safe, so each remap borrows an instance from the pool.
+	private final BlockingQueue<Mercury> idleMercury = new LinkedBlockingQueue<>();
+	private int mercuryInstances = 0;
+
+	private SourceRemapperService(MappingsService mappingsService, ConfigurableFileCollection classpath, int javaCompileRelease, int maxMercuryInstances) {
 		this.mappingsService = mappingsService;
 		this.classpath = classpath;
 		this.javaCompileRelease = javaCompileRelease;
+		this.maxMercuryInstances = maxMercuryInstances;
 	}
 
 	public void remapSourcesJar(Path source, Path destination) throws IOException {
@@ -82,61 +100,150 @@ public final class SourceRemapperService implements SharedService {
 			throw new UnsupportedOperationException("Cannot remap in place");
 		}
 
-		Path srcPath = source;
-		boolean isSrcTmp = false;
-
-		// Create a temp directory with all of the sources
-		if (!Files.isDirectory(source)) {
-			isSrcTmp = true;
-			srcPath = Files.createTempDirectory("fabric-loom-src");
-			ZipUtils.unpackAll(source, srcPath);
-		}
-
 		if (!Files.isDirectory(destination) && Files.exists(destination)) {
 			Files.delete(destination);
 		}
 
-		try (FileSystemUtil.Delegate dstFs = Files.isDirectory(destination) ? null : FileSystemUtil.getJarFileSystem(destination, true)) {
+		if (Files.isDirectory(source)) {
+			try (FileSystemUtil.Delegate dstFs = Files.isDirectory(destination) ? null : FileSystemUtil.getJarFileSystem(destination, true)) {
+				Path dstPath = dstFs != null ? dstFs.get().getPath("/") : destination;
+
+				doRemap(source, dstPath, source);
+				SourceRemapper.copyNonJavaFiles(source, dstPath, LOGGER, source);
+			}
+
+			return;
+		}
+
+		// Mercury parses the sources from disk, so only the java files are extracted. Everything else is copied straight from the jar.
+		final Path srcPath = Files.createTempDirectory("fabric-loom-src");
+
+		try (ZipFile zipFile = new ZipFile(source.toFile());
+				FileSystemUtil.Delegate dstFs = Files.isDirectory(destination) ? null : FileSystemUtil.getJarFileSystem(destination, true)) {
 			Path dstPath = dstFs != null ? dstFs.get().getPath("/") : destination;
 
+			final List<ZipEntry> resources = extractJavaFiles(zipFile, srcPath);
 			doRemap(srcPath, dstPath, source);
-			SourceRemapper.copyNonJavaFiles(srcPath, dstPath, LOGGER, source);
+
+			for (ZipEntry entry : resources) {
+				copyEntry(zipFile, entry, dstPath.resolve(entry.getName()), source);
+			}
 		} finally {
-			if (isSrcTmp) {
-				Files.walkFileTree(srcPath, new DeletingFileVisitor());
+			Files.walkFileTree(srcPath, new DeletingFileVisitor());
+		}
+	}
+
+	/**
+	 * @return the non java entries that were not extracted
+	 */
+	private static List<ZipEntry> extractJavaFiles(ZipFile zipFile, Path outputDir) throws IOException {
+		final List<ZipEntry> resources = new ArrayList<>();
+
+		for (ZipEntry entry : Collections.list(zipFile.entries())) {
+			if (entry.isDirectory()) {
+				continue;
+			}
+
+			if (!entry.getName().endsWith(".java")) {
+				resources.add(entry);
+				continue;
+			}
+
+			final Path outputFile = outputDir.resolve(entry.getName()).normalize();
+
+			if (!outputFile.startsWith(outputDir)) {
+				throw new IOException("Sources jar entry is outside of the output directory: " + entry.getName());
+			}
+
+			Files.createDirectories(outputFile.getParent());
+
+			try (InputStream is = zipFile.getInputStream(entry)) {
+				Files.copy(is, outputFile);
 			}
 		}
+
+		return resources;
 	}
 
-	private synchronized void doRemap(Path srcPath, Path dstPath, Path source) {
+	private static void copyEntry(ZipFile zipFile, ZipEntry entry, Path target, Path source) {
+		if (Files.exists(target)) {
+			return;
+		}
+
+		try (InputStream is = zipFile.getInputStream(entry)) {
+			if (target.getParent() != null) {
+				Files.createDirectories(target.getParent());
+			}
+
+			Files.copy(is, target);
+		} catch (IOException e) {
+			LOGGER.warn("Could not copy non-java sources '" + source + "' fully!", e);
+		}
+	}
+
+	private void doRemap(Path srcPath, Path dstPath, Path source) {
+		final Mercury mercury;
+
+		try {
+			mercury = acquireMercury();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for a source remapper", e);
+		}
+
 		try {
-			mercury.get().rewrite(srcPath, dstPath);
+			mercury.rewrite(srcPath, dstPath);
 		} catch (Exception e) {
 			LOGGER.warn("Could not remap " + source + " fully!", e);
+		} finally {
+			idleMercury.add(mercury);
 		}
 	}
 
-	private MappingSet getMappings() throws IOException {
-		return new TinyMappingsReader(mappingsService.getMemoryMappingTree(), mappingsService.getFromNamespace(), mappingsService.getToNamespace()).read();
-	}
+	private Mercury acquireMercury() throws InterruptedException {
+		Mercury mercury = idleMercury.poll();
 
-	private Mercury createMercury() {
-		var mercury = new Mercury();
-		mercury.setGracefulClasspathChecks(true);
-		mercury.setSourceCompatibilityFromRelease(javaCompileRelease);
+		if (mercury != null) {
+			return mercury;
+		}
+
+		synchronized (this) {
+			if (mercuryInstances < maxMercuryInstances) {
+				mercury = createMercury();
+				mercuryInstances++;
+				return mercury;
+			}
+		}
 
+		return idleMercury.take();
+	}
+
+	private MappingSet readMappings() {
 		try {
-			mercury.getProcessors().add(MercuryRemapper.create(getMappings()));
+			return new TinyMappingsReader(mappingsService.getMemoryMappingTree(), mappingsService.getFromNamespace(), mappingsService.getToNamespace()).read();
 		} catch (IOException e) {
 			throw new UncheckedIOException("Failed to read mercury mappings", e);
 		}
+	}
+
+	private List<Path> resolveClasspath() {
+		final List<Path> files = new ArrayList<>();
 
 		for (File file : classpath.getFiles()) {
 			if (file.exists()) {
-				mercury.getClassPath().add(file.toPath());
+				files.add(file.toPath());
 			}
 		}
 
+		return Collections.unmodifiableList(files);
+	}
+
+	private Mercury createMercury() {
+		var mercury = new Mercury();
+		mercury.setGracefulClasspathChecks(true);
+		mercury.setSourceCompatibilityFromRelease(javaCompileRelease);
+		mercury.getProcessors().add(MercuryRemapper.create(mappings.get()));
+		mercury.getClassPath().addAll(classpathFiles.get());
 		return mercury;
 	}
 }
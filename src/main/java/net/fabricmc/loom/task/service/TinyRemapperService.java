@@ -148,7 +148,8 @@ public class TinyRemapperService implements SharedService {
 					continue;
 				}
 
-				MappingsService service = MappingsService.create(serviceManager, mixinMappings.getAbsolutePath(), mixinMappings.toPath(), from, to, false);
+				// Regenerated by every compile, so not kept in the binary mappings cache
+				MappingsService service = MappingsService.create(serviceManager, mixinMappings.getAbsolutePath(), mixinMappings.toPath(), null, from, to, false);
 				service.getMappingsProvider().load(out);
 			}
 		});
@@ -123,6 +123,16 @@ public class Constants {
 		public static final String DISABLE_REMAPPED_VARIANTS = "fabric.loom.disableRemappedVariants";
 		public static final String DISABLE_PROJECT_DEPENDENT_MODS = "fabric.loom.disableProjectDependentMods";
 		public static final String LIBRARY_PROCESSORS = "fabric.loom.libraryProcessors";
+		public static final String PROCESSED_JAR_CACHE_SIZE = "fabric.loom.processedJarCacheSize";
+		public static final String MOD_REMAP_THREADS = "fabric.loom.modRemapThreads";
+		public static final String DISABLE_PARALLEL_MINECRAFT_REMAP = "fabric.loom.disableParallelMinecraftRemap";
+		public static final String DISABLE_INCREMENTAL_DECOMPILE = "fabric.loom.disableIncrementalDecompile";
+		public static final String DECOMPILED_SOURCES_CACHE_SIZE = "fabric.loom.decompiledSourcesCacheSize";
+		public static final String DECOMPILER_DAEMON = "fabric.loom.decompilerDaemon";
+		public static final String DECOMPILER_DAEMON_IDLE_TIMEOUT = "fabric.loom.decompilerDaemonIdleTimeout";
+		public static final String COMBINED_SPLIT_DECOMPILE = "fabric.loom.combinedSplitDecompile";
+		public static final String SOURCE_REMAP_THREADS = "fabric.loom.sourceRemapThreads";
+		public static final String COPY_RAW_ZIP_ENTRIES = "fabric.loom.copyRawZipEntries";
 	}
 
 	public static final class Manifest {
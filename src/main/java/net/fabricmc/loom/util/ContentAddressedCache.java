@@ -0,0 +1,229 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package net.fabricmc.loom.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import com.google.common.hash.Hashing;
+import org.apache.commons.io.file.PathUtils;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A global cache of files keyed by a digest of their inputs, shared by every project and checkout on the machine.
+ *
+ * <p>Each entry is a directory of named files. Cached files are hard linked into place where possible, so they must
+ * never be modified in place once retrieved. Entries are evicted in least recently used order once the total size of
+ * the cache exceeds its limit.
+ */
+public final class ContentAddressedCache {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ContentAddressedCache.class);
+	private static final String COMPLETE_MARKER = ".complete";
+
+	private final Path root;
+	private final long maxSize;
+
+	/**
+	 * @param root the directory to store the cache in
+	 * @param maxSize the maximum size of the cache in bytes, a value of 0 or less disables the cache
+	 */
+	public ContentAddressedCache(Path root, long maxSize) {
+		this.root = root;
+		this.maxSize = maxSize;
+	}
+
+	public static String key(String... inputs) {
+		return Hashing.sha256().hashString(String.join("\n", inputs), StandardCharsets.UTF_8).toString();
+	}
+
+	public boolean isEnabled() {
+		return maxSize > 0;
+	}
+
+	/**
+	 * Returns the cached file, or null when there is no complete entry for the key.
+	 */
+	@Nullable
+	public Path get(String key, String name) {
+		if (!isEnabled()) {
+			return null;
+		}
+
+		final Path entry = root.resolve(key);
+		final Path marker = entry.resolve(COMPLETE_MARKER);
+		final Path file = entry.resolve(name);
+
+		if (Files.notExists(marker) || Files.notExists(file)) {
+			return null;
+		}
+
+		try {
+			Files.setLastModifiedTime(marker, FileTime.fromMillis(System.currentTimeMillis()));
+		} catch (IOException e) {
+			LOGGER.debug("Failed to update last access time of {}", entry, e);
+		}
+
+		return file;
+	}
+
+	/**
+	 * Links or copies the cached file to the target path.
+	 *
+	 * @return true when the file was present in the cache and has been placed at the target
+	 */
+	public boolean copyTo(String key, String name, Path target) {
+		final Path cached = get(key, name);
+
+		if (cached == null) {
+			return false;
+		}
+
+		try {
+			Files.createDirectories(target.toAbsolutePath().getParent());
+			Files.deleteIfExists(target);
+			link(cached, target);
+			return true;
+		} catch (IOException e) {
+			// Most likely evicted by another process
+			LOGGER.warn("Failed to copy {} from the cache", name, e);
+			return false;
+		}
+	}
+
+	/**
+	 * Removes the entry for the key, for example when its contents turn out to be corrupt.
+	 */
+	public void remove(String key) {
+		deleteQuietly(root.resolve(key));
+	}
+
+	/**
+	 * Stores a copy of the given files in the cache, evicting the least recently used entries if the cache is too large.
+	 */
+	public void put(String key, Map<String, Path> files) {
+		if (!isEnabled()) {
+			return;
+		}
+
+		final Path entry = root.resolve(key);
+
+		if (Files.exists(entry.resolve(COMPLETE_MARKER))) {
+			return;
+		}
+
+		final Path tempEntry = root.resolve(key + "-" + UUID.randomUUID() + ".tmp");
+
+		try {
+			Files.createDirectories(tempEntry);
+
+			for (Map.Entry<String, Path> file : files.entrySet()) {
+				Files.copy(file.getValue(), tempEntry.resolve(file.getKey()));
+			}
+
+			Files.createFile(tempEntry.resolve(COMPLETE_MARKER));
+
+			try {
+				Files.move(tempEntry, entry, StandardCopyOption.ATOMIC_MOVE);
+			} catch (IOException e) {
+				// Fine if another process has stored the same entry in the meantime
+				if (Files.notExists(entry.resolve(COMPLETE_MARKER))) {
+					throw e;
+				}
+			}
+		} catch (IOException e) {
+			LOGGER.warn("Failed to store {} in the cache", key, e);
+		} finally {
+			deleteQuietly(tempEntry);
+		}
+
+		evict();
+	}
+
+	private void evict() {
+		record Entry(Path path, FileTime lastAccess, long size) {
+		}
+
+		final List<Entry> entries = new ArrayList<>();
+
+		try (Stream<Path> stream = Files.list(root)) {
+			for (Path path : stream.toList()) {
+				final Path marker = path.resolve(COMPLETE_MARKER);
+
+				if (Files.exists(marker)) {
+					entries.add(new Entry(path, Files.getLastModifiedTime(marker), PathUtils.sizeOfDirectory(path)));
+				}
+			}
+		} catch (IOException e) {
+			LOGGER.warn("Failed to list the cache entries in {}", root, e);
+			return;
+		}
+
+		entries.sort(Comparator.comparing(Entry::lastAccess).reversed());
+		long size = 0;
+
+		for (Entry entry : entries) {
+			size += entry.size();
+
+			if (size > maxSize) {
+				LOGGER.info("Evicting {} from the cache", entry.path().getFileName());
+				deleteQuietly(entry.path());
+			}
+		}
+	}
+
+	/**
+	 * Hard links the target to the source, falling back to a copy when links are not supported.
+	 */
+	public static void link(Path source, Path target) throws IOException {
+		try {
+			Files.createLink(target, source);
+		} catch (IOException | UnsupportedOperationException e) {
+			Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private static void deleteQuietly(Path path) {
+		try {
+			if (Files.exists(path)) {
+				PathUtils.deleteDirectory(path);
+			}
+		} catch (IOException e) {
+			LOGGER.warn("Failed to delete {}", path, e);
+		}
+	}
+}
@@ -0,0 +1,177 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * Writes a zip file with the entries compressed on a bounded pool of threads. The entries are written in the order
+ * they were added, and the output is the same as writing the same entries one at a time with
+ * {@link java.util.zip.ZipOutputStream}, so switching to this does not change the output of a reproducible build.
+ */
+public final class ParallelZipWriter implements Closeable {
+	public static final long UNKNOWN_TIME = -1;
+	public static final int DEFAULT_THREADS = Math.min(Runtime.getRuntime().availableProcessors(), 8);
+
+	private static final int EXTENDED_TIMESTAMP_ID = 0x5455;
+	private static final int EXTENDED_TIMESTAMP_MODIFIED = 0x1;
+	// Used by ZipEntry for any time before 1980, 1980-01-01 00:00 in MS-DOS format
+	private static final int DOS_TIME_BEFORE_1980 = (1 << 21) | (1 << 16);
+
+	private final ZipArchiveWriter writer;
+	private final ExecutorService executor;
+	// Allow a few entries per thread to be queued up so the workers never wait on the writer.
+	private final int window;
+	private final Deque<Future<CompressedEntry>> inFlight = new ArrayDeque<>();
+	private final Set<String> names = new HashSet<>();
+
+	public ParallelZipWriter(Path path) throws IOException {
+		this(path, DEFAULT_THREADS);
+	}
+
+	public ParallelZipWriter(Path path, int threads) throws IOException {
+		this.writer = new ZipArchiveWriter(path);
+		this.executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+			final Thread thread = new Thread(runnable, "Loom zip writer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.window = Math.max(1, threads) * 4;
+	}
+
+	/**
+	 * Adds an entry, compressing it in the background.
+	 *
+	 * @param time the modification time in milliseconds, or {@link #UNKNOWN_TIME} to use the current time as {@link java.util.zip.ZipOutputStream} does
+	 * @param method {@link ZipEntry#STORED} or {@link ZipEntry#DEFLATED}
+	 */
+	public void putEntry(String name, long time, int method, byte[] data) throws IOException {
+		if (method != ZipEntry.STORED && method != ZipEntry.DEFLATED) {
+			throw new ZipException("unsupported compression method");
+		}
+
+		if (!names.add(name)) {
+			throw new ZipException("duplicate entry: " + name);
+		}
+
+		final long entryTime = time != UNKNOWN_TIME ? time : System.currentTimeMillis();
+		inFlight.add(executor.submit(() -> compress(name, entryTime, method, data)));
+
+		while (inFlight.size() > window) {
+			writeNext();
+		}
+	}
+
+	private void writeNext() throws IOException {
+		final CompressedEntry entry = await(inFlight.poll());
+		writer.write(entry.name(), entry.method(), entry.dosTime(), entry.extra(), entry.crc(), entry.size(), entry.data());
+	}
+
+	private static CompressedEntry compress(String name, long time, int method, byte[] data) {
+		final CRC32 crc = new CRC32();
+		crc.update(data);
+
+		final LocalDateTime dateTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+		final byte[] compressed = method == ZipEntry.DEFLATED ? ZipArchiveWriter.deflate(data) : data;
+		return new CompressedEntry(name, method, toDosTime(dateTime), extendedTimestamp(dateTime, time), crc.getValue(), data.length, compressed);
+	}
+
+	// Matches ZipEntry.setTime, the time zone is applied when converting to MS-DOS time
+	private static int toDosTime(LocalDateTime dateTime) {
+		if (dateTime.getYear() < 1980) {
+			return DOS_TIME_BEFORE_1980;
+		}
+
+		return (dateTime.getYear() - 1980) << 25
+				| dateTime.getMonthValue() << 21
+				| dateTime.getDayOfMonth() << 16
+				| dateTime.getHour() << 11
+				| dateTime.getMinute() << 5
+				| dateTime.getSecond() >> 1;
+	}
+
+	// Times that do not fit in the MS-DOS format are also stored as an extended timestamp, the same as ZipEntry.setTime.
+	// ZipOutputStream would write times after 2038 as NTFS time instead, which is not supported here.
+	private static byte[] extendedTimestamp(LocalDateTime dateTime, long time) {
+		if (dateTime.getYear() >= 1980 && dateTime.getYear() <= 2099) {
+			return new byte[0];
+		}
+
+		return ByteBuffer.allocate(9).order(ByteOrder.LITTLE_ENDIAN)
+				.putShort((short) EXTENDED_TIMESTAMP_ID)
+				.putShort((short) 5)
+				.put((byte) EXTENDED_TIMESTAMP_MODIFIED)
+				.putInt((int) (time / 1000))
+				.array();
+	}
+
+	private static CompressedEntry await(Future<CompressedEntry> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while writing zip", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof UncheckedIOException uncheckedIOException) {
+				throw uncheckedIOException.getCause();
+			}
+
+			throw new IOException("Failed to compress zip entry", e.getCause());
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		try (writer) {
+			while (!inFlight.isEmpty()) {
+				writeNext();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private record CompressedEntry(String name, int method, int dosTime, byte[] extra, long crc, long size, byte[] data) {
+	}
+}
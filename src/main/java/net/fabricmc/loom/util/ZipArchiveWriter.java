@@ -0,0 +1,272 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+/**
+ * Writes a zip file from entries whose crc and compressed data are already known. Zip64 records are only written when
+ * an entry, an offset or the number of entries does not fit in the regular headers, the same as {@link java.util.zip.ZipOutputStream}.
+ */
+public final class ZipArchiveWriter implements AutoCloseable {
+	private static final int LOC_SIGNATURE = 0x04034b50;
+	private static final int CEN_SIGNATURE = 0x02014b50;
+	private static final int EOCD_SIGNATURE = 0x06054b50;
+	private static final int ZIP64_EOCD_SIGNATURE = 0x06064b50;
+	private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+	private static final int EXT_SIGNATURE = 0x08074b50;
+	private static final int DATA_DESCRIPTOR = 0x8;
+	private static final int USE_UTF8 = 0x800;
+	private static final int ZIP64_EXTRA_ID = 0x0001;
+	private static final int ZIP64_VERSION = 45;
+	private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+	private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+
+	private final FileChannel channel;
+	private final List<CentralEntry> centralDirectory = new ArrayList<>();
+
+	public ZipArchiveWriter(Path path) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+	}
+
+	/**
+	 * Writes the local header of an entry, the caller must then write exactly {@code compressedSize} bytes of data to {@link #getChannel()}.
+	 *
+	 * @param method {@link ZipEntry#STORED} or {@link ZipEntry#DEFLATED}
+	 * @param dosTime the MS-DOS date and time, with the date in the upper 16 bits
+	 * @param extra the extra field, without any zip64 field as that is added when needed
+	 */
+	public void putEntry(String name, int method, int dosTime, byte[] extra, long crc, long compressedSize, long size) throws IOException {
+		putEntry(name, method, 0, dosTime, extra, crc, compressedSize, size);
+	}
+
+	/**
+	 * Writes a whole entry laid out the same as {@link java.util.zip.ZipOutputStream} does for an entry without a known
+	 * size, deflated entries are followed by a data descriptor.
+	 */
+	public void write(String name, int method, int dosTime, byte[] extra, long crc, long size, byte[] compressedData) throws IOException {
+		final int flag = method == ZipEntry.DEFLATED ? DATA_DESCRIPTOR : 0;
+		putEntry(name, method, flag, dosTime, extra, crc, compressedData.length, size);
+		write(ByteBuffer.wrap(compressedData));
+
+		if (flag == DATA_DESCRIPTOR) {
+			final boolean zip64 = isZip64(compressedData.length) || isZip64(size);
+			final ByteBuffer descriptor = ByteBuffer.allocate(zip64 ? 24 : 16).order(ByteOrder.LITTLE_ENDIAN);
+			descriptor.putInt(EXT_SIGNATURE);
+			descriptor.putInt((int) crc);
+
+			if (zip64) {
+				descriptor.putLong(compressedData.length);
+				descriptor.putLong(size);
+			} else {
+				descriptor.putInt(compressedData.length);
+				descriptor.putInt((int) size);
+			}
+
+			write(descriptor.flip());
+		}
+	}
+
+	private void putEntry(String name, int method, int flag, int dosTime, byte[] extra, long crc, long compressedSize, long size) throws IOException {
+		final boolean dataDescriptor = (flag & DATA_DESCRIPTOR) != 0;
+		final CentralEntry entry = new CentralEntry(name.getBytes(StandardCharsets.UTF_8), method, flag | USE_UTF8, dosTime, extra, crc, compressedSize, size, channel.position());
+		// With a data descriptor the sizes are written after the data instead, which is where zip64 is then used
+		final boolean zip64 = !dataDescriptor && (isZip64(compressedSize) || isZip64(size));
+		final int extraLength = extra.length + (zip64 ? 20 : 0);
+
+		final ByteBuffer header = ByteBuffer.allocate(30 + entry.name().length + extraLength).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(LOC_SIGNATURE);
+		header.putShort((short) (zip64 ? ZIP64_VERSION : entry.version()));
+		header.putShort((short) entry.flag());
+		header.putShort((short) method);
+		header.putInt(dosTime);
+		header.putInt(dataDescriptor ? 0 : (int) crc);
+		header.putInt(dataDescriptor ? 0 : (int) (zip64 ? ZIP64_MAGIC : compressedSize));
+		header.putInt(dataDescriptor ? 0 : (int) (zip64 ? ZIP64_MAGIC : size));
+		header.putShort((short) entry.name().length);
+		header.putShort((short) extraLength);
+		header.put(entry.name());
+
+		if (zip64) {
+			header.putShort((short) ZIP64_EXTRA_ID);
+			header.putShort((short) 16);
+			header.putLong(size);
+			header.putLong(compressedSize);
+		}
+
+		header.put(extra);
+		write(header.flip());
+
+		centralDirectory.add(entry);
+	}
+
+	public FileChannel getChannel() {
+		return channel;
+	}
+
+	private void write(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	private static boolean isZip64(long value) {
+		return value >= ZIP64_MAGIC;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try (channel) {
+			final long centralDirectoryOffset = channel.position();
+
+			for (CentralEntry entry : centralDirectory) {
+				writeCentralEntry(entry);
+			}
+
+			writeEnd(centralDirectoryOffset, channel.position() - centralDirectoryOffset);
+		}
+	}
+
+	private void writeCentralEntry(CentralEntry entry) throws IOException {
+		// Only the values that do not fit are moved to the zip64 extra field
+		final int zip64Length = (isZip64(entry.size()) ? 8 : 0) + (isZip64(entry.compressedSize()) ? 8 : 0) + (isZip64(entry.offset()) ? 8 : 0);
+		final int extraLength = entry.extra().length + (zip64Length > 0 ? zip64Length + 4 : 0);
+		final int version = zip64Length > 0 ? ZIP64_VERSION : entry.version();
+
+		final ByteBuffer header = ByteBuffer.allocate(46 + entry.name().length + extraLength).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(CEN_SIGNATURE);
+		header.putShort((short) version); // Version made by
+		header.putShort((short) version); // Version needed to extract
+		header.putShort((short) entry.flag());
+		header.putShort((short) entry.method());
+		header.putInt(entry.dosTime());
+		header.putInt((int) entry.crc());
+		header.putInt((int) Math.min(entry.compressedSize(), ZIP64_MAGIC));
+		header.putInt((int) Math.min(entry.size(), ZIP64_MAGIC));
+		header.putShort((short) entry.name().length);
+		header.putShort((short) extraLength);
+		header.putShort((short) 0); // Comment length
+		header.putShort((short) 0); // Disk number
+		header.putShort((short) 0); // Internal attributes
+		header.putInt(0); // External attributes
+		header.putInt((int) Math.min(entry.offset(), ZIP64_MAGIC));
+		header.put(entry.name());
+
+		if (zip64Length > 0) {
+			header.putShort((short) ZIP64_EXTRA_ID);
+			header.putShort((short) zip64Length);
+
+			if (isZip64(entry.size())) {
+				header.putLong(entry.size());
+			}
+
+			if (isZip64(entry.compressedSize())) {
+				header.putLong(entry.compressedSize());
+			}
+
+			if (isZip64(entry.offset())) {
+				header.putLong(entry.offset());
+			}
+		}
+
+		header.put(entry.extra());
+		write(header.flip());
+	}
+
+	private void writeEnd(long centralDirectoryOffset, long centralDirectorySize) throws IOException {
+		final boolean zip64 = isZip64(centralDirectoryOffset) || isZip64(centralDirectorySize) || centralDirectory.size() >= ZIP64_MAGIC_COUNT;
+
+		if (zip64) {
+			final long zip64EndOffset = channel.position();
+			final ByteBuffer zip64End = ByteBuffer.allocate(56 + 20).order(ByteOrder.LITTLE_ENDIAN);
+			zip64End.putInt(ZIP64_EOCD_SIGNATURE);
+			zip64End.putLong(56 - 12); // Size of the remaining record
+			zip64End.putShort((short) ZIP64_VERSION); // Version made by
+			zip64End.putShort((short) ZIP64_VERSION); // Version needed to extract
+			zip64End.putInt(0); // Disk number
+			zip64End.putInt(0); // Disk with the central directory
+			zip64End.putLong(centralDirectory.size());
+			zip64End.putLong(centralDirectory.size());
+			zip64End.putLong(centralDirectorySize);
+			zip64End.putLong(centralDirectoryOffset);
+
+			zip64End.putInt(ZIP64_LOCATOR_SIGNATURE);
+			zip64End.putInt(0); // Disk with the zip64 end of central directory
+			zip64End.putLong(zip64EndOffset);
+			zip64End.putInt(1); // Total number of disks
+			write(zip64End.flip());
+		}
+
+		final int count = Math.min(centralDirectory.size(), ZIP64_MAGIC_COUNT);
+		final ByteBuffer end = ByteBuffer.allocate(22).order(ByteOrder.LITTLE_ENDIAN);
+		end.putInt(EOCD_SIGNATURE);
+		end.putShort((short) 0); // Disk number
+		end.putShort((short) 0); // Disk with the central directory
+		end.putShort((short) count);
+		end.putShort((short) count);
+		end.putInt((int) Math.min(centralDirectorySize, ZIP64_MAGIC));
+		end.putInt((int) Math.min(centralDirectoryOffset, ZIP64_MAGIC));
+		end.putShort((short) 0); // Comment length
+		write(end.flip());
+	}
+
+	static byte[] deflate(byte[] data) {
+		final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+
+		try {
+			deflater.setInput(data);
+			deflater.finish();
+
+			final ByteArrayOutputStream output = new ByteArrayOutputStream(data.length / 2 + 64);
+			final byte[] buffer = new byte[8192];
+
+			while (!deflater.finished()) {
+				final int length = deflater.deflate(buffer);
+				output.write(buffer, 0, length);
+			}
+
+			return output.toByteArray();
+		} finally {
+			deflater.end();
+		}
+	}
+
+	private record CentralEntry(byte[] name, int method, int flag, int dosTime, byte[] extra, long crc, long compressedSize, long size, long offset) {
+		int version() {
+			return method == ZipEntry.DEFLATED ? 20 : 10;
+		}
+	}
+}
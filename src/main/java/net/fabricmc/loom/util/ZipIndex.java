@@ -0,0 +1,399 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A read only view of a zip file, built from the end of central directory record and the central directory alone.
+ *
+ * <p>Entries are only read when asked for, making this much cheaper than opening a zip file system to check for a couple of entries.
+ * Indexes are cached until the size or modification time of the file changes.
+ */
+public final class ZipIndex {
+	private static final int MAX_CACHED_INDEXES = 512;
+	// Access ordered, so that the least recently used index is dropped once the cache is full
+	private static final Map<Path, ZipIndex> CACHE = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Path, ZipIndex> eldest) {
+			return size() > MAX_CACHED_INDEXES;
+		}
+	});
+
+	private static final int EOCD_SIGNATURE = 0x06054b50;
+	private static final int EOCD_SIZE = 22;
+	private static final int ZIP64_EOCD_LOCATOR_SIGNATURE = 0x07064b50;
+	private static final int ZIP64_EOCD_LOCATOR_SIZE = 20;
+	private static final int ZIP64_EOCD_SIGNATURE = 0x06064b50;
+	private static final int CEN_SIGNATURE = 0x02014b50;
+	private static final int CEN_SIZE = 46;
+	private static final int LOC_SIGNATURE = 0x04034b50;
+	private static final int LOC_SIZE = 30;
+	private static final int ZIP64_EXTRA_ID = 0x0001;
+	private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+
+	private static final int STORED = 0;
+	private static final int DEFLATED = 8;
+	private static final byte[] NO_EXTRA = new byte[0];
+
+	private final Path path;
+	private final long size;
+	private final FileTime lastModified;
+	@Nullable
+	private final Object fileKey;
+
+	// Sorted by name, so that entries can be found with a binary search
+	private final String[] names;
+	private final Entry[] entries;
+
+	private ZipIndex(Path path, BasicFileAttributes attributes, String[] names, Entry[] entries) {
+		this.path = path;
+		this.size = attributes.size();
+		this.lastModified = attributes.lastModifiedTime();
+		this.fileKey = attributes.fileKey();
+		this.names = names;
+		this.entries = entries;
+	}
+
+	/**
+	 * @return the index of the zip, reusing a cached index when the file has not changed
+	 */
+	public static ZipIndex of(Path zip) throws IOException {
+		final Path path = zip.toAbsolutePath().normalize();
+		final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		final ZipIndex cached = CACHE.get(path);
+
+		if (cached != null && cached.matches(attributes)) {
+			return cached;
+		}
+
+		final ZipIndex index = read(path, attributes);
+		CACHE.put(path, index);
+		return index;
+	}
+
+	private boolean matches(BasicFileAttributes attributes) {
+		return size == attributes.size()
+				&& lastModified.equals(attributes.lastModifiedTime())
+				&& Objects.equals(fileKey, attributes.fileKey());
+	}
+
+	/**
+	 * @return true if the zip contains a file or directory with the given name
+	 */
+	public boolean contains(String name) {
+		name = normalize(name);
+
+		if (name.isEmpty() || Arrays.binarySearch(names, name) >= 0) {
+			return true;
+		}
+
+		// Directories do not need their own entry, look for the first entry that would be inside it.
+		final String directory = name.endsWith("/") ? name : name + "/";
+		final int pos = Arrays.binarySearch(names, directory);
+		final int insertionPoint = pos >= 0 ? pos : -pos - 1;
+		return insertionPoint < names.length && names[insertionPoint].startsWith(directory);
+	}
+
+	/**
+	 * @return the uncompressed contents of the file, or null when the zip does not contain it
+	 */
+	public byte @Nullable [] read(String name) throws IOException {
+		final int pos = Arrays.binarySearch(names, normalize(name));
+
+		if (pos < 0 || names[pos].endsWith("/")) {
+			return null;
+		}
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return read(entries[pos], channel);
+		}
+	}
+
+	/**
+	 * @param source a channel opened on this zip file
+	 * @return the uncompressed contents of the entry
+	 */
+	public byte[] read(Entry entry, FileChannel source) throws IOException {
+		if (entry.uncompressedSize() > Integer.MAX_VALUE || entry.compressedSize() > Integer.MAX_VALUE) {
+			throw new ZipException("Entry %s in %s is too large to read".formatted(entry.name(), path));
+		}
+
+		final ByteBuffer data = readFully(source, getDataOffset(source, entry), (int) entry.compressedSize());
+
+		return switch (entry.method()) {
+		case STORED -> data.array();
+		case DEFLATED -> inflate(data.array(), (int) entry.uncompressedSize());
+		default -> throw new ZipException("Unsupported compression method %d for %s in %s".formatted(entry.method(), entry.name(), path));
+		};
+	}
+
+	/**
+	 * Copies the data of the entry to the target without decompressing it.
+	 *
+	 * @param source a channel opened on this zip file
+	 */
+	public void transferRawData(Entry entry, FileChannel source, WritableByteChannel target) throws IOException {
+		final long dataOffset = getDataOffset(source, entry);
+		long transferred = 0;
+
+		while (transferred < entry.compressedSize()) {
+			final long count = source.transferTo(dataOffset + transferred, entry.compressedSize() - transferred, target);
+
+			if (count <= 0) {
+				throw new ZipException("Unexpected end of zip file");
+			}
+
+			transferred += count;
+		}
+	}
+
+	private long getDataOffset(FileChannel channel, Entry entry) throws IOException {
+		final ByteBuffer localHeader = readFully(channel, entry.localHeaderOffset(), LOC_SIZE);
+
+		if (localHeader.getInt(0) != LOC_SIGNATURE) {
+			throw new ZipException("Invalid local file header for %s in %s".formatted(entry.name(), path));
+		}
+
+		return entry.localHeaderOffset() + LOC_SIZE + Short.toUnsignedInt(localHeader.getShort(26)) + Short.toUnsignedInt(localHeader.getShort(28));
+	}
+
+	/**
+	 * @return all the entries, in sorted order
+	 */
+	public List<Entry> getEntries() {
+		return List.of(entries);
+	}
+
+	/**
+	 * @return the names of all the entries, in sorted order
+	 */
+	public List<String> getNames() {
+		return List.of(names);
+	}
+
+	public Path getPath() {
+		return path;
+	}
+
+	private static String normalize(String name) {
+		return name.startsWith("/") ? name.substring(1) : name;
+	}
+
+	private static byte[] inflate(byte[] compressed, int uncompressedSize) throws ZipException {
+		final Inflater inflater = new Inflater(true);
+
+		try {
+			inflater.setInput(compressed);
+			final byte[] output = new byte[uncompressedSize];
+			int length = 0;
+
+			while (length < uncompressedSize && !inflater.finished()) {
+				final int read = inflater.inflate(output, length, uncompressedSize - length);
+
+				if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+
+				length += read;
+			}
+
+			if (length != uncompressedSize) {
+				throw new ZipException("Inflated size %d does not match the expected size %d".formatted(length, uncompressedSize));
+			}
+
+			return output;
+		} catch (DataFormatException e) {
+			throw new ZipException("Invalid deflate data: " + e.getMessage());
+		} finally {
+			inflater.end();
+		}
+	}
+
+	private static ZipIndex read(Path path, BasicFileAttributes attributes) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			final long fileSize = channel.size();
+
+			// The end of central directory record is followed by a comment of up to 64KiB
+			final int tailSize = (int) Math.min(fileSize, EOCD_SIZE + 0xFFFF);
+			final long tailOffset = fileSize - tailSize;
+			final ByteBuffer tail = readFully(channel, tailOffset, tailSize);
+			int eocd = -1;
+
+			for (int i = tailSize - EOCD_SIZE; i >= 0; i--) {
+				if (tail.getInt(i) == EOCD_SIGNATURE) {
+					eocd = i;
+					break;
+				}
+			}
+
+			if (eocd < 0) {
+				throw new ZipException("Could not find the end of central directory record in " + path);
+			}
+
+			long entryCount = Short.toUnsignedInt(tail.getShort(eocd + 10));
+			long centralDirectorySize = Integer.toUnsignedLong(tail.getInt(eocd + 12));
+			long centralDirectoryOffset = Integer.toUnsignedLong(tail.getInt(eocd + 16));
+
+			if (entryCount == 0xFFFF || centralDirectorySize == ZIP64_MAGIC || centralDirectoryOffset == ZIP64_MAGIC) {
+				final long locatorOffset = tailOffset + eocd - ZIP64_EOCD_LOCATOR_SIZE;
+				final ByteBuffer locator = readFully(channel, locatorOffset, ZIP64_EOCD_LOCATOR_SIZE);
+
+				if (locator.getInt(0) == ZIP64_EOCD_LOCATOR_SIGNATURE) {
+					final ByteBuffer zip64Eocd = readFully(channel, locator.getLong(8), 56);
+
+					if (zip64Eocd.getInt(0) != ZIP64_EOCD_SIGNATURE) {
+						throw new ZipException("Invalid zip64 end of central directory record in " + path);
+					}
+
+					entryCount = zip64Eocd.getLong(32);
+					centralDirectorySize = zip64Eocd.getLong(40);
+					centralDirectoryOffset = zip64Eocd.getLong(48);
+				}
+			}
+
+			if (centralDirectorySize > Integer.MAX_VALUE || centralDirectoryOffset + centralDirectorySize > fileSize) {
+				throw new ZipException("Invalid central directory in " + path);
+			}
+
+			final ByteBuffer centralDirectory = readFully(channel, centralDirectoryOffset, (int) centralDirectorySize);
+			final Entry[] entries = new Entry[(int) Math.min(entryCount, centralDirectorySize / CEN_SIZE)];
+			int count = 0;
+			int pos = 0;
+
+			while (count < entries.length && pos + CEN_SIZE <= centralDirectorySize) {
+				if (centralDirectory.getInt(pos) != CEN_SIGNATURE) {
+					throw new ZipException("Invalid central directory entry in " + path);
+				}
+
+				final int method = Short.toUnsignedInt(centralDirectory.getShort(pos + 10));
+				final int dosTime = centralDirectory.getInt(pos + 12);
+				final long crc = Integer.toUnsignedLong(centralDirectory.getInt(pos + 16));
+				long compressedSize = Integer.toUnsignedLong(centralDirectory.getInt(pos + 20));
+				long uncompressedSize = Integer.toUnsignedLong(centralDirectory.getInt(pos + 24));
+				final int nameLength = Short.toUnsignedInt(centralDirectory.getShort(pos + 28));
+				final int extraLength = Short.toUnsignedInt(centralDirectory.getShort(pos + 30));
+				final int commentLength = Short.toUnsignedInt(centralDirectory.getShort(pos + 32));
+				long localHeaderOffset = Integer.toUnsignedLong(centralDirectory.getInt(pos + 42));
+
+				final String name = new String(centralDirectory.array(), pos + CEN_SIZE, nameLength, StandardCharsets.UTF_8);
+
+				if (uncompressedSize == ZIP64_MAGIC || compressedSize == ZIP64_MAGIC || localHeaderOffset == ZIP64_MAGIC) {
+					// The zip64 extra field only contains the values that did not fit, in this order
+					int extra = pos + CEN_SIZE + nameLength;
+					final int extraEnd = extra + extraLength;
+
+					while (extra + 4 <= extraEnd) {
+						final int id = Short.toUnsignedInt(centralDirectory.getShort(extra));
+						final int size = Short.toUnsignedInt(centralDirectory.getShort(extra + 2));
+
+						if (id == ZIP64_EXTRA_ID) {
+							int value = extra + 4;
+
+							if (uncompressedSize == ZIP64_MAGIC) {
+								uncompressedSize = centralDirectory.getLong(value);
+								value += 8;
+							}
+
+							if (compressedSize == ZIP64_MAGIC) {
+								compressedSize = centralDirectory.getLong(value);
+								value += 8;
+							}
+
+							if (localHeaderOffset == ZIP64_MAGIC) {
+								localHeaderOffset = centralDirectory.getLong(value);
+							}
+
+							break;
+						}
+
+						extra += 4 + size;
+					}
+				}
+
+				final byte[] extra = extraLength == 0 ? NO_EXTRA : Arrays.copyOfRange(centralDirectory.array(), pos + CEN_SIZE + nameLength, pos + CEN_SIZE + nameLength + extraLength);
+				entries[count] = new Entry(normalize(name), count, method, dosTime, crc, compressedSize, uncompressedSize, localHeaderOffset, extra);
+				count++;
+				pos += CEN_SIZE + nameLength + extraLength + commentLength;
+			}
+
+			final Entry[] sorted = Arrays.copyOf(entries, count);
+			Arrays.sort(sorted, Comparator.comparing(Entry::name));
+
+			final String[] names = new String[sorted.length];
+
+			for (int i = 0; i < sorted.length; i++) {
+				names[i] = sorted[i].name();
+			}
+
+			return new ZipIndex(path, attributes, names, sorted);
+		}
+	}
+
+	private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new ZipException("Unexpected end of zip file");
+			}
+		}
+
+		return buffer;
+	}
+
+	/**
+	 * @param index the position of the entry in the central directory
+	 * @param dosTime the MS-DOS date and time, with the date in the upper 16 bits
+	 * @param extra the extra field from the central directory
+	 */
+	public record Entry(String name, int index, int method, int dosTime, long crc, long compressedSize, long uncompressedSize, long localHeaderOffset, byte[] extra) {
+		public boolean isDirectory() {
+			return name.endsWith("/");
+		}
+	}
+}
@@ -0,0 +1,225 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package net.fabricmc.loom.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.gradle.api.tasks.bundling.ZipEntryCompression;
+import org.jetbrains.annotations.Nullable;
+
+import net.fabricmc.loom.LoomGradlePlugin;
+
+/**
+ * An in-memory set of zip entries that is written out to disk in a single sorted pass.
+ *
+ * <p>This allows the output of tiny-remapper and any following entry transformations to be applied without
+ * re-opening and re-writing the output jar after each step. Accepts remapped classes from tiny-remapper directly,
+ * may be used concurrently.
+ */
+public final class ZipOutputBuffer implements BiConsumer<String, byte[]> {
+	private static final long UNKNOWN_TIME = -1;
+
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+	private final AtomicLong sequence = new AtomicLong();
+
+	// The sequence keeps the order the entries were first added in, for when a reproducible file order is not required.
+	private record Entry(byte[] data, long time, long sequence) {
+	}
+
+	/**
+	 * Accepts a class from tiny-remapper, the name is the internal name of the class without the .class extension.
+	 */
+	@Override
+	public void accept(String className, byte[] bytes) {
+		put(className + ".class", bytes);
+	}
+
+	public void put(String path, byte[] data) {
+		put(path, data, UNKNOWN_TIME);
+	}
+
+	private void put(String path, byte[] data, long time) {
+		entries.compute(path, (key, existing) -> new Entry(data, time, existing != null ? existing.sequence() : sequence.getAndIncrement()));
+	}
+
+	public boolean contains(String path) {
+		return entries.containsKey(path);
+	}
+
+	public byte @Nullable [] get(String path) {
+		final Entry entry = entries.get(path);
+		return entry != null ? entry.data() : null;
+	}
+
+	/**
+	 * Copies all the file entries matching the filter from the given zip, keeping their time stamps.
+	 */
+	public void copyFrom(Path zip, Predicate<String> filter) throws IOException {
+		try (var zipFile = new ZipFile(zip.toFile())) {
+			Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+
+			while (zipEntries.hasMoreElements()) {
+				ZipEntry entry = zipEntries.nextElement();
+
+				if (entry.isDirectory() || !filter.test(entry.getName())) {
+					continue;
+				}
+
+				try (InputStream inputStream = zipFile.getInputStream(entry)) {
+					put(entry.getName(), inputStream.readAllBytes(), entry.getTime());
+				}
+			}
+		}
+	}
+
+	public void copyNonClassFilesFrom(Path zip) throws IOException {
+		copyFrom(zip, name -> !name.endsWith(".class"));
+	}
+
+	public void replace(String path, byte[] bytes) throws IOException {
+		final Entry entry = entries.get(path);
+
+		if (entry == null) {
+			throw new NoSuchFileException(path);
+		}
+
+		put(path, bytes, entry.time());
+	}
+
+	public int transform(Map<String, ZipUtils.UnsafeUnaryOperator<byte[]>> transforms) throws IOException {
+		int replacedCount = 0;
+
+		for (Map.Entry<String, ZipUtils.UnsafeUnaryOperator<byte[]>> transform : transforms.entrySet()) {
+			final Entry entry = entries.get(transform.getKey());
+
+			if (entry != null && transform.getValue() != null) {
+				put(transform.getKey(), transform.getValue().apply(entry.data()), entry.time());
+				replacedCount++;
+			}
+		}
+
+		return replacedCount;
+	}
+
+	public <T> int transformJson(Class<T> typeOfT, Map<String, ZipUtils.UnsafeUnaryOperator<T>> transforms) throws IOException {
+		int replacedCount = 0;
+
+		for (Map.Entry<String, ZipUtils.UnsafeUnaryOperator<T>> transform : transforms.entrySet()) {
+			final Entry entry = entries.get(transform.getKey());
+
+			if (entry != null && transform.getValue() != null) {
+				final T json = LoomGradlePlugin.GSON.fromJson(new InputStreamReader(new ByteArrayInputStream(entry.data()), StandardCharsets.UTF_8), typeOfT);
+				final byte[] bytes = LoomGradlePlugin.GSON.toJson(transform.getValue().apply(json), typeOfT).getBytes(StandardCharsets.UTF_8);
+				put(transform.getKey(), bytes, entry.time());
+				replacedCount++;
+			}
+		}
+
+		return replacedCount;
+	}
+
+	/**
+	 * Writes all of the entries to the given path along with the directory entries of their parents, either in the
+	 * order defined by {@link ZipReprocessorUtil} or in the order they were added.
+	 */
+	public void write(Path output, boolean reproducibleFileOrder, boolean preserveFileTimestamps, ZipEntryCompression compression) throws IOException {
+		final Map<String, Entry> ordered;
+		final List<Map.Entry<String, Entry>> added = new ArrayList<>(entries.entrySet());
+
+		if (reproducibleFileOrder) {
+			ordered = new TreeMap<>(ZipReprocessorUtil::specialOrdering);
+		} else {
+			ordered = new LinkedHashMap<>();
+			added.sort(Comparator.comparingLong(entry -> entry.getValue().sequence()));
+		}
+
+		for (Map.Entry<String, Entry> entry : added) {
+			// Parent directories are added before the first entry within them
+			final List<String> parents = new ArrayList<>();
+			String name = entry.getKey();
+			int index;
+
+			while ((index = name.lastIndexOf('/', name.length() - 2)) > 0) {
+				name = name.substring(0, index + 1);
+
+				if (ordered.containsKey(name)) {
+					break;
+				}
+
+				parents.add(0, name);
+			}
+
+			for (String parent : parents) {
+				ordered.put(parent, new Entry(new byte[0], UNKNOWN_TIME, -1));
+			}
+
+			ordered.put(entry.getKey(), entry.getValue());
+		}
+
+		final Path tempFile = output.resolveSibling(output.getFileName() + ".tmp");
+
+		final int method = ZipReprocessorUtil.zipEntryCompressionMethod(compression);
+
+		// The entries are compressed in parallel, but written in the same order with the same headers as before.
+		try (var zipWriter = new ParallelZipWriter(tempFile)) {
+			for (Map.Entry<String, Entry> entry : ordered.entrySet()) {
+				final long time;
+
+				if (preserveFileTimestamps && entry.getValue().time() != UNKNOWN_TIME) {
+					time = entry.getValue().time();
+				} else {
+					// Entries without a known time stamp still use the constant time, keeping the output reproducible
+					time = ZipReprocessorUtil.getConstantFileTime();
+				}
+
+				zipWriter.putEntry(entry.getKey(), time, method, entry.getValue().data());
+			}
+		}
+
+		Files.move(tempFile, output, StandardCopyOption.REPLACE_EXISTING);
+	}
+}
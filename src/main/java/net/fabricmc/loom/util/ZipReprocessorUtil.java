@@ -24,14 +24,21 @@
 
 package net.fabricmc.loom.util;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Comparator;
 import java.util.GregorianCalendar;
+import java.util.List;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
@@ -43,6 +50,9 @@ public class ZipReprocessorUtil {
 	private ZipReprocessorUtil() { }
 
 	private static final String META_INF = "META-INF/";
+	// 1980-01-01 00:00, the same time as setConstantFileTime in MS-DOS format
+	private static final int CONSTANT_DOS_TIME = 0x00210000;
+	private static final int ZIP64_EXTRA_ID = 0x0001;
 
 	// See https://docs.oracle.com/en/java/javase/20/docs/specs/jar/jar.html#signed-jar-file
 	private static boolean isSpecialFile(String zipEntryName) {
@@ -63,7 +73,7 @@ public class ZipReprocessorUtil {
 				|| parts[1].endsWith(".EC");
 	}
 
-	private static int specialOrdering(String name1, String name2) {
+	static int specialOrdering(String name1, String name2) {
 		if (name1.equals(name2)) {
 			return 0;
 		} else if (name1.equals(Constants.Manifest.PATH)) {
@@ -91,10 +101,22 @@ public class ZipReprocessorUtil {
 	}
 
 	public static void reprocessZip(Path file, boolean reproducibleFileOrder, boolean preserveFileTimestamps, ZipEntryCompression zipEntryCompression) throws IOException {
+		reprocessZip(file, reproducibleFileOrder, preserveFileTimestamps, zipEntryCompression, false);
+	}
+
+	/**
+	 * @param copyRawEntries when true the compressed data of each entry is copied as is, only entries using a different
+	 * compression method are recompressed. The output is still reproducible, but not byte for byte the same as when recompressing.
+	 */
+	public static void reprocessZip(Path file, boolean reproducibleFileOrder, boolean preserveFileTimestamps, ZipEntryCompression zipEntryCompression, boolean copyRawEntries) throws IOException {
 		if (!reproducibleFileOrder && preserveFileTimestamps) {
 			return;
 		}
 
+		if (copyRawEntries && reprocessZipRaw(file, reproducibleFileOrder, preserveFileTimestamps, zipEntryCompression)) {
+			return;
+		}
+
 		final Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
 
 		try (var zipFile = new ZipFile(file.toFile());
@@ -130,6 +152,81 @@ public class ZipReprocessorUtil {
 		Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
 	}
 
+	/**
+	 * @return false when the zip cannot be copied without recompressing, nothing will have been written
+	 */
+	private static boolean reprocessZipRaw(Path file, boolean reproducibleFileOrder, boolean preserveFileTimestamps, ZipEntryCompression zipEntryCompression) throws IOException {
+		final ZipIndex zipIndex = ZipIndex.of(file);
+		final List<ZipIndex.Entry> entries = new ArrayList<>(zipIndex.getEntries());
+		final int method = zipEntryCompressionMethod(zipEntryCompression);
+
+		for (ZipIndex.Entry entry : entries) {
+			if (entry.method() != ZipEntry.STORED && entry.method() != ZipEntry.DEFLATED) {
+				return false;
+			}
+
+			// Entries that are recompressed are read into memory
+			if (entry.method() != method && (entry.uncompressedSize() > Integer.MAX_VALUE || entry.compressedSize() > Integer.MAX_VALUE)) {
+				return false;
+			}
+		}
+
+		if (reproducibleFileOrder) {
+			entries.sort(Comparator.comparing(ZipIndex.Entry::name, ZipReprocessorUtil::specialOrdering));
+		} else {
+			entries.sort(Comparator.comparingInt(ZipIndex.Entry::index));
+		}
+
+		final Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+
+		try (FileChannel source = FileChannel.open(file, StandardOpenOption.READ);
+				ZipArchiveWriter writer = new ZipArchiveWriter(tempFile)) {
+			for (ZipIndex.Entry entry : entries) {
+				final int dosTime = preserveFileTimestamps ? entry.dosTime() : CONSTANT_DOS_TIME;
+				final byte[] extra = preserveFileTimestamps ? removeZip64Extra(entry.extra()) : new byte[0];
+
+				if (entry.method() == method) {
+					writer.putEntry(entry.name(), method, dosTime, extra, entry.crc(), entry.compressedSize(), entry.uncompressedSize());
+					zipIndex.transferRawData(entry, source, writer.getChannel());
+					continue;
+				}
+
+				// The compression method has changed, so this entry has to be recompressed
+				final byte[] data = zipIndex.read(entry, source);
+				final byte[] compressed = method == ZipEntry.DEFLATED ? ZipArchiveWriter.deflate(data) : data;
+				writer.putEntry(entry.name(), method, dosTime, extra, entry.crc(), compressed.length, data.length);
+				final ByteBuffer buffer = ByteBuffer.wrap(compressed);
+
+				while (buffer.hasRemaining()) {
+					writer.getChannel().write(buffer);
+				}
+			}
+		}
+
+		Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+		return true;
+	}
+
+	// ZipArchiveWriter adds its own zip64 extra field when it is needed.
+	private static byte[] removeZip64Extra(byte[] extra) {
+		final ByteBuffer input = ByteBuffer.wrap(extra).order(ByteOrder.LITTLE_ENDIAN);
+		final ByteArrayOutputStream output = new ByteArrayOutputStream(extra.length);
+
+		while (input.remaining() >= 4) {
+			final int id = Short.toUnsignedInt(input.getShort(input.position()));
+			final int size = Short.toUnsignedInt(input.getShort(input.position() + 2));
+			final int length = Math.min(4 + size, input.remaining());
+
+			if (id != ZIP64_EXTRA_ID) {
+				output.write(extra, input.position(), length);
+			}
+
+			input.position(input.position() + length);
+		}
+
+		return output.toByteArray();
+	}
+
 	/**
 	 * Appends an entry to a zip file, persevering the existing entry order and time stamps.
 	 * The new entry is added with a constant time stamp to ensure reproducibility.
@@ -176,9 +273,13 @@ public class ZipReprocessorUtil {
 		zipOutputStream.closeEntry();
 	}
 
-	private static void setConstantFileTime(ZipEntry entry) {
+	static void setConstantFileTime(ZipEntry entry) {
+		entry.setTime(getConstantFileTime());
+	}
+
+	static long getConstantFileTime() {
 		// See https://github.com/openjdk/jdk/blob/master/test/jdk/java/util/zip/ZipFile/ZipEntryTimeBounds.java
-		entry.setTime(new GregorianCalendar(1980, Calendar.JANUARY, 1, 0, 0, 0).getTimeInMillis());
+		return new GregorianCalendar(1980, Calendar.JANUARY, 1, 0, 0, 0).getTimeInMillis();
 	}
 
 	@MagicConstant(valuesFromClass = ZipOutputStream.class)
@@ -190,7 +291,7 @@ public class ZipReprocessorUtil {
 	}
 
 	@MagicConstant(valuesFromClass = ZipEntry.class)
-	private static int zipEntryCompressionMethod(ZipEntryCompression compression) {
+	static int zipEntryCompressionMethod(ZipEntryCompression compression) {
 		return switch (compression) {
 		case STORED -> ZipEntry.STORED;
 		case DEFLATED -> ZipEntry.DEFLATED;
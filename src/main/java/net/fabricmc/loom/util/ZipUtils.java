@@ -68,10 +68,8 @@ public class ZipUtils {
 	}
 
 	public static boolean contains(Path zip, String path) {
-		try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(zip, false)) {
-			Path fsPath = fs.get().getPath(path);
-
-			return Files.exists(fsPath);
+		try {
+			return ZipIndex.of(zip).contains(path);
 		} catch (IOException e) {
 			throw new UncheckedIOException("Failed to check file from zip", e);
 		}
@@ -102,9 +100,13 @@ public class ZipUtils {
 	}
 
 	public static byte[] unpack(Path zip, String path) throws IOException {
-		try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(zip, false)) {
-			return fs.readAllBytes(path);
+		final byte[] bytes = ZipIndex.of(zip).read(path);
+
+		if (bytes == null) {
+			throw new NoSuchFileException(path);
 		}
+
+		return bytes;
 	}
 
 	public static <T> T unpackGson(Path zip, String path, Class<T> clazz) throws IOException {
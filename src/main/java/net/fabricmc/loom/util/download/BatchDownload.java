@@ -0,0 +1,465 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package net.fabricmc.loom.util.download;
+
+import java.io.IOException;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.fabricmc.loom.util.AttributeHelper;
+import net.fabricmc.loom.util.Checksum;
+
+/**
+ * Downloads a large number of small, content addressed files into a directory.
+ *
+ * <p>Unlike {@link Download}, the existing files are found with a single scan of the output directory up front, rather than
+ * checking the lock file and hash of each file individually. The missing files are then requested asynchronously over a small number of HTTP/2 connections,
+ * with many concurrent streams on each. Response bodies are hashed and written to disk as they arrive, and progress is reported for the batch as a whole.
+ */
+@SuppressWarnings("UnusedReturnValue")
+public final class BatchDownload {
+	private static final Logger LOGGER = LoggerFactory.getLogger(BatchDownload.class);
+	private static final Duration TIMEOUT = Duration.ofMinutes(1);
+	private static final int MAX_ATTEMPTS = 3;
+
+	private final Path root;
+	// Keyed by the output path, as several entries may share the same content addressed file.
+	private final Map<Path, Entry> entries = new LinkedHashMap<>();
+	private int connections = 4;
+	private int streamsPerConnection = 16;
+	private boolean offline = false;
+	private boolean forceDownload = false;
+	private DownloadProgressListener progressListener = DownloadProgressListener.NONE;
+
+	public BatchDownload(Path root) {
+		this.root = root;
+	}
+
+	private record Entry(URI url, String sha1, long size, Path output) {
+	}
+
+	public BatchDownload connections(int connections) {
+		this.connections = connections;
+		return this;
+	}
+
+	public BatchDownload streamsPerConnection(int streamsPerConnection) {
+		this.streamsPerConnection = streamsPerConnection;
+		return this;
+	}
+
+	public BatchDownload offline() {
+		offline = true;
+		return this;
+	}
+
+	public BatchDownload forceDownload() {
+		forceDownload = true;
+		return this;
+	}
+
+	public BatchDownload progress(DownloadProgressListener progressListener) {
+		this.progressListener = progressListener;
+		return this;
+	}
+
+	/**
+	 * Add a file to download, files that have already been added to the same path are skipped.
+	 *
+	 * @param url the url to download from
+	 * @param sha1 the expected sha1 hash of the file
+	 * @param size the expected size of the file in bytes
+	 * @param path the output path, relative to the root directory
+	 */
+	public BatchDownload add(String url, String sha1, long size, String path) {
+		final Entry entry = new Entry(URI.create(url), sha1, size, root.resolve(path));
+		final Entry existing = entries.putIfAbsent(entry.output(), entry);
+
+		if (existing != null && !existing.sha1().equalsIgnoreCase(sha1)) {
+			throw new IllegalArgumentException("Conflicting hashes for %s, %s and %s".formatted(path, existing.sha1(), sha1));
+		}
+
+		return this;
+	}
+
+	/**
+	 * Downloads all the files that are not already present.
+	 *
+	 * @return the number of files that were downloaded
+	 */
+	public int download() throws DownloadException {
+		final List<Entry> missing = findMissing();
+
+		if (missing.isEmpty()) {
+			return 0;
+		}
+
+		if (offline) {
+			throw new DownloadException("Unable to download %d files in offline mode".formatted(missing.size()));
+		}
+
+		final long totalBytes = missing.stream().mapToLong(Entry::size).sum();
+		final AtomicLong downloadedBytes = new AtomicLong();
+		final HttpClient[] clients = new HttpClient[Math.max(1, connections)];
+
+		for (int i = 0; i < clients.length; i++) {
+			clients[i] = createClient();
+		}
+
+		final Semaphore permits = new Semaphore(clients.length * Math.max(1, streamsPerConnection));
+		final Set<Path> directories = ConcurrentHashMap.newKeySet();
+		final List<CompletableFuture<Void>> futures = new ArrayList<>(missing.size());
+		final List<Throwable> errors = new ArrayList<>();
+
+		progressListener.onStart();
+
+		try {
+			for (int i = 0; i < missing.size(); i++) {
+				final Entry entry = missing.get(i);
+				final HttpClient client = clients[i % clients.length];
+
+				permits.acquire();
+
+				final CompletableFuture<Void> future = CompletableFuture
+						.runAsync(() -> createParentDirectories(entry.output(), directories))
+						.thenCompose(unused -> download(client, entry, 1, new FileProgress(bytes -> {
+							final long downloaded = downloadedBytes.addAndGet(bytes);
+
+							synchronized (progressListener) {
+								progressListener.onProgress(downloaded, totalBytes);
+							}
+						})))
+						.whenComplete((unused, throwable) -> permits.release());
+				futures.add(future);
+			}
+
+			for (CompletableFuture<Void> future : futures) {
+				try {
+					future.join();
+				} catch (CompletionException e) {
+					errors.add(e.getCause());
+				}
+			}
+		} catch (InterruptedException e) {
+			futures.forEach(future -> future.cancel(true));
+			throw new DownloadException("Interrupted while downloading", e);
+		} finally {
+			progressListener.onEnd();
+		}
+
+		if (!errors.isEmpty()) {
+			final DownloadException exception = new DownloadException("Failed to download %d of %d files".formatted(errors.size(), missing.size()));
+			errors.forEach(exception::addSuppressed);
+			throw exception;
+		}
+
+		return missing.size();
+	}
+
+	/**
+	 * Finds the entries that do not exist on disk with the expected size, using a single walk of the root directory.
+	 * Files are only ever moved into place once fully downloaded and verified, so their contents are not hashed again.
+	 */
+	private List<Entry> findMissing() throws DownloadException {
+		if (forceDownload || Files.notExists(root)) {
+			return List.copyOf(entries.values());
+		}
+
+		final Set<FileKey> existing = new HashSet<>();
+
+		try (Stream<Path> stream = Files.walk(root)) {
+			stream.forEach(path -> {
+				try {
+					existing.add(new FileKey(path, Files.isRegularFile(path) ? Files.size(path) : -1));
+				} catch (IOException e) {
+					// File was likely deleted while walking, treat it as missing.
+				}
+			});
+		} catch (IOException e) {
+			throw new DownloadException("Failed to scan " + root, e);
+		}
+
+		final List<Entry> missing = new ArrayList<>();
+
+		for (Entry entry : entries.values()) {
+			// A lock file left next to the output by Download means that it was interrupted.
+			if (!existing.contains(new FileKey(entry.output(), entry.size())) || existing.contains(new FileKey(getLockFile(entry.output()), 0))) {
+				missing.add(entry);
+			}
+		}
+
+		LOGGER.info("{} of {} files need to be downloaded to {}", missing.size(), entries.size(), root);
+		return missing;
+	}
+
+	private record FileKey(Path path, long size) {
+	}
+
+	private CompletableFuture<Void> download(HttpClient client, Entry entry, int attempt, FileProgress progress) {
+		final HttpRequest request = HttpRequest.newBuilder(entry.url())
+				.timeout(TIMEOUT)
+				// Last ditch attempt, try over HTTP 1.1
+				.version(attempt == MAX_ATTEMPTS ? HttpClient.Version.HTTP_1_1 : HttpClient.Version.HTTP_2)
+				.GET()
+				.build();
+		final Path partFile = getPartFile(entry.output());
+
+		final HttpResponse.BodyHandler<String> bodyHandler = responseInfo -> {
+			if (responseInfo.statusCode() < 200 || responseInfo.statusCode() >= 300) {
+				return HttpResponse.BodySubscribers.replacing(null);
+			}
+
+			return new HashingFileSubscriber(partFile, progress);
+		};
+
+		return client.sendAsync(request, bodyHandler)
+				.thenAccept(response -> complete(entry, response))
+				.exceptionallyCompose(throwable -> {
+					final Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+					tryDelete(partFile);
+					progress.reset();
+
+					if (attempt >= MAX_ATTEMPTS || cause instanceof DownloadException e && e.getStatusCode() == 404) {
+						return CompletableFuture.failedFuture(new DownloadException("Failed to download (%s) to (%s)".formatted(entry.url(), entry.output()), cause));
+					}
+
+					return download(client, entry, attempt + 1, progress);
+				});
+	}
+
+	private void complete(Entry entry, HttpResponse<String> response) {
+		try {
+			final int statusCode = response.statusCode();
+
+			if (statusCode < 200 || statusCode >= 300) {
+				throw new DownloadException(String.format(Locale.ENGLISH, "HTTP request returned unsuccessful status (%d)", statusCode), statusCode);
+			}
+
+			if (!entry.sha1().equalsIgnoreCase(response.body())) {
+				throw new DownloadException("Unexpected hash, expected %s got %s".formatted(entry.sha1(), response.body()));
+			}
+
+			Files.move(getPartFile(entry.output()), entry.output(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			Files.deleteIfExists(getLockFile(entry.output()));
+
+			try {
+				// Allows Download to skip hashing the file, should it be used to download the same file.
+				AttributeHelper.writeAttribute(entry.output(), "LoomHash", "sha1:" + entry.sha1());
+			} catch (IOException e) {
+				LOGGER.debug("Failed to write hash attribute to {}", entry.output(), e);
+			}
+		} catch (IOException e) {
+			throw new CompletionException(e);
+		}
+	}
+
+	private static HttpClient createClient() {
+		return HttpClient.newBuilder()
+				.followRedirects(HttpClient.Redirect.ALWAYS)
+				.proxy(ProxySelector.getDefault())
+				.connectTimeout(TIMEOUT)
+				.version(HttpClient.Version.HTTP_2)
+				.build();
+	}
+
+	private static void createParentDirectories(Path path, Set<Path> created) {
+		final Path parent = path.getParent();
+
+		if (created.contains(parent)) {
+			return;
+		}
+
+		try {
+			Files.createDirectories(parent);
+			created.add(parent);
+		} catch (IOException e) {
+			throw new CompletionException(e);
+		}
+	}
+
+	private static void tryDelete(Path path) {
+		try {
+			Files.deleteIfExists(path);
+		} catch (IOException ignored) {
+			// ignored
+		}
+	}
+
+	private static Path getLockFile(Path output) {
+		return output.resolveSibling(output.getFileName() + ".lock");
+	}
+
+	private static Path getPartFile(Path output) {
+		return output.resolveSibling(output.getFileName() + ".part");
+	}
+
+	@FunctionalInterface
+	private interface ProgressConsumer {
+		void accept(long bytes);
+	}
+
+	/**
+	 * Tracks the bytes received for a single file, so that a failed attempt can be taken back out of the batch progress.
+	 */
+	private static final class FileProgress implements ProgressConsumer {
+		private final ProgressConsumer total;
+		private final AtomicLong bytes = new AtomicLong();
+
+		private FileProgress(ProgressConsumer total) {
+			this.total = total;
+		}
+
+		@Override
+		public void accept(long bytes) {
+			this.bytes.addAndGet(bytes);
+			total.accept(bytes);
+		}
+
+		private void reset() {
+			total.accept(-bytes.getAndSet(0));
+		}
+	}
+
+	/**
+	 * Writes the response body buffers straight to a file channel, hashing them on the way.
+	 * Completes with the hex sha1 of the body.
+	 */
+	private static final class HashingFileSubscriber implements HttpResponse.BodySubscriber<String> {
+		private final CompletableFuture<String> result = new CompletableFuture<>();
+		private final Path path;
+		private final ProgressConsumer progress;
+		private final MessageDigest digest;
+		private FileChannel channel;
+		private Flow.Subscription subscription;
+
+		private HashingFileSubscriber(Path path, ProgressConsumer progress) {
+			this.path = path;
+			this.progress = progress;
+
+			try {
+				this.digest = MessageDigest.getInstance("SHA-1");
+			} catch (NoSuchAlgorithmException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		@Override
+		public CompletableFuture<String> getBody() {
+			return result;
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			this.subscription = subscription;
+
+			try {
+				channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+			} catch (IOException e) {
+				subscription.cancel();
+				result.completeExceptionally(e);
+				return;
+			}
+
+			subscription.request(1);
+		}
+
+		@Override
+		public void onNext(List<ByteBuffer> buffers) {
+			try {
+				long bytes = 0;
+
+				for (ByteBuffer buffer : buffers) {
+					digest.update(buffer.duplicate());
+					bytes += buffer.remaining();
+
+					while (buffer.hasRemaining()) {
+						channel.write(buffer);
+					}
+				}
+
+				progress.accept(bytes);
+			} catch (IOException e) {
+				subscription.cancel();
+				close();
+				result.completeExceptionally(e);
+				return;
+			}
+
+			subscription.request(1);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			close();
+			result.completeExceptionally(throwable);
+		}
+
+		@Override
+		public void onComplete() {
+			close();
+			result.complete(Checksum.toHex(digest.digest()));
+		}
+
+		private void close() {
+			try {
+				if (channel != null) {
+					channel.close();
+				}
+			} catch (IOException e) {
+				result.completeExceptionally(e);
+			}
+		}
+	}
+}
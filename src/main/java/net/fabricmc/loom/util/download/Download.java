@@ -28,7 +28,6 @@ import static com.google.common.io.Files.createParentDirs;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.net.HttpURLConnection;
 import java.net.ProxySelector;
@@ -38,18 +37,31 @@ import java.net.http.HttpClient;
 import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.zip.GZIPInputStream;
 
 import org.slf4j.Logger;
@@ -62,6 +74,10 @@ public final class Download {
 	private static final String E_TAG = "ETag";
 	private static final Logger LOGGER = LoggerFactory.getLogger(Download.class);
 	private static final Duration TIMEOUT = Duration.ofMinutes(1);
+	private static final int HTTP_PARTIAL_CONTENT = 206;
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final long MIN_CHUNK_SIZE = 4 * 1024 * 1024;
+	private static final Pattern CONTENT_RANGE_PATTERN = Pattern.compile("bytes (\\d+)-\\d+/(?:\\d+|\\*)");
 	private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
 			.followRedirects(HttpClient.Redirect.ALWAYS)
 			.proxy(ProxySelector.getDefault())
@@ -80,9 +96,10 @@ public final class Download {
 	private final Duration maxAge;
 	private final DownloadProgressListener progressListener;
 	private final HttpClient.Version httpVersion;
+	private final int parallelChunks;
 	private final int downloadAttempt;
 
-	Download(URI url, String expectedHash, boolean useEtag, boolean forceDownload, boolean offline, Duration maxAge, DownloadProgressListener progressListener, HttpClient.Version httpVersion, int downloadAttempt) {
+	Download(URI url, String expectedHash, boolean useEtag, boolean forceDownload, boolean offline, Duration maxAge, DownloadProgressListener progressListener, HttpClient.Version httpVersion, int parallelChunks, int downloadAttempt) {
 		this.url = url;
 		this.expectedHash = expectedHash;
 		this.useEtag = useEtag;
@@ -91,6 +108,7 @@ public final class Download {
 		this.maxAge = maxAge;
 		this.progressListener = progressListener;
 		this.httpVersion = httpVersion;
+		this.parallelChunks = parallelChunks;
 		this.downloadAttempt = downloadAttempt;
 	}
 
@@ -112,6 +130,18 @@ public final class Download {
 				.build();
 	}
 
+	// If the file has changed since the etag was recorded, the server ignores the range and returns the whole file.
+	private HttpRequest getRangeRequest(long start, long end, String etag) {
+		final HttpRequest.Builder builder = requestBuilder()
+				.header("Range", "bytes=%d-%s".formatted(start, end < 0 ? "" : Long.toString(end)));
+
+		if (etag != null) {
+			builder.header("If-Range", etag);
+		}
+
+		return builder.build();
+	}
+
 	private <T> HttpResponse<T> send(HttpRequest httpRequest, HttpResponse.BodyHandler<T> bodyHandler) throws DownloadException {
 		if (offline) {
 			throw error("Unable to download %s in offline mode", this.url);
@@ -177,9 +207,21 @@ public final class Download {
 			throw error(e, "Failed to create parent directories");
 		}
 
-		final HttpRequest httpRequest = eTag
-				.map(this::getETagRequest)
-				.orElseGet(this::getRequest);
+		// A .part file left behind by a previous attempt can be resumed, as long as the server still has the same version of the file.
+		final Path partFile = getPartFile(output);
+		final Optional<String> partETag = eTag.isEmpty() && !forceDownload ? getResumableETag(partFile) : Optional.empty();
+		final long resumeFrom = partETag.isPresent() ? size(partFile) : 0;
+
+		final HttpRequest httpRequest;
+
+		if (resumeFrom > 0) {
+			LOGGER.info("Resuming download of ({}) from {} bytes", url, resumeFrom);
+			httpRequest = getRangeRequest(resumeFrom, -1, partETag.get());
+		} else {
+			httpRequest = eTag
+					.map(this::getETagRequest)
+					.orElseGet(this::getRequest);
+		}
 
 		// Create a .lock file, this allows us to re-download if the download was forcefully aborted part way through.
 		createLock(output);
@@ -202,10 +244,15 @@ public final class Download {
 		}
 
 		if (!success) {
+			if (resumeFrom > 0) {
+				// The partial file could not be resumed, start again on the next attempt.
+				tryDeletePartFile(partFile);
+			}
+
 			throw statusError("HTTP request returned unsuccessful status (%d)", statusCode);
 		}
 
-		downloadToPath(output, response);
+		final String computedHash = downloadToPath(output, response, resumeFrom);
 
 		if (useEtag) {
 			final HttpHeaders headers = response.headers();
@@ -217,8 +264,10 @@ public final class Download {
 		}
 
 		if (expectedHash != null) {
-			// Ensure we downloaded the expected hash.
-			if (!isHashValid(output)) {
+			// Ensure we downloaded the expected hash, the hash is computed while downloading unless the file was downloaded in chunks.
+			final boolean hashValid = computedHash != null ? getExpectedHashValue().equalsIgnoreCase(computedHash) : isHashValid(output);
+
+			if (!hashValid) {
 				String downloadedHash;
 
 				try {
@@ -236,30 +285,38 @@ public final class Download {
 		}
 	}
 
-	private void downloadToPath(Path output, HttpResponse<InputStream> response) throws DownloadException {
+	/**
+	 * @return the hash of the downloaded file when it was computed while downloading, otherwise null
+	 */
+	private String downloadToPath(Path output, HttpResponse<InputStream> response, long resumeFrom) throws DownloadException {
 		// Download the file initially to a .part file
 		final Path partFile = getPartFile(output);
+		final boolean resumed = response.statusCode() == HTTP_PARTIAL_CONTENT;
+
+		if (resumed && (resumeFrom == 0 || getContentRangeStart(response) != resumeFrom)) {
+			tryDeletePartFile(partFile);
+			throw error("Unexpected partial response with range (%s)", response.headers().firstValue("Content-Range").orElse(""));
+		}
 
 		try {
 			Files.deleteIfExists(output);
-			Files.deleteIfExists(partFile);
+
+			if (!resumed) {
+				deletePartFile(partFile);
+			}
 		} catch (IOException e) {
 			throw error(e, "Failed to delete existing file");
 		}
 
-		final long length = Long.parseLong(response.headers().firstValue("Content-Length").orElse("-1"));
-		AtomicLong totalBytes = new AtomicLong(0);
+		final long contentLength = Long.parseLong(response.headers().firstValue("Content-Length").orElse("-1"));
+		final long length = contentLength < 0 ? -1 : contentLength + (resumed ? resumeFrom : 0);
+		final String responseETag = getStrongETag(response);
+		String hash = null;
 
-		try (OutputStream outputStream = Files.newOutputStream(partFile, StandardOpenOption.CREATE_NEW)) {
-			copyWithCallback(decodeOutput(response), outputStream, value -> {
-				if (length < 0) {
-					return;
-				}
-
-				progressListener.onProgress(totalBytes.addAndGet(value), length);
-			});
-		} catch (IOException e) {
-			throw error(e, "Failed to decode and write download output");
+		if (!resumed && shouldDownloadInChunks(response, contentLength)) {
+			downloadInChunks(partFile, response, contentLength, responseETag);
+		} else {
+			hash = downloadSequentially(partFile, response, resumed ? resumeFrom : 0, length, responseETag);
 		}
 
 		if (Files.notExists(partFile)) {
@@ -271,6 +328,7 @@ public final class Download {
 				final long actualLength = Files.size(partFile);
 
 				if (actualLength != length) {
+					deletePartFile(partFile);
 					throw error("Unexpected file length of %d bytes, expected %d bytes".formatted(actualLength, length));
 				}
 			} catch (IOException e) {
@@ -282,22 +340,217 @@ public final class Download {
 			// Once the file has been fully read, create a hard link to the destination file.
 			// And then remove the temporary file, this ensures that the output file only exists in fully populated state.
 			Files.createLink(output, partFile);
-			Files.delete(partFile);
+			deletePartFile(partFile);
 		} catch (IOException e) {
 			throw error(e, "Failed to complete download");
 		}
+
+		return hash;
+	}
+
+	private String downloadSequentially(Path partFile, HttpResponse<InputStream> response, long existingBytes, long length, String responseETag) throws DownloadException {
+		final MessageDigest digest = createDigest();
+		final AtomicLong totalBytes = new AtomicLong(existingBytes);
+
+		try (FileChannel channel = FileChannel.open(partFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+				InputStream inputStream = decodeOutput(response)) {
+			if (responseETag != null && response.headers().firstValue("Content-Encoding").isEmpty()) {
+				// Record the etag on the part file so that the download can be resumed if it is interrupted.
+				writeEtag(partFile, responseETag);
+			}
+
+			if (digest != null && existingBytes > 0) {
+				// Include the bytes downloaded by the previous attempt in the hash
+				updateDigest(digest, partFile, existingBytes);
+			}
+
+			copyWithCallback(inputStream, channel, digest, value -> {
+				if (length < 0) {
+					return;
+				}
+
+				progressListener.onProgress(totalBytes.addAndGet(value), length);
+			});
+		} catch (IOException e) {
+			throw error(e, "Failed to decode and write download output");
+		}
+
+		return digest != null ? Checksum.toHex(digest.digest()) : null;
+	}
+
+	private boolean shouldDownloadInChunks(HttpResponse<InputStream> response, long contentLength) {
+		return parallelChunks > 1
+				&& response.statusCode() == HttpURLConnection.HTTP_OK
+				&& contentLength >= MIN_CHUNK_SIZE * 2
+				&& response.headers().firstValue("Accept-Ranges").map("bytes"::equalsIgnoreCase).orElse(false)
+				&& response.headers().firstValue("Content-Encoding").isEmpty();
+	}
+
+	/**
+	 * Downloads the file in multiple ranges at the same time, into a preallocated file.
+	 * The first range is read from the response that has already been opened.
+	 */
+	private void downloadInChunks(Path partFile, HttpResponse<InputStream> response, long length, String responseETag) throws DownloadException {
+		final int chunks = (int) Math.min(parallelChunks, length / MIN_CHUNK_SIZE);
+		final long chunkSize = (length + chunks - 1) / chunks;
+		final AtomicLong totalBytes = new AtomicLong();
+		final LongConsumer progress = value -> {
+			synchronized (progressListener) {
+				progressListener.onProgress(totalBytes.addAndGet(value), length);
+			}
+		};
+
+		final ExecutorService executor = Executors.newFixedThreadPool(chunks - 1);
+
+		try (FileChannel channel = FileChannel.open(partFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+			// Preallocate the file
+			channel.write(ByteBuffer.allocate(1), length - 1);
+
+			final List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+			for (int i = 1; i < chunks; i++) {
+				final long start = i * chunkSize;
+				final long end = Math.min(start + chunkSize, length) - 1;
+
+				futures.add(CompletableFuture.runAsync(() -> {
+					try {
+						downloadRange(channel, start, end, responseETag, progress);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}, executor));
+			}
+
+			try (InputStream inputStream = response.body()) {
+				writeRange(inputStream, channel, 0, chunkSize, progress);
+			}
+
+			for (CompletableFuture<Void> future : futures) {
+				future.join();
+			}
+		} catch (IOException e) {
+			throw error(e, "Failed to write download output");
+		} catch (CompletionException e) {
+			throw error(e.getCause(), "Failed to download range");
+		} finally {
+			executor.shutdownNow();
+		}
 	}
 
-	private void copyWithCallback(InputStream is, OutputStream os, IntConsumer consumer) throws IOException {
-		byte[] buffer = new byte[1024];
+	private void downloadRange(FileChannel channel, long start, long end, String eTag, LongConsumer progress) throws IOException {
+		final HttpResponse<InputStream> response = send(getRangeRequest(start, end, eTag), HttpResponse.BodyHandlers.ofInputStream());
+
+		try (InputStream inputStream = response.body()) {
+			if (response.statusCode() != HTTP_PARTIAL_CONTENT || getContentRangeStart(response) != start) {
+				throw statusError("Range request returned unexpected status (%d)", response.statusCode());
+			}
+
+			final long written = writeRange(inputStream, channel, start, end - start + 1, progress);
+
+			if (written != end - start + 1) {
+				throw error("Unexpected range length of %d bytes, expected %d bytes", written, end - start + 1);
+			}
+		}
+	}
+
+	// Writes up to length bytes from the stream to the channel at the given position
+	private static long writeRange(InputStream inputStream, FileChannel channel, long position, long length, LongConsumer progress) throws IOException {
+		final byte[] buffer = new byte[BUFFER_SIZE];
+		long written = 0;
+		int read;
+
+		while (written < length && (read = inputStream.read(buffer, 0, (int) Math.min(buffer.length, length - written))) > 0) {
+			final ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, read);
+
+			while (byteBuffer.hasRemaining()) {
+				written += channel.write(byteBuffer, position + written);
+			}
+
+			progress.accept(read);
+		}
+
+		return written;
+	}
+
+	private void copyWithCallback(InputStream is, FileChannel channel, MessageDigest digest, IntConsumer consumer) throws IOException {
+		final byte[] buffer = new byte[BUFFER_SIZE];
 		int length;
 
 		while ((length = is.read(buffer)) > 0) {
-			os.write(buffer, 0, length);
+			if (digest != null) {
+				digest.update(buffer, 0, length);
+			}
+
+			final ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, length);
+
+			while (byteBuffer.hasRemaining()) {
+				channel.write(byteBuffer);
+			}
+
 			consumer.accept(length);
 		}
 	}
 
+	private static void updateDigest(MessageDigest digest, Path path, long length) throws IOException {
+		try (InputStream inputStream = Files.newInputStream(path)) {
+			final byte[] buffer = new byte[BUFFER_SIZE];
+			long remaining = length;
+			int read;
+
+			while (remaining > 0 && (read = inputStream.read(buffer, 0, (int) Math.min(buffer.length, remaining))) > 0) {
+				digest.update(buffer, 0, read);
+				remaining -= read;
+			}
+		}
+	}
+
+	private MessageDigest createDigest() throws DownloadException {
+		if (expectedHash == null) {
+			return null;
+		}
+
+		final String algorithm = getExpectedHashAlgorithm();
+
+		try {
+			return switch (algorithm) {
+			case "sha1" -> MessageDigest.getInstance("SHA-1");
+			default -> throw error("Unsupported hash algorithm (%s)", algorithm);
+			};
+		} catch (NoSuchAlgorithmException e) {
+			throw error(e, "Failed to create digest");
+		}
+	}
+
+	private static long getContentRangeStart(HttpResponse<?> response) {
+		// Content-Range: bytes <start>-<end>/<size>
+		final String contentRange = response.headers().firstValue("Content-Range").orElse("");
+		final Matcher matcher = CONTENT_RANGE_PATTERN.matcher(contentRange);
+		return matcher.matches() ? Long.parseLong(matcher.group(1)) : -1;
+	}
+
+	// Weak etags cannot be used with If-Range
+	private String getStrongETag(HttpResponse<?> response) {
+		return response.headers().firstValue(E_TAG.toLowerCase(Locale.ROOT))
+				.filter(eTag -> !eTag.startsWith("W/"))
+				.orElse(null);
+	}
+
+	private Optional<String> getResumableETag(Path partFile) {
+		if (!exists(partFile)) {
+			return Optional.empty();
+		}
+
+		return readEtag(partFile);
+	}
+
+	private long size(Path path) throws DownloadException {
+		try {
+			return Files.size(path);
+		} catch (IOException e) {
+			throw error(e, "Failed to read size of (%s)", path);
+		}
+	}
+
 	private InputStream decodeOutput(HttpResponse<InputStream> response) throws IOException {
 		final String encoding = response.headers().firstValue("Content-Encoding").orElse("");
 
@@ -352,10 +605,17 @@ public final class Download {
 		return true;
 	}
 
+	private String getExpectedHashAlgorithm() {
+		return expectedHash.substring(0, expectedHash.indexOf(':'));
+	}
+
+	private String getExpectedHashValue() {
+		return expectedHash.substring(expectedHash.indexOf(':') + 1);
+	}
+
 	private boolean isHashValid(Path path) {
-		int i = expectedHash.indexOf(':');
-		String algorithm = expectedHash.substring(0, i);
-		String hash = expectedHash.substring(i + 1);
+		String algorithm = getExpectedHashAlgorithm();
+		String hash = getExpectedHashValue();
 
 		try {
 			String computedHash = switch (algorithm) {
@@ -424,13 +684,30 @@ public final class Download {
 			// ignored
 		}
 
+		final Path partFile = getPartFile(output);
+
+		if (getResumableETag(partFile).isPresent()) {
+			// Keep the partial download so that the next attempt can resume it.
+			return;
+		}
+
+		tryDeletePartFile(partFile);
+	}
+
+	private static void tryDeletePartFile(Path partFile) {
 		try {
-			Files.deleteIfExists(getPartFile(output));
+			deletePartFile(partFile);
 		} catch (IOException ignored) {
 			// ignored
 		}
 	}
 
+	private static void deletePartFile(Path partFile) throws IOException {
+		Files.deleteIfExists(partFile);
+		// The etag may have been stored in a separate file if the file system does not support attributes.
+		AttributeHelper.deleteAttribute(partFile, E_TAG);
+	}
+
 	// A faster exists check
 	private static boolean exists(Path path) {
 		return path.getFileSystem() == FileSystems.getDefault() ? path.toFile().exists() : Files.exists(path);
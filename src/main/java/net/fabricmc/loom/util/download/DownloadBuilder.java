@@ -48,6 +48,7 @@ public class DownloadBuilder {
 	private int maxRetries = 3;
 	private boolean allowInsecureProtocol = false;
 	private HttpClient.Version httpVersion = HttpClient.Version.HTTP_2;
+	private int parallelChunks = 1;
 
 	private DownloadBuilder(URI url) {
 		this.url = url;
@@ -107,12 +108,24 @@ public class DownloadBuilder {
 		return this;
 	}
 
+	/**
+	 * Download large files in the given number of ranges at the same time, when supported by the server.
+	 */
+	public DownloadBuilder parallelChunks(int parallelChunks) {
+		if (parallelChunks < 1) {
+			throw new IllegalArgumentException("parallelChunks must be at least 1");
+		}
+
+		this.parallelChunks = parallelChunks;
+		return this;
+	}
+
 	private Download build(int downloadAttempt) {
 		if (!allowInsecureProtocol && !isSecureUrl(url)) {
 			throw new IllegalArgumentException("Cannot create download for url (%s) with insecure protocol".formatted(url.toString()));
 		}
 
-		return new Download(this.url, this.expectedHash, this.useEtag, this.forceDownload, this.offline, maxAge, progressListener, httpVersion, downloadAttempt);
+		return new Download(this.url, this.expectedHash, this.useEtag, this.forceDownload, this.offline, maxAge, progressListener, httpVersion, parallelChunks, downloadAttempt);
 	}
 
 	public void downloadPathAsync(Path path, DownloadExecutor executor) {
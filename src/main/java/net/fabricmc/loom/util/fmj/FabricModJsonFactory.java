@@ -46,7 +46,7 @@ import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.loom.util.gradle.SourceSetHelper;
 
 public final class FabricModJsonFactory {
-	private static final String FABRIC_MOD_JSON = "fabric.mod.json";
+	static final String FABRIC_MOD_JSON = "fabric.mod.json";
 
 	private FabricModJsonFactory() {
 	}
@@ -97,6 +97,26 @@ public final class FabricModJsonFactory {
 		return Optional.ofNullable(createFromZipNullable(zipPath));
 	}
 
+	/**
+	 * Reads the fabric.mod.json through the metadata index, avoiding opening the zip when it has been seen before.
+	 */
+	public static Optional<FabricModJson> createFromZipOptional(Path zipPath, ModMetadataIndex metadataIndex) {
+		final byte[] bytes;
+
+		try {
+			bytes = metadataIndex.get(zipPath).fabricModJson();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to read zip: " + zipPath, e);
+		}
+
+		if (bytes == null) {
+			return Optional.empty();
+		}
+
+		final JsonObject jsonObject = LoomGradlePlugin.GSON.fromJson(new String(bytes, StandardCharsets.UTF_8), JsonObject.class);
+		return Optional.of(create(jsonObject, new FabricModJsonSource.ZipSource(zipPath)));
+	}
+
 	public static FabricModJson createFromDirectory(Path directory) throws IOException {
 		final Path path = directory.resolve(FABRIC_MOD_JSON);
 
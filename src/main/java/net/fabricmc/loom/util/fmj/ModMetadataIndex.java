@@ -0,0 +1,255 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.fmj;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.gradle.api.Project;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.fabricmc.loom.LoomGradleExtension;
+import net.fabricmc.loom.util.Checksum;
+import net.fabricmc.loom.util.Constants;
+import net.fabricmc.loom.util.ZipIndex;
+
+/**
+ * An on disk index of the metadata files in mod jars, so that configuring a project does not have to open every mod jar again.
+ *
+ * <p>Entries are keyed by the path of the jar along with its size and modification time, reading the metadata files
+ * through the central directory is cheaper than hashing the whole jar.
+ *
+ * <p>The modification time of the index files is used as their last access time, files that have not been used for
+ * {@link #MAX_UNUSED_AGE} are deleted by {@link #cleanup()}.
+ */
+public final class ModMetadataIndex {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ModMetadataIndex.class);
+	private static final int MAGIC = 0x4C4D4D49; // LMMI
+	private static final int VERSION = 1;
+	private static final int NULL = -1;
+	private static final Duration MAX_UNUSED_AGE = Duration.ofDays(30);
+	// Limits how often the access times are updated and the index is cleaned up
+	private static final Duration ACCESS_INTERVAL = Duration.ofDays(1);
+	private static final String CLEANUP_MARKER = "last-cleanup";
+
+	public static final String INSTALLER_PATH = "fabric-installer.json";
+
+	private final Path root;
+	private final Path entriesDir;
+	private final Map<Path, Entry> entries = new ConcurrentHashMap<>();
+
+	public ModMetadataIndex(Path root) {
+		this.root = root;
+		this.entriesDir = root.resolve("entries");
+	}
+
+	public static ModMetadataIndex create(Project project) {
+		final var index = new ModMetadataIndex(LoomGradleExtension.get(project).getFiles().getUserCache().toPath().resolve("mod-metadata"));
+		index.cleanup();
+		return index;
+	}
+
+	/**
+	 * @param fabricModJson the contents of the fabric.mod.json file, or null when the jar is not a mod
+	 * @param manifest the contents of the jar manifest
+	 * @param installerJson the contents of the fabric-installer.json file
+	 */
+	public record Entry(byte @Nullable [] fabricModJson, byte @Nullable [] manifest, byte @Nullable [] installerJson) {
+		public static Entry read(Path jar) throws IOException {
+			final ZipIndex zip = ZipIndex.of(jar);
+			return new Entry(zip.read(FabricModJsonFactory.FABRIC_MOD_JSON), zip.read(Constants.Manifest.PATH), zip.read(INSTALLER_PATH));
+		}
+	}
+
+	public Entry get(Path jar) throws IOException {
+		final Path path = jar.toAbsolutePath().normalize();
+		final Entry existing = entries.get(path);
+
+		if (existing != null) {
+			return existing;
+		}
+
+		final Path entryPath = entriesDir.resolve(getKey(path) + ".bin");
+		Entry entry = readEntry(entryPath);
+
+		if (entry == null) {
+			final Entry jarEntry = Entry.read(path);
+			writeAtomically(entryPath, output -> writeEntry(output, jarEntry));
+			entry = jarEntry;
+		} else {
+			markUsed(entryPath);
+		}
+
+		entries.put(path, entry);
+		return entry;
+	}
+
+	private static String getKey(Path jar) throws IOException {
+		final BasicFileAttributes attributes = Files.readAttributes(jar, BasicFileAttributes.class);
+		final String key = jar + "\n" + attributes.size() + "\n" + attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+		return Checksum.sha1Hex(key.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Deletes the entries that have not been used recently, including the ones of previous versions of a jar, runs at most once a day.
+	 */
+	public void cleanup() {
+		final Path marker = root.resolve(CLEANUP_MARKER);
+		final long now = System.currentTimeMillis();
+
+		try {
+			if (Files.exists(marker) && now - Files.getLastModifiedTime(marker).toMillis() < ACCESS_INTERVAL.toMillis()) {
+				return;
+			}
+
+			if (Files.exists(marker)) {
+				Files.setLastModifiedTime(marker, FileTime.fromMillis(now));
+			} else {
+				Files.createDirectories(root);
+				Files.createFile(marker);
+			}
+		} catch (IOException e) {
+			LOGGER.debug("Failed to update {}", marker, e);
+			return;
+		}
+
+		deleteUnused(entriesDir, now);
+	}
+
+	private static void deleteUnused(Path dir, long now) {
+		if (Files.notExists(dir)) {
+			return;
+		}
+
+		try (Stream<Path> stream = Files.list(dir)) {
+			for (Path path : stream.toList()) {
+				try {
+					if (now - Files.getLastModifiedTime(path).toMillis() > MAX_UNUSED_AGE.toMillis()) {
+						Files.deleteIfExists(path);
+					}
+				} catch (IOException e) {
+					// Most likely deleted by another process
+					LOGGER.debug("Failed to delete {}", path, e);
+				}
+			}
+		} catch (IOException e) {
+			LOGGER.warn("Failed to clean up the mod metadata index in {}", dir, e);
+		}
+	}
+
+	private static void markUsed(Path path) {
+		try {
+			final long now = System.currentTimeMillis();
+
+			if (now - Files.getLastModifiedTime(path).toMillis() > ACCESS_INTERVAL.toMillis()) {
+				Files.setLastModifiedTime(path, FileTime.fromMillis(now));
+			}
+		} catch (IOException e) {
+			LOGGER.debug("Failed to update last access time of {}", path, e);
+		}
+	}
+
+	@Nullable
+	private static Entry readEntry(Path path) {
+		if (Files.notExists(path)) {
+			return null;
+		}
+
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+			if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+				return null;
+			}
+
+			return new Entry(readBytes(input), readBytes(input), readBytes(input));
+		} catch (IOException e) {
+			LOGGER.debug("Failed to read mod metadata index entry {}", path, e);
+			return null;
+		}
+	}
+
+	private static byte @Nullable [] readBytes(DataInputStream input) throws IOException {
+		final int length = input.readInt();
+		return length == NULL ? null : input.readNBytes(length);
+	}
+
+	private static void writeEntry(DataOutputStream output, Entry entry) throws IOException {
+		output.writeInt(MAGIC);
+		output.writeInt(VERSION);
+		writeBytes(output, entry.fabricModJson());
+		writeBytes(output, entry.manifest());
+		writeBytes(output, entry.installerJson());
+	}
+
+	private static void writeBytes(DataOutputStream output, byte @Nullable [] bytes) throws IOException {
+		if (bytes == null) {
+			output.writeInt(NULL);
+			return;
+		}
+
+		output.writeInt(bytes.length);
+		output.write(bytes);
+	}
+
+	// Other builds may be reading the index at the same time, so never expose a partially written file.
+	private static void writeAtomically(Path path, Writer writer) {
+		try {
+			Files.createDirectories(path.getParent());
+			final Path tempFile = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+
+			try {
+				try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+					writer.write(output);
+				}
+
+				Files.move(tempFile, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} finally {
+				Files.deleteIfExists(tempFile);
+			}
+		} catch (IOException e) {
+			LOGGER.warn("Failed to write mod metadata index entry {}", path, e);
+		}
+	}
+
+	@FunctionalInterface
+	private interface Writer {
+		void write(DataOutputStream output) throws IOException;
+	}
+}
@@ -78,4 +78,18 @@ public final class GradleUtils {
 	public static boolean getBooleanProperty(Project project, String key) {
 		return getBooleanPropertyProvider(project, key).getOrElse(false);
 	}
+
+	public static int getIntegerProperty(Project project, String key, int defaultValue) {
+		final Object value = project.findProperty(key);
+
+		if (value instanceof String str) {
+			try {
+				return Integer.parseInt(str.trim());
+			} catch (final NumberFormatException ex) {
+				throw new IllegalArgumentException("Property %s must be an integer, but was: %s".formatted(key, str), ex);
+			}
+		}
+
+		return defaultValue;
+	}
 }
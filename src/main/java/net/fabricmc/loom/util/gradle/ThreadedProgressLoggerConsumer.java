@@ -26,15 +26,17 @@ package net.fabricmc.loom.util.gradle;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
-import java.util.function.Consumer;
 
 import org.gradle.api.Project;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.internal.logging.progress.ProgressLogger;
 import org.gradle.internal.logging.progress.ProgressLoggerFactory;
 
-public class ThreadedProgressLoggerConsumer implements Consumer<String>, AutoCloseable {
+import net.fabricmc.loom.util.ipc.IPCServer;
+
+public class ThreadedProgressLoggerConsumer implements IPCServer.Handler, AutoCloseable {
 	public static final String CLOSE_LOGGERS = "LOOM_CLOSE_LOGGERS";
 
 	private final Project project;
@@ -44,6 +46,7 @@ public class ThreadedProgressLoggerConsumer implements Consumer<String>, AutoClo
 	private final ProgressLoggerFactory progressLoggerFactory;
 	private final ProgressLogger progressGroup;
 	private final Map<String, ProgressLogger> loggers = Collections.synchronizedMap(new HashMap<>());
+	private int lastPercentage = -1;
 
 	public ThreadedProgressLoggerConsumer(Project project, String name, String desc) {
 		this.project = project;
@@ -74,6 +77,24 @@ public class ThreadedProgressLoggerConsumer implements Consumer<String>, AutoClo
 		loggers.computeIfAbsent(id, this::createLogger).progress(data);
 	}
 
+	@Override
+	public void progress(long id, String status, int done, int total) {
+		loggers.computeIfAbsent(Long.toString(id), this::createLogger).progress(status);
+
+		if (total <= 0) {
+			return;
+		}
+
+		final int percentage = (int) (done * 100L / total);
+
+		synchronized (progressGroup) {
+			if (percentage != lastPercentage) {
+				lastPercentage = percentage;
+				progressGroup.progress(String.format(Locale.ENGLISH, "%d/%d classes (%d%%)", done, total, percentage));
+			}
+		}
+	}
+
 	private ProgressLogger createLogger(String id) {
 		ProgressLogger progressLogger = progressLoggerFactory.newOperation(getClass(), progressGroup);
 		progressLogger.setDescription(desc);
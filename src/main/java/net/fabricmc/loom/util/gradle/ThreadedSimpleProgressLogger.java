@@ -26,12 +26,51 @@ package net.fabricmc.loom.util.gradle;
 
 import java.io.IOException;
 import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import net.fabricmc.loom.util.IOStringConsumer;
+import net.fabricmc.loom.util.ipc.IPCClient;
+
+/**
+ * Sends the status of each decompiler thread as progress, counting the classes that the decompiler has started.
+ */
+public final class ThreadedSimpleProgressLogger implements IOStringConsumer {
+	private static final String DECOMPILING = "Decompiling ";
+
+	private final IPCClient client;
+	private final Set<String> startedClasses = ConcurrentHashMap.newKeySet();
+	private final AtomicInteger totalClasses = new AtomicInteger();
+
+	public ThreadedSimpleProgressLogger(IPCClient client) {
+		this.client = client;
+	}
+
+	public void addTotalClasses(int classes) {
+		totalClasses.addAndGet(classes);
+	}
 
-public record ThreadedSimpleProgressLogger(IOStringConsumer parent) implements IOStringConsumer {
 	@Override
 	public void accept(String data) throws IOException {
-		parent.accept(String.format(Locale.ENGLISH, "%d::%s", Thread.currentThread().getId(), data));
+		final long id = Thread.currentThread().getId();
+
+		if (data.equals(ThreadedProgressLoggerConsumer.CLOSE_LOGGERS)) {
+			client.accept(String.format(Locale.ENGLISH, "%d::%s", id, data));
+			return;
+		}
+
+		if (data.startsWith(DECOMPILING)) {
+			startedClasses.add(getTopLevelClass(data.substring(DECOMPILING.length())));
+		}
+
+		final int total = totalClasses.get();
+		client.progress(id, data, Math.min(startedClasses.size(), total), total);
+	}
+
+	private static String getTopLevelClass(String className) {
+		final int innerClassSeparator = className.indexOf('$');
+		final String topLevelClass = innerClassSeparator < 0 ? className : className.substring(0, innerClassSeparator);
+		return topLevelClass.replace('.', '/');
 	}
 }
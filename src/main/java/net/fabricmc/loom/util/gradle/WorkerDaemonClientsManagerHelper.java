@@ -24,8 +24,12 @@
 
 package net.fabricmc.loom.util.gradle;
 
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -34,9 +38,14 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import org.gradle.api.Transformer;
 import org.gradle.workers.internal.DaemonForkOptions;
 import org.gradle.workers.internal.WorkerDaemonClientsManager;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class WorkerDaemonClientsManagerHelper {
 	public static final String MARKER_PROP = "fabric.loom.decompile.worker";
+	private static final Logger LOGGER = LoggerFactory.getLogger(WorkerDaemonClientsManagerHelper.class);
 
 	public static boolean stopIdleJVM(WorkerDaemonClientsManager manager, String jvmMarkerValue) {
 		AtomicBoolean stopped = new AtomicBoolean(false);
@@ -65,6 +74,79 @@ public class WorkerDaemonClientsManagerHelper {
 		return stopped.get();
 	}
 
+	static boolean isLowOnMemory() {
+		final MemoryInfo memoryInfo = MemoryInfo.read();
+		return memoryInfo != null && memoryInfo.available() < memoryInfo.total() / 10;
+	}
+
+	/**
+	 * @param total the physical memory in bytes
+	 * @param available the memory in bytes that can be used without swapping
+	 */
+	public record MemoryInfo(long total, long available) {
+		private static final Path MEMINFO = Path.of("/proc/meminfo");
+
+		@Nullable
+		static MemoryInfo read() {
+			if (Files.isReadable(MEMINFO)) {
+				try {
+					final MemoryInfo memoryInfo = parseMeminfo(Files.readAllLines(MEMINFO));
+
+					if (memoryInfo != null) {
+						return memoryInfo;
+					}
+				} catch (IOException e) {
+					LOGGER.debug("Failed to read {}", MEMINFO, e);
+				}
+			}
+
+			// The free memory reported by the OS excludes reclaimable caches, so most systems would always look low on memory.
+			// Instead check how much of the physical memory has been committed to the daemon heap.
+			if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean osBean) {
+				final long total = osBean.getTotalMemorySize();
+				final long committed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getCommitted();
+
+				if (total > 0) {
+					return new MemoryInfo(total, total - committed);
+				}
+			}
+
+			return null;
+		}
+
+		@VisibleForTesting
+		@Nullable
+		public static MemoryInfo parseMeminfo(List<String> lines) {
+			long total = -1;
+			long available = -1;
+
+			for (String line : lines) {
+				if (line.startsWith("MemTotal:")) {
+					total = parseKilobytes(line);
+				} else if (line.startsWith("MemAvailable:")) {
+					available = parseKilobytes(line);
+				}
+			}
+
+			if (total <= 0 || available < 0) {
+				// MemAvailable is missing on kernels older than 3.14
+				return null;
+			}
+
+			return new MemoryInfo(total, available);
+		}
+
+		private static long parseKilobytes(String line) {
+			final String[] parts = line.substring(line.indexOf(':') + 1).trim().split("\\s+");
+
+			try {
+				return Long.parseLong(parts[0]) * 1024;
+			} catch (NumberFormatException e) {
+				return -1;
+			}
+		}
+	}
+
 	private static DaemonForkOptions getForkOptions(Object /* WorkerDaemonClient */ client) {
 		try {
 			Method getForkOptionsMethod = client.getClass().getDeclaredMethod("getForkOptions");
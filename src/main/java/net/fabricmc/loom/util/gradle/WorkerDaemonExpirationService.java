@@ -0,0 +1,148 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.gradle;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.gradle.api.Project;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+import org.gradle.workers.internal.WorkerDaemonClientsManager;
+import org.jetbrains.annotations.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stops the worker JVMs that are kept alive for reuse once they have been idle for too long, or when the system is
+ * running low on memory.
+ *
+ * <p>The checks only run until the end of the build. When the build finishes the JVMs that have expired are stopped,
+ * the others are left running so that the next build can reuse them.
+ *
+ * <p>Add the following snippet to a task to use it:
+ * <pre>{@code
+ * @ServiceReference(WorkerDaemonExpirationService.NAME)
+ * abstract Property<WorkerDaemonExpirationService> getWorkerDaemonExpiration();
+ * }</pre>
+ */
+public abstract class WorkerDaemonExpirationService implements BuildService<BuildServiceParameters.None>, AutoCloseable {
+	public static final String NAME = "loomWorkerDaemonExpiration";
+	private static final Logger LOGGER = LoggerFactory.getLogger(WorkerDaemonExpirationService.class);
+	private static final long EXPIRATION_CHECK_INTERVAL_SECONDS = 30;
+
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		final Thread thread = new Thread(runnable, "Loom worker JVM expiration");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final Map<String, Expiration> expirations = new ConcurrentHashMap<>();
+
+	public static void register(Project project) {
+		project.getGradle().getSharedServices().registerIfAbsent(NAME, WorkerDaemonExpirationService.class, spec -> {
+		});
+	}
+
+	/**
+	 * Keeps the worker JVM alive so that it can be reused, and stops it once it has been idle for the given timeout,
+	 * or when the system is running low on memory.
+	 *
+	 * <p>Calling this again for the same JVM restarts the idle timeout.
+	 */
+	public void stopIdleJVMLater(WorkerDaemonClientsManager manager, String jvmMarkerValue, Duration idleTimeout) {
+		final Expiration expiration = new Expiration(manager, jvmMarkerValue, System.nanoTime() + idleTimeout.toNanos());
+		final Expiration previous = expirations.put(jvmMarkerValue, expiration);
+
+		if (previous != null) {
+			previous.cancel();
+		}
+
+		expiration.schedule();
+
+		if (WorkerDaemonClientsManagerHelper.isLowOnMemory()) {
+			LOGGER.info("Stopping worker JVM as the system is low on memory");
+			expiration.run();
+		}
+	}
+
+	@VisibleForTesting
+	public boolean isShutdown() {
+		return executor.isShutdown();
+	}
+
+	@Override
+	public void close() {
+		executor.shutdownNow();
+
+		for (Expiration expiration : List.copyOf(expirations.values())) {
+			expiration.run();
+		}
+
+		expirations.clear();
+	}
+
+	private final class Expiration implements Runnable {
+		private final WorkerDaemonClientsManager manager;
+		private final String jvmMarkerValue;
+		private final long expiresAt;
+		private ScheduledFuture<?> future;
+
+		private Expiration(WorkerDaemonClientsManager manager, String jvmMarkerValue, long expiresAt) {
+			this.manager = manager;
+			this.jvmMarkerValue = jvmMarkerValue;
+			this.expiresAt = expiresAt;
+		}
+
+		private synchronized void schedule() {
+			future = executor.scheduleWithFixedDelay(this, EXPIRATION_CHECK_INTERVAL_SECONDS, EXPIRATION_CHECK_INTERVAL_SECONDS, TimeUnit.SECONDS);
+		}
+
+		private synchronized void cancel() {
+			if (future != null) {
+				future.cancel(false);
+			}
+		}
+
+		@Override
+		public void run() {
+			if (System.nanoTime() < expiresAt && !WorkerDaemonClientsManagerHelper.isLowOnMemory()) {
+				return;
+			}
+
+			// Only stops the JVM when it is idle, otherwise try again on the next check
+			if (WorkerDaemonClientsManagerHelper.stopIdleJVM(manager, jvmMarkerValue)) {
+				LOGGER.info("Stopped worker JVM {}", jvmMarkerValue);
+				expirations.remove(jvmMarkerValue, this);
+				cancel();
+			}
+		}
+	}
+}
@@ -24,22 +24,52 @@
 
 package net.fabricmc.loom.util.ipc;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.UnixDomainSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import net.fabricmc.loom.util.IOStringConsumer;
 
+/**
+ * Batches frames and writes them to the server every flush interval, or once the batch grows too large.
+ * Only the latest progress of each thread since the last flush is sent, messages are always sent in order.
+ */
 public final class IPCClient implements IOStringConsumer, AutoCloseable {
+	private static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofMillis(100);
+	private static final int MAX_BATCH_SIZE = 64 * 1024;
+	private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(10);
+
 	private final Path path;
 	private final SocketChannel socketChannel;
+	private final ScheduledExecutorService flushExecutor;
+
+	private final ByteArrayOutputStream batch = new ByteArrayOutputStream();
+	private final Map<Long, byte[]> pendingProgress = new LinkedHashMap<>();
+	private IOException flushException;
 
 	public IPCClient(Path path) throws IOException {
+		this(path, DEFAULT_FLUSH_INTERVAL);
+	}
+
+	public IPCClient(Path path, Duration flushInterval) throws IOException {
 		this.path = path;
 		socketChannel = setupChannel();
+
+		flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "Loom IPC flush");
+			thread.setDaemon(true);
+			return thread;
+		});
+		flushExecutor.scheduleWithFixedDelay(this::scheduledFlush, flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
 	}
 
 	private SocketChannel setupChannel() throws IOException {
@@ -49,19 +79,102 @@ public final class IPCClient implements IOStringConsumer, AutoCloseable {
 
 	@Override
 	public void accept(String s) throws IOException {
-		synchronized (socketChannel) {
-			ByteBuffer buf = ByteBuffer.wrap((s + "\n").getBytes(StandardCharsets.UTF_8));
+		final byte[] frame = IPCProtocol.message(s);
+
+		synchronized (batch) {
+			checkFlushException();
+
+			// Queue the pending progress first so the server sees it before this message.
+			drainPendingProgress();
+			batch.writeBytes(frame);
+
+			if (batch.size() >= MAX_BATCH_SIZE) {
+				flush();
+			}
+		}
+	}
+
+	/**
+	 * Reports the progress of a thread, replacing any progress of the same thread that has not been sent yet.
+	 */
+	public void progress(long id, String status, int done, int total) throws IOException {
+		final byte[] frame = IPCProtocol.progress(id, status, done, total);
+
+		synchronized (batch) {
+			checkFlushException();
+			pendingProgress.put(id, frame);
+		}
+	}
+
+	public void flush() throws IOException {
+		synchronized (batch) {
+			drainPendingProgress();
+
+			if (batch.size() == 0) {
+				return;
+			}
+
+			final ByteBuffer buf = ByteBuffer.wrap(batch.toByteArray());
 
 			while (buf.hasRemaining()) {
 				socketChannel.write(buf);
 			}
+
+			batch.reset();
+		}
+	}
+
+	private void scheduledFlush() {
+		synchronized (batch) {
+			if (flushException != null) {
+				return;
+			}
+
+			try {
+				flush();
+			} catch (IOException e) {
+				flushException = e;
+			}
+		}
+	}
+
+	private void drainPendingProgress() {
+		for (byte[] frame : pendingProgress.values()) {
+			batch.writeBytes(frame);
+		}
+
+		pendingProgress.clear();
+	}
+
+	private void checkFlushException() throws IOException {
+		if (flushException != null) {
+			throw new IOException("Failed to send IPC messages", flushException);
 		}
 	}
 
 	@Override
 	public void close() throws Exception {
-		synchronized (socketChannel) {
-			socketChannel.close();
+		// Never interrupt the flush thread, an interrupted write would close the channel before the last messages are sent.
+		flushExecutor.shutdown();
+		boolean interrupted = false;
+
+		try {
+			flushExecutor.awaitTermination(CLOSE_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			interrupted = true;
+		}
+
+		synchronized (batch) {
+			try {
+				checkFlushException();
+				flush();
+			} finally {
+				socketChannel.close();
+
+				if (interrupted) {
+					Thread.currentThread().interrupt();
+				}
+			}
 		}
 	}
 }
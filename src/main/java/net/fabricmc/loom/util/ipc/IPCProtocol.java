@@ -0,0 +1,102 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.ipc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Each frame is written as {@code [int length][byte type][payload]}, where the length covers the type and the payload.
+ */
+final class IPCProtocol {
+	static final byte MESSAGE = 0;
+	// long id, int done, int total, UTF-8 status
+	static final byte PROGRESS = 1;
+
+	private static final int PROGRESS_HEADER_SIZE = Long.BYTES + Integer.BYTES * 2;
+
+	private IPCProtocol() {
+	}
+
+	static byte[] message(String message) {
+		final byte[] payload = message.getBytes(StandardCharsets.UTF_8);
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream(Integer.BYTES + 1 + payload.length);
+
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeInt(1 + payload.length);
+			out.writeByte(MESSAGE);
+			out.write(payload);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		return bytes.toByteArray();
+	}
+
+	static byte[] progress(long id, String status, int done, int total) {
+		final byte[] payload = status.getBytes(StandardCharsets.UTF_8);
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream(Integer.BYTES + 1 + PROGRESS_HEADER_SIZE + payload.length);
+
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeInt(1 + PROGRESS_HEADER_SIZE + payload.length);
+			out.writeByte(PROGRESS);
+			out.writeLong(id);
+			out.writeInt(done);
+			out.writeInt(total);
+			out.write(payload);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Reads the next frame and passes it to the handler, frames of an unknown type are skipped.
+	 */
+	static void read(DataInputStream in, IPCServer.Handler handler) throws IOException {
+		final int length = in.readInt();
+		final byte type = in.readByte();
+
+		if (type == MESSAGE) {
+			handler.accept(readString(in, length - 1));
+		} else if (type == PROGRESS) {
+			final long id = in.readLong();
+			final int done = in.readInt();
+			final int total = in.readInt();
+			handler.progress(id, readString(in, length - 1 - PROGRESS_HEADER_SIZE), done, total);
+		} else {
+			in.skipNBytes(length - 1);
+		}
+	}
+
+	private static String readString(DataInputStream in, int length) throws IOException {
+		return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+	}
+}
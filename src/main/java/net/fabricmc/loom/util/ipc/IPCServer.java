@@ -24,15 +24,19 @@
 
 package net.fabricmc.loom.util.ipc;
 
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.net.StandardProtocolFamily;
 import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
-import java.util.Scanner;
+import java.util.Locale;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -42,15 +46,18 @@ import java.util.function.Consumer;
 public class IPCServer implements AutoCloseable {
 	private final ExecutorService loggerReceiverService = Executors.newSingleThreadExecutor();
 	private final Path path;
-	private final Consumer<String> consumer;
+	private final Handler handler;
 
 	private final CountDownLatch startupLock = new CountDownLatch(1);
 
-	private boolean receivedMessage = false;
+	private volatile boolean receivedMessage = false;
 
+	/**
+	 * When the consumer is not a {@link Handler} progress frames are passed to it as {@code "id::status"} messages.
+	 */
 	public IPCServer(Path path, Consumer<String> consumer) {
 		this.path = path;
-		this.consumer = consumer;
+		this.handler = consumer instanceof Handler h ? h : consumer::accept;
 
 		loggerReceiverService.submit(this::run);
 
@@ -70,14 +77,17 @@ public class IPCServer implements AutoCloseable {
 			startupLock.countDown();
 
 			try (SocketChannel clientChannel = serverChannel.accept();
-					Scanner scanner = new Scanner(clientChannel, StandardCharsets.UTF_8)) {
+					DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(clientChannel)))) {
+				// Blocks until the next frame arrives, the read is interrupted by close.
 				while (!Thread.currentThread().isInterrupted()) {
-					if (scanner.hasNextLine()) {
-						receivedMessage = true;
-						this.consumer.accept(scanner.nextLine());
-					}
+					IPCProtocol.read(in, handler);
+					receivedMessage = true;
 				}
+			} catch (EOFException e) {
+				// The client has disconnected
 			}
+		} catch (ClosedChannelException e) {
+			// Interrupted by close
 		} catch (IOException e) {
 			throw new UncheckedIOException("Failed to listen for IPC messages", e);
 		}
@@ -96,4 +106,10 @@ public class IPCServer implements AutoCloseable {
 	public Path getPath() {
 		return path;
 	}
+
+	public interface Handler extends Consumer<String> {
+		default void progress(long id, String status, int done, int total) {
+			accept(String.format(Locale.ENGLISH, "%d::%s", id, status));
+		}
+	}
 }
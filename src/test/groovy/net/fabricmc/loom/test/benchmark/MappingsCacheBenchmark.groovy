@@ -0,0 +1,76 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package net.fabricmc.loom.test.benchmark
+
+import java.nio.file.Files
+
+import net.fabricmc.loom.configuration.providers.mappings.BinaryMappingsCache
+import net.fabricmc.loom.util.ZipUtils
+import net.fabricmc.loom.util.download.Download
+import net.fabricmc.mappingio.MappingReader
+import net.fabricmc.mappingio.tree.MemoryMappingTree
+
+/**
+ * Compares reading a yarn sized mappings file through the text parser against the binary mappings cache.
+ * Run this class, passing a working dir as the first argument and optionally the number of runs as the second.
+ */
+@Singleton
+class MappingsCacheBenchmark {
+	private static final String YARN_URL = "https://maven.fabricmc.net/net/fabricmc/yarn/1.20.4%2Bbuild.3/yarn-1.20.4%2Bbuild.3-mergedv2.jar"
+
+	def run(File dir, int runs) {
+		def jar = dir.toPath().resolve("yarn-mergedv2.jar")
+		Download.create(YARN_URL).downloadPath(jar)
+
+		def mappings = dir.toPath().resolve("mappings.tiny")
+		Files.write(mappings, ZipUtils.unpack(jar, "mappings/mappings.tiny"))
+		def cacheDir = dir.toPath().resolve("binary-mappings")
+		cacheDir.toFile().deleteDir()
+
+		// Writes the cache
+		time("Cache write") { BinaryMappingsCache.read(mappings, cacheDir) }
+
+		for (int i = 1; i <= runs; i++) {
+			time("Run $i text") {
+				def tree = new MemoryMappingTree()
+				MappingReader.read(mappings, tree)
+			}
+
+			time("Run $i binary") { BinaryMappingsCache.read(mappings, cacheDir) }
+		}
+	}
+
+	private static void time(String name, Closure closure) {
+		def start = System.nanoTime()
+		closure()
+		println("$name: ${(System.nanoTime() - start).intdiv(1_000_000)}ms")
+	}
+
+	static void main(String[] args) {
+		getInstance().run(new File(args[0]), args.length > 1 ? Integer.parseInt(args[1]) : 5)
+		System.exit(0)
+	}
+}
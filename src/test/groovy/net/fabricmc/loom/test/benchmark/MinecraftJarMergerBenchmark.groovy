@@ -0,0 +1,83 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package net.fabricmc.loom.test.benchmark
+
+import java.lang.management.ManagementFactory
+import java.lang.management.MemoryType
+
+import net.fabricmc.loom.configuration.providers.minecraft.MinecraftJarMerger
+import net.fabricmc.loom.configuration.providers.minecraft.MinecraftVersionMeta
+import net.fabricmc.loom.test.util.MinecraftTestUtils
+import net.fabricmc.loom.util.download.Download
+
+/**
+ * Merges a real client and server jar, reporting the wall time and peak heap usage of each run.
+ * Run this class, passing a working dir as the first argument and optionally the number of runs as the second.
+ * The first run is a warm up and the jars are only downloaded once.
+ */
+@Singleton
+class MinecraftJarMergerBenchmark {
+	// The last version that does not use a bundled server jar
+	private static final String VERSION = "1.17.1"
+
+	def run(File dir, int runs) {
+		def meta = MinecraftTestUtils.getVersionMeta(VERSION)
+		def client = download(meta.download("client"), new File(dir, "client.jar"))
+		def server = download(meta.download("server"), new File(dir, "server.jar"))
+		def output = new File(dir, "merged.jar")
+
+		def heapPools = ManagementFactory.memoryPoolMXBeans.findAll { it.type == MemoryType.HEAP }
+
+		for (int i = 0; i <= runs; i++) {
+			System.gc()
+			heapPools.each { it.resetPeakUsage() }
+
+			def start = System.nanoTime()
+
+			new MinecraftJarMerger(client, server, output).withCloseable {
+				it.enableSyntheticParamsOffset()
+				it.merge()
+			}
+
+			def duration = (System.nanoTime() - start).intdiv(1_000_000)
+			def peakHeap = heapPools.sum { it.peakUsage.used }.intdiv(1024 * 1024)
+
+			println("${i == 0 ? "Warm up" : "Run $i"}: ${duration}ms, peak heap ${peakHeap}MiB")
+		}
+	}
+
+	private static File download(MinecraftVersionMeta.Download download, File file) {
+		Download.create(download.url())
+				.sha1(download.sha1())
+				.downloadPath(file.toPath())
+		return file
+	}
+
+	static void main(String[] args) {
+		getInstance().run(new File(args[0]), args.length > 1 ? Integer.parseInt(args[1]) : 5)
+		System.exit(0)
+	}
+}
@@ -0,0 +1,93 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.benchmark
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+import net.fabricmc.loom.util.FileSystemUtil
+import net.fabricmc.loom.util.ZipIndex
+
+/**
+ * Compares probing jars for their fabric.mod.json and manifest through a zip file system against the central directory index.
+ * Run this class, passing a directory of sample jars as the first argument and optionally the number of runs as the second.
+ * The first run reads every index, later runs reuse the cached indexes as a build would.
+ */
+@Singleton
+class ZipIndexBenchmark {
+	private static final String FABRIC_MOD_JSON = "fabric.mod.json"
+	private static final String MANIFEST = "META-INF/MANIFEST.MF"
+
+	def run(File dir, int runs) {
+		def jars = Files.list(dir.toPath()).withCloseable { stream ->
+			stream.filter { it.toString().endsWith(".jar") }.toList()
+		}
+
+		println("Probing ${jars.size()} jars")
+
+		for (int i = 1; i <= runs; i++) {
+			time("Run $i zipfs") {
+				jars.each { probeZipFs(it) }
+			}
+
+			time("Run $i index") {
+				jars.each { probeIndex(it) }
+			}
+		}
+	}
+
+	private static void probeZipFs(Path jar) {
+		FileSystemUtil.getJarFileSystem(jar, false).withCloseable { fs ->
+			if (Files.exists(fs.getPath(FABRIC_MOD_JSON))) {
+				Files.readAllBytes(fs.getPath(FABRIC_MOD_JSON))
+			}
+
+			if (Files.exists(fs.getPath(MANIFEST))) {
+				Files.readAllBytes(fs.getPath(MANIFEST))
+			}
+		}
+	}
+
+	private static void probeIndex(Path jar) {
+		def index = ZipIndex.of(jar)
+
+		if (index.contains(FABRIC_MOD_JSON)) {
+			index.read(FABRIC_MOD_JSON)
+		}
+
+		index.read(MANIFEST)
+	}
+
+	private static void time(String name, Closure closure) {
+		def start = System.nanoTime()
+		closure()
+		println("$name: ${(System.nanoTime() - start).intdiv(1_000_000)}ms")
+	}
+
+	static void main(String[] args) {
+		getInstance().run(new File(args[0]), args.length > 1 ? Integer.parseInt(args[1]) : 5)
+		System.exit(0)
+	}
+}
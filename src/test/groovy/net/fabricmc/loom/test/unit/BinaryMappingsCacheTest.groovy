@@ -0,0 +1,175 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.configuration.providers.mappings.BinaryMappingsCache
+import net.fabricmc.mappingio.MappingReader
+import net.fabricmc.mappingio.adapter.MappingSourceNsSwitch
+import net.fabricmc.mappingio.format.tiny.Tiny2FileWriter
+import net.fabricmc.mappingio.tree.MappingTreeView
+import net.fabricmc.mappingio.tree.MemoryMappingTree
+
+class BinaryMappingsCacheTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	@TempDir
+	Path cacheDir
+
+	def "round trip"() {
+		given:
+		def mappings = tempDir.resolve("mappings.tiny")
+		Files.writeString(mappings, MAPPINGS)
+		def expected = new MemoryMappingTree()
+		MappingReader.read(mappings, expected)
+
+		when:
+		def first = BinaryMappingsCache.read(mappings, cacheDir)
+		def second = BinaryMappingsCache.read(mappings, cacheDir)
+
+		then:
+		BinaryMappingsCache.getCachePath(mappings, cacheDir) != null
+		Files.list(tempDir).toList() == [mappings]
+		write(first) == write(expected)
+		write(second) == write(expected)
+	}
+
+	def "multiple passes"() {
+		given:
+		def mappings = tempDir.resolve("mappings.tiny")
+		Files.writeString(mappings, MAPPINGS)
+		def expected = new MemoryMappingTree()
+		MappingReader.read(mappings, new MappingSourceNsSwitch(expected, "intermediary"))
+
+		when:
+		// Create the cache first so that the second read goes through it
+		BinaryMappingsCache.read(mappings, cacheDir)
+		def switched = new MemoryMappingTree()
+		BinaryMappingsCache.read(mappings, cacheDir, new MappingSourceNsSwitch(switched, "intermediary"))
+
+		then:
+		write(switched) == write(expected)
+		switched.getClass("class_1").getMethod("method_1", "(Lclass_1;)V") != null
+	}
+
+	def "shared by mappings with the same contents"() {
+		given:
+		def mappings = tempDir.resolve("mappings.tiny")
+		def copy = tempDir.resolve("copy.tiny")
+		Files.writeString(mappings, MAPPINGS)
+		Files.writeString(copy, MAPPINGS)
+
+		when:
+		BinaryMappingsCache.read(mappings, cacheDir)
+
+		then:
+		BinaryMappingsCache.getCachePath(copy, cacheDir) == BinaryMappingsCache.getCachePath(mappings, cacheDir)
+	}
+
+	def "read without a cache"() {
+		given:
+		def mappings = tempDir.resolve("mappings.tiny")
+		Files.writeString(mappings, MAPPINGS)
+		def expected = new MemoryMappingTree()
+		MappingReader.read(mappings, expected)
+
+		when:
+		def tree = BinaryMappingsCache.read(mappings, null)
+
+		then:
+		write(tree) == write(expected)
+		Files.list(tempDir).toList() == [mappings]
+	}
+
+	def "invalidated when the mappings change"() {
+		given:
+		def mappings = tempDir.resolve("mappings.tiny")
+		Files.writeString(mappings, MAPPINGS)
+		BinaryMappingsCache.read(mappings, cacheDir)
+
+		when:
+		Files.writeString(mappings, MAPPINGS.replace("doThing", "doOtherThing"))
+		def tree = BinaryMappingsCache.read(mappings, cacheDir)
+
+		then:
+		tree.getClass("a").getMethod("b", "(La;)V").getName("named") == "doOtherThing"
+	}
+
+	def "recreated when the cache is corrupt"() {
+		given:
+		def mappings = tempDir.resolve("mappings.tiny")
+		Files.writeString(mappings, MAPPINGS)
+		def expected = new MemoryMappingTree()
+		MappingReader.read(mappings, expected)
+
+		BinaryMappingsCache.read(mappings, cacheDir)
+		def cachePath = BinaryMappingsCache.getCachePath(mappings, cacheDir)
+		def cache = Files.readAllBytes(cachePath)
+
+		when:
+		Files.write(cachePath, corrupt(cache))
+		def tree = BinaryMappingsCache.read(mappings, cacheDir)
+
+		then:
+		write(tree) == write(expected)
+		Files.readAllBytes(BinaryMappingsCache.getCachePath(mappings, cacheDir)) == cache
+
+		where:
+		corrupt << [
+			{ byte[] bytes -> Arrays.copyOf(bytes, bytes.length.intdiv(2)) },
+			{ byte[] bytes -> bytes[bytes.length - 10] = (byte) (bytes[bytes.length - 10] ^ 0xFF); bytes },
+			{ byte[] bytes -> new byte[0] }
+		]
+	}
+
+	private static String write(MappingTreeView tree) {
+		def writer = new StringWriter()
+		tree.accept(new Tiny2FileWriter(writer, false))
+		return writer.toString()
+	}
+
+	// Uses tabs, so cannot use a multiline string
+	private static final String MAPPINGS = [
+		"tiny\t2\t0\tofficial\tintermediary\tnamed",
+		"c\ta\tclass_1\tnet/example/Foo",
+		"\tc\tA comment",
+		"\tf\tI\ta\tfield_1\tbar",
+		"\t\tc\tfield comment",
+		"\tm\t(La;)V\tb\tmethod_1\tdoThing",
+		"\t\tp\t1\t\targ_1\tother",
+		"\t\t\tc\targ comment",
+		"\t\tv\t2\t5\t0\t\tlocal_1\tlocal",
+		"c\tb\tclass_2\tnet/example/Bar",
+		"\tm\t()V\tc\tmethod_2\trun",
+		""
+	].join("\n")
+}
@@ -0,0 +1,187 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Path
+import java.util.zip.ZipFile
+
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.decompilers.ClassHashIndex
+import net.fabricmc.loom.util.Pair
+import net.fabricmc.loom.util.ZipUtils
+
+class ClassHashIndexTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	def "changed classes"() {
+		given:
+		def previous = createIndex([
+			"a/A.class": createClass("a/A", 1),
+			"a/A\$Inner.class": createClass("a/A\$Inner", 1),
+			"a/B.class": createClass("a/B", 1),
+			"a/C.class": createClass("a/C", 1),
+			"test.txt": "test"
+		])
+		def current = createIndex([
+			"a/A.class": createClass("a/A", 1),
+			"a/A\$Inner.class": createClass("a/A\$Inner", 2),
+			"a/B.class": createClass("a/B", 1, ["helper": Opcodes.ACC_PRIVATE]),
+			"a/C.class": createClass("a/C", 1),
+			"test.txt": "test"
+		])
+
+		expect:
+		current.getChangedClasses(previous) == ["a/A", "a/B"] as Set
+		current.getChangedClasses(current) == [] as Set
+	}
+
+	def "changes that affect other classes"() {
+		given:
+		def previous = createIndex([
+			"a/A.class": createClass("a/A", 1),
+			"a/A\$Inner.class": createClass("a/A\$Inner", 1),
+			"a/B.class": createClass("a/B", 1)
+		])
+
+		expect:
+		createIndex(current).getChangedClasses(previous) == null
+
+		where:
+		current << [
+			// Non private method added
+			[
+				"a/A.class": createClass("a/A", 1, ["added": Opcodes.ACC_PUBLIC]),
+				"a/A\$Inner.class": createClass("a/A\$Inner", 1),
+				"a/B.class": createClass("a/B", 1)
+			],
+			// Non private method added to an inner class
+			[
+				"a/A.class": createClass("a/A", 1),
+				"a/A\$Inner.class": createClass("a/A\$Inner", 1, ["added": 0]),
+				"a/B.class": createClass("a/B", 1)
+			],
+			// Class added
+			[
+				"a/A.class": createClass("a/A", 1),
+				"a/A\$Inner.class": createClass("a/A\$Inner", 1),
+				"a/B.class": createClass("a/B", 1),
+				"a/C.class": createClass("a/C", 1)
+			],
+			// Class removed
+			[
+				"a/A.class": createClass("a/A", 1),
+				"a/A\$Inner.class": createClass("a/A\$Inner", 1)
+			]
+		]
+	}
+
+	def "changed resources or key"() {
+		given:
+		def previous = createIndex(["a/A.class": "A", "test.txt": "test"])
+
+		expect:
+		createIndex(["a/A.class": "A", "test.txt": "changed"]).getChangedClasses(previous) == null
+		createIndex(["a/A.class": "A", "test.txt": "test"], "other").getChangedClasses(previous) == null
+	}
+
+	def "read and write"() {
+		given:
+		def index = createIndex(["a/A.class": "A", "a/B.class": "B"])
+		def path = tempDir.resolve("index.bin")
+
+		when:
+		index.write(path)
+		def read = ClassHashIndex.read(path)
+
+		then:
+		read.getChangedClasses(index) == [] as Set
+		ClassHashIndex.read(tempDir.resolve("missing.bin")) == null
+	}
+
+	def "split jar"() {
+		given:
+		def jar = createJar([
+			"a/A.class": "A",
+			"a/A\$Inner.class": "A inner",
+			"a/B.class": "B",
+			"test.txt": "test"
+		])
+		def selected = tempDir.resolve("selected.jar")
+		def remaining = tempDir.resolve("remaining.jar")
+
+		when:
+		def count = ClassHashIndex.splitJar(jar, ["a/A"] as Set, selected, remaining)
+
+		then:
+		count == 2
+		entries(selected) == ["a/A.class", "a/A\$Inner.class"] as Set
+		entries(remaining) == ["a/B.class"] as Set
+	}
+
+	private ClassHashIndex createIndex(Map<String, Object> entries, String key = "key") {
+		return ClassHashIndex.create(createJar(entries), key)
+	}
+
+	private Path createJar(Map<String, Object> entries) {
+		def jar = tempDir.resolve("${UUID.randomUUID()}.jar")
+		ZipUtils.add(jar, entries.collect { new Pair<>(it.key, it.value instanceof byte[] ? it.value : it.value.toString().bytes) })
+		return jar
+	}
+
+	// A class with a method returning the given value, along with any extra native methods with the given access
+	private static byte[] createClass(String name, int value, Map<String, Integer> extraMethods = [:]) {
+		def writer = new ClassWriter(0)
+		writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null)
+
+		def method = writer.visitMethod(Opcodes.ACC_PUBLIC, "value", "()I", null, null)
+		method.visitCode()
+		method.visitLdcInsn(value)
+		method.visitInsn(Opcodes.IRETURN)
+		method.visitMaxs(1, 1)
+		method.visitEnd()
+
+		extraMethods.each { methodName, access ->
+			writer.visitMethod(access | Opcodes.ACC_NATIVE, methodName, "()V", null, null).visitEnd()
+		}
+
+		writer.visitEnd()
+		return writer.toByteArray()
+	}
+
+	private static Set<String> entries(Path jar) {
+		def zipFile = new ZipFile(jar.toFile())
+
+		try {
+			return zipFile.entries().collect { it.name } as Set
+		} finally {
+			zipFile.close()
+		}
+	}
+}
@@ -0,0 +1,90 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.util.ContentAddressedCache
+
+class ContentAddressedCacheTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	def "put and copy"() {
+		given:
+		def cache = new ContentAddressedCache(tempDir.resolve("cache"), 1024 * 1024)
+		def input = tempDir.resolve("input.jar")
+		def output = tempDir.resolve("output/output.jar")
+		Files.writeString(input, "hello world")
+		def key = ContentAddressedCache.key("test", "1")
+
+		when:
+		def missed = cache.copyTo(key, "test.jar", output)
+		cache.put(key, ["test.jar": input])
+		def hit = cache.copyTo(key, "test.jar", output)
+
+		then:
+		!missed
+		hit
+		Files.readString(output) == "hello world"
+		cache.get(ContentAddressedCache.key("test", "2"), "test.jar") == null
+	}
+
+	def "evicts least recently used"() {
+		given:
+		def cache = new ContentAddressedCache(tempDir.resolve("cache"), 15)
+		def input = tempDir.resolve("input.jar")
+		Files.writeString(input, "0123456789")
+
+		when:
+		cache.put("a", ["test.jar": input])
+		// Make sure a is older than b
+		Thread.sleep(50)
+		cache.put("b", ["test.jar": input])
+
+		then:
+		cache.get("a", "test.jar") == null
+		cache.get("b", "test.jar") != null
+	}
+
+	def "disabled"() {
+		given:
+		def cache = new ContentAddressedCache(tempDir.resolve("cache"), 0)
+		def input = tempDir.resolve("input.jar")
+		Files.writeString(input, "hello world")
+
+		when:
+		cache.put("a", ["test.jar": input])
+
+		then:
+		!cache.isEnabled()
+		cache.get("a", "test.jar") == null
+	}
+}
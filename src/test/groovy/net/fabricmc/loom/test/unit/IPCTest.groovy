@@ -25,6 +25,7 @@
 package net.fabricmc.loom.test.unit
 
 import java.nio.file.Files
+import java.time.Duration
 import java.util.function.Consumer
 
 import spock.lang.Specification
@@ -63,4 +64,50 @@ class IPCTest extends Specification {
 		received[0] == "Test"
 		received[1] == "Hello"
 	}
+
+	def "ipc progress"() {
+		given:
+		def path = Files.createTempFile("loom", "ipc")
+		Files.deleteIfExists(path)
+
+		def received = [].asSynchronized()
+		def handler = new IPCServer.Handler() {
+					@Override
+					void accept(String str) {
+						received << str
+					}
+
+					@Override
+					void progress(long id, String status, int done, int total) {
+						received << "$id:$status:$done/$total".toString()
+					}
+				}
+
+		when:
+		def ipcServer = new IPCServer(path, handler)
+
+		// Use a long flush interval so that everything is sent when the client is closed
+		new IPCClient(path, Duration.ofMinutes(1)).withCloseable { client ->
+			client.accept("Start")
+
+			for (int i = 0; i < 100; i++) {
+				client.progress(1, "Decompiling $i", i, 100)
+			}
+
+			client.progress(2, "Decompiling other", 1, 100)
+			client.accept("End")
+		}
+
+		// Allow ipcServer to finish reading, before closing.
+		while (received.size() != 4) { }
+		ipcServer.close()
+
+		then:
+		received == [
+			"Start",
+			"1:Decompiling 99:99/100",
+			"2:Decompiling other:1/100",
+			"End"
+		]
+	}
 }
@@ -0,0 +1,145 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.zip.ZipEntry
+import java.util.zip.ZipFile
+import java.util.zip.ZipOutputStream
+
+import org.objectweb.asm.ClassReader
+import org.objectweb.asm.ClassVisitor
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Label
+import org.objectweb.asm.MethodVisitor
+import org.objectweb.asm.Opcodes
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.decompilers.LineMapWriter
+import net.fabricmc.loom.decompilers.LineNumberRemapper
+
+class LineNumberRemapperTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	def "remap binary line map"() {
+		given:
+		def linemap = tempDir.resolve("linemap.bin")
+		new LineMapWriter(linemap).withCloseable {
+			it.write("test/Example", [10, 5, 20, 8, 15, 7, 20, 9] as int[])
+		}
+
+		expect:
+		remap(linemap) == [0, 5, 5, 7, 9, 9, 9, 9]
+	}
+
+	def "remap text line map"() {
+		given:
+		def linemap = tempDir.resolve("linemap.txt")
+		linemap.text = "test/Example\t20\t9\n\t10\t5\n\t20\t8\n\t15\t7\n\t20\t9\n"
+
+		expect:
+		remap(linemap) == [0, 5, 5, 7, 9, 9, 9, 9]
+	}
+
+	def "remap text line map with a class in more than one block"() {
+		given:
+		def linemap = tempDir.resolve("linemap.txt")
+		linemap.text = "test/Example\t18\t8\n\t10\t5\n\t20\t8\n" +
+				"test/Other\t5\t5\n\t1\t1\n" +
+				"test/Example\t20\t9\n\t15\t7\n\t20\t9\n"
+
+		expect:
+		remap(linemap) == [0, 5, 5, 7, 9, 9, 9, 9]
+	}
+
+	private List<Integer> remap(Path linemap) {
+		def input = tempDir.resolve("input.jar")
+		def output = tempDir.resolve("output.jar")
+
+		new ZipOutputStream(Files.newOutputStream(input)).withCloseable { zip ->
+			zip.putNextEntry(new ZipEntry("test/"))
+			zip.closeEntry()
+			zip.putNextEntry(new ZipEntry("test/Example\$Inner.class"))
+			zip.write(createClass([0, 3, 10, 11, 16, 19, 20, 25]))
+			zip.closeEntry()
+			zip.putNextEntry(new ZipEntry("test.txt"))
+			zip.write("test".bytes)
+			zip.closeEntry()
+		}
+
+		def remapper = new LineNumberRemapper()
+		remapper.readMappings(linemap)
+		remapper.process(null, input, output, 2)
+
+		def zipFile = new ZipFile(output.toFile())
+
+		try {
+			assert zipFile.entries().collect { it.name } == ["test/", "test/Example\$Inner.class", "test.txt"]
+			assert zipFile.getInputStream(zipFile.getEntry("test.txt")).text == "test"
+			return readLines(zipFile.getInputStream(zipFile.getEntry("test/Example\$Inner.class")).bytes)
+		} finally {
+			zipFile.close()
+		}
+	}
+
+	private static byte[] createClass(List<Integer> lines) {
+		def writer = new ClassWriter(0)
+		writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, "test/Example\$Inner", null, "java/lang/Object", null)
+		def method = writer.visitMethod(Opcodes.ACC_PUBLIC, "test", "()V", null, null)
+		method.visitCode()
+
+		for (int line : lines) {
+			def label = new Label()
+			method.visitLabel(label)
+			method.visitLineNumber(line, label)
+			method.visitInsn(Opcodes.NOP)
+		}
+
+		method.visitInsn(Opcodes.RETURN)
+		method.visitMaxs(0, 1)
+		method.visitEnd()
+		writer.visitEnd()
+		return writer.toByteArray()
+	}
+
+	private static List<Integer> readLines(byte[] bytes) {
+		def lines = []
+		new ClassReader(bytes).accept(new ClassVisitor(Opcodes.ASM9) {
+					@Override
+					MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+						return new MethodVisitor(Opcodes.ASM9) {
+									@Override
+									void visitLineNumber(int line, Label start) {
+										lines << line
+									}
+								}
+					}
+				}, 0)
+		return lines
+	}
+}
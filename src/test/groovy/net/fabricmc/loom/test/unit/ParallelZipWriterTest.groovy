@@ -0,0 +1,149 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.ZoneId
+import java.util.zip.CRC32
+import java.util.zip.ZipEntry
+import java.util.zip.ZipException
+import java.util.zip.ZipFile
+import java.util.zip.ZipOutputStream
+
+import spock.lang.Specification
+
+import net.fabricmc.loom.util.ParallelZipWriter
+
+class ParallelZipWriterTest extends Specification {
+	def "same output as ZipOutputStream"() {
+		given:
+		def currentTimezone = TimeZone.getDefault()
+		TimeZone.setDefault(TimeZone.getTimeZone(ZoneId.of(timezone)))
+
+		def random = new Random(42)
+		def entries = (0..<500).collect { i ->
+			def name = i % 10 == 0 ? "dir$i/" : "dir${i - i % 10}/file$i.txt"
+			def data = new byte[name.endsWith("/") ? 0 : random.nextInt(10000)]
+			data.eachWithIndex { _, j -> data[j] = (byte) (random.nextInt(4) + j % 16) }
+			// Includes times before 1980, which are stored as an extended timestamp
+			def time = [315532800000L, 1700000000000L, 0L][i % 3]
+			def method = i % 4 == 0 ? ZipEntry.STORED : ZipEntry.DEFLATED
+			[name, time, method, data]
+		}
+
+		def expected = Files.createTempFile("loom-zip-test", ".zip")
+		def actual = Files.createTempFile("loom-zip-test", ".zip")
+
+		when:
+		writeZipOutputStream(expected, entries)
+
+		new ParallelZipWriter(actual, 4).withCloseable { writer ->
+			entries.each { name, time, method, data ->
+				writer.putEntry(name, time, method, data)
+			}
+		}
+
+		TimeZone.setDefault(currentTimezone)
+
+		then:
+		Files.readAllBytes(actual) == Files.readAllBytes(expected)
+
+		where:
+		timezone 			| _
+		"UTC" 				| _
+		"Australia/Sydney" 	| _
+		"Etc/GMT+9" 		| _
+	}
+
+	def "zip64 entry count"() {
+		given:
+		// More entries than fit in the end of central directory record
+		def entries = (0..<70000).collect { i ->
+			[
+				"entry$i.txt",
+				315532800000L,
+				ZipEntry.DEFLATED,
+				"Entry $i".bytes
+			]
+		}
+
+		def expected = Files.createTempFile("loom-zip-test", ".zip")
+		def actual = Files.createTempFile("loom-zip-test", ".zip")
+
+		when:
+		writeZipOutputStream(expected, entries)
+
+		new ParallelZipWriter(actual).withCloseable { writer ->
+			entries.each { name, time, method, data ->
+				writer.putEntry(name, time, method, data)
+			}
+		}
+
+		then:
+		Files.readAllBytes(actual) == Files.readAllBytes(expected)
+
+		new ZipFile(actual.toFile()).withCloseable { zipFile ->
+			assert zipFile.size() == 70000
+			assert zipFile.getInputStream(zipFile.getEntry("entry69999.txt")).bytes == "Entry 69999".bytes
+		}
+	}
+
+	def "duplicate entry"() {
+		given:
+		def zip = Files.createTempFile("loom-zip-test", ".zip")
+
+		when:
+		new ParallelZipWriter(zip).withCloseable { writer ->
+			writer.putEntry("test.txt", ParallelZipWriter.UNKNOWN_TIME, ZipEntry.DEFLATED, "a".bytes)
+			writer.putEntry("test.txt", ParallelZipWriter.UNKNOWN_TIME, ZipEntry.DEFLATED, "b".bytes)
+		}
+
+		then:
+		def e = thrown(ZipException)
+		e.message == "duplicate entry: test.txt"
+	}
+
+	private static void writeZipOutputStream(Path zip, List<List> entries) {
+		new ZipOutputStream(Files.newOutputStream(zip)).withCloseable { output ->
+			entries.each { name, time, method, data ->
+				def entry = new ZipEntry(name as String)
+				entry.time = time as long
+				entry.method = method as int
+
+				if (method == ZipEntry.STORED) {
+					def crc = new CRC32()
+					crc.update(data as byte[])
+					entry.crc = crc.value
+					entry.size = (data as byte[]).length
+				}
+
+				output.putNextEntry(entry)
+				output.write(data as byte[])
+				output.closeEntry()
+			}
+		}
+	}
+}
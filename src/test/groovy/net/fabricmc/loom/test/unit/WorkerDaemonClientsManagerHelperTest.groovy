@@ -0,0 +1,81 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.time.Duration
+
+import org.gradle.workers.internal.WorkerDaemonClientsManager
+import spock.lang.Specification
+
+import net.fabricmc.loom.util.gradle.WorkerDaemonClientsManagerHelper
+import net.fabricmc.loom.util.gradle.WorkerDaemonExpirationService
+
+import static org.mockito.ArgumentMatchers.any
+import static org.mockito.Mockito.atLeastOnce
+import static org.mockito.Mockito.mock
+import static org.mockito.Mockito.spy
+import static org.mockito.Mockito.verify
+
+class WorkerDaemonClientsManagerHelperTest extends Specification {
+	def "parse meminfo"() {
+		when:
+		def memoryInfo = WorkerDaemonClientsManagerHelper.MemoryInfo.parseMeminfo([
+			"MemTotal:       16318412 kB",
+			"MemFree:          512000 kB",
+			"MemAvailable:    8159206 kB",
+			"Buffers:          102400 kB",
+		])
+
+		then:
+		memoryInfo.total() == 16318412L * 1024
+		memoryInfo.available() == 8159206L * 1024
+	}
+
+	def "parse meminfo without MemAvailable"() {
+		when:
+		def memoryInfo = WorkerDaemonClientsManagerHelper.MemoryInfo.parseMeminfo([
+			"MemTotal:       16318412 kB",
+			"MemFree:          512000 kB",
+		])
+
+		then:
+		memoryInfo == null
+	}
+
+	def "expiration checks stop at the end of the build"() {
+		given:
+		def service = spy(WorkerDaemonExpirationService.class)
+		def manager = mock(WorkerDaemonClientsManager.class)
+
+		when:
+		service.stopIdleJVMLater(manager, "test", Duration.ZERO)
+		service.close()
+
+		then:
+		service.shutdown
+		// The expired JVM is stopped when the build finishes
+		verify(manager, atLeastOnce()).selectIdleClientsToStop(any())
+	}
+}
@@ -0,0 +1,148 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+import java.nio.file.attribute.FileTime
+import java.time.Instant
+import java.util.zip.CRC32
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.util.ZipIndex
+
+import static net.fabricmc.loom.test.util.ZipTestUtils.createZip
+
+class ZipIndexTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	def "contains"() {
+		given:
+		def zip = createZip(["fabric.mod.json": "{}", "META-INF/MANIFEST.MF": "Manifest-Version: 1.0"])
+
+		when:
+		def index = ZipIndex.of(zip)
+
+		then:
+		index.contains("fabric.mod.json")
+		index.contains("/fabric.mod.json")
+		index.contains("META-INF")
+		index.contains("META-INF/")
+		index.contains("META-INF/MANIFEST.MF")
+		!index.contains("META")
+		!index.contains("installer.json")
+	}
+
+	def "read deflated and stored entries"() {
+		given:
+		def zip = tempDir.resolve("test.jar")
+		def stored = "stored".bytes
+		def crc = new CRC32()
+		crc.update(stored)
+
+		new ZipOutputStream(Files.newOutputStream(zip)).withCloseable { out ->
+			out.putNextEntry(new ZipEntry("deflated.txt"))
+			out.write(("hello " * 1000).bytes)
+			out.closeEntry()
+
+			def entry = new ZipEntry("stored.txt")
+			entry.method = ZipEntry.STORED
+			entry.size = stored.length
+			entry.crc = crc.value
+			out.putNextEntry(entry)
+			out.write(stored)
+			out.closeEntry()
+
+			out.comment = "A zip comment"
+		}
+
+		when:
+		def index = ZipIndex.of(zip)
+
+		then:
+		index.names == ["deflated.txt", "stored.txt"]
+		new String(index.read("deflated.txt")) == "hello " * 1000
+		new String(index.read("stored.txt")) == "stored"
+		index.read("missing.txt") == null
+	}
+
+	def "cached until the zip changes"() {
+		given:
+		def zip = createZip(["a.txt": "a"])
+
+		when:
+		def index = ZipIndex.of(zip)
+		def cached = ZipIndex.of(zip)
+		Files.move(createZip(["b.txt": "bb"]), zip, StandardCopyOption.REPLACE_EXISTING)
+		def changed = ZipIndex.of(zip)
+
+		then:
+		cached.is(index)
+		changed.names == ["b.txt"]
+		new String(changed.read("b.txt")) == "bb"
+	}
+
+	def "not cached when the zip changes within the same millisecond"() {
+		given:
+		def zip = createZip(["a.txt": "a"])
+		def time = Instant.parse("2024-01-01T00:00:00.000100Z")
+		Files.setLastModifiedTime(zip, FileTime.from(time))
+
+		when:
+		def index = ZipIndex.of(zip)
+		// Rewrite the same file, so that only the contents and modification time change
+		zip.bytes = createZip(["b.txt": "b"]).bytes
+		Files.setLastModifiedTime(zip, FileTime.from(time.plusNanos(500_000)))
+		def changed = ZipIndex.of(zip)
+
+		then:
+		// Only checked when the file system keeps the time to better than a millisecond
+		Files.getLastModifiedTime(zip).toInstant() != time.plusNanos(500_000) || !changed.is(index)
+		Files.getLastModifiedTime(zip).toInstant() != time.plusNanos(500_000) || changed.names == ["b.txt"]
+	}
+
+	def "least recently used indexes are dropped"() {
+		given:
+		def zip = createZip(["a.txt": "a"])
+		def zips = (0..<512).collect { createZip(["${it}.txt": "${it}"]) }
+
+		when:
+		def index = ZipIndex.of(zip)
+		def first = ZipIndex.of(zips[0])
+		// Using the index again keeps it in the cache
+		ZipIndex.of(zip)
+		zips.drop(1).each { ZipIndex.of(it) }
+
+		then:
+		ZipIndex.of(zip).is(index)
+		!ZipIndex.of(zips[0]).is(first)
+	}
+}
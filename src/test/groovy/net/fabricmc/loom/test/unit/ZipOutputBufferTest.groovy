@@ -0,0 +1,208 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.util.zip.ZipEntry
+import java.util.zip.ZipFile
+import java.util.zip.ZipOutputStream
+
+import com.google.gson.JsonObject
+import org.gradle.api.tasks.bundling.ZipEntryCompression
+import spock.lang.Specification
+
+import net.fabricmc.loom.util.ZipOutputBuffer
+import net.fabricmc.loom.util.ZipReprocessorUtil
+import net.fabricmc.loom.util.ZipUtils
+
+class ZipOutputBufferTest extends Specification {
+	def "write sorted"() {
+		given:
+		def zip = Files.createTempFile("loom-zip-test", ".zip")
+		def output = new ZipOutputBuffer()
+
+		when:
+		output.put("b.txt", "b".bytes)
+		output.accept("net/fabricmc/Test", "class".bytes)
+		output.put("META-INF/MANIFEST.MF", "Manifest-Version: 1.0\n".bytes)
+		output.put("a.txt", "a".bytes)
+		output.write(zip, true, false, ZipEntryCompression.DEFLATED)
+
+		def names = new ZipFile(zip.toFile()).withCloseable { it.entries().collect { it.name } }
+
+		then:
+		names == [
+			"META-INF/MANIFEST.MF",
+			"META-INF/",
+			"a.txt",
+			"b.txt",
+			"net/",
+			"net/fabricmc/",
+			"net/fabricmc/Test.class"
+		]
+		ZipUtils.unpack(zip, "net/fabricmc/Test.class") == "class".bytes
+	}
+
+	def "write in insertion order"() {
+		given:
+		def zip = Files.createTempFile("loom-zip-test", ".zip")
+		def output = new ZipOutputBuffer()
+
+		when:
+		output.put("b.txt", "b".bytes)
+		output.accept("net/fabricmc/Test", "class".bytes)
+		output.put("a.txt", "a".bytes)
+		output.replace("b.txt", "B".bytes)
+		output.write(zip, false, false, ZipEntryCompression.DEFLATED)
+
+		def names = new ZipFile(zip.toFile()).withCloseable { it.entries().collect { it.name } }
+
+		then:
+		names == [
+			"b.txt",
+			"net/",
+			"net/fabricmc/",
+			"net/fabricmc/Test.class",
+			"a.txt"
+		]
+		ZipUtils.unpack(zip, "b.txt") == "B".bytes
+	}
+
+	def "directories use the entry compression and constant time"() {
+		given:
+		def zip = Files.createTempFile("loom-zip-test", ".zip")
+		def output = new ZipOutputBuffer()
+
+		when:
+		output.put("dir/test.txt", "hello world".bytes)
+		output.write(zip, true, true, ZipEntryCompression.DEFLATED)
+
+		def entries = new ZipFile(zip.toFile()).withCloseable { it.entries().toList() }
+
+		then:
+		entries.every { it.method == ZipEntry.DEFLATED }
+		entries.every { it.time == new GregorianCalendar(1980, Calendar.JANUARY, 1, 0, 0, 0).timeInMillis }
+	}
+
+	// Compares against how ZipReprocessorUtil.reprocessZip used to rewrite the remapped jar with a ZipOutputStream
+	def "same output as reprocessing with ZipOutputStream"() {
+		given:
+		def random = new Random(42)
+		def files = (0..<200).collectEntries { i ->
+			def data = new byte[i % 7 == 0 ? 0 : random.nextInt(10000)]
+			data.eachWithIndex { _, j -> data[j] = (byte) (random.nextInt(4) + j % 16) }
+			["net/fabricmc/pkg${i % 5}/Class$i.class".toString(), data]
+		}
+		files["META-INF/MANIFEST.MF"] = "Manifest-Version: 1.0\n".bytes
+		files["fabric.mod.json"] = "{}".bytes
+
+		def expected = Files.createTempFile("loom-zip-test", ".zip")
+		def actual = Files.createTempFile("loom-zip-test", ".zip")
+
+		def constantTime = new GregorianCalendar(1980, Calendar.JANUARY, 1, 0, 0, 0).timeInMillis
+		def output = new ZipOutputBuffer()
+
+		when:
+		def sorted = new TreeMap<String, byte[]>(ZipReprocessorUtil.&specialOrdering as Comparator<String>)
+
+		files.each { String name, byte[] data ->
+			sorted[name] = data
+
+			for (int index = name.lastIndexOf('/'); index > 0; index = name.lastIndexOf('/', index - 1)) {
+				sorted.putIfAbsent(name.substring(0, index + 1), new byte[0])
+			}
+		}
+
+		new ZipOutputStream(Files.newOutputStream(expected)).withCloseable { zos ->
+			sorted.each { name, data ->
+				def entry = new ZipEntry(name)
+				entry.time = constantTime
+				entry.method = ZipEntry.DEFLATED
+				zos.putNextEntry(entry)
+				zos.write(data)
+				zos.closeEntry()
+			}
+		}
+
+		files.each { String name, byte[] data -> output.put(name, data) }
+		output.write(actual, true, false, ZipEntryCompression.DEFLATED)
+
+		then:
+		Files.readAllBytes(actual) == Files.readAllBytes(expected)
+	}
+
+	def "write stored"() {
+		given:
+		def zip = Files.createTempFile("loom-zip-test", ".zip")
+		def output = new ZipOutputBuffer()
+
+		when:
+		output.put("test.txt", "hello world".bytes)
+		output.write(zip, true, false, ZipEntryCompression.STORED)
+
+		then:
+		ZipUtils.unpack(zip, "test.txt") == "hello world".bytes
+	}
+
+	def "transform"() {
+		given:
+		def dir = Files.createTempDirectory("loom-zip-test")
+		def input = Files.createTempFile("loom-zip-test", ".zip")
+		def zip = Files.createTempFile("loom-zip-test", ".zip")
+		Files.writeString(dir.resolve("test.txt"), "hello world")
+		Files.writeString(dir.resolve("test.json"), '{"test": 1}')
+		ZipUtils.pack(dir, input)
+
+		def output = new ZipOutputBuffer()
+
+		when:
+		output.copyFrom(input) { true }
+		def transformed = output.transform(["test.txt": { new String(it, StandardCharsets.UTF_8).toUpperCase().bytes } as ZipUtils.UnsafeUnaryOperator])
+		def transformedJson = output.transformJson(JsonObject.class, ["test.json": { JsonObject json ->
+				json.addProperty("added", true)
+				return json
+			} as ZipUtils.UnsafeUnaryOperator])
+		output.write(zip, true, false, ZipEntryCompression.DEFLATED)
+
+		then:
+		transformed == 1
+		transformedJson == 1
+		ZipUtils.unpack(zip, "test.txt") == "HELLO WORLD".bytes
+		ZipUtils.unpackGson(zip, "test.json", JsonObject.class).get("added").asBoolean
+	}
+
+	def "replace missing"() {
+		given:
+		def output = new ZipOutputBuffer()
+
+		when:
+		output.replace("missing.txt", "nope".bytes)
+
+		then:
+		thrown(IOException)
+	}
+}
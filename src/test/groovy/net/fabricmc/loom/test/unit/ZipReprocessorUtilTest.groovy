@@ -0,0 +1,115 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.zip.CRC32
+import java.util.zip.ZipEntry
+import java.util.zip.ZipFile
+import java.util.zip.ZipOutputStream
+
+import org.gradle.api.tasks.bundling.ZipEntryCompression
+import spock.lang.Specification
+
+import net.fabricmc.loom.util.ZipReprocessorUtil
+
+class ZipReprocessorUtilTest extends Specification {
+	def "copy raw entries"() {
+		given:
+		def normal = createZip(method)
+		def raw = createZip(method)
+
+		when:
+		ZipReprocessorUtil.reprocessZip(normal, true, preserveFileTimestamps, ZipEntryCompression.DEFLATED, false)
+		ZipReprocessorUtil.reprocessZip(raw, true, preserveFileTimestamps, ZipEntryCompression.DEFLATED, true)
+
+		then:
+		readZip(raw) == readZip(normal)
+		readZip(raw).keySet().toList() == [
+			"META-INF/MANIFEST.MF",
+			"META-INF/TEST.SF",
+			"a.txt",
+			"b/",
+			"b/c.txt"
+		]
+
+		where:
+		method            | preserveFileTimestamps
+		ZipEntry.STORED   | false
+		ZipEntry.STORED   | true
+		ZipEntry.DEFLATED | false
+		ZipEntry.DEFLATED | true
+	}
+
+	def "copy raw entries is reproducible"() {
+		given:
+		def first = createZip(ZipEntry.DEFLATED)
+		Thread.sleep(2000) // The MS-DOS time has a 2 second resolution
+		def second = createZip(ZipEntry.DEFLATED)
+
+		when:
+		ZipReprocessorUtil.reprocessZip(first, true, false, ZipEntryCompression.DEFLATED, true)
+		ZipReprocessorUtil.reprocessZip(second, true, false, ZipEntryCompression.DEFLATED, true)
+
+		then:
+		Files.readAllBytes(first) == Files.readAllBytes(second)
+	}
+
+	private static Path createZip(int method) {
+		def zip = Files.createTempFile("loom-zip-test", ".zip")
+
+		new ZipOutputStream(Files.newOutputStream(zip)).withCloseable { output ->
+			output.setMethod(method)
+
+			["b/c.txt", "a.txt", "b/", "META-INF/TEST.SF", "META-INF/MANIFEST.MF"].each { name ->
+				def data = name.endsWith("/") ? new byte[0] : "Contents of $name".repeat(20).bytes
+				def entry = new ZipEntry(name)
+
+				if (method == ZipEntry.STORED) {
+					def crc = new CRC32()
+					crc.update(data)
+					entry.crc = crc.value
+					entry.size = data.length
+				}
+
+				output.putNextEntry(entry)
+				output.write(data)
+				output.closeEntry()
+			}
+		}
+
+		return zip
+	}
+
+	// Returns the method, time and contents of each entry in order
+	private static Map<String, List> readZip(Path zip) {
+		new ZipFile(zip.toFile()).withCloseable { zipFile ->
+			zipFile.entries().toList().collectEntries { entry ->
+				[(entry.name): [entry.method, entry.time, zipFile.getInputStream(entry).bytes.toList()]]
+			}
+		}
+	}
+}
@@ -0,0 +1,185 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package net.fabricmc.loom.test.unit.download
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+
+import io.javalin.http.HttpStatus
+import spock.lang.TempDir
+
+import net.fabricmc.loom.util.Checksum
+import net.fabricmc.loom.util.download.BatchDownload
+import net.fabricmc.loom.util.download.DownloadException
+import net.fabricmc.loom.util.download.DownloadProgressListener
+
+class BatchDownloadTest extends DownloadTest {
+	@TempDir
+	Path tempDir
+
+	def "Batch: Download"() {
+		setup:
+		int requestCount = 0
+
+		server.get("/batch/{name}") {
+			it.result(it.pathParam("name"))
+			requestCount++
+		}
+
+		when:
+		def downloaded = createBatch(200).download()
+
+		then:
+		downloaded == 200
+		requestCount == 200
+		Files.readString(tempDir.resolve("objects/1/object-1")) == "object-1"
+		Files.readString(tempDir.resolve("objects/0/object-150")) == "object-150"
+	}
+
+	def "Batch: Only missing files are downloaded"() {
+		setup:
+		int requestCount = 0
+
+		server.get("/batch/{name}") {
+			it.result(it.pathParam("name"))
+			requestCount++
+		}
+
+		when:
+		createBatch(100).download()
+
+		// Simulate an interrupted sync, a missing file, a truncated file and a file left locked by Download
+		Files.delete(tempDir.resolve("objects/2/object-2"))
+		Files.writeString(tempDir.resolve("objects/3/object-3"), "obj")
+		Files.createFile(tempDir.resolve("objects/4/object-4.lock"))
+
+		def downloaded = createBatch(100).download()
+
+		then:
+		downloaded == 3
+		requestCount == 103
+		Files.readString(tempDir.resolve("objects/2/object-2")) == "object-2"
+		Files.readString(tempDir.resolve("objects/3/object-3")) == "object-3"
+		Files.notExists(tempDir.resolve("objects/4/object-4.lock"))
+	}
+
+	def "Batch: Invalid hash"() {
+		setup:
+		server.get("/batch/{name}") {
+			it.result("Not the expected content")
+		}
+
+		when:
+		new BatchDownload(tempDir)
+				.add("$PATH/batch/object", sha1("object"), 6, "object")
+				.download()
+
+		then:
+		thrown DownloadException
+		Files.notExists(tempDir.resolve("object"))
+		Files.notExists(tempDir.resolve("object.part"))
+	}
+
+	def "Batch: Not found"() {
+		setup:
+		server.get("/batch/{name}") {
+			it.status(HttpStatus.NOT_FOUND)
+		}
+
+		when:
+		new BatchDownload(tempDir)
+				.add("$PATH/batch/object", sha1("object"), 6, "object")
+				.download()
+
+		then:
+		def e = thrown DownloadException
+		e.suppressed.length == 1
+		(e.suppressed[0] as DownloadException).statusCode == 404
+	}
+
+	def "Batch: Files shared by several entries are downloaded once"() {
+		setup:
+		int requestCount = 0
+
+		server.get("/batch/{name}") {
+			// Fail the first attempt, to check that the retry is not counted twice
+			it.result(requestCount++ == 0 ? "wrong content" : it.pathParam("name"))
+		}
+
+		def progress = []
+		def listener = new DownloadProgressListener() {
+			@Override
+			void onStart() {
+			}
+
+			@Override
+			void onProgress(long bytesTransferred, long contentLength) {
+				progress << [bytesTransferred, contentLength]
+			}
+
+			@Override
+			void onEnd() {
+			}
+		}
+
+		when:
+		def downloaded = new BatchDownload(tempDir)
+				.add("$PATH/batch/object", sha1("object"), 6, "objects/object")
+				.add("$PATH/batch/object", sha1("object"), 6, "objects/object")
+				.progress(listener)
+				.download()
+
+		then:
+		downloaded == 1
+		requestCount == 2
+		progress.last() == [6L, 6L]
+		Files.readString(tempDir.resolve("objects/object")) == "object"
+	}
+
+	def "Batch: Offline"() {
+		when:
+		createBatch(1).offline().download()
+
+		then:
+		thrown DownloadException
+	}
+
+	private BatchDownload createBatch(int count) {
+		def batch = new BatchDownload(tempDir)
+
+		for (i in 0..<count) {
+			def name = "object-$i"
+			batch.add("$PATH/batch/$name", sha1(name), name.length(), "objects/${i % 5}/$name")
+		}
+
+		return batch
+	}
+
+	private static String sha1(String string) {
+		return Checksum.sha1Hex(string.getBytes(StandardCharsets.UTF_8))
+	}
+}
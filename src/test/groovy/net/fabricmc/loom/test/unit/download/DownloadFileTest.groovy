@@ -33,6 +33,7 @@ import java.time.Instant
 import io.javalin.http.HttpStatus
 import spock.lang.IgnoreIf
 
+import net.fabricmc.loom.util.AttributeHelper
 import net.fabricmc.loom.util.Checksum
 import net.fabricmc.loom.util.download.Download
 import net.fabricmc.loom.util.download.DownloadException
@@ -406,6 +407,112 @@ class DownloadFileTest extends DownloadTest {
 		Files.readAllBytes(output) == data
 	}
 
+	def "File: Resume partial download"() {
+		setup:
+		byte[] data = new byte[1024 * 1024]
+		new Random().nextBytes(data)
+		def etag = "\"resume\""
+		def ranges = []
+
+		server.get("/resumeFile") {
+			def range = it.req.getHeader("Range")
+			it.header("ETag", etag)
+
+			if (range != null && it.req.getHeader("If-Range") == etag) {
+				int start = Integer.parseInt(range.substring("bytes=".length(), range.indexOf('-')))
+				ranges.add(start)
+				it.status(206)
+				it.header("Content-Range", "bytes $start-${data.length - 1}/${data.length}")
+				it.result(Arrays.copyOfRange(data, start, data.length))
+				return
+			}
+
+			it.result(data)
+		}
+
+		def output = new File(File.createTempDir(), "file").toPath()
+		def partFile = output.resolveSibling("file.part")
+		Files.write(partFile, Arrays.copyOf(data, 1000))
+		AttributeHelper.writeAttribute(partFile, "ETag", etag)
+
+		when:
+		Download.create("$PATH/resumeFile")
+				.sha1(Checksum.sha1Hex(data))
+				.downloadPath(output)
+
+		then:
+		ranges == [1000]
+		Files.readAllBytes(output) == data
+		!Files.exists(partFile)
+	}
+
+	def "File: Resume with changed file"() {
+		setup:
+		byte[] data = new byte[1024]
+		new Random().nextBytes(data)
+		def ranges = 0
+
+		server.get("/resumeChangedFile") {
+			if (it.req.getHeader("Range") != null) {
+				ranges++
+			}
+
+			// The etag does not match, so the whole file is returned.
+			it.header("ETag", "\"new\"")
+			it.result(data)
+		}
+
+		def output = new File(File.createTempDir(), "file").toPath()
+		def partFile = output.resolveSibling("file.part")
+		Files.write(partFile, new byte[100])
+		AttributeHelper.writeAttribute(partFile, "ETag", "\"old\"")
+
+		when:
+		Download.create("$PATH/resumeChangedFile")
+				.sha1(Checksum.sha1Hex(data))
+				.downloadPath(output)
+
+		then:
+		ranges == 1
+		Files.readAllBytes(output) == data
+	}
+
+	def "File: Parallel chunks"() {
+		setup:
+		byte[] data = new byte[1024 * 1024 * 10] // 10MB
+		new Random().nextBytes(data)
+		def rangeRequests = Collections.synchronizedList([])
+
+		server.get("/chunkedFile") {
+			def range = it.req.getHeader("Range")
+			it.header("Accept-Ranges", "bytes")
+			it.header("ETag", "\"chunked\"")
+
+			if (range != null) {
+				def (start, end) = range.substring("bytes=".length()).split("-").collect { Integer.parseInt(it) }
+				rangeRequests.add(start)
+				it.status(206)
+				it.header("Content-Range", "bytes $start-$end/${data.length}")
+				it.result(Arrays.copyOfRange(data, start, end + 1))
+				return
+			}
+
+			it.result(data)
+		}
+
+		def output = new File(File.createTempDir(), "file").toPath()
+
+		when:
+		Download.create("$PATH/chunkedFile")
+				.sha1(Checksum.sha1Hex(data))
+				.parallelChunks(2)
+				.downloadPath(output)
+
+		then:
+		rangeRequests == [1024 * 1024 * 5]
+		Files.readAllBytes(output) == data
+	}
+
 	def "File: Insecure protocol"() {
 		setup:
 		def output = new File(File.createTempDir(), "file").toPath()
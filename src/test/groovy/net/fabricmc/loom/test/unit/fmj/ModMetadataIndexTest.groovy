@@ -0,0 +1,126 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit.fmj
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+import java.nio.file.attribute.FileTime
+import java.time.Duration
+import java.time.Instant
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.util.fmj.FabricModJsonFactory
+import net.fabricmc.loom.util.fmj.ModMetadataIndex
+
+import static net.fabricmc.loom.test.util.ZipTestUtils.createZip
+import static net.fabricmc.loom.test.util.ZipTestUtils.manifest
+
+class ModMetadataIndexTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	def "read metadata"() {
+		given:
+		def zip = createZip([
+			"fabric.mod.json": '{"schemaVersion": 1, "id": "test"}',
+			"META-INF/MANIFEST.MF": manifest("Fabric-Loom-Remap", "true")
+		])
+
+		when:
+		def entry = new ModMetadataIndex(tempDir).get(zip)
+
+		then:
+		new String(entry.fabricModJson()) == '{"schemaVersion": 1, "id": "test"}'
+		new String(entry.manifest()).contains("Fabric-Loom-Remap: true")
+		entry.installerJson() == null
+	}
+
+	def "reuse entries from disk"() {
+		given:
+		def zip = createZip(["fabric.mod.json": '{"schemaVersion": 1, "id": "test"}'])
+		new ModMetadataIndex(tempDir).get(zip)
+
+		when:
+		def entry = new ModMetadataIndex(tempDir).get(zip)
+		def mod = FabricModJsonFactory.createFromZipOptional(zip, new ModMetadataIndex(tempDir))
+
+		then:
+		entry.fabricModJson() != null
+		mod.get().id == "test"
+		Files.list(tempDir.resolve("entries")).count() == 1
+	}
+
+	def "read a changed jar again"() {
+		given:
+		def zip = createZip(["fabric.mod.json": '{"schemaVersion": 1, "id": "test"}'])
+		new ModMetadataIndex(tempDir).get(zip)
+
+		when:
+		Files.copy(createZip(["fabric.mod.json": '{"schemaVersion": 1, "id": "changed"}']), zip, StandardCopyOption.REPLACE_EXISTING)
+		Files.setLastModifiedTime(zip, FileTime.fromMillis(System.currentTimeMillis() + 10_000))
+		def mod = FabricModJsonFactory.createFromZipOptional(zip, new ModMetadataIndex(tempDir))
+
+		then:
+		mod.get().id == "changed"
+		// The entry of the previous version is left for the cleanup
+		Files.list(tempDir.resolve("entries")).count() == 2
+	}
+
+	def "delete unused entries"() {
+		given:
+		def zip = createZip(["fabric.mod.json": '{"schemaVersion": 1, "id": "test"}'])
+		def other = createZip(["fabric.mod.json": '{"schemaVersion": 1, "id": "other"}'])
+		new ModMetadataIndex(tempDir).get(zip)
+		def zipEntry = Files.list(tempDir.resolve("entries")).toList().first()
+		new ModMetadataIndex(tempDir).get(other)
+
+		// Pretend that the first jar was last used a long time ago
+		Files.setLastModifiedTime(zipEntry, FileTime.from(Instant.now().minus(Duration.ofDays(60))))
+		def index = new ModMetadataIndex(tempDir)
+
+		when:
+		index.cleanup()
+		def mod = FabricModJsonFactory.createFromZipOptional(other, new ModMetadataIndex(tempDir))
+
+		then:
+		mod.get().id == "other"
+		Files.notExists(zipEntry)
+		Files.list(tempDir.resolve("entries")).count() == 1
+	}
+
+	def "jar without a mod"() {
+		given:
+		def zip = createZip(["test.txt": "hello"])
+
+		when:
+		def mod = FabricModJsonFactory.createFromZipOptional(zip, new ModMetadataIndex(tempDir))
+
+		then:
+		mod.isEmpty()
+	}
+}
@@ -24,11 +24,19 @@
 
 package net.fabricmc.loom.test.unit.processor
 
+import java.nio.file.Files
+
+import org.objectweb.asm.ClassReader
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
 import spock.lang.Specification
 
+import net.fabricmc.loom.api.processor.ProcessorContext
 import net.fabricmc.loom.api.processor.SpecContext
 import net.fabricmc.loom.configuration.processors.MinecraftJarProcessorManager
+import net.fabricmc.loom.test.util.processor.TestClassJarProcessor
 import net.fabricmc.loom.test.util.processor.TestMinecraftJarProcessor
+import net.fabricmc.loom.util.ZipUtils
 
 class MinecraftJarProcessorManagerTest extends Specification {
 	def "Cache value matches"() {
@@ -59,4 +67,53 @@ class MinecraftJarProcessorManagerTest extends Specification {
 		manager1.jarHash == "a714eb2de6"
 		manager2.jarHash == "eb6faafa72"
 	}
+
+	def "Cache key is based on the spec contents"() {
+		when:
+		def specContext = Mock(SpecContext)
+
+		def manager1 = MinecraftJarProcessorManager.create([new TestMinecraftJarProcessor(input: "Test1")], specContext)
+		def manager2 = MinecraftJarProcessorManager.create([new TestMinecraftJarProcessor(input: "Test1")], specContext)
+		def manager3 = MinecraftJarProcessorManager.create([new TestMinecraftJarProcessor(input: "Test2")], specContext)
+		def manager4 = MinecraftJarProcessorManager.create([new TestMinecraftJarProcessor(input: "Test1"), new TestClassJarProcessor(className: "test/Example", interfaceName: "test/First")], specContext)
+
+		then:
+		manager1.cacheKey == manager2.cacheKey
+		manager1.cacheKey != manager3.cacheKey
+		// Specs without a cache key are not shared
+		manager4.cacheKey == null
+	}
+
+	def "Cache key follows the order the processors are applied in"() {
+		when:
+		def specContext = Mock(SpecContext)
+
+		def processor1 = new TestMinecraftJarProcessor(input: "Test1")
+		def processor2 = new TestMinecraftJarProcessor(input: "Test2")
+		def manager1 = MinecraftJarProcessorManager.create([processor1, processor2], specContext)
+		def manager2 = MinecraftJarProcessorManager.create([processor2, processor1], specContext)
+
+		then:
+		manager1.cacheKey != manager2.cacheKey
+	}
+
+	def "Class processors are fused"() {
+		given:
+		def jar = Files.createTempDirectory("loom-test").resolve("test.jar")
+		def writer = new ClassWriter(0)
+		writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, "test/Example", null, "java/lang/Object", null)
+		writer.visitEnd()
+		ZipUtils.add(jar, "test/Example.class", writer.toByteArray())
+
+		def processor1 = new TestClassJarProcessor(className: "test/Example", interfaceName: "test/First")
+		def processor2 = new TestClassJarProcessor(className: "test/Example", interfaceName: "test/Second")
+		def manager = MinecraftJarProcessorManager.create([processor1, processor2], Mock(SpecContext))
+
+		when:
+		manager.processJar(jar, Mock(ProcessorContext))
+		def reader = new ClassReader(ZipUtils.unpack(jar, "test/Example.class"))
+
+		then:
+		reader.interfaces as List == ["test/First", "test/Second"]
+	}
 }
@@ -0,0 +1,113 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit.providers
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+import org.gradle.api.Project
+import spock.lang.Specification
+
+import net.fabricmc.loom.configuration.providers.minecraft.MinecraftJarConfiguration
+import net.fabricmc.loom.configuration.providers.minecraft.MinecraftProviderRegistry
+
+import static org.mockito.Mockito.spy
+
+class MinecraftProviderRegistryTest extends Specification {
+	def "computes each stage once"() {
+		given:
+		def registry = spy(MinecraftProviderRegistry.class)
+		def key = MinecraftProviderRegistry.Key.minecraft("1.20.4", MinecraftJarConfiguration.MERGED, false)
+		def count = new AtomicInteger()
+
+		when:
+		def first = registry.getOrCompute(key, "test", project(":a")) { "result-" + count.incrementAndGet() }
+		def second = registry.getOrCompute(key, "test", project(":b")) { "result-" + count.incrementAndGet() }
+		def other = registry.getOrCompute(key.withMappings("intermediary", "net.fabricmc:yarn:1"), "test", project(":b")) { "result-" + count.incrementAndGet() }
+
+		then:
+		first == "result-1"
+		second == "result-1"
+		other == "result-2"
+		registry.timings.collect { [it.projectPath(), it.shared()] } == [[":a", false], [":b", true], [":b", false]]
+	}
+
+	def "waits for a stage computed by another project"() {
+		given:
+		def registry = spy(MinecraftProviderRegistry.class)
+		def key = MinecraftProviderRegistry.Key.minecraft("1.20.4", MinecraftJarConfiguration.MERGED, false)
+		def started = new CountDownLatch(1)
+		def release = new CountDownLatch(1)
+		def executor = Executors.newFixedThreadPool(2)
+
+		when:
+		def future = executor.submit {
+			registry.getOrCompute(key, "test", project(":a")) {
+				started.countDown()
+				release.await()
+				"first"
+			}
+		}
+
+		started.await()
+		def waiting = executor.submit {
+			registry.getOrCompute(key, "test", project(":b")) { "second" }
+		}
+		release.countDown()
+
+		then:
+		future.get(10, TimeUnit.SECONDS) == "first"
+		waiting.get(10, TimeUnit.SECONDS) == "first"
+
+		cleanup:
+		executor.shutdown()
+	}
+
+	def "retries a failed stage"() {
+		given:
+		def registry = spy(MinecraftProviderRegistry.class)
+		def key = MinecraftProviderRegistry.Key.minecraft("1.20.4", MinecraftJarConfiguration.MERGED, false)
+
+		when:
+		registry.getOrCompute(key, "test", project(":a")) { throw new IOException("Failed") }
+
+		then:
+		thrown IOException
+
+		when:
+		def result = registry.getOrCompute(key, "test", project(":b")) { "result" }
+
+		then:
+		result == "result"
+	}
+
+	private Project project(String path) {
+		def project = Mock(Project)
+		project.getPath() >> path
+		return project
+	}
+}
@@ -0,0 +1,177 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit.providers
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.zip.ZipFile
+
+import org.objectweb.asm.ClassReader
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import org.objectweb.asm.tree.ClassNode
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.api.mappings.layered.MappingsNamespace
+import net.fabricmc.loom.configuration.providers.minecraft.MinecraftJar
+import net.fabricmc.loom.configuration.providers.minecraft.mapped.AbstractMappedMinecraftProvider
+import net.fabricmc.loom.util.Pair
+import net.fabricmc.loom.util.SidedClassVisitor
+import net.fabricmc.loom.util.ZipUtils
+import net.fabricmc.tinyremapper.IMappingProvider
+import net.fabricmc.tinyremapper.TinyRemapper
+
+class RemapMinecraftJarsTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	static final IMappingProvider MAPPINGS = { IMappingProvider.MappingAcceptor acceptor ->
+		acceptor.acceptClass("a", "net/minecraft/Base")
+		acceptor.acceptClass("b", "net/minecraft/client/Client")
+		acceptor.acceptMethod(new IMappingProvider.Member("a", "m", "()V"), "run")
+		acceptor.acceptField(new IMappingProvider.Member("a", "f", "I"), "value")
+	}
+
+	static final AbstractMappedMinecraftProvider.Remap.RemapperFactory REMAPPER_FACTORY = { MappingsNamespace sourceNamespace, builderConsumer ->
+		def builder = TinyRemapper.newRemapper().withMappings(MAPPINGS)
+		builderConsumer.accept(builder)
+		return builder.build()
+	}
+
+	def "remapping the jars together matches remapping each jar"() {
+		setup:
+		def commonInput = createJar("common", [
+			"a.class": createClass("a", "java/lang/Object"),
+			"data/common.txt": "common"
+		])
+		def clientInput = createJar("client", [
+			"b.class": createClass("b", "a"),
+			"assets/client.txt": "client"
+		])
+
+		def separate = remappedJars(commonInput, clientInput, "separate")
+		def together = remappedJars(commonInput, clientInput, "together")
+
+		when:
+		separate.each { AbstractMappedMinecraftProvider.Remap.remapJar(it, applyVisitors(separate).get(it), REMAPPER_FACTORY) }
+
+		def classOwners = AbstractMappedMinecraftProvider.Remap.getClassOwners(together)
+		AbstractMappedMinecraftProvider.Remap.remapJars(together, classOwners, applyVisitors(together), REMAPPER_FACTORY)
+
+		then:
+		classOwners == ["a": together[0], "b": together[1]]
+
+		readJar(together[0].outputJarPath()) == readJar(separate[0].outputJarPath())
+		readJar(together[1].outputJarPath()) == readJar(separate[1].outputJarPath())
+
+		readJar(together[0].outputJarPath()).keySet() == ["net/minecraft/Base.class", "data/common.txt"] as Set
+		readJar(together[1].outputJarPath()).keySet() == ["net/minecraft/client/Client.class", "assets/client.txt"] as Set
+
+		// The client only visitor is only applied to the classes from the client jar
+		def base = readClass(together[0].outputJarPath(), "net/minecraft/Base")
+		base.visibleAnnotations == null
+		base.methods*.name.contains("run")
+
+		def client = readClass(together[1].outputJarPath(), "net/minecraft/client/Client")
+		client.superName == "net/minecraft/Base"
+		client.visibleAnnotations*.desc == ["Lnet/fabricmc/api/Environment;"]
+		client.methods*.name.contains("run")
+	}
+
+	def "no class owners when a class is in more than one jar"() {
+		setup:
+		def commonInput = createJar("common", [
+			"a.class": createClass("a", "java/lang/Object")
+		])
+		def clientInput = createJar("client", [
+			"a.class": createClass("a", "java/lang/Object"),
+			"b.class": createClass("b", "a")
+		])
+
+		when:
+		def classOwners = AbstractMappedMinecraftProvider.Remap.getClassOwners(remappedJars(commonInput, clientInput, "output"))
+
+		then:
+		classOwners == null
+	}
+
+	private List<AbstractMappedMinecraftProvider.RemappedJars> remappedJars(Path commonInput, Path clientInput, String directory) {
+		def outputDir = Files.createDirectories(tempDir.resolve(directory))
+
+		return [
+			new AbstractMappedMinecraftProvider.RemappedJars(commonInput, new MinecraftJar.Common(outputDir.resolve("common.jar")), MappingsNamespace.OFFICIAL),
+			new AbstractMappedMinecraftProvider.RemappedJars(clientInput, new MinecraftJar.ClientOnly(outputDir.resolve("client.jar")), MappingsNamespace.OFFICIAL, commonInput)
+		]
+	}
+
+	private static Map<AbstractMappedMinecraftProvider.RemappedJars, TinyRemapper.ApplyVisitorProvider> applyVisitors(List<AbstractMappedMinecraftProvider.RemappedJars> remappedJars) {
+		return [(remappedJars[1]): SidedClassVisitor.CLIENT]
+	}
+
+	private Path createJar(String name, Map<String, Object> entries) {
+		def jar = tempDir.resolve("${name}.jar")
+		ZipUtils.add(jar, entries.collect { new Pair<>(it.key, it.value instanceof byte[] ? it.value : it.value.toString().bytes) })
+		return jar
+	}
+
+	// A class with a field and a method using it, subclasses override the method
+	private static byte[] createClass(String name, String superName) {
+		def writer = new ClassWriter(0)
+		writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, name, null, superName, null)
+
+		if (superName == "java/lang/Object") {
+			writer.visitField(Opcodes.ACC_PUBLIC, "f", "I", null, null).visitEnd()
+		}
+
+		def method = writer.visitMethod(Opcodes.ACC_PUBLIC, "m", "()V", null, null)
+		method.visitCode()
+		method.visitVarInsn(Opcodes.ALOAD, 0)
+		method.visitInsn(Opcodes.ICONST_1)
+		method.visitFieldInsn(Opcodes.PUTFIELD, name, "f", "I")
+		method.visitInsn(Opcodes.RETURN)
+		method.visitMaxs(2, 1)
+		method.visitEnd()
+
+		writer.visitEnd()
+		return writer.toByteArray()
+	}
+
+	private static Map<String, List<Byte>> readJar(Path jar) {
+		def zipFile = new ZipFile(jar.toFile())
+
+		try {
+			return zipFile.entries().findAll { !it.directory }.collectEntries { [it.name, zipFile.getInputStream(it).bytes.toList()] }
+		} finally {
+			zipFile.close()
+		}
+	}
+
+	private static ClassNode readClass(Path jar, String name) {
+		def node = new ClassNode()
+		new ClassReader(ZipUtils.unpack(jar, name + ".class")).accept(node, 0)
+		return node
+	}
+}
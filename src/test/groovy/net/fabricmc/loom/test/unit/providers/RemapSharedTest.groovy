@@ -0,0 +1,132 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit.providers
+
+import java.nio.file.Path
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CyclicBarrier
+import java.util.concurrent.TimeUnit
+
+import spock.lang.Specification
+
+import net.fabricmc.loom.configuration.CompileConfiguration
+import net.fabricmc.loom.configuration.providers.minecraft.MinecraftJar
+import net.fabricmc.loom.configuration.providers.minecraft.MinecraftJarConfiguration
+import net.fabricmc.loom.configuration.providers.minecraft.MinecraftProviderRegistry
+
+import static org.mockito.Mockito.spy
+
+class RemapSharedTest extends Specification {
+	static final long GIB = 1024L * 1024 * 1024
+
+	def key = MinecraftProviderRegistry.Key.minecraft("1.20.4", MinecraftJarConfiguration.MERGED, false)
+
+	def "remaps concurrently"() {
+		given:
+		def registry = spy(MinecraftProviderRegistry.class)
+		// Neither stage can finish until both are running
+		def barrier = new CyclicBarrier(2)
+		def threads = new CopyOnWriteArrayList<Thread>()
+
+		when:
+		CompileConfiguration.remapShared(registry, key, ":", [
+			"intermediary minecraft": stage("intermediary") { threads << Thread.currentThread(); barrier.await(10, TimeUnit.SECONDS) },
+			"named minecraft": stage("named") { threads << Thread.currentThread(); barrier.await(10, TimeUnit.SECONDS) }
+		], true)
+
+		then:
+		threads.size() == 2
+		!threads.contains(Thread.currentThread())
+		registry.timings*.stage().toSet() == ["intermediary minecraft", "named minecraft"] as Set
+		registry.getOrCompute(key, "named minecraft", ":") { throw new AssertionError() }*.path == [Path.of("named.jar")]
+	}
+
+	def "remaps sequentially"() {
+		given:
+		def registry = spy(MinecraftProviderRegistry.class)
+		def threads = []
+
+		when:
+		CompileConfiguration.remapShared(registry, key, ":", [
+			"intermediary minecraft": stage("intermediary") { threads << Thread.currentThread() },
+			"named minecraft": stage("named") { threads << Thread.currentThread() }
+		], false)
+
+		then:
+		threads == [Thread.currentThread(), Thread.currentThread()]
+		registry.timings*.stage() == ["intermediary minecraft", "named minecraft"]
+		registry.getOrCompute(key, "named minecraft", ":") { throw new AssertionError() }*.path == [Path.of("named.jar")]
+	}
+
+	def "a single remap is not run on another thread"() {
+		given:
+		def registry = spy(MinecraftProviderRegistry.class)
+		def threads = []
+
+		when:
+		CompileConfiguration.remapShared(registry, key, ":", [
+			"intermediary minecraft": stage("intermediary") { threads << Thread.currentThread() }
+		], true)
+
+		then:
+		threads == [Thread.currentThread()]
+	}
+
+	def "concurrent remap failure"() {
+		given:
+		def registry = spy(MinecraftProviderRegistry.class)
+
+		when:
+		CompileConfiguration.remapShared(registry, key, ":", [
+			"intermediary minecraft": stage("intermediary") { },
+			"named minecraft": stage("named") { throw new IOException("broken jar") }
+		], true)
+
+		then:
+		def e = thrown(RuntimeException)
+		e.message == "Failed to remap minecraft, java.io.IOException: broken jar"
+	}
+
+	def "only remaps concurrently with enough memory"() {
+		expect:
+		CompileConfiguration.canRemapConcurrently(maxMemory, disabled) == concurrent
+
+		where:
+		maxMemory         | disabled || concurrent
+		1 * GIB           | false    || false
+		2 * GIB - 1       | false    || false
+		2 * GIB           | false    || true
+		8 * GIB           | false    || true
+		8 * GIB           | true     || false
+		Long.MAX_VALUE    | true     || false
+	}
+
+	private static MinecraftProviderRegistry.Stage<List<MinecraftJar>> stage(String name, Closure<?> action) {
+		return {
+			action.call()
+			return [new MinecraftJar.Merged(Path.of("${name}.jar"))]
+		} as MinecraftProviderRegistry.Stage<List<MinecraftJar>>
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package net.fabricmc.loom.test.util.processor
+
+import java.nio.file.Path
+
+import groovy.transform.Immutable
+import org.objectweb.asm.ClassVisitor
+
+import net.fabricmc.loom.api.processor.MinecraftJarProcessor
+import net.fabricmc.loom.api.processor.ProcessorContext
+import net.fabricmc.loom.api.processor.SpecContext
+import net.fabricmc.loom.util.Constants
+
+/**
+ * Adds an interface to a class using a {@link MinecraftJarProcessor.ClassProcessor}.
+ */
+@Immutable
+class TestClassJarProcessor implements MinecraftJarProcessor<Spec> {
+	String className
+	String interfaceName
+
+	final String name = "TestClassProcessor"
+
+	@Override
+	Spec buildSpec(SpecContext context) {
+		return new Spec(className, interfaceName)
+	}
+
+	@Immutable
+	class Spec implements MinecraftJarProcessor.Spec {
+		String className
+		String interfaceName
+	}
+
+	@Override
+	void processJar(Path jar, Spec spec, ProcessorContext context) throws IOException {
+		throw new IllegalStateException("Class processors should not be processed as a jar")
+	}
+
+	@Override
+	MinecraftJarProcessor.ClassProcessor<Spec> processClasses() {
+		return { Spec spec, ProcessorContext context ->
+			[(spec.className): { ClassVisitor classVisitor ->
+					new ClassVisitor(Constants.ASM_VERSION, classVisitor) {
+						@Override
+						void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+							super.visit(version, access, name, signature, superName, (interfaces + spec.interfaceName) as String[])
+						}
+					}
+				} as MinecraftJarProcessor.ClassVisitorFactory]
+		} as MinecraftJarProcessor.ClassProcessor
+	}
+}
@@ -50,6 +50,11 @@ class TestMinecraftJarProcessor implements MinecraftJarProcessor<Spec> {
 	@Immutable
 	class Spec implements MinecraftJarProcessor.Spec {
 		String input
+
+		@Override
+		String getCacheKey() {
+			return input
+		}
 	}
 
 	@Override